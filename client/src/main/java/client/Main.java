@@ -32,6 +32,7 @@ import client.scenes.single.question.ConsumptionQuestionScreenCtrl;
 import client.scenes.single.question.GuessQuestionScreenCtrl;
 import client.scenes.single.question.InsteadQuestionScreenCtrl;
 import client.scenes.single.question.MoreExpensiveQuestionScreenCtrl;
+import client.utils.HttpClientUtils;
 import com.google.inject.Injector;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -112,4 +113,12 @@ public class Main extends Application {
         var multiCtrl = INJECTOR.getInstance(MultiplayerCtrl.class);
         multiCtrl.initialize(consumptionMulti, guessMulti, insteadMulti, moreExpensiveMulti, mockMulti, leaderboard);
     }
-}
\ No newline at end of file
+
+    /**
+     * Closes the HTTP client, together with its connections, once the application exits.
+     */
+    @Override
+    public void stop() {
+        INJECTOR.getInstance(HttpClientUtils.class).close();
+    }
+}
@@ -73,6 +73,7 @@ public class MyModule implements Module {
         binder.bind(MultiGameMockScreenCtrl.class).in(Scopes.SINGLETON);
 
         binder.bind(ActivityImageUtils.class).in(Scopes.SINGLETON);
+        binder.bind(HttpClientUtils.class).in(Scopes.SINGLETON);
         binder.bind(ServerUtils.class).in(Scopes.SINGLETON);
         binder.bind(InputPreloadUtils.class).in(Scopes.SINGLETON);
 
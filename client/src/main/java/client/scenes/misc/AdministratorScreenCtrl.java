@@ -6,7 +6,10 @@ import client.utils.ServerUtils;
 import com.google.inject.Inject;
 import javafx.fxml.FXML;
 import commons.misc.Activity;
+import commons.misc.ActivityBankImport;
+import commons.misc.ImageVariant;
 import jakarta.ws.rs.BadRequestException;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -137,9 +140,9 @@ public class AdministratorScreenCtrl {
     public void importActivities(File selectedFile) {
         importProgressBar.progressProperty().bind(activityLoaderService.progressProperty());
         activityLoaderService.setOnSucceeded(event -> {
-            List<Activity> loadedActivities = activityLoaderService.getValue();
+            ActivityBankImport imported = activityLoaderService.getValue();
             setDescription(
-                    "You have imported " + loadedActivities.size() + " activities from " + selectedFile.getName()
+                    "You have imported " + imported.getActivities() + " activities from " + selectedFile.getName()
             );
             fillTable();
 
@@ -232,8 +235,13 @@ public class AdministratorScreenCtrl {
         activityImage.setCellValueFactory(param -> {
             Activity activity = param.getValue();
             long key = activity.getKey();
-            Image image = activityImageUtils.getActivityImage(key);
-            ImageView imageView = new ImageView(image);
+            ImageView imageView = new ImageView();
+            // Loaded in the background, so scrolling through the table does not wait for the images
+            activityImageUtils.getActivityImageAsync(key, ImageVariant.THUMBNAIL).thenAcceptAsync(image -> {
+                if (imageView.getImage() == null) {
+                    imageView.setImage(image);
+                }
+            }, Platform::runLater);
             Button button = new Button();
             button.setGraphic(imageView);
             imageView.setFitHeight(50);
@@ -267,8 +267,8 @@ public class MainCtrl {
     public void showQueue(QueueUser user, String serverAddress) {
         primaryStage.setTitle("Quizzz: Queue");
         primaryStage.setScene(queue);
-        queueCtrl.getPollingService().start();
         queueCtrl.setUser(user);
+        queueCtrl.getPollingService().start();
         queueCtrl.setServerAddress(serverAddress);
         queueCtrl.resetScene();
         resetDefaultOnCloseRequest();
@@ -95,6 +95,26 @@ public class MultiplayerCtrl {
     private Image angry;
     private Image crying;
 
+    /*
+    Most recent chat messages fetched from the server, from old to new, as many as the largest chat shows.
+    The sequence number of the newest one is the cursor from which the next messages are fetched.
+     */
+    private final LinkedList<ChatMessage> chatMessages = new LinkedList<>();
+    private long chatCursor;
+    private boolean fetchingChat;
+
+    /*
+    Sequence number of the newest message shown, and the chat it is shown in.
+     */
+    private long shownChatSequence = -1;
+    private List<Node> shownChatParts;
+
+    /*
+    Last state the scene was switched for. Its round and question stay the same until the next
+    switch, so clicks are handled with it instead of fetching the state again.
+     */
+    private MultiPlayerState shownState;
+
     private final ChangeListener<MultiPlayerState> onPoll = (observable, oldValue, newValue) -> {
         // If state has changed, we probably have to switch scenes
         if (newValue != null && (oldValue == null || !newValue.getState().equals(oldValue.getState()))) {
@@ -107,13 +127,8 @@ public class MultiplayerCtrl {
         }
         // If state has changed, perhaps some new messages have been "registered".
         if (newValue != null) {
-            List<ChatMessage> chatMessages = newValue.getChatMessageList();
-            if (newValue.getState().equals(MultiPlayerState.QUESTION_STATE)) {
-                updateMessagesQuestion(chatMessages);
-            } else if (newValue.getState().equals(MultiPlayerState.LEADERBOARD_STATE) ||
-                newValue.getState().equals(MultiPlayerState.GAME_OVER_STATE)) {
-                updateMessagesLeaderboard(chatMessages);
-            }
+            fetchChat(newValue);
+            showChat(newValue);
         }
     };
 
@@ -210,6 +225,10 @@ public class MultiplayerCtrl {
     public void start(long gameId, String username) {
         this.gameId = gameId;
         this.username = username;
+        chatMessages.clear();
+        chatCursor = 0;
+        fetchingChat = false;
+        shownChatSequence = -1;
 
         serverUtils.addMultiPlayer(gameId, new MultiPlayer(username, 0, true, true, true));
         pollingService.start(gameId);
@@ -269,6 +288,7 @@ public class MultiplayerCtrl {
      * @param game Up-to-date state of the game.
      */
     private void switchState(MultiPlayerState game) {
+        shownState = game;
         switch (game.getState()) {
             case MultiPlayerState.QUESTION_STATE:
                 switchToQuestion(game);
@@ -506,10 +526,10 @@ public class MultiplayerCtrl {
      */
     public void submitAnswer(String chosenAnswer) {
         lastSubmittedAnswer = chosenAnswer.substring(0, chosenAnswer.length() - 2);
-        serverUtils.postAnswerMultiplayer(new GameResponse(
+        serverUtils.postAnswerMultiplayerAsync(new GameResponse(
                 gameId,
                 new Date().getTime() + negativeTimeAccumulated,
-                (int) getRoundNumber(serverUtils.getMultiGameState(gameId)),
+                (int) getRoundNumber(shownState),
                 username,
                 lastSubmittedAnswer
         ));
@@ -726,7 +746,7 @@ public class MultiplayerCtrl {
      *                  emoji submitted.
      */
     private void postReaction(String emoji) {
-        serverUtils.addReaction(gameId,
+        serverUtils.addReactionAsync(gameId,
                 new ChatMessage(username, emoji));
     }
 
@@ -759,7 +779,7 @@ public class MultiplayerCtrl {
      */
     private void postJoker(String joker) {
         if (!"removeIncorrect".equals(joker) || !(currentScreenCtrl instanceof MultiGameGuessQuestionScreenCtrl)) {
-            serverUtils.addJoker(gameId,
+            serverUtils.addJokerAsync(gameId,
                     new ChatMessage(username, joker));
             if ("removeIncorrect".equals(joker)) {
                 removeIncorrect();
@@ -770,6 +790,68 @@ public class MultiplayerCtrl {
 
 
 
+    /**
+     * Fetch the chat messages the client does not have yet, if the game has any.
+     * <p>
+     * Only one fetch runs at a time. Once it completes, the chat is shown again, and the next
+     * messages are fetched if more were sent in the meantime.
+     *
+     * @param game  Last state of the game, carrying the sequence number of its last message.
+     */
+    private void fetchChat(MultiPlayerState game) {
+        if (fetchingChat || game.getChatSequence() <= chatCursor) {
+            return;
+        }
+        fetchingChat = true;
+        long fetchedGameId = gameId;
+        serverUtils.getChatMessagesAsync(gameId, chatCursor).whenComplete((messages, error) -> {
+            if (fetchedGameId != gameId) {
+                return;
+            }
+            fetchingChat = false;
+            if (error != null) {
+                return;
+            }
+            addChatMessages(messages);
+            MultiPlayerState current = pollingService.getValue();
+            if (current != null) {
+                fetchChat(current);
+                showChat(current);
+            }
+        });
+    }
+
+    /**
+     * Add fetched messages to the most recent ones, skipping any the client already has.
+     *
+     * @param messages  Messages after the cursor, from old to new.
+     */
+    private void addChatMessages(List<ChatMessage> messages) {
+        for (ChatMessage message : messages) {
+            if (message.getSequence() > chatCursor) {
+                chatMessages.addLast(message);
+                chatCursor = message.getSequence();
+            }
+        }
+        while (chatMessages.size() > messagesLeaderboard) {
+            chatMessages.removeFirst();
+        }
+    }
+
+    /**
+     * Show the most recent chat messages on the screen of the current state, if it has a chat.
+     *
+     * @param game  Current state of the game.
+     */
+    private void showChat(MultiPlayerState game) {
+        if (game.getState().equals(MultiPlayerState.QUESTION_STATE)) {
+            updateMessagesQuestion(chatMessages);
+        } else if (game.getState().equals(MultiPlayerState.LEADERBOARD_STATE) ||
+            game.getState().equals(MultiPlayerState.GAME_OVER_STATE)) {
+            updateMessagesLeaderboard(chatMessages);
+        }
+    }
+
     /**
      * Method to be called when a change in the messages is registered during QUESTION_STATE.
      *
@@ -801,8 +883,9 @@ public class MultiplayerCtrl {
      *                              question and leaderboard screen.
      */
     private void updateChat(List<ChatMessage> chatMessageList, List<Node> messagesParts, int messagesNumber) {
-        ArrayList<ChatMessage> chatMessages = new ArrayList<>(chatMessageList);
-        Collections.reverse(chatMessages);
+        if (isChatShown(chatMessageList, messagesParts)) {
+            return;
+        }
 
         /*
         In the GridPane `reaction`, Labels and ImageViews are taking turns.
@@ -811,7 +894,9 @@ public class MultiplayerCtrl {
          */
         int currentMessageLabelIndex = 0;
         int currentMessageImageIndex = 1;
-        for (ChatMessage chatMessage : chatMessages) {
+        // The newest message is shown first, so the list is walked from its end.
+        for (int i = chatMessageList.size() - 1; i >= 0; i--) {
+            ChatMessage chatMessage = chatMessageList.get(i);
             Label currentReactionLabel = (Label) messagesParts.get(currentMessageLabelIndex);
             ImageView currentReactionImage = (ImageView) messagesParts.get(currentMessageImageIndex);
             String username = chatMessage.getUsername();
@@ -848,6 +933,26 @@ public class MultiplayerCtrl {
         }
     }
 
+    /**
+     * Check whether the newest of the given messages is already shown in the chat,
+     * and remember it as shown otherwise.
+     * The chat is shown on every change of the game, so most of the time there is no new message.
+     *
+     * @param chatMessageList   List of the most recent ChatMessage instances, from old to new.
+     * @param messagesParts     List of Node instances of the chat to show the messages in.
+     * @return true iff no message was added since the chat was last updated.
+     */
+    private boolean isChatShown(List<ChatMessage> chatMessageList, List<Node> messagesParts) {
+        long lastSequence = chatMessageList.isEmpty()
+                ? 0 : chatMessageList.get(chatMessageList.size() - 1).getSequence();
+        if (messagesParts == shownChatParts && lastSequence == shownChatSequence) {
+            return true;
+        }
+        shownChatParts = messagesParts;
+        shownChatSequence = lastSequence;
+        return false;
+    }
+
     /**
      * Method to visualize a particular reaction chat message.
      * Extracts functionality out and avoid code duplication.
@@ -924,7 +1029,7 @@ public class MultiplayerCtrl {
      * Removes a "random" incorrect answer - the first one it finds is different from the actual one.
      */
     private void removeIncorrect() {
-        MultiPlayerState game = serverUtils.getMultiGameState(gameId);
+        MultiPlayerState game = shownState;
         AbstractQuestion currentQuestion = game.getQuestionList().get(game.getRoundNumber());
         List<Button> answerChoices = currentScreenCtrl.getAnswerButtons();
         /*
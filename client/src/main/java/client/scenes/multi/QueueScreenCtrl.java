@@ -106,7 +106,7 @@ public class QueueScreenCtrl {
      * countdown, disables the button and starts the countdown.
      */
     public void startGame() {
-        server.startMultiplayerGame();
+        server.startMultiplayerGame(user.getLobby());
         startButton.setDisable(true);
         startLabel.setVisible(true);
         gameStarting.set(true);
@@ -203,11 +203,15 @@ public class QueueScreenCtrl {
 
     /**
      * Setter for the QueueUser instance (for this client) inside the queue.
+     * <p>
+     * The services follow the lobby the user joined from their next start on.
      *
      * @param user QueueUser that just joined the queue
      */
     public void setUser(QueueUser user) {
         this.user = user;
+        pollingService.setLobby(user.getLobby());
+        countdownService.setLobby(user.getLobby());
     }
 
     /**
@@ -246,8 +250,11 @@ public class QueueScreenCtrl {
             Node node = iterator.next();
             if (node instanceof Label) {
                 Label label = (Label) node;
-                QueueUser potentialLeaver = new QueueUser(label.getText());
-                if (!users.contains(potentialLeaver)) {
+                // Users are compared by username, as the users of the server also hold their lobby
+                QueueUser potentialLeaver = users.stream()
+                        .filter(queueUser -> queueUser.getUsername().equals(label.getText()))
+                        .findAny().orElse(null);
+                if (potentialLeaver == null) {
                     iterator.remove();
                 } else {
                     alreadyUsers.add(potentialLeaver);
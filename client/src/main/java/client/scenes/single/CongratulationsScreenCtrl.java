@@ -11,8 +11,6 @@ import javafx.scene.paint.Paint;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Text;
 
-import java.util.List;
-
 /**
  *
  */
@@ -191,12 +189,6 @@ public class CongratulationsScreenCtrl {
         points.setText(String.valueOf(score));
         server.postLeaderboardEntry(player);
 
-        var place = 1;
-
-        List<SinglePlayerLeaderboardScore> leaderboardScores = server.getLeaderboardEntries();
-        while (leaderboardScores.get(place - 1).getScore() > score) {
-            place ++;
-        }
-        position.setText("" + place + "");
+        position.setText("" + server.getLeaderboardRank(score).getRank() + "");
     }
 }
@@ -14,8 +14,6 @@ import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -23,6 +21,11 @@ import java.util.List;
  */
 public class PrepScreenCtrl {
 
+    /**
+     * Number of top entries of the leaderboard shown.
+     */
+    private static final int LEADERBOARD_SIZE = 100;
+
     private final ServerUtils server;
     private final MainCtrl mainCtrl;
 
@@ -55,7 +58,7 @@ public class PrepScreenCtrl {
      * Calls fillLeaderboard(), which populates leaderboard + makes used labels visible.
      */
     public void setUp() {
-        List<SinglePlayerLeaderboardScore> players = server.getLeaderboardEntries();
+        List<SinglePlayerLeaderboardScore> players = server.getLeaderboardEntries(LEADERBOARD_SIZE);
         fillLeaderboard(players);
     }
 
@@ -101,17 +104,13 @@ public class PrepScreenCtrl {
      * <p>
      * Displays (setVisible(true)) the labels that are filled.
      *
-     * @param entries the list of entries.
+     * @param entries the list of entries, already sorted by the server.
      */
     private void fillLeaderboard(List<SinglePlayerLeaderboardScore> entries) {
-        List<SinglePlayerLeaderboardScore> sorted = new ArrayList<>(entries);
-        Collections.sort(sorted);
-        Collections.reverse(sorted);
-
         leaderboard.getChildren().clear();
 
         int position = 1;
-        for (SinglePlayerLeaderboardScore entry : sorted) {
+        for (SinglePlayerLeaderboardScore entry : entries) {
             GridPane gridPane = new GridPane();
             gridPane.setPrefWidth(leaderboard.getPrefWidth());
 
@@ -128,7 +128,7 @@ public class ConsumptionQuestionScreenCtrl extends QuestionScreen {
      */
     public void submitAnswer(String chosenAnswer) {
         SinglePlayerState singlePlayerState = singlePlayerUtils.getSinglePlayerState();
-        server.postAnswer(new GameResponse(
+        server.postAnswerAsync(new GameResponse(
                 singlePlayerState.getId(),
                 new Date().getTime(),
                 singlePlayerState.getRoundNumber(),
@@ -193,7 +193,7 @@ public class MoreExpensiveQuestionScreenCtrl extends QuestionScreen {
      */
     public void submitAnswer(String chosenAnswer) {
         SinglePlayerState singlePlayerState = singlePlayerUtils.getSinglePlayerState();
-        server.postAnswer(new GameResponse(
+        server.postAnswerAsync(new GameResponse(
                 singlePlayerState.getId(),
                 new Date().getTime(),
                 singlePlayerState.getRoundNumber(),
@@ -2,23 +2,26 @@ package client.services;
 
 import client.utils.ActivityImageUtils;
 import client.utils.ServerUtils;
-import commons.misc.Activity;
-import jakarta.ws.rs.NotFoundException;
+import commons.misc.ActivityBankImport;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
 
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Service responsible for loading activities.
  */
-public class ActivityLoaderService extends Service<List<Activity>> {
+public class ActivityLoaderService extends Service<ActivityBankImport> {
     private final ServerUtils server;
     private final ActivityImageUtils activityImageUtils;
 
@@ -28,7 +31,7 @@ public class ActivityLoaderService extends Service<List<Activity>> {
      * Constructor for ActivityLoaderService.
      *
      * @param server             ServerUtils instance for adding the activities.
-     * @param activityImageUtils ActivityImageUtils instance for adding images for activities.
+     * @param activityImageUtils ActivityImageUtils instance for finding the images of the activities.
      */
     @Inject
     public ActivityLoaderService(ServerUtils server, ActivityImageUtils activityImageUtils) {
@@ -46,28 +49,17 @@ public class ActivityLoaderService extends Service<List<Activity>> {
         super.start();
     }
 
-    /**
-     * Stringifies the contents of the file.
-     *
-     * @param selectedFile the file selected by the user
-     * @return String of the contents of the file.
-     * @throws IOException IO Exception that's being thrown
-     */
-    public String extractFile(File selectedFile) throws IOException {
-        return Files.readString(selectedFile.toPath());
-    }
-
     /**
      * Invoked after the Service is started on the JavaFX Application Thread.
      *
      * @return the Task to execute
      */
     @Override
-    protected Task<List<Activity>> createTask() {
+    protected Task<ActivityBankImport> createTask() {
         return new ActivityLoaderTask(selectedFile);
     }
 
-    private class ActivityLoaderTask extends Task<List<Activity>> {
+    private class ActivityLoaderTask extends Task<ActivityBankImport> {
         private final File selectedFile;
 
         /**
@@ -80,40 +72,52 @@ public class ActivityLoaderService extends Service<List<Activity>> {
         }
 
         @Override
-        protected List<Activity> call() throws IOException {
-            String fileContents = extractFile(selectedFile);
+        protected ActivityBankImport call() {
+            Path jsonPath = selectedFile.toPath().toAbsolutePath();
+            Path bankFolder = jsonPath.getParent();
+
+            List<Path> files = new ArrayList<>();
+            files.add(jsonPath);
+            for (String imagePath : activityImageUtils.getAllImagePaths(jsonPath.toString())) {
+                if (!imagePath.endsWith(".json")) {
+                    files.add(Path.of(imagePath).toAbsolutePath());
+                }
+            }
 
-            List<Activity> importedActivities = server.importActivities(fileContents);
-            ArrayList<Activity> loadedActivities = new ArrayList<>(importedActivities);
+            long maxProgress = files.size() + 1;
+            updateProgress(0, maxProgress);
+            ActivityBankImport imported = server.importActivityBank(
+                    output -> writeArchive(files, bankFolder, output, maxProgress));
+            updateProgress(maxProgress, maxProgress);
+            return imported;
+        }
 
-            long maxProgress = importedActivities.size() + 3;
+        /**
+         * Write the activity bank as a zip archive, updating the progress after every file.
+         * <p>
+         * The server processes the archive while it is being sent, so the progress of writing
+         * is the progress of the import.
+         *
+         * @param files       JSON file of the activities, followed by the images.
+         * @param bankFolder  Folder of the activity bank, the names in the archive are relative to it.
+         * @param output      Stream of the request.
+         * @param maxProgress Total amount of work of the task.
+         * @throws IOException If a file could not be read, or the request could not be written.
+         */
+        private void writeArchive(List<Path> files, Path bankFolder, OutputStream output, long maxProgress)
+                throws IOException {
+            ZipOutputStream zip = new ZipOutputStream(output);
             long workDone = 0;
-            updateProgress(workDone++, maxProgress);
-
-            String selectedFilePath = selectedFile.getPath();
-
-            List<String> imagePaths = activityImageUtils.getAllImagePaths(selectedFilePath);
-            updateProgress(workDone++, maxProgress);
-
-            Map<String, Long> idKeyMap = activityImageUtils.listToMap(importedActivities);
-            updateProgress(workDone++, maxProgress);
-
-            for (String imagePath : imagePaths) {
-                String id = activityImageUtils.getActivityId(imagePath);
-                String imageBase64 = activityImageUtils.getImageBase64(imagePath);
-
-                if (idKeyMap.containsKey(id)) {
-                    long key = idKeyMap.get(id);
-                    try {
-                        activityImageUtils.addActivityImage(key, imageBase64);
-                    } catch (NotFoundException ignored) {
-                        // Skip if something goes wrong
-                    }
-                }
-                updateProgress(workDone++, maxProgress);
+            for (Path file : files) {
+                // The images are compressed already, only the JSON file is worth compressing.
+                zip.setLevel(workDone == 0 ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+                String name = bankFolder.relativize(file).toString().replace(File.separatorChar, '/');
+                zip.putNextEntry(new ZipEntry(name));
+                Files.copy(file, zip);
+                zip.closeEntry();
+                updateProgress(++workDone, maxProgress);
             }
-
-            return loadedActivities;
+            zip.finish();
         }
     }
 }
@@ -1,5 +1,6 @@
 package client.services;
 
+import client.utils.PollingSchedule;
 import client.utils.ServerUtils;
 import commons.multi.MultiPlayerState;
 import javafx.concurrent.Service;
@@ -8,10 +9,11 @@ import javafx.concurrent.Task;
 import javax.inject.Inject;
 
 /**
- * Service responsible for repeatedly polling the game state.
+ * Service responsible for following the game state.
  * <p>
  * The task of this class will continuously update its temporary value to the
- * current state of the ongoing game.
+ * current state of the ongoing game. Changes are pushed by the server as they happen,
+ * with polling as a fallback.
  */
 public class MultiplayerGameStatePollingService extends Service<MultiPlayerState> {
 
@@ -60,17 +62,9 @@ public class MultiplayerGameStatePollingService extends Service<MultiPlayerState
         return new Task<MultiPlayerState>() {
             @Override
             protected MultiPlayerState call() {
-                MultiPlayerState state;
-                while (true) {
-                    state = poll();
-                    updateValue(state);
-                    try {
-                        Thread.sleep(500);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-                return state;
+                return server.followState("/api/multi/" + gameId + "/stream", MultiPlayerState.class,
+                        MultiplayerGameStatePollingService.this::poll, PollingSchedule.forMultiGame(),
+                        this::updateValue);
             }
         };
     }
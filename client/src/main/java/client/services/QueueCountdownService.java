@@ -17,7 +17,7 @@ import java.util.Date;
 /**
  * Responsible for the countdown in the queue.
  * <p>
- * When started, this service will query the server for the queue state, and get
+ * When started, this service will query the server for the state of the lobby, and get
  * the milliseconds until the game starts. It will then correct any offset, so
  * the countdown will always end precisely when the game starts.
  * <p>
@@ -38,6 +38,8 @@ public class QueueCountdownService extends Service<Long> {
     private final Timeline timeline;
     private final LongProperty count;
 
+    private String lobby;
+
     /**
      * Constructor for the QueueCountdownService.
      * <p>
@@ -55,6 +57,15 @@ public class QueueCountdownService extends Service<Long> {
         timeline = new Timeline(keyFrame);
     }
 
+    /**
+     * Setter for the lobby whose countdown is followed, which is used from the next start on.
+     *
+     * @param lobby Name of the lobby.
+     */
+    public void setLobby(String lobby) {
+        this.lobby = lobby;
+    }
+
     /**
      * Stops the service and the associated timeline.
      */
@@ -71,10 +82,11 @@ public class QueueCountdownService extends Service<Long> {
      */
     @Override
     protected Task<Long> createTask() {
+        String followed = lobby;
         return new Task<Long>() {
             @Override
             protected Long call() {
-                QueueState queueState = server.getQueueState();
+                QueueState queueState = server.getQueueState(followed);
                 long msToStart = queueState.getStartTimeInMs() - new Date().getTime();
 
                 getCount().set(3000);
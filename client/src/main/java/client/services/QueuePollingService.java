@@ -1,5 +1,6 @@
 package client.services;
 
+import client.utils.PollingSchedule;
 import client.utils.ServerUtils;
 import commons.queue.QueueState;
 import javafx.concurrent.Service;
@@ -8,7 +9,8 @@ import javafx.concurrent.Task;
 import javax.inject.Inject;
 
 /**
- * Service responsible for repeatedly polling the queue.
+ * Service responsible for following the state of the lobby of the user.
+ * Changes are pushed by the server as they happen, with polling as a fallback.
  *
  * The task created by this service never terminates on its own.
  * It must be terminated by external method, preferably using stop().
@@ -20,6 +22,8 @@ public class QueuePollingService extends Service<QueueState> {
 
     private final ServerUtils server;
 
+    private String lobby;
+
     /**
      * Constructor for QueuePollingService.
      *
@@ -30,6 +34,15 @@ public class QueuePollingService extends Service<QueueState> {
         this.server = server;
     }
 
+    /**
+     * Setter for the lobby to follow, which is used from the next start on.
+     *
+     * @param lobby Name of the lobby.
+     */
+    public void setLobby(String lobby) {
+        this.lobby = lobby;
+    }
+
     /**
      * Stops the service and allows it to be started again.
      */
@@ -39,28 +52,19 @@ public class QueuePollingService extends Service<QueueState> {
     }
 
     /**
-     * Creates a task which continuously polls the server for the list of
+     * Creates a task which continuously follows the list of
      * players in the queue.
      *
      * @return Queue polling task
      */
     @Override
     protected Task<QueueState> createTask() {
+        String followed = lobby;
         return new Task<QueueState>() {
             @Override
             protected QueueState call() throws Exception {
-                QueueState queueState;
-                while (true) {
-                    queueState = server.getQueueState();
-                    updateValue(queueState);
-                    try {
-                        //noinspection BusyWait
-                        Thread.sleep(500);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-                return queueState;
+                return server.followState(ServerUtils.lobbyPath(followed) + "/stream", QueueState.class,
+                        () -> server.getQueueState(followed), PollingSchedule.forQueue(), this::updateValue);
             }
         };
     }
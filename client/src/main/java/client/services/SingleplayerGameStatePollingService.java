@@ -1,5 +1,6 @@
 package client.services;
 
+import client.utils.PollingSchedule;
 import client.utils.ServerUtils;
 import commons.misc.GameState;
 import commons.single.SinglePlayerState;
@@ -9,10 +10,11 @@ import javafx.concurrent.Task;
 import javax.inject.Inject;
 
 /**
- * Service responsible for repeatedly polling the game state.
+ * Service responsible for following the game state.
  *
  * The task of this class will continuously update its temporary value to the
- * current state of the ongoing game.
+ * current state of the ongoing game. Changes are pushed by the server as they happen,
+ * with polling as a fallback.
  */
 public class SingleplayerGameStatePollingService extends Service<GameState> {
 
@@ -38,8 +40,8 @@ public class SingleplayerGameStatePollingService extends Service<GameState> {
     }
 
     /**
-     * Creates a task which "constantly" polls the server for the
-     * current state of the ongoing game.
+     * Creates a task which "constantly" follows the
+     * current state of the ongoing game, as pushed by the server.
      *
      * @return GameState polling task
      */
@@ -48,17 +50,9 @@ public class SingleplayerGameStatePollingService extends Service<GameState> {
         return new Task<GameState>() {
             @Override
             protected GameState call() throws Exception {
-                GameState gameState;
-                while (true) {
-                    gameState = server.getSoloGameState(singlePlayerState.getId());
-                    updateValue(gameState);
-                    try {
-                        Thread.sleep(500);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-                return gameState;
+                long id = singlePlayerState.getId();
+                return server.followState("/api/solo/" + id + "/stream", GameState.class,
+                        () -> server.getSoloGameState(id), PollingSchedule.forGame(), this::updateValue);
             }
         };
     }
@@ -2,7 +2,14 @@ package client.utils;
 
 import commons.misc.Activity;
 import commons.misc.ActivityImageMessage;
-import jakarta.ws.rs.NotFoundException;
+import commons.misc.ImageVariant;
+import commons.question.AbstractQuestion;
+import commons.question.ConsumptionQuestion;
+import commons.question.GuessQuestion;
+import commons.question.InsteadQuestion;
+import commons.question.MoreExpensiveQuestion;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
 import javafx.scene.image.Image;
 import javafx.stage.FileChooser;
 
@@ -11,29 +18,83 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
 /**
  * Utility class responsible for managing adding and retrieving images of activities.
+ * <p>
+ * Decoded images are kept in an LRU cache which is bounded by the memory of their pixels, so browsing
+ * all activities in the admin panel cannot grow it without limit. The bound can be set with the system
+ * property quizzzz.image-cache.max-bytes. As soon as the questions of a game arrive, the images they
+ * show are fetched in the background, a few at a time, so the question screens find them in the cache.
+ * <p>
+ * Below that, the bytes of the images are kept in an ImageDiskCache, so they survive restarts of the client.
+ * Once a cached image has expired, it is revalidated with its ETag, so it is only downloaded again if it
+ * has changed. If the server cannot be reached, the expired image is shown anyway.
  */
 public class ActivityImageUtils {
 
+    /**
+     * Default bound of the memory of the cached images, in bytes.
+     */
+    public static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Number of images fetched in parallel in the background.
+     */
+    public static final int PREFETCH_THREADS = 4;
+
+    // Memory of a decoded pixel, which is stored as 32-bit ARGB
+    private static final int BYTES_PER_PIXEL = 4;
+
     private final ServerUtils serverUtils;
-    private final HashMap<Long, Image> activityImageCache;
+    private final ImageDiskCache diskCache;
+    private final LruCache<String, Image> activityImageCache;
+    // Images being fetched, so an image is never fetched twice at the same time
+    private final Map<String, CompletableFuture<Image>> loading;
+    private final ExecutorService prefetcher;
 
     /**
      * Constructor for ActivityImageUtils.
+     * <p>
+     * Prefetches the images of every game whose questions are fetched by serverUtils.
      *
      * @param serverUtils ServerUtils singleton instance.
      */
     @Inject
     public ActivityImageUtils(ServerUtils serverUtils) {
+        this(serverUtils, Long.getLong("quizzzz.image-cache.max-bytes", DEFAULT_CACHE_BYTES), new ImageDiskCache());
+    }
+
+    /**
+     * Constructor for ActivityImageUtils.
+     * <p>
+     * Prefetches the images of every game whose questions are fetched by serverUtils.
+     *
+     * @param serverUtils ServerUtils singleton instance.
+     * @param cacheBytes  Bound of the memory of the cached images, in bytes.
+     * @param diskCache   Cache of the bytes of the images on disk.
+     */
+    public ActivityImageUtils(ServerUtils serverUtils, long cacheBytes, ImageDiskCache diskCache) {
         this.serverUtils = serverUtils;
-        this.activityImageCache = new HashMap<>();
+        this.diskCache = diskCache;
+        this.activityImageCache = new LruCache<>(cacheBytes,
+                image -> BYTES_PER_PIXEL * (long) image.getWidth() * (long) image.getHeight());
+        this.loading = new ConcurrentHashMap<>();
+        this.prefetcher = Executors.newFixedThreadPool(PREFETCH_THREADS, task -> {
+            Thread thread = new Thread(task, "image-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        serverUtils.setOnQuestions(this::prefetch);
     }
 
     /**
-     * GET mapping for activity image.
+     * GET mapping for activity image, in the size of the question screens.
      * <p>
      * Caches results internally.
      *
@@ -41,30 +102,167 @@ public class ActivityImageUtils {
      * @return JavaFX image of the activity image.
      */
     public Image getActivityImage(long key) {
+        return getActivityImage(key, ImageVariant.QUESTION);
+    }
 
-        if (activityImageCache.containsKey(key)) {
-            return activityImageCache.get(key);
-        } else {
-            String imageBase64;
-            try {
-                ActivityImageMessage message = serverUtils
-                        .getActivityImage(key);
-                imageBase64 = message.getImageBase64();
-            } catch (NotFoundException e) {
-                System.err.println(e);
-                e.printStackTrace();
-                return null;
+    /**
+     * GET mapping for a variant of activity image.
+     * <p>
+     * Caches results internally. If the image is being prefetched, waits for it instead of fetching it again.
+     *
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @return JavaFX image of the activity image, or null if it cannot be fetched.
+     */
+    public Image getActivityImage(long key, ImageVariant variant) {
+        Image image = activityImageCache.get(cacheKey(key, variant));
+        return image != null ? image : load(key, variant);
+    }
+
+    /**
+     * GET mapping for a variant of activity image, without blocking the caller.
+     * <p>
+     * An image in memory is returned right away. Otherwise it is read from disk or fetched, and decoded,
+     * in the background, so this can be called from the JavaFX application thread.
+     *
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @return Future of the JavaFX image of the activity image, completed with null if it cannot be fetched.
+     */
+    public CompletableFuture<Image> getActivityImageAsync(long key, ImageVariant variant) {
+        Image image = activityImageCache.get(cacheKey(key, variant));
+        if (image != null) {
+            return CompletableFuture.completedFuture(image);
+        }
+        return CompletableFuture.supplyAsync(() -> load(key, variant), prefetcher);
+    }
+
+    /**
+     * Fetch the images shown by the given questions in the background, if they are not cached yet.
+     *
+     * @param questions Questions of a game.
+     */
+    public void prefetch(List<AbstractQuestion> questions) {
+        for (long key : imageKeys(questions)) {
+            if (!activityImageCache.containsKey(cacheKey(key, ImageVariant.QUESTION))) {
+                prefetcher.execute(() -> load(key, ImageVariant.QUESTION));
             }
+        }
+    }
 
-            byte[] decodedImage = Base64.getDecoder().decode(imageBase64);
-            InputStream imageInputStream = new ByteArrayInputStream(decodedImage);
+    /**
+     * Getter for the cache of the decoded images.
+     *
+     * @return Cache of the images, by variant and key of the activity.
+     */
+    public LruCache<String, Image> getActivityImageCache() {
+        return activityImageCache;
+    }
 
-            Image image = new Image(imageInputStream);
-            activityImageCache.put(key, image);
+    /**
+     * Fetch an image and cache it, or wait for it if it is being fetched already.
+     *
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @return JavaFX image of the activity image, or null if it cannot be fetched.
+     */
+    private Image load(long key, ImageVariant variant) {
+        String cacheKey = cacheKey(key, variant);
+        CompletableFuture<Image> own = new CompletableFuture<>();
+        CompletableFuture<Image> running = loading.putIfAbsent(cacheKey, own);
+        if (running != null) {
+            return running.join();
+        }
+        Image image = null;
+        try {
+            // It may have been cached after the caller looked
+            image = activityImageCache.get(cacheKey);
+            if (image == null) {
+                image = fetch(key, variant);
+            }
+            if (image != null && !image.isError()) {
+                activityImageCache.put(cacheKey, image);
+            }
             return image;
+        } finally {
+            loading.remove(cacheKey, own);
+            own.complete(image);
         }
     }
 
+    /**
+     * Fetch and decode an image, going through the cache on disk.
+     * <p>
+     * A fresh image on disk is used without asking the server. Otherwise the server is asked, with the ETag
+     * of the image on disk if there is one, and the answer is written back to disk.
+     *
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @return JavaFX image of the activity image, or null if it cannot be fetched.
+     */
+    private Image fetch(long key, ImageVariant variant) {
+        String server = serverUtils.getCurrentServer();
+        ImageDiskCache.Entry cached = diskCache.read(server, key, variant);
+        if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+            return new Image(new ByteArrayInputStream(cached.getBytes()));
+        }
+        ImageDiskCache.Entry current;
+        try {
+            current = serverUtils.getActivityImage(key, variant, cached);
+        } catch (WebApplicationException | ProcessingException e) {
+            System.err.println(e);
+            e.printStackTrace();
+            // An outdated image is better than none, e.g. while the server is unreachable
+            return cached == null ? null : new Image(new ByteArrayInputStream(cached.getBytes()));
+        }
+        // On 304 Not Modified the cached bytes are handed back, and only the expiry time changed
+        if (cached != null && current.getBytes() == cached.getBytes()) {
+            diskCache.refresh(server, key, variant, current.getExpires());
+        } else {
+            diskCache.write(server, key, variant, current);
+        }
+        return new Image(new ByteArrayInputStream(current.getBytes()));
+    }
+
+    /**
+     * Find the keys of the activities whose images the question screens show.
+     *
+     * @param questions Questions of a game.
+     * @return Keys of the activities, in the order of the questions.
+     */
+    private static Set<Long> imageKeys(List<AbstractQuestion> questions) {
+        List<Activity> activities = new ArrayList<>();
+        for (AbstractQuestion question : questions) {
+            if (question instanceof ConsumptionQuestion) {
+                activities.add(((ConsumptionQuestion) question).getActivity());
+            } else if (question instanceof GuessQuestion) {
+                activities.add(((GuessQuestion) question).getActivity());
+            } else if (question instanceof InsteadQuestion) {
+                activities.add(((InsteadQuestion) question).getActivity());
+            } else if (question instanceof MoreExpensiveQuestion) {
+                activities.addAll(((MoreExpensiveQuestion) question).getAnswerChoices());
+            }
+        }
+        Set<Long> keys = new LinkedHashSet<>();
+        for (Activity activity : activities) {
+            if (activity != null && activity.getKey() != null) {
+                keys.add(activity.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Key of an image in the cache.
+     *
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @return Key in the cache.
+     */
+    private static String cacheKey(long key, ImageVariant variant) {
+        return variant.name() + "/" + key;
+    }
+
     /**
      * Convert list of activities to a map from activity IDs to activity keys.
      *
@@ -180,7 +378,10 @@ public class ActivityImageUtils {
         byte[] decodedImage = Base64.getDecoder().decode(imageBase64);
         InputStream imageInputStream = new ByteArrayInputStream(decodedImage);
         Image image = new Image(imageInputStream);
-        activityImageCache.remove(key);
+        for (ImageVariant variant : ImageVariant.values()) {
+            activityImageCache.remove(cacheKey(key, variant));
+        }
+        diskCache.remove(serverUtils.getCurrentServer(), key);
         return image;
     }
 }
@@ -0,0 +1,109 @@
+package client.utils;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.WebTarget;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+
+import java.util.Objects;
+
+/**
+ * Holds the single HTTP client of the application, and the target of the current server.
+ * <p>
+ * Building a Jersey client is expensive, and a client that is never closed keeps its resources,
+ * so all requests go through the same client instead of a new one each. Its connections are kept
+ * alive and pooled by the JDK, so polling reuses the same TCP connection instead of opening a new one
+ * every time. The pool keeps up to http.maxConnections idle connections per server, and asynchronous
+ * requests run on as many background threads at most, so they never open more connections than are kept.
+ * <p>
+ * The timeouts can be set with the system properties quizzzz.http.connect-timeout and
+ * quizzzz.http.read-timeout, in milliseconds.
+ */
+public class HttpClientUtils {
+
+    /**
+     * Default time in milliseconds to wait for a connection to the server.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+    /**
+     * Default time in milliseconds to wait for a response of the server.
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    /**
+     * Default number of idle connections kept alive per server.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    private final Client client;
+
+    private String currentServer;
+    private volatile WebTarget server;
+
+    /**
+     * Constructor for HttpClientUtils, with the timeouts of the system properties.
+     */
+    public HttpClientUtils() {
+        this(Integer.getInteger("quizzzz.http.connect-timeout", DEFAULT_CONNECT_TIMEOUT),
+                Integer.getInteger("quizzzz.http.read-timeout", DEFAULT_READ_TIMEOUT));
+    }
+
+    /**
+     * Constructor for HttpClientUtils.
+     *
+     * @param connectTimeout Time in milliseconds to wait for a connection, 0 to wait forever.
+     * @param readTimeout    Time in milliseconds to wait for a response, 0 to wait forever.
+     */
+    public HttpClientUtils(int connectTimeout, int readTimeout) {
+        // Read by the JDK once, when the first connection is kept alive
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(DEFAULT_MAX_CONNECTIONS));
+        }
+        this.client = ClientBuilder.newClient(new ClientConfig()
+                .property(ClientProperties.CONNECT_TIMEOUT, connectTimeout)
+                .property(ClientProperties.READ_TIMEOUT, readTimeout)
+                .property(ClientProperties.ASYNC_THREADPOOL_SIZE,
+                        Integer.getInteger("http.maxConnections", DEFAULT_MAX_CONNECTIONS)));
+    }
+
+    /**
+     * Getter for the target of the current server, to build requests on.
+     *
+     * @return Target of the current server.
+     */
+    public WebTarget target() {
+        return server;
+    }
+
+    /**
+     * Getter for the address of the current server.
+     *
+     * @return Address of the current server.
+     */
+    public synchronized String getCurrentServer() {
+        return currentServer;
+    }
+
+    /**
+     * Setter for the address of the current server.
+     * <p>
+     * The target is only re-created if the address changes.
+     *
+     * @param currentServer Address of the server, e.g. http://localhost:8080/
+     */
+    public synchronized void setCurrentServer(String currentServer) {
+        if (!Objects.equals(currentServer, this.currentServer)) {
+            server = currentServer == null ? null : client.target(currentServer);
+        }
+        this.currentServer = currentServer;
+    }
+
+    /**
+     * Close the client, together with its connections.
+     */
+    public void close() {
+        client.close();
+    }
+}
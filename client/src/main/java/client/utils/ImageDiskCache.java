@@ -0,0 +1,387 @@
+package client.utils;
+
+import commons.misc.ImageVariant;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cache of the bytes of activity images on disk, so they survive restarts of the client.
+ * <p>
+ * Every image is a file in a directory of its server, named after its variant and the key of its activity.
+ * Next to the bytes, the file keeps the ETag of the image and the time until which it may be used without
+ * asking the server. Once that time has passed, the server is asked with the ETag, and only sends the image
+ * again if it has changed.
+ * <p>
+ * The files are bounded by their total size. The least recently used ones are deleted first, which is
+ * tracked through their modification time, so the order is kept across restarts.
+ * <p>
+ * The directory can be set with the system property quizzzz.image-disk-cache.dir, and the bound with
+ * quizzzz.image-disk-cache.max-bytes. Errors of the file system are printed, and the image is then fetched
+ * from the server as if it was not cached.
+ */
+public class ImageDiskCache {
+
+    /**
+     * Default bound of the total size of the cached files, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final String EXTENSION = ".img";
+    private static final String TEMP_EXTENSION = ".tmp";
+    // Changed whenever the layout of the files changes, so older files are not misread
+    private static final int FORMAT = 1;
+    // Format, expiry time and length of the ETag
+    private static final int HEADER_LENGTH = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int EXPIRES_OFFSET = Integer.BYTES;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Size of every cached file, created on first use
+    private LruCache<Path, Long> files;
+
+    /**
+     * Constructor for ImageDiskCache, in the cache directory of the user, or the one of the system properties.
+     */
+    public ImageDiskCache() {
+        this(defaultDirectory(), Long.getLong("quizzzz.image-disk-cache.max-bytes", DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Constructor for ImageDiskCache.
+     *
+     * @param directory Directory of the cached files, created when the first file is written.
+     * @param maxBytes  Bound of the total size of the cached files, in bytes.
+     */
+    public ImageDiskCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Read a cached image, and mark it as the most recently used one.
+     *
+     * @param server  Address of the server of the image.
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @return The cached image, or null if it is not cached.
+     */
+    public Entry read(String server, long key, ImageVariant variant) {
+        Path path = path(server, key, variant);
+        if (path == null || !index().containsKey(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Reads until the buffer is full
+            }
+            buffer.flip();
+            Entry entry = decode(buffer);
+            if (entry == null) {
+                delete(path);
+                return null;
+            }
+            index().get(path);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return entry;
+        } catch (IOException e) {
+            System.err.println("Could not read the cached image " + path + ": " + e);
+            delete(path);
+            return null;
+        }
+    }
+
+    /**
+     * Cache an image, replacing the previous one.
+     * <p>
+     * The file is written next to its place first, and then moved there, so it is never read half-written.
+     * Images larger than the whole cache are not written.
+     *
+     * @param server  Address of the server of the image.
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @param entry   Image to cache.
+     */
+    public void write(String server, long key, ImageVariant variant, Entry entry) {
+        Path path = path(server, key, variant);
+        byte[] eTag = entry.getETag() == null ? new byte[0] : entry.getETag().getBytes(StandardCharsets.UTF_8);
+        long size = HEADER_LENGTH + eTag.length + entry.getBytes().length;
+        if (path == null || size > maxBytes) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                .putInt(FORMAT)
+                .putLong(entry.getExpires())
+                .putInt(eTag.length)
+                .flip();
+        ByteBuffer[] buffers = {header, ByteBuffer.wrap(eTag), ByteBuffer.wrap(entry.getBytes())};
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), TEMP_EXTENSION);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffers[2].hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index().put(path, size);
+        } catch (IOException e) {
+            System.err.println("Could not cache the image " + path + ": " + e);
+        }
+    }
+
+    /**
+     * Set the time until which a cached image may be used without asking the server,
+     * after the server confirmed it is unchanged.
+     *
+     * @param server  Address of the server of the image.
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @param expires Time in milliseconds until which the image is fresh.
+     */
+    public void refresh(String server, long key, ImageVariant variant, long expires) {
+        Path path = path(server, key, variant);
+        if (path == null || !index().containsKey(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(expires).flip(), EXPIRES_OFFSET);
+        } catch (IOException e) {
+            System.err.println("Could not refresh the cached image " + path + ": " + e);
+        }
+    }
+
+    /**
+     * Remove all variants of a cached image, e.g. after it was replaced.
+     *
+     * @param server Address of the server of the image.
+     * @param key    Key of the activity in the repository.
+     */
+    public void remove(String server, long key) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            Path path = path(server, key, variant);
+            if (path != null) {
+                delete(path);
+            }
+        }
+    }
+
+    /**
+     * Getter for the total size of the cached files.
+     *
+     * @return Total size in bytes.
+     */
+    public long getBytes() {
+        return index().getBytes();
+    }
+
+    /**
+     * Getter for the number of cached files.
+     *
+     * @return Number of files.
+     */
+    public int size() {
+        return index().size();
+    }
+
+    /**
+     * Find the cache directory of the user, i.e. %LOCALAPPDATA% on Windows, ~/Library/Caches on macOS,
+     * and $XDG_CACHE_HOME or ~/.cache otherwise.
+     *
+     * @return Directory of the cached images.
+     */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty("quizzzz.image-disk-cache.dir");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        String home = System.getProperty("user.home");
+        String os = System.getProperty("os.name", "").toLowerCase();
+        Path base;
+        if (os.startsWith("windows")) {
+            String localAppData = System.getenv("LOCALAPPDATA");
+            base = localAppData != null ? Path.of(localAppData) : Path.of(home, "AppData", "Local");
+        } else if (os.startsWith("mac")) {
+            base = Path.of(home, "Library", "Caches");
+        } else {
+            String xdgCache = System.getenv("XDG_CACHE_HOME");
+            base = xdgCache != null && !xdgCache.isEmpty() ? Path.of(xdgCache) : Path.of(home, ".cache");
+        }
+        return base.resolve("quizzzz").resolve("images");
+    }
+
+    /**
+     * Get the index of the cached files, scanning the directory the first time.
+     * <p>
+     * Leftovers of interrupted writes are deleted, and the files are indexed from the least recently
+     * used one, so the bound is enforced right away.
+     *
+     * @return Index of the cached files.
+     */
+    private synchronized LruCache<Path, Long> index() {
+        if (files != null) {
+            return files;
+        }
+        files = new LruCache<>(maxBytes, Long::longValue, this::deleteFile);
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> paths = Files.find(directory, 2, (path, attributes) -> attributes.isRegularFile())) {
+            List<Path> found = paths.collect(Collectors.toList());
+            found.stream().filter(path -> path.toString().endsWith(TEMP_EXTENSION)).forEach(this::deleteFile);
+            found.stream()
+                    .filter(path -> path.toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparingLong(ImageDiskCache::lastModified))
+                    .forEach(path -> files.put(path, path.toFile().length()));
+        } catch (IOException e) {
+            System.err.println("Could not scan the image cache " + directory + ": " + e);
+        }
+        return files;
+    }
+
+    /**
+     * Path of the file of an image.
+     *
+     * @param server  Address of the server of the image.
+     * @param key     Key of the activity in the repository.
+     * @param variant Size of the image.
+     * @return Path of the file, or null if there is no server.
+     */
+    private Path path(String server, long key, ImageVariant variant) {
+        if (server == null) {
+            return null;
+        }
+        return directory
+                .resolve(URLEncoder.encode(server, StandardCharsets.UTF_8))
+                .resolve(variant.getName() + "-" + key + EXTENSION);
+    }
+
+    /**
+     * Remove a file from the index, and delete it.
+     *
+     * @param path Path of the file.
+     */
+    private void delete(Path path) {
+        index().remove(path);
+        deleteFile(path);
+    }
+
+    /**
+     * Delete a file, if it exists.
+     *
+     * @param path Path of the file.
+     */
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Could not delete the cached image " + path + ": " + e);
+        }
+    }
+
+    /**
+     * Decode the contents of a file.
+     *
+     * @param buffer Contents of the file.
+     * @return The image, or null if the file is not in the current format.
+     */
+    private static Entry decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != FORMAT) {
+            return null;
+        }
+        long expires = buffer.getLong();
+        int eTagLength = buffer.getInt();
+        if (eTagLength < 0 || eTagLength > buffer.remaining()) {
+            return null;
+        }
+        byte[] eTag = new byte[eTagLength];
+        buffer.get(eTag);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new Entry(eTagLength == 0 ? null : new String(eTag, StandardCharsets.UTF_8), expires, bytes);
+    }
+
+    /**
+     * Time a file was last modified.
+     *
+     * @param path Path of the file.
+     * @return Time in milliseconds, or 0 if it is unknown.
+     */
+    private static long lastModified(Path path) {
+        return path.toFile().lastModified();
+    }
+
+    /**
+     * Bytes of an image together with what is needed to validate them.
+     */
+    public static final class Entry {
+
+        private final String eTag;
+        private final long expires;
+        private final byte[] bytes;
+
+        /**
+         * Constructor for Entry.
+         *
+         * @param eTag    ETag of the image as sent by the server, or null if it sent none.
+         * @param expires Time in milliseconds until which the image may be used without asking the server.
+         * @param bytes   Bytes of the image.
+         */
+        public Entry(String eTag, long expires, byte[] bytes) {
+            this.eTag = eTag;
+            this.expires = expires;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Getter for the ETag of the image.
+         *
+         * @return ETag, or null if the server sent none.
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Getter for the time until which the image may be used without asking the server.
+         *
+         * @return Time in milliseconds.
+         */
+        public long getExpires() {
+            return expires;
+        }
+
+        /**
+         * Getter for the bytes of the image.
+         *
+         * @return Bytes of the image.
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Check if the image may be used without asking the server.
+         *
+         * @param now Current time in milliseconds.
+         * @return true iff the image is fresh.
+         */
+        public boolean isFresh(long now) {
+            return now < expires;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package client.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache which is bounded by the total size of its values, and evicts the least recently used ones.
+ * <p>
+ * Every value is weighed once, when it is put. A value which is larger than the whole cache is not kept.
+ * All methods are synchronized, so the cache can be filled from background threads. An optional callback
+ * learns about evicted values, e.g. to delete what they stand for.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+public class LruCache<K, V> {
+
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final Consumer<K> onEvict;
+
+    // In access order, so the first entry is the least recently used one
+    private final LinkedHashMap<K, V> values;
+    private final Map<K, Long> sizes;
+    private long bytes;
+    private long evictions;
+
+    /**
+     * Constructor for LruCache.
+     *
+     * @param maxBytes Maximal total size of the values.
+     * @param weigher  Size of a value, in the same unit as maxBytes.
+     */
+    public LruCache(long maxBytes, ToLongFunction<V> weigher) {
+        this(maxBytes, weigher, key -> { });
+    }
+
+    /**
+     * Constructor for LruCache, with a callback for evicted values.
+     *
+     * @param maxBytes Maximal total size of the values.
+     * @param weigher  Size of a value, in the same unit as maxBytes.
+     * @param onEvict  Called with the key of every value evicted to keep the bound, while the cache is locked.
+     */
+    public LruCache(long maxBytes, ToLongFunction<V> weigher, Consumer<K> onEvict) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.onEvict = onEvict;
+        this.values = new LinkedHashMap<>(16, 0.75f, true);
+        this.sizes = new HashMap<>();
+    }
+
+    /**
+     * Get a value, and mark it as the most recently used one.
+     *
+     * @param key Key of the value.
+     * @return The value, or null if it is not cached.
+     */
+    public synchronized V get(K key) {
+        return values.get(key);
+    }
+
+    /**
+     * Check if a value is cached, without marking it as used.
+     *
+     * @param key Key of the value.
+     * @return true iff the value is cached.
+     */
+    public synchronized boolean containsKey(K key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * Put a value, and evict the least recently used values until the cache fits its bound.
+     *
+     * @param key   Key of the value.
+     * @param value Value to cache.
+     */
+    public synchronized void put(K key, V value) {
+        remove(key);
+        long size = Math.max(0, weigher.applyAsLong(value));
+        if (size > maxBytes) {
+            return;
+        }
+        values.put(key, value);
+        sizes.put(key, size);
+        bytes += size;
+
+        Iterator<K> eldest = values.keySet().iterator();
+        while (bytes > maxBytes) {
+            K evicted = eldest.next();
+            eldest.remove();
+            bytes -= sizes.remove(evicted);
+            evictions++;
+            onEvict.accept(evicted);
+        }
+    }
+
+    /**
+     * Remove a value.
+     *
+     * @param key Key of the value.
+     * @return The removed value, or null if it was not cached.
+     */
+    public synchronized V remove(K key) {
+        V removed = values.remove(key);
+        if (removed != null) {
+            bytes -= sizes.remove(key);
+        }
+        return removed;
+    }
+
+    /**
+     * Getter for the number of cached values.
+     *
+     * @return Number of values.
+     */
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * Getter for the total size of the cached values.
+     *
+     * @return Total size of the values.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Getter for the bound of the total size of the values.
+     *
+     * @return Maximal total size of the values.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Getter for the number of values evicted to keep the cache within its bound.
+     *
+     * @return Number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,172 @@
+package client.utils;
+
+import commons.misc.GameState;
+import commons.multi.MultiPlayerState;
+import commons.queue.QueueState;
+import commons.single.SinglePlayerState;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Decides how long to wait before polling a state again, while its stream is not available.
+ * <p>
+ * Every state tells when its next phase begins, and nothing is expected to happen before then, so the
+ * schedule sleeps until that time, or at most the idle interval. The server switches a few milliseconds
+ * after the next phase begins and never before, so the first poll is made just after it, and polls are
+ * then repeated quickly until the new phase has been seen. If it has not been seen after a grace period,
+ * because the server is late or the clocks differ, polls are still repeated every active interval,
+ * so a transition is never missed for a whole idle interval. After activity which tends to come in bursts,
+ * such as chat messages or users joining a lobby, it polls more often for a while.
+ * Failed polls are retried with an exponential backoff.
+ * <p>
+ * A schedule keeps the last state it was given, so every task following a state needs its own.
+ *
+ * @param <T> Type of the state.
+ */
+public class PollingSchedule<T> {
+
+    /**
+     * Time in milliseconds after the next phase to wake up at, for the server to switch.
+     */
+    public static final long TRANSITION_DELAY = 50;
+
+    /**
+     * Interval in milliseconds between polls around a transition.
+     */
+    public static final long TRANSITION_INTERVAL = 100;
+
+    /**
+     * Time in milliseconds after the next phase to keep waiting for the transition, if the server is late.
+     */
+    public static final long TRANSITION_GRACE = 2000;
+
+    /**
+     * Interval in milliseconds between polls while activity is expected.
+     */
+    public static final long ACTIVE_INTERVAL = 500;
+
+    /**
+     * Time in milliseconds activity is expected for, after it was last seen.
+     */
+    public static final long ACTIVITY_WINDOW = 2000;
+
+    /**
+     * Longest interval in milliseconds between polls of a game, while nothing is expected.
+     * Phases are shorter, so a running game is mostly polled once per phase.
+     */
+    public static final long GAME_IDLE_INTERVAL = 10000;
+
+    /**
+     * Longest interval in milliseconds between polls of a lobby, whose countdown may start any time.
+     */
+    public static final long QUEUE_IDLE_INTERVAL = 1000;
+
+    /**
+     * Delay in milliseconds after the first failed poll, doubled with every further failure.
+     */
+    public static final long MIN_BACKOFF = 500;
+
+    /**
+     * Longest delay in milliseconds after failed polls.
+     */
+    public static final long MAX_BACKOFF = 16000;
+
+    private final long idleInterval;
+    private final ToLongFunction<T> nextPhase;
+    private final BiPredicate<T, T> activity;
+
+    private T last;
+    private long activeUntil;
+    private int failures;
+
+    /**
+     * Constructor for PollingSchedule.
+     *
+     * @param idleInterval Longest interval in milliseconds between polls.
+     * @param nextPhase    Time in milliseconds at which the next phase of a state begins, 0 if unknown.
+     * @param activity     Whether more activity is expected, given the previous and the new state.
+     */
+    public PollingSchedule(long idleInterval, ToLongFunction<T> nextPhase, BiPredicate<T, T> activity) {
+        this.idleInterval = idleInterval;
+        this.nextPhase = nextPhase;
+        this.activity = activity;
+    }
+
+    /**
+     * Schedule for a single-player game.
+     * <p>
+     * A finished game keeps the time of its last phase, which has passed, so it has no next phase.
+     *
+     * @param <T> Type of the state.
+     * @return A new schedule.
+     */
+    public static <T extends GameState> PollingSchedule<T> forGame() {
+        return new PollingSchedule<>(GAME_IDLE_INTERVAL,
+                state -> SinglePlayerState.GAME_OVER_STATE.equals(state.getState()) ? 0 : state.getNextPhase(),
+                (previous, state) -> false);
+    }
+
+    /**
+     * Schedule for a multiplayer game, which expects more chat messages after one was received.
+     *
+     * @return A new schedule.
+     */
+    public static PollingSchedule<MultiPlayerState> forMultiGame() {
+        return new PollingSchedule<>(GAME_IDLE_INTERVAL, GameState::getNextPhase,
+                (previous, state) -> previous.getChatSequence() != state.getChatSequence());
+    }
+
+    /**
+     * Schedule for a lobby, which expects more users after one joined or left.
+     *
+     * @return A new schedule.
+     */
+    public static PollingSchedule<QueueState> forQueue() {
+        return new PollingSchedule<>(QUEUE_IDLE_INTERVAL,
+                state -> state.isGameStarting() ? state.getStartTimeInMs() : 0,
+                (previous, state) -> !Objects.equals(previous.getUsers(), state.getUsers()));
+    }
+
+    /**
+     * Get the time to wait after a successful poll.
+     *
+     * @param state State that was polled.
+     * @param now   Current time in milliseconds.
+     * @return Time in milliseconds until the next poll.
+     */
+    public long next(T state, long now) {
+        if (last != null && activity.test(last, state)) {
+            activeUntil = now + ACTIVITY_WINDOW;
+        }
+        last = state;
+        failures = 0;
+
+        long interval = now < activeUntil ? ACTIVE_INTERVAL : idleInterval;
+        long phase = nextPhase.applyAsLong(state);
+        if (phase <= 0) {
+            return interval;
+        }
+        long untilTransition = phase + TRANSITION_DELAY - now;
+        if (untilTransition > 0) {
+            return Math.min(interval, untilTransition);
+        }
+        // The phase is over, but the server has not switched yet, or the clocks differ
+        return now < phase + TRANSITION_GRACE ? TRANSITION_INTERVAL : Math.min(interval, ACTIVE_INTERVAL);
+    }
+
+    /**
+     * Get the time to wait after a failed poll.
+     *
+     * @return Time in milliseconds until the next poll.
+     */
+    public long failed() {
+        long delay = MIN_BACKOFF;
+        for (int i = 0; i < failures && delay < MAX_BACKOFF; i++) {
+            delay *= 2;
+        }
+        failures++;
+        return Math.min(delay, MAX_BACKOFF);
+    }
+}
@@ -16,40 +16,116 @@
 package client.utils;
 
 import commons.misc.Activity;
+import commons.misc.ActivityBankImport;
 import commons.misc.ActivityImageMessage;
 import commons.misc.GameResponse;
 import commons.misc.GameState;
+import commons.misc.ImageVariant;
 import commons.multi.ChatMessage;
 import commons.multi.MultiPlayer;
 import commons.multi.MultiPlayerState;
+import commons.question.AbstractQuestion;
 import commons.queue.QueueState;
 import commons.queue.QueueUser;
+import commons.single.LeaderboardRank;
 import commons.single.SinglePlayer;
 import commons.single.SinglePlayerLeaderboardScore;
 import commons.single.SinglePlayerState;
-import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.GenericType;
-import org.glassfish.jersey.client.ClientConfig;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.sse.SseEventSource;
+import javafx.application.Platform;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
 
+import javax.inject.Inject;
+import java.io.File;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static jakarta.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
 
 /**
  *
  */
 public class ServerUtils {
 
-    private String currentServer;
+    // Name of the server-sent events carrying a state
+    private static final String STATE_EVENT = "state";
+    // Time in milliseconds to poll for before the stream is tried again, doubled while it keeps failing
+    private static final long MIN_RECONNECT_INTERVAL = 5000;
+    private static final long MAX_RECONNECT_INTERVAL = 60000;
+    private static final int SERVER_ERROR = 500;
+    // max-age directive of a Cache-Control header, in seconds
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|,)\\s*max-age\\s*=\\s*\"?(\\d+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final HttpClientUtils http;
+
+    // Runs the completion of asynchronous requests, on the JavaFX application thread by default
+    private final Executor callbacks;
+
+    // Last game state received, kept to revalidate it on the next poll
+    private volatile CachedGameState lastGameState;
+
+    // Questions of the last game, fetched once as they are not part of the polled state.
+    // Game ids restart on every server start, so both caches are dropped when a game is started or joined.
+    private volatile CachedQuestions lastQuestions;
+
+    private volatile Consumer<List<AbstractQuestion>> onQuestions = questions -> { };
+
+    /**
+     * Constructor for ServerUtils, with a client of its own.
+     */
+    public ServerUtils() {
+        this(new HttpClientUtils());
+    }
+
+    /**
+     * Constructor for ServerUtils.
+     *
+     * @param http Injected HttpClientUtils instance, through which all requests are sent.
+     */
+    @Inject
+    public ServerUtils(HttpClientUtils http) {
+        this(http, Platform::runLater);
+    }
+
+    /**
+     * Constructor for ServerUtils, with a custom thread for the completion of asynchronous requests.
+     *
+     * @param http      HttpClientUtils instance, through which all requests are sent.
+     * @param callbacks Executor on which the futures of asynchronous requests are completed.
+     */
+    public ServerUtils(HttpClientUtils http, Executor callbacks) {
+        this.http = http;
+        this.callbacks = callbacks;
+    }
 
     /**
      * @param leaderboardEntry is a SinglePlayerLeaderboardScore entity.
      * @return it returns a client SinglePlayerLeaderboardScore.
      */
     public SinglePlayerLeaderboardScore addSinglePlayer(SinglePlayerLeaderboardScore leaderboardEntry) {
-        return ClientBuilder.newClient(new ClientConfig()) //
-                .target(currentServer)
+        return http.target() //
                 .path("/api/leaderboard/players") //
                 .request(APPLICATION_JSON) //
                 .accept(APPLICATION_JSON) //
@@ -57,38 +133,50 @@ public class ServerUtils {
     }
 
     /**
+     * GET request to /api/queue/lobby/{lobby}, for the state of a lobby.
+     *
+     * @param lobby Name of the lobby.
      * @return it returns a client QueueState.
      */
-    public QueueState getQueueState() {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
-                .path("/api/queue")
+    public QueueState getQueueState(String lobby) {
+        return http.target()
+                .path(lobbyPath(lobby))
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .get(QueueState.class);
     }
 
     /**
+     * POST request to /api/queue, to be matched into a lobby.
+     *
      * @param user is a QueueUser user.
-     * @return it returns a client QueueUser user
+     * @return it returns a client QueueUser user, holding the lobby they joined
      */
     public QueueUser addQueueUser(QueueUser user) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/queue")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .post(Entity.entity(user, APPLICATION_JSON), QueueUser.class);
     }
 
+    /**
+     * Path of the endpoints of a lobby.
+     *
+     * @param lobby Name of the lobby.
+     * @return Path of the lobby, e.g. /api/queue/lobby/auto-1
+     */
+    public static String lobbyPath(String lobby) {
+        return "/api/queue/lobby/" + lobby;
+    }
+
     /**
      * @param user is a QueueUser user
      * @return it returns a client QueueUser
      */
     public QueueUser deleteQueueUser(QueueUser user) {
         String username = user.getUsername();
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/queue/" + username)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -104,12 +192,7 @@ public class ServerUtils {
      * @return The current state of the ongoing game.
      */
     public GameState getSoloGameState(long id) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
-                .path("/api/solo/" + String.valueOf(id))
-                .request(APPLICATION_JSON)
-                .accept(APPLICATION_JSON)
-                .get(GameState.class);
+        return getGameState("/api/solo/" + id, GameState.class);
     }
 
     /**
@@ -121,12 +204,188 @@ public class ServerUtils {
      * @return Multiplayer game state for that id.
      */
     public MultiPlayerState getMultiGameState(long id) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
-                .path("/api/multi/" + id)
+        return getGameState("/api/multi/" + id, MultiPlayerState.class);
+    }
+
+    /**
+     * GET request for a game state, revalidating the last state that was received.
+     * <p>
+     * The ETag of the last state is sent as If-None-Match. If the game has not changed since,
+     * the server answers with 304 Not Modified and no body, and the last state is returned again.
+     *
+     * @param path Path of the game state.
+     * @param type Class of the game state.
+     * @param <T>  Type of the game state.
+     * @return Current state of the game.
+     */
+    private <T extends GameState> T getGameState(String path, Class<T> type) {
+        CachedGameState last = lastGameState;
+        boolean revalidate = last != null && last.path.equals(path) && type.isInstance(last.state);
+
+        Invocation.Builder request = http.target()
+                .path(path)
                 .request(APPLICATION_JSON)
-                .accept(APPLICATION_JSON)
-                .get(MultiPlayerState.class);
+                .accept(APPLICATION_JSON);
+        if (revalidate) {
+            request = request.header(HttpHeaders.IF_NONE_MATCH, last.eTag);
+        }
+        Response response = request.get();
+
+        if (revalidate && response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            response.close();
+            return type.cast(last.state);
+        }
+        if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            // Reads the error, so the connection can be reused
+            response.bufferEntity();
+            throw new WebApplicationException(response);
+        }
+        T state = withQuestions(response.readEntity(type));
+        String eTag = response.getHeaderString(HttpHeaders.ETAG);
+        lastGameState = eTag == null ? null : new CachedGameState(path, eTag, state);
+        return state;
+    }
+
+    /**
+     * Fill in the questions of a game state.
+     * <p>
+     * The server leaves the questions out of the game state, as they never change during a game.
+     * They are fetched once per game from /questions, and then reused for every later state.
+     * Once they are fetched, they are also handed to the onQuestions callback.
+     *
+     * @param state State received from the server, may be of any type.
+     * @param <T>   Type of the state.
+     * @return The same state, with the questions filled in if it is a game state.
+     */
+    private <T> T withQuestions(T state) {
+        if (!(state instanceof GameState) || ((GameState) state).getQuestionList() != null) {
+            return state;
+        }
+        GameState game = (GameState) state;
+        String mode = game instanceof MultiPlayerState ? "/api/multi/" : "/api/solo/";
+        String path = mode + game.getId() + "/questions";
+
+        CachedQuestions cached = lastQuestions;
+        if (cached == null || !cached.path.equals(path)) {
+            List<AbstractQuestion> questions = http.target()
+                    .path(path)
+                    .request(APPLICATION_JSON)
+                    .accept(APPLICATION_JSON)
+                    .get(new GenericType<List<AbstractQuestion>>() {
+                    });
+            cached = new CachedQuestions(path, questions);
+            lastQuestions = cached;
+            onQuestions.accept(questions);
+        }
+        game.setQuestionList(cached.questions);
+        return state;
+    }
+
+    /**
+     * Setter for the callback that is run once the questions of a new game have been fetched.
+     * <p>
+     * It runs on the thread that fetched them, which is usually not the JavaFX application thread.
+     *
+     * @param onQuestions Callback run with the questions of the game.
+     */
+    public void setOnQuestions(Consumer<List<AbstractQuestion>> onQuestions) {
+        this.onQuestions = onQuestions;
+    }
+
+    /**
+     * Follow a state on the server until the calling thread is interrupted.
+     * <p>
+     * The server pushes every change of the state as a server-sent event, so it arrives right away.
+     * If the stream cannot be opened, or breaks, the state is polled instead, as often as the schedule
+     * decides, and the stream is tried again after a few seconds, or less often while it delivers nothing.
+     * Polls which fail because the server cannot be reached or has an error are retried,
+     * any other error ends the task.
+     *
+     * @param streamPath Path of the stream of the state.
+     * @param type       Class of the state.
+     * @param poll       Fallback for getting the state through a regular request.
+     * @param schedule   Schedule of the polls, used by this call only.
+     * @param onState    Called with every new state, on a background thread.
+     * @param <T>        Type of the state.
+     * @return The last state that was received, once the thread is interrupted.
+     */
+    public <T> T followState(String streamPath, Class<T> type, Supplier<T> poll, PollingSchedule<T> schedule,
+                             Consumer<T> onState) {
+        AtomicReference<T> last = new AtomicReference<>();
+        Consumer<T> receive = state -> {
+            last.set(withQuestions(state));
+            onState.accept(state);
+        };
+        AtomicBoolean streamed = new AtomicBoolean();
+        Consumer<T> receiveStreamed = state -> {
+            streamed.set(true);
+            receive.accept(state);
+        };
+        long interval = 0;
+        try {
+            while (true) {
+                streamed.set(false);
+                stream(streamPath, type, receiveStreamed);
+                interval = streamed.get() ? MIN_RECONNECT_INTERVAL
+                        : Math.max(MIN_RECONNECT_INTERVAL, Math.min(2 * interval, MAX_RECONNECT_INTERVAL));
+                long reconnect = System.currentTimeMillis() + interval;
+                while (System.currentTimeMillis() < reconnect) {
+                    Thread.sleep(poll(poll, schedule, receive));
+                }
+            }
+        } catch (InterruptedException e) {
+            return last.get();
+        }
+    }
+
+    /**
+     * Poll a state once.
+     *
+     * @param poll     Gets the state through a regular request.
+     * @param schedule Schedule of the polls.
+     * @param receive  Called with the state, if it could be polled.
+     * @param <T>      Type of the state.
+     * @return Time in milliseconds to wait before the next poll.
+     */
+    private <T> long poll(Supplier<T> poll, PollingSchedule<T> schedule, Consumer<T> receive) {
+        try {
+            T state = poll.get();
+            receive.accept(state);
+            return schedule.next(state, System.currentTimeMillis());
+        } catch (ProcessingException e) {
+            return schedule.failed();
+        } catch (WebApplicationException e) {
+            if (e.getResponse().getStatus() < SERVER_ERROR) {
+                throw e;
+            }
+            return schedule.failed();
+        }
+    }
+
+    /**
+     * Receive the events of a state stream until it closes or fails.
+     *
+     * @param streamPath Path of the stream of the state.
+     * @param type       Class of the state.
+     * @param onState    Called with every state that is received.
+     * @param <T>        Type of the state.
+     * @throws InterruptedException If the thread is interrupted while the stream is open.
+     */
+    private <T> void stream(String streamPath, Class<T> type, Consumer<T> onState) throws InterruptedException {
+        CountDownLatch closed = new CountDownLatch(1);
+        // The stream stays open without traffic while the state does not change
+        WebTarget target = http.target()
+                .property(ClientProperties.READ_TIMEOUT, 0)
+                .path(streamPath);
+        try (SseEventSource source = SseEventSource.target(target).build()) {
+            source.register(event -> {
+                if (STATE_EVENT.equals(event.getName())) {
+                    onState.accept(event.readData(type, APPLICATION_JSON_TYPE));
+                }
+            }, error -> closed.countDown(), closed::countDown);
+            source.open();
+            closed.await();
+        }
     }
 
     /**
@@ -136,8 +395,7 @@ public class ServerUtils {
      * @return The response object "posted"
      */
     public GameResponse postAnswer(GameResponse response) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("api/solo/answer")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -151,14 +409,37 @@ public class ServerUtils {
      * @return The response object "posted"
      */
     public GameResponse postAnswerMultiplayer(GameResponse response) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("api/multi/answer")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .post(Entity.entity(response, APPLICATION_JSON), GameResponse.class);
     }
 
+    /**
+     * Asynchronous POST request to /api/solo/answer, to "submit" the answer chosen by the user.
+     * <p>
+     * Returns at once, so it can be called from the JavaFX application thread.
+     *
+     * @param response GameResponse object to be posted
+     * @return Future of the response object "posted", completed on the JavaFX application thread
+     */
+    public CompletableFuture<GameResponse> postAnswerAsync(GameResponse response) {
+        return postAsync("api/solo/answer", response, GameResponse.class);
+    }
+
+    /**
+     * Asynchronous POST request to /api/multi/answer, to "submit" the answer chosen by the user.
+     * <p>
+     * Returns at once, so it can be called from the JavaFX application thread.
+     *
+     * @param response GameResponse object to be posted
+     * @return Future of the response object "posted", completed on the JavaFX application thread
+     */
+    public CompletableFuture<GameResponse> postAnswerMultiplayerAsync(GameResponse response) {
+        return postAsync("api/multi/answer", response, GameResponse.class);
+    }
+
     /**
      * POST request to /api/solo/start, to start the single-player game.
      *
@@ -166,23 +447,23 @@ public class ServerUtils {
      * @return The initial state of the game
      */
     public SinglePlayerState startSinglePlayerGame(SinglePlayer singlePlayer) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        forgetGame();
+        return withQuestions(http.target()
                 .path("/api/solo/start")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
-                .post(Entity.entity(singlePlayer, APPLICATION_JSON), SinglePlayerState.class);
+                .post(Entity.entity(singlePlayer, APPLICATION_JSON), SinglePlayerState.class));
     }
 
     /**
-     * POST request to /api/queue/start, to start the multiplayer game.
+     * POST request to /api/queue/lobby/{lobby}/start, to start the multiplayer game of a lobby.
      *
+     * @param lobby Name of the lobby.
      * @return The updated state of the game
      */
-    public QueueState startMultiplayerGame() {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
-                .path("/api/queue/start")
+    public QueueState startMultiplayerGame(String lobby) {
+        return http.target()
+                .path(lobbyPath(lobby) + "/start")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .post(null, QueueState.class);
@@ -196,8 +477,7 @@ public class ServerUtils {
      * @return          ChatMessage that was added to the particular game.
      */
     public ChatMessage addReaction(long id, ChatMessage chatMessage) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/multi/reaction/" + id)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -213,14 +493,61 @@ public class ServerUtils {
      * @return              ChatMessage that was added to the particular game.
      */
     public ChatMessage addJoker(long id, ChatMessage chatMessage) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/multi/joker/" + id)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .post(Entity.entity(chatMessage, APPLICATION_JSON), ChatMessage.class);
     }
 
+    /**
+     * Asynchronous POST request to api/multi/reaction to submit an emoji a client clicked.
+     * <p>
+     * Returns at once, so it can be called from the JavaFX application thread.
+     *
+     * @param id          id of current multiplayer game
+     * @param chatMessage ChatMessage instance to be submitted
+     * @return Future of the ChatMessage that was added, completed on the JavaFX application thread
+     */
+    public CompletableFuture<ChatMessage> addReactionAsync(long id, ChatMessage chatMessage) {
+        return postAsync("/api/multi/reaction/" + id, chatMessage, ChatMessage.class);
+    }
+
+    /**
+     * Asynchronous POST request to api/multi/joker to register a joker usage once a client clicks.
+     * <p>
+     * Returns at once, so it can be called from the JavaFX application thread.
+     *
+     * @param id          id of current multiplayer game
+     * @param chatMessage ChatMessage instance to be submitted, referencing the joker used
+     * @return Future of the ChatMessage that was added, completed on the JavaFX application thread
+     */
+    public CompletableFuture<ChatMessage> addJokerAsync(long id, ChatMessage chatMessage) {
+        return postAsync("/api/multi/joker/" + id, chatMessage, ChatMessage.class);
+    }
+
+    /**
+     * Asynchronous GET request to /api/multi/{id}/chat, for the chat messages sent after a cursor.
+     * <p>
+     * The game state only carries the sequence number of the last message, so the messages
+     * are fetched once it moves past the last one the client has.
+     *
+     * @param id    id of current multiplayer game
+     * @param after Sequence number of the last message the client has, 0 for all kept messages
+     * @return Future of the messages from old to new, completed on the JavaFX application thread
+     */
+    public CompletableFuture<List<ChatMessage>> getChatMessagesAsync(long id, long after) {
+        String path = "/api/multi/" + id + "/chat";
+        return onCallbacks(path, http.target()
+                .path(path)
+                .queryParam("after", after)
+                .request(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .rx()
+                .get(new GenericType<List<ChatMessage>>() {
+                }));
+    }
+
     /**
      * POST request to /api/multi/ to add a multiplayer user.
      *
@@ -229,8 +556,8 @@ public class ServerUtils {
      * @return Multiplayer player that was added.
      */
     public MultiPlayer addMultiPlayer(long id, MultiPlayer multiPlayer) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        forgetGame();
+        return http.target()
                 .path("/api/multi/players/" + String.valueOf(id))
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -241,7 +568,7 @@ public class ServerUtils {
      * @return it returns a currentServer.
      */
     public String getCurrentServer() {
-        return currentServer;
+        return http.getCurrentServer();
     }
 
     /**
@@ -250,15 +577,38 @@ public class ServerUtils {
      * @param currentServer A String representation of the server.
      */
     public void setCurrentServer(String currentServer) {
-        this.currentServer = currentServer;
+        forgetGame();
+        http.setCurrentServer(currentServer);
+    }
+
+    /**
+     * Drop the cached state and questions of the last game.
+     * <p>
+     * A new game may get the id of an old one, after a restart of the server or on another server,
+     * so nothing cached for the old game may be reused.
+     */
+    private void forgetGame() {
+        lastGameState = null;
+        lastQuestions = null;
+    }
+
+    /**
+     * Target of the current server for long uploads, which are sent in chunks while they are written,
+     * and may take the server a while to process.
+     *
+     * @return Target of the current server.
+     */
+    private WebTarget uploadTarget() {
+        return http.target()
+                .property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED)
+                .property(ClientProperties.READ_TIMEOUT, 0);
     }
 
     /**
      * @return it returns a client GenericType List Activity.
      */
     public List<Activity> getActivities() {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/activities")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -268,19 +618,35 @@ public class ServerUtils {
 
     /**
      * The method imports activities locally using the admin panel.
+     * <p>
+     * The file is sent in chunks while it is being read, and parsed by the server as it arrives.
      *
-     * @param fileAsString string representing the String version of a file.
+     * @param file JSON file holding an array of activities.
      *
-     * @return list of activities.
+     * @return numbers of saved and skipped activities.
      */
-    public List<Activity> importActivities(String fileAsString) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+    public ActivityBankImport importActivities(File file) {
+        return uploadTarget()
                 .path("/api/activities/addToRepo")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
-                .post(Entity.entity(fileAsString, APPLICATION_JSON), new GenericType<List<Activity>>() {
-                });
+                .post(Entity.entity(file, APPLICATION_JSON), ActivityBankImport.class);
+    }
+
+    /**
+     * Imports a whole activity bank in a single request, using the admin panel.
+     * <p>
+     * The archive is sent in chunks while it is being written, so it is never held in memory.
+     *
+     * @param archive Writes the zip archive of the activity bank to the request.
+     * @return the numbers of imported activities and images.
+     */
+    public ActivityBankImport importActivityBank(StreamingOutput archive) {
+        return uploadTarget()
+                .path("/api/activities/bank")
+                .request(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .post(Entity.entity(archive, "application/zip"), ActivityBankImport.class);
     }
 
     /**
@@ -292,8 +658,7 @@ public class ServerUtils {
      * @return the new Activity.
      */
     public Activity changeActivity(Long key, Activity newActivity) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/activities/" + key)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -307,8 +672,7 @@ public class ServerUtils {
      * @return the removed activity.
      */
     public Activity removeActivity(Long key) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/activities/delete/" + key)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -322,14 +686,90 @@ public class ServerUtils {
      * @return ActivityImageMessage
      */
     public ActivityImageMessage getActivityImage(long key) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/activities/images/" + key)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .get(ActivityImageMessage.class);
     }
 
+    /**
+     * Getter for the bytes of a variant of the activity image, as they are stored on the server.
+     *
+     * @param key     the key of the image.
+     * @param variant the size of the image. The original is sent until the server has resized it.
+     * @return Bytes of the image.
+     */
+    public byte[] getActivityImageBytes(long key, ImageVariant variant) {
+        return http.target()
+                .path("/api/activities/images/" + key + "/raw")
+                .queryParam("variant", variant.getName())
+                .request()
+                .accept("image/*", APPLICATION_OCTET_STREAM)
+                .get(byte[].class);
+    }
+
+    /**
+     * GET request for a variant of the activity image, revalidating a cached copy of it.
+     * <p>
+     * The ETag of the cached copy is sent as If-None-Match. If the image has not changed since,
+     * the server answers with 304 Not Modified and no body, and the cached bytes are returned again.
+     * Either way, the returned entry may be used until the max-age of the Cache-Control header has passed.
+     *
+     * @param key     the key of the image.
+     * @param variant the size of the image. The original is sent until the server has resized it.
+     * @param cached  Cached copy of the image, or null if there is none.
+     * @return Current image, with its ETag and expiry time.
+     */
+    public ImageDiskCache.Entry getActivityImage(long key, ImageVariant variant, ImageDiskCache.Entry cached) {
+        boolean revalidate = cached != null && cached.getETag() != null;
+        Invocation.Builder request = http.target()
+                .path("/api/activities/images/" + key + "/raw")
+                .queryParam("variant", variant.getName())
+                .request()
+                .accept("image/*", APPLICATION_OCTET_STREAM);
+        if (revalidate) {
+            request = request.header(HttpHeaders.IF_NONE_MATCH, cached.getETag());
+        }
+        Response response = request.get();
+
+        long maxAge = maxAge(response.getHeaderString(HttpHeaders.CACHE_CONTROL));
+        long expires = System.currentTimeMillis() + maxAge * 1000;
+        if (revalidate && response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            response.close();
+            return new ImageDiskCache.Entry(cached.getETag(), expires, cached.getBytes());
+        }
+        if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            // Reads the error, so the connection can be reused
+            response.bufferEntity();
+            throw new WebApplicationException(response);
+        }
+        return new ImageDiskCache.Entry(response.getHeaderString(HttpHeaders.ETAG), expires,
+                response.readEntity(byte[].class));
+    }
+
+    /**
+     * Find the max-age of a Cache-Control header.
+     *
+     * @param cacheControl Value of the header, or null if there is none.
+     * @return Max-age in seconds, or 0 if the header has none.
+     */
+    static long maxAge(String cacheControl) {
+        if (cacheControl == null) {
+            return 0;
+        }
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        if (!matcher.find()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            // Too large to be a number of seconds
+            return 0;
+        }
+    }
+
     /**
      * Adds a new ActivityImage to the image repository.
      *
@@ -337,8 +777,7 @@ public class ServerUtils {
      * @return ActivityImageMessage
      */
     public ActivityImageMessage addActivityImage(ActivityImageMessage message) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/activities/images/" + message.getKey())
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -346,26 +785,43 @@ public class ServerUtils {
     }
 
     /**
-     * @return it returns a list SinglePlayerLeaderboardScore.
+     * Fetches the top of the single-player leaderboard, sorted by the server.
+     *
+     * @param limit maximal number of entries to fetch, at most 100.
+     * @return it returns a list SinglePlayerLeaderboardScore, with score descending.
      */
-    public List<SinglePlayerLeaderboardScore> getLeaderboardEntries() {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+    public List<SinglePlayerLeaderboardScore> getLeaderboardEntries(int limit) {
+        return http.target()
                 .path("/api/leaderboard/players")
+                .queryParam("limit", limit)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .get(new GenericType<List<SinglePlayerLeaderboardScore>>() {
                 });
     }
 
+    /**
+     * Finds the rank a score has on the single-player leaderboard, without fetching the leaderboard.
+     *
+     * @param score the score to rank.
+     * @return the rank of the score and the number of entries.
+     */
+    public LeaderboardRank getLeaderboardRank(int score) {
+        return http.target()
+                .path("/api/leaderboard/rank")
+                .queryParam("score", score)
+                .request(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .get(LeaderboardRank.class);
+    }
+
     /**
      * @return it returns a client SinglePlayerLeaderboardScore.
      *
      * @param leaderboardEntry is a SinglePlayerLeaderboardScore entry.
      */
     public SinglePlayerLeaderboardScore postLeaderboardEntry(SinglePlayerLeaderboardScore leaderboardEntry) {
-        return ClientBuilder.newClient(new ClientConfig()) //
-                .target(currentServer)
+        return http.target() //
                 .path("/api/leaderboard/players")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -378,8 +834,7 @@ public class ServerUtils {
      * @return it returns a boolean value
      */
     public Boolean checkServer() {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/solo")
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
@@ -394,14 +849,57 @@ public class ServerUtils {
      * @param id     id of the multiplayer game.
      */
     public void postTimeJokerPlayer(MultiPlayer player, long id) {
-        ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        http.target()
                 .path("/api/multi/timeJoker/" + id)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .post(Entity.entity(player, APPLICATION_JSON));
     }
 
+    /**
+     * Send a POST request on a background thread of the client.
+     * <p>
+     * The returned future is completed through the callback executor, so anything chained to it
+     * may update the scene.
+     *
+     * @param path Path of the request.
+     * @param body Object to post as JSON.
+     * @param type Class of the response.
+     * @param <T>  Type of the response.
+     * @return Future of the response.
+     */
+    private <T> CompletableFuture<T> postAsync(String path, Object body, Class<T> type) {
+        return onCallbacks(path, http.target()
+                .path(path)
+                .request(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .rx()
+                .post(Entity.entity(body, APPLICATION_JSON), type));
+    }
+
+    /**
+     * Complete the result of an asynchronous request through the callback executor.
+     * <p>
+     * A failed request is also reported on the standard error, as the caller may not wait for its result.
+     *
+     * @param path    Path of the request.
+     * @param request Pending request.
+     * @param <T>     Type of the response.
+     * @return Future of the response, completed through the callback executor.
+     */
+    private <T> CompletableFuture<T> onCallbacks(String path, CompletionStage<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        request.whenComplete((value, error) -> callbacks.execute(() -> {
+            if (error == null) {
+                result.complete(value);
+            } else {
+                System.err.println("Request to " + path + " failed: " + error);
+                result.completeExceptionally(error);
+            }
+        }));
+        return result;
+    }
+
     /**
      * GET request to /api/multi/timeJoker/{id}
      * <p>
@@ -411,12 +909,53 @@ public class ServerUtils {
      * @return   the player who used the joker.
      */
     public MultiPlayer getTimeJokerPlayer(long id) {
-        return ClientBuilder.newClient(new ClientConfig())
-                .target(currentServer)
+        return http.target()
                 .path("/api/multi/timeJoker/" + id)
                 .request(APPLICATION_JSON)
                 .accept(APPLICATION_JSON)
                 .get(MultiPlayer.class);
     }
 
+    /**
+     * A game state together with the path it was received from and its ETag.
+     */
+    private static final class CachedGameState {
+
+        private final String path;
+        private final String eTag;
+        private final GameState state;
+
+        /**
+         * Constructor for CachedGameState.
+         *
+         * @param path  Path the state was received from.
+         * @param eTag  ETag of the state.
+         * @param state The game state.
+         */
+        private CachedGameState(String path, String eTag, GameState state) {
+            this.path = path;
+            this.eTag = eTag;
+            this.state = state;
+        }
+    }
+
+    /**
+     * The questions of a game together with the path they were received from.
+     */
+    private static final class CachedQuestions {
+
+        private final String path;
+        private final List<AbstractQuestion> questions;
+
+        /**
+         * Constructor for CachedQuestions.
+         *
+         * @param path      Path the questions were received from.
+         * @param questions The questions of the game.
+         */
+        private CachedQuestions(String path, List<AbstractQuestion> questions) {
+            this.path = path;
+            this.questions = questions;
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package client.utils;
+
+import commons.misc.ImageVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDiskCacheTest {
+
+    private static final String SERVER = "http://localhost:8080/";
+    private static final byte[] BYTES = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+    // Header, ETag and bytes of an entry
+    private static final long ENTRY_SIZE = 16 + 3 + BYTES.length;
+
+    @TempDir
+    Path directory;
+
+    private ImageDiskCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new ImageDiskCache(directory, 2 * ENTRY_SIZE + 1);
+    }
+
+    private static ImageDiskCache.Entry entry(long expires) {
+        return new ImageDiskCache.Entry("\"h\"", expires, BYTES);
+    }
+
+    @Test
+    void readReturnsWrittenEntry() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, entry(1000));
+        ImageDiskCache.Entry read = cache.read(SERVER, 1, ImageVariant.QUESTION);
+        assertEquals("\"h\"", read.getETag());
+        assertEquals(1000, read.getExpires());
+        assertArrayEquals(BYTES, read.getBytes());
+        assertEquals(ENTRY_SIZE, cache.getBytes());
+    }
+
+    @Test
+    void readMissesOtherVariantsAndServers() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, entry(1000));
+        assertNull(cache.read(SERVER, 1, ImageVariant.THUMBNAIL));
+        assertNull(cache.read(SERVER, 2, ImageVariant.QUESTION));
+        assertNull(cache.read("http://other:8080/", 1, ImageVariant.QUESTION));
+    }
+
+    @Test
+    void writeKeepsEntryWithoutETag() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, new ImageDiskCache.Entry(null, 0, BYTES));
+        ImageDiskCache.Entry read = cache.read(SERVER, 1, ImageVariant.QUESTION);
+        assertNull(read.getETag());
+        assertArrayEquals(BYTES, read.getBytes());
+    }
+
+    @Test
+    void refreshOnlyChangesTheExpiry() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, entry(1000));
+        cache.refresh(SERVER, 1, ImageVariant.QUESTION, 5000);
+        ImageDiskCache.Entry read = cache.read(SERVER, 1, ImageVariant.QUESTION);
+        assertEquals(5000, read.getExpires());
+        assertEquals("\"h\"", read.getETag());
+        assertArrayEquals(BYTES, read.getBytes());
+        assertTrue(read.isFresh(4999));
+        assertFalse(read.isFresh(5000));
+    }
+
+    @Test
+    void writeEvictsLeastRecentlyUsed() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, entry(0));
+        cache.write(SERVER, 2, ImageVariant.QUESTION, entry(0));
+        cache.read(SERVER, 1, ImageVariant.QUESTION);
+        cache.write(SERVER, 3, ImageVariant.QUESTION, entry(0));
+        assertNotNull(cache.read(SERVER, 1, ImageVariant.QUESTION));
+        assertNull(cache.read(SERVER, 2, ImageVariant.QUESTION));
+        assertNotNull(cache.read(SERVER, 3, ImageVariant.QUESTION));
+        assertEquals(2, cache.size());
+        assertEquals(2, countFiles());
+    }
+
+    @Test
+    void writeSkipsEntryLargerThanTheCache() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, new ImageDiskCache.Entry(null, 0, new byte[100]));
+        assertNull(cache.read(SERVER, 1, ImageVariant.QUESTION));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void removeDeletesAllVariants() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, entry(0));
+        cache.write(SERVER, 1, ImageVariant.THUMBNAIL, entry(0));
+        cache.remove(SERVER, 1);
+        assertNull(cache.read(SERVER, 1, ImageVariant.QUESTION));
+        assertNull(cache.read(SERVER, 1, ImageVariant.THUMBNAIL));
+        assertEquals(0, cache.getBytes());
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void entriesSurviveANewInstance() {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, entry(1000));
+        ImageDiskCache reopened = new ImageDiskCache(directory, 2 * ENTRY_SIZE + 1);
+        assertEquals(1, reopened.size());
+        assertEquals(1000, reopened.read(SERVER, 1, ImageVariant.QUESTION).getExpires());
+    }
+
+    @Test
+    void newInstanceKeepsTheMostRecentlyUsedEntries() throws IOException {
+        for (long key = 1; key <= 3; key++) {
+            new ImageDiskCache(directory, 10 * ENTRY_SIZE).write(SERVER, key, ImageVariant.QUESTION, entry(0));
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                long key = Long.parseLong(file.getFileName().toString().replaceAll("\\D", ""));
+                try {
+                    // Key 2 was used longest ago
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(key == 2 ? 1000 : 2000 + key));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        ImageDiskCache reopened = new ImageDiskCache(directory, 2 * ENTRY_SIZE + 1);
+        assertEquals(2, reopened.size());
+        assertNull(reopened.read(SERVER, 2, ImageVariant.QUESTION));
+        assertEquals(2, countFiles());
+    }
+
+    @Test
+    void newInstanceDeletesUnfinishedWrites() throws IOException {
+        Path temp = directory.resolve("server").resolve("question-1.img123.tmp");
+        Files.createDirectories(temp.getParent());
+        Files.write(temp, BYTES);
+        assertEquals(0, cache.size());
+        assertFalse(Files.exists(temp));
+    }
+
+    @Test
+    void readDropsCorruptFiles() throws IOException {
+        cache.write(SERVER, 1, ImageVariant.QUESTION, entry(0));
+        try (Stream<Path> files = Files.walk(directory)) {
+            Path file = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+            Files.write(file, new byte[] {9, 9, 9});
+        }
+        assertNull(cache.read(SERVER, 1, ImageVariant.QUESTION));
+        assertEquals(0, cache.size());
+        assertEquals(0, countFiles());
+    }
+
+    private long countFiles() {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
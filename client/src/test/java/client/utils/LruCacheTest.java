@@ -0,0 +1,84 @@
+package client.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    private LruCache<String, String> cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new LruCache<>(10, String::length);
+    }
+
+    @Test
+    void getReturnsPutValue() {
+        cache.put("a", "aaa");
+        assertEquals("aaa", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.getBytes());
+    }
+
+    @Test
+    void putEvictsLeastRecentlyUsed() {
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+        cache.put("c", "cccc");
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("c"));
+        assertEquals(8, cache.getBytes());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void putEvictsUntilTheValueFits() {
+        cache.put("a", "aaa");
+        cache.put("b", "bbb");
+        cache.put("c", "cccccccc");
+        assertEquals(1, cache.size());
+        assertEquals(8, cache.getBytes());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void putReplacesValue() {
+        cache.put("a", "aaaa");
+        cache.put("a", "aa");
+        assertEquals("aa", cache.get("a"));
+        assertEquals(2, cache.getBytes());
+    }
+
+    @Test
+    void putSkipsValueLargerThanCache() {
+        cache.put("a", "aaa");
+        cache.put("b", "bbbbbbbbbbb");
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("a"));
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void containsKeyDoesNotMarkAsUsed() {
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.containsKey("a");
+        cache.put("c", "cccc");
+        assertFalse(cache.containsKey("a"));
+        assertTrue(cache.containsKey("b"));
+    }
+
+    @Test
+    void removeFreesBytes() {
+        cache.put("a", "aaaa");
+        assertEquals("aaaa", cache.remove("a"));
+        assertNull(cache.remove("a"));
+        assertEquals(0, cache.getBytes());
+        assertEquals(0, cache.size());
+    }
+}
@@ -30,8 +30,9 @@ public class MockServerUtils extends ServerUtils {
     }
 
     @Override
-    public QueueState getQueueState() {
+    public QueueState getQueueState(String lobby) {
         call("getQueueUsers");
+        param = lobby;
         return (QueueState) returnValue;
     }
 
@@ -0,0 +1,168 @@
+package client.utils;
+
+import commons.multi.MultiPlayerState;
+import commons.queue.QueueState;
+import commons.queue.QueueUser;
+import commons.single.SinglePlayer;
+import commons.single.SinglePlayerState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static client.utils.PollingSchedule.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollingScheduleTest {
+
+    private static final long NOW = 1_000_000;
+
+    private PollingSchedule<MultiPlayerState> schedule;
+
+    @BeforeEach
+    void setup() {
+        schedule = PollingSchedule.forMultiGame();
+    }
+
+    private MultiPlayerState game(long nextPhase) {
+        return game(nextPhase, 0);
+    }
+
+    private MultiPlayerState game(long nextPhase, long chatSequence) {
+        MultiPlayerState game = new MultiPlayerState(0, nextPhase, 0, new ArrayList<>(), new ArrayList<>(),
+                MultiPlayerState.QUESTION_STATE, new ArrayList<>());
+        game.setChatSequence(chatSequence);
+        return game;
+    }
+
+    @Test
+    void nextSleepsUntilJustAfterTheNextPhase() {
+        assertEquals(3000 + TRANSITION_DELAY, schedule.next(game(NOW + 3000), NOW));
+    }
+
+    @Test
+    void nextWaitsAtMostTheIdleInterval() {
+        assertEquals(GAME_IDLE_INTERVAL, schedule.next(game(NOW + 2 * GAME_IDLE_INTERVAL), NOW));
+        assertEquals(GAME_IDLE_INTERVAL, schedule.next(game(Long.MAX_VALUE), NOW));
+    }
+
+    @Test
+    void nextPollsQuicklyAroundTheTransition() {
+        assertEquals(TRANSITION_INTERVAL, schedule.next(game(NOW - TRANSITION_DELAY), NOW));
+        assertEquals(TRANSITION_INTERVAL, schedule.next(game(NOW - 100), NOW));
+    }
+
+    @Test
+    void nextKeepsPollingALateTransition() {
+        assertEquals(ACTIVE_INTERVAL, schedule.next(game(NOW - TRANSITION_GRACE), NOW));
+        assertEquals(ACTIVE_INTERVAL, schedule.next(game(NOW - 60000), NOW));
+    }
+
+    @Test
+    void nextSeesTheTransitionWithASkewedClock() {
+        // The clock of the client is 5 seconds ahead of the server
+        long skew = 5000;
+        long transition = NOW + 3000;
+        long serverTime = NOW;
+        MultiPlayerState state = game(transition);
+        while (state.getNextPhase() == transition) {
+            serverTime += schedule.next(state, serverTime + skew);
+            state = game(serverTime < transition ? transition : transition + 8000);
+        }
+
+        assertTrue(serverTime - transition <= ACTIVE_INTERVAL, "Seen " + (serverTime - transition) + " ms late");
+    }
+
+    @Test
+    void simulatedGamePollsFarLessThanAFixedInterval() {
+        // Phases of a multiplayer game: 3 s to start, then 20 rounds of 8 s questions and 3 s transitions
+        List<Long> phases = new ArrayList<>();
+        long phase = NOW + 3000;
+        for (int i = 0; i < 20; i++) {
+            phases.add(phase);
+            phases.add(phase + 8000);
+            phase += 11000;
+        }
+
+        int polls = 0;
+        long late = 0;
+        long time = NOW;
+        int seen = 0;
+        while (true) {
+            polls++;
+            while (seen < phases.size() && phases.get(seen) <= time) {
+                late = Math.max(late, time - phases.get(seen));
+                seen++;
+            }
+            if (seen == phases.size()) {
+                break;
+            }
+            time += schedule.next(game(phases.get(seen)), time);
+        }
+        long fixedPolls = (phases.get(phases.size() - 1) - NOW) / ACTIVE_INTERVAL;
+
+        // At least 80% fewer polls than polling every 500 ms, without seeing any phase late
+        assertTrue(5 * polls <= fixedPolls, polls + " polls, " + fixedPolls + " at a fixed interval");
+        assertEquals(TRANSITION_DELAY, late);
+    }
+
+    @Test
+    void nextHasNoPhaseOnceSinglePlayerGameIsOver() {
+        PollingSchedule<SinglePlayerState> single = PollingSchedule.forGame();
+        SinglePlayerState game = new SinglePlayerState(0, NOW - 60000, 19, new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), SinglePlayerState.GAME_OVER_STATE, new SinglePlayer("player", 0));
+
+        assertEquals(GAME_IDLE_INTERVAL, single.next(game, NOW));
+    }
+
+    @Test
+    void nextPollsMoreOftenAfterChatActivity() {
+        schedule.next(game(NOW + 60000), NOW);
+        assertEquals(ACTIVE_INTERVAL, schedule.next(game(NOW + 60000, 1), NOW));
+        assertEquals(ACTIVE_INTERVAL,
+                schedule.next(game(NOW + 60000, 1), NOW + ACTIVITY_WINDOW - 1));
+        assertEquals(GAME_IDLE_INTERVAL,
+                schedule.next(game(NOW + 60000, 1), NOW + ACTIVITY_WINDOW));
+    }
+
+    @Test
+    void nextDoesNotExpectActivityOnTheFirstState() {
+        assertEquals(GAME_IDLE_INTERVAL, schedule.next(game(NOW + 60000, 1), NOW));
+    }
+
+    @Test
+    void failedBacksOffExponentially() {
+        assertEquals(MIN_BACKOFF, schedule.failed());
+        assertEquals(2 * MIN_BACKOFF, schedule.failed());
+        assertEquals(4 * MIN_BACKOFF, schedule.failed());
+        for (int i = 0; i < 100; i++) {
+            schedule.failed();
+        }
+        assertEquals(MAX_BACKOFF, schedule.failed());
+    }
+
+    @Test
+    void nextResetsTheBackoff() {
+        schedule.failed();
+        schedule.failed();
+        schedule.next(game(NOW + 60000), NOW);
+        assertEquals(MIN_BACKOFF, schedule.failed());
+    }
+
+    @Test
+    void queueWaitsForTheCountdown() {
+        PollingSchedule<QueueState> queue = PollingSchedule.forQueue();
+        List<QueueUser> users = List.of(new QueueUser("a"));
+        assertEquals(QUEUE_IDLE_INTERVAL, queue.next(new QueueState(users, false, 0, 0), NOW));
+        assertEquals(300 + TRANSITION_DELAY, queue.next(new QueueState(users, true, NOW + 300, 1), NOW));
+    }
+
+    @Test
+    void queuePollsMoreOftenAfterUsersJoin() {
+        PollingSchedule<QueueState> queue = PollingSchedule.forQueue();
+        queue.next(new QueueState(List.of(new QueueUser("a")), false, 0, 0), NOW);
+        assertEquals(ACTIVE_INTERVAL,
+                queue.next(new QueueState(List.of(new QueueUser("a"), new QueueUser("b")), false, 0, 0), NOW));
+    }
+}
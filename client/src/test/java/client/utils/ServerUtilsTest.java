@@ -0,0 +1,123 @@
+package client.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import commons.misc.GameState;
+import commons.single.SinglePlayer;
+import commons.single.SinglePlayerState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ServerUtilsTest {
+
+    private HttpClientUtils http;
+    private ServerUtils serverUtils;
+    private HttpServer first;
+    private HttpServer second;
+    private AtomicInteger questionRequests;
+
+    @BeforeEach
+    void setup() throws IOException {
+        questionRequests = new AtomicInteger();
+        first = gameServer();
+        second = gameServer();
+        http = new HttpClientUtils(1000, 1000);
+        serverUtils = new ServerUtils(http, Runnable::run);
+        serverUtils.setCurrentServer(address(first));
+    }
+
+    @AfterEach
+    void teardown() {
+        http.close();
+        first.stop(0);
+        second.stop(0);
+    }
+
+    @Test
+    void maxAgeOfCacheControl() {
+        assertEquals(86400, ServerUtils.maxAge("max-age=86400"));
+        assertEquals(60, ServerUtils.maxAge("public, max-age=60, must-revalidate"));
+        assertEquals(60, ServerUtils.maxAge("private,Max-Age = \"60\""));
+    }
+
+    @Test
+    void maxAgeWithoutDirective() {
+        assertEquals(0, ServerUtils.maxAge(null));
+        assertEquals(0, ServerUtils.maxAge("no-cache"));
+        assertEquals(0, ServerUtils.maxAge("s-maxage=60"));
+        assertEquals(0, ServerUtils.maxAge("max-age=99999999999999999999"));
+    }
+
+    @Test
+    void questionsReusedWithinGame() {
+        serverUtils.startSinglePlayerGame(new SinglePlayer("player", 0));
+        GameState state = serverUtils.getSoloGameState(0);
+
+        assertNotNull(state.getQuestionList());
+        assertEquals(1, questionRequests.get());
+    }
+
+    @Test
+    void questionsFetchedForNewGameWithSameId() {
+        serverUtils.startSinglePlayerGame(new SinglePlayer("player", 0));
+        serverUtils.startSinglePlayerGame(new SinglePlayer("player", 0));
+
+        assertEquals(2, questionRequests.get());
+    }
+
+    @Test
+    void questionsFetchedAfterServerSwitch() {
+        serverUtils.startSinglePlayerGame(new SinglePlayer("player", 0));
+        serverUtils.setCurrentServer(address(second));
+        serverUtils.getSoloGameState(0);
+
+        assertEquals(2, questionRequests.get());
+    }
+
+    /**
+     * Start a server which always has a single-player game with id 0, and counts the requests
+     * for its questions.
+     *
+     * @return The started server.
+     * @throws IOException If the server cannot be started.
+     */
+    private HttpServer gameServer() throws IOException {
+        byte[] state = new ObjectMapper().writeValueAsBytes(new SinglePlayerState(0, 0, 0, null,
+                new ArrayList<>(), new ArrayList<>(), SinglePlayerState.QUESTION_STATE,
+                new SinglePlayer("player", 0)));
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/solo/", exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith("/questions")) {
+                questionRequests.incrementAndGet();
+                respond(exchange, "[]".getBytes(StandardCharsets.UTF_8));
+            } else {
+                respond(exchange, state);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static String address(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+}
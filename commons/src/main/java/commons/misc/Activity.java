@@ -6,6 +6,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import java.util.Objects;
 
 /**
@@ -14,11 +15,23 @@ import java.util.Objects;
 @Entity
 public class Activity {
 
+    /**
+     * Name of the database sequence generating the keys of the activities.
+     */
+    public static final String KEY_SEQUENCE = "activity_sequence";
+
+    /**
+     * Number of keys reserved with a single call to the sequence, so that imported activities can be
+     * inserted in JDBC batches without a round trip to the database per activity.
+     */
+    public static final int KEY_ALLOCATION_SIZE = 50;
+
     /**
      * key field would be the primary key of our entities, as the JSON file we parse have key id which contains different information.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = KEY_SEQUENCE)
+    @SequenceGenerator(name = KEY_SEQUENCE, sequenceName = KEY_SEQUENCE, allocationSize = KEY_ALLOCATION_SIZE)
     private Long key;
 
     /**
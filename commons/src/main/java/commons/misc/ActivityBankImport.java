@@ -0,0 +1,59 @@
+package commons.misc;
+
+/**
+ * Result of importing an activity bank archive.
+ */
+public class ActivityBankImport {
+    private final int activities;
+    private final int images;
+    private final int skipped;
+
+    /**
+     * Default constructor.
+     */
+    public ActivityBankImport() {
+        this.activities = 0;
+        this.images = 0;
+        this.skipped = 0;
+    }
+
+    /**
+     * Constructor for ActivityBankImport.
+     *
+     * @param activities Number of activities saved.
+     * @param images     Number of images stored.
+     * @param skipped    Number of invalid activities and unusable entries of the archive.
+     */
+    public ActivityBankImport(int activities, int images, int skipped) {
+        this.activities = activities;
+        this.images = images;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Getter for the number of activities saved.
+     *
+     * @return Number of activities.
+     */
+    public int getActivities() {
+        return activities;
+    }
+
+    /**
+     * Getter for the number of images stored.
+     *
+     * @return Number of images.
+     */
+    public int getImages() {
+        return images;
+    }
+
+    /**
+     * Getter for the number of invalid activities and unusable entries of the archive.
+     *
+     * @return Number of skipped activities and entries.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+}
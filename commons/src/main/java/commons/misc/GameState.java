@@ -1,5 +1,6 @@
 package commons.misc;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import commons.multi.MultiPlayerState;
@@ -34,6 +35,10 @@ public abstract class GameState {
      * The state attribute is a String from : transition, intermittent leaderboard, question, game over.
      */
     private String state;
+    /**
+     * Incremented on every change of the game, so clients can tell whether it has changed since their last poll.
+     */
+    private volatile long version;
 
     /**
      * Default constructor for GameState, for object mapper.
@@ -111,9 +116,13 @@ public abstract class GameState {
 
     /**
      * Getter for the questions used during a game.
+     * <p>
+     * The questions are not serialized along with the rest of the state, as that is sent on every poll.
+     * Clients fetch them once per game instead.
      *
      * @return a list of AbstractQuestion representing the questions needed for the game.
      */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     public List<AbstractQuestion> getQuestionList() {
         return questionList;
     }
@@ -173,8 +182,37 @@ public abstract class GameState {
         this.state = state;
     }
 
+    /**
+     * Getter for the version of the game.
+     *
+     * @return a long which is increased whenever the game changes.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Setter for the version of the game.
+     *
+     * @param version the version of the game.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Increments the version of the game, after it has been changed.
+     * <p>
+     * Not atomic, so this should only be called by the single thread that changed the game.
+     */
+    public void incrementVersion() {
+        this.version++;
+    }
+
     /**
      * Compares the two entities.
+     * <p>
+     * The version is not compared, as it only tells how often the game has changed.
      *
      * @param o the instance that is compared to.
      * @return true if the two entities are equal, otherwise it will be returned false.
@@ -0,0 +1,83 @@
+package commons.misc;
+
+import java.util.Locale;
+
+/**
+ * Sizes in which the images of the activities can be requested from the server.
+ * <p>
+ * Resized variants fit within their bounding box, keeping the aspect ratio of the original.
+ * Images are never enlarged.
+ */
+public enum ImageVariant {
+
+    /**
+     * The image as it was uploaded.
+     */
+    ORIGINAL(0, 0),
+
+    /**
+     * Small image, e.g. for the table of the administrator panel.
+     */
+    THUMBNAIL(100, 100),
+
+    /**
+     * Image large enough for the question screens.
+     */
+    QUESTION(480, 320);
+
+    private final int maxWidth;
+    private final int maxHeight;
+
+    /**
+     * Constructor for ImageVariant.
+     *
+     * @param maxWidth  Maximal width in pixels, or 0 for the original.
+     * @param maxHeight Maximal height in pixels, or 0 for the original.
+     */
+    ImageVariant(int maxWidth, int maxHeight) {
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    /**
+     * Getter for the maximal width of the variant.
+     *
+     * @return Width of the bounding box in pixels, or 0 for the original.
+     */
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    /**
+     * Getter for the maximal height of the variant.
+     *
+     * @return Height of the bounding box in pixels, or 0 for the original.
+     */
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    /**
+     * Getter for the name of the variant, as used in requests.
+     *
+     * @return Lowercase name, e.g. "thumbnail".
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Find a variant by its name, ignoring the case.
+     *
+     * @param name Name of the variant, e.g. "thumbnail".
+     * @return The variant with the given name, or null if there is none.
+     */
+    public static ImageVariant fromName(String name) {
+        for (ImageVariant variant : values()) {
+            if (variant.name().equalsIgnoreCase(name)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
@@ -14,6 +14,7 @@ public class ChatMessage {
 
     private String username;
     private String message;
+    private long sequence;
 
     /**
      * Default constructor to be used for JSON parsing.
@@ -51,6 +52,24 @@ public class ChatMessage {
         return message;
     }
 
+    /**
+     * Getter for the sequence number of the message within its game.
+     *
+     * @return Sequence number assigned by the server, or 0 if the message was not sent yet.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Setter for the sequence number of the message within its game.
+     *
+     * @param sequence Sequence number of the message.
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     /**
      * Compares two entities.
      *
@@ -66,7 +85,8 @@ public class ChatMessage {
             return false;
         }
         ChatMessage chatMessage = (ChatMessage) o;
-        return Objects.equals(username, chatMessage.username) && Objects.equals(message, chatMessage.message);
+        return sequence == chatMessage.sequence && Objects.equals(username, chatMessage.username)
+                && Objects.equals(message, chatMessage.message);
     }
 
     /**
@@ -25,7 +25,7 @@ public class MultiPlayerState extends GameState {
     public static final String LEADERBOARD_STATE = "LEADERBOARD";
 
     private List<MultiPlayer> players;
-    private List<ChatMessage> chatMessageList;
+    private long chatSequence;
     private MultiPlayer playerUsingTimeJoker;
 
     /*
@@ -52,16 +52,13 @@ public class MultiPlayerState extends GameState {
      * @param submittedAnswers the answers submitted by players during game in a single round.
      * @param state            the status of the game.
      * @param players          the list of players currently in the game.
-     * @param chatMessageList     the list of messages sent in a game.
      */
     public MultiPlayerState(long id, long nextPhase, int roundNumber,
                             List<AbstractQuestion> questionList,
                             List<GameResponse> submittedAnswers,
                             String state,
-                            List<MultiPlayer> players,
-                            List<ChatMessage> chatMessageList) {
+                            List<MultiPlayer> players) {
         super(id, nextPhase, roundNumber, questionList, submittedAnswers, state);
-        this.chatMessageList = chatMessageList;
         this.players = players;
         this.playerUsingTimeJoker = null;
     }
@@ -76,12 +73,15 @@ public class MultiPlayerState extends GameState {
     }
 
     /**
-     * Getter for the messages.
+     * Getter for the sequence number of the last chat message sent in the game.
+     * <p>
+     * The messages themselves are kept in the chat of the game on the server. Clients fetch the ones
+     * after the last sequence number they have seen once this number moves past it.
      *
-     * @return a ChatMessage representing the messages sent used in a game.
+     * @return Sequence number of the last message, or 0 if no message was sent yet.
      */
-    public List<ChatMessage> getChatMessageList() {
-        return chatMessageList;
+    public long getChatSequence() {
+        return chatSequence;
     }
 
     /**
@@ -146,12 +146,12 @@ public class MultiPlayerState extends GameState {
     }
 
     /**
-     * Setter for the messages.
+     * Setter for the sequence number of the last chat message sent in the game.
      *
-     * @param newChatMessageList the messages sent in a game.
+     * @param chatSequence Sequence number of the last message.
      */
-    public void setChatMessageList(List<ChatMessage> newChatMessageList) {
-        this.chatMessageList = newChatMessageList;
+    public void setChatSequence(long chatSequence) {
+        this.chatSequence = chatSequence;
     }
 
     /**
@@ -216,7 +216,7 @@ public class MultiPlayerState extends GameState {
             return false;
         }
         MultiPlayerState that = (MultiPlayerState) o;
-        return Objects.equals(players, that.players) && Objects.equals(chatMessageList, that.chatMessageList);
+        return chatSequence == that.chatSequence && Objects.equals(players, that.players);
     }
 
     /**
@@ -226,7 +226,7 @@ public class MultiPlayerState extends GameState {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), players, chatMessageList);
+        return Objects.hash(super.hashCode(), players, chatSequence);
     }
 
     /**
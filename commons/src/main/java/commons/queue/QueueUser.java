@@ -24,11 +24,12 @@ import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
 /**
  * Representation of user inside of the queue.
  * <p>
- * Since only 1 queue exists at any given point in time, and users in the queue must have unique usernames,
- * QueueUser instances only have a username field.
+ * Usernames are unique across all lobbies of the server, so a user is identified by their username.
+ * The server fills in the lobby the user joined, which the client then uses to follow and start that lobby.
  */
 public class QueueUser {
     private String username;
+    private String lobby;
 
     /**
      * Default (empty) constructor for object mapper.
@@ -63,6 +64,24 @@ public class QueueUser {
         this.username = username;
     }
 
+    /**
+     * Getter for the lobby of the user.
+     *
+     * @return Name of the lobby the user joined, or null if they did not join one yet.
+     */
+    public String getLobby() {
+        return lobby;
+    }
+
+    /**
+     * Setter for the lobby of the user.
+     *
+     * @param lobby Name of the lobby the user joined.
+     */
+    public void setLobby(String lobby) {
+        this.lobby = lobby;
+    }
+
     /**
      * checks whether the passed object is a QueueUser, and is equal (fields) to the QueueUser the method is called over.
      *
@@ -0,0 +1,61 @@
+package commons.single;
+
+/**
+ * Rank of a score on the single-player leaderboard.
+ * <p>
+ * Equal scores share their rank, which is one more than the number of higher scores.
+ */
+public class LeaderboardRank {
+    private final int rank;
+    private final int total;
+    private final SinglePlayerLeaderboardScore entry;
+
+    /**
+     * Default constructor.
+     */
+    public LeaderboardRank() {
+        this.rank = 0;
+        this.total = 0;
+        this.entry = null;
+    }
+
+    /**
+     * Constructor for LeaderboardRank.
+     *
+     * @param rank  Rank of the score, starting at 1.
+     * @param total Number of entries on the leaderboard.
+     * @param entry Entry with the score, or null if only the score was asked for.
+     */
+    public LeaderboardRank(int rank, int total, SinglePlayerLeaderboardScore entry) {
+        this.rank = rank;
+        this.total = total;
+        this.entry = entry;
+    }
+
+    /**
+     * Getter for the rank of the score.
+     *
+     * @return Rank, starting at 1.
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * Getter for the number of entries on the leaderboard.
+     *
+     * @return Number of entries.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Getter for the entry with the score.
+     *
+     * @return Entry, or null if only the score was asked for.
+     */
+    public SinglePlayerLeaderboardScore getEntry() {
+        return entry;
+    }
+}
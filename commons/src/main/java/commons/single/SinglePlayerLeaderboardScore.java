@@ -9,10 +9,23 @@ import java.util.Objects;
  */
 
 @Entity
+@Table(indexes = @Index(name = "leaderboard_score_index", columnList = "score DESC, id"))
 public class SinglePlayerLeaderboardScore implements Comparable<SinglePlayerLeaderboardScore> {
 
+    /**
+     * Name of the database sequence generating the ids of the entries.
+     */
+    public static final String ID_SEQUENCE = "leaderboard_sequence";
+
+    /**
+     * Number of ids reserved with a single call to the sequence, so that entries can be
+     * inserted in JDBC batches.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "id", nullable = false)
     private Long id;
     private String username;
@@ -45,6 +58,15 @@ public class SinglePlayerLeaderboardScore implements Comparable<SinglePlayerLead
         return id;
     }
 
+    /**
+     * setter for the id of the entry.
+     *
+     * @param id the id
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
 
     /**
      * getter for the username of the entry.
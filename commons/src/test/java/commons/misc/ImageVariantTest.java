@@ -0,0 +1,21 @@
+package commons.misc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantTest {
+
+    @Test
+    public void testGetName() {
+        assertEquals("thumbnail", ImageVariant.THUMBNAIL.getName());
+    }
+
+    @Test
+    public void testFromName() {
+        assertEquals(ImageVariant.QUESTION, ImageVariant.fromName("question"));
+        assertEquals(ImageVariant.ORIGINAL, ImageVariant.fromName("ORIGINAL"));
+        assertNull(ImageVariant.fromName("huge"));
+        assertNull(ImageVariant.fromName(null));
+    }
+}
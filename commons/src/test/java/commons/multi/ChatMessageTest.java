@@ -53,5 +53,12 @@ class ChatMessageTest {
         assertNotEquals(chatMessage1.hashCode(), chatMessage3.hashCode());
     }
 
+    @Test
+    public void testSequence() {
+        chatMessage1.setSequence(3);
+
+        assertEquals(3, chatMessage1.getSequence());
+        assertNotEquals(chatMessage1, chatMessage2);
+    }
 
 }
\ No newline at end of file
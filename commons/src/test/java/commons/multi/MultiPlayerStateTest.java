@@ -30,8 +30,6 @@ class MultiPlayerStateTest {
     private MultiPlayer player2;
     private List<MultiPlayer> players;
 
-    private List<ChatMessage> chatMessageList;
-
     private MultiPlayerState game;
     private MultiPlayerState game2;
 
@@ -67,14 +65,9 @@ class MultiPlayerStateTest {
 
         players = Arrays.asList(player1, player2);
 
-        chatMessageList = Arrays.asList(
-                new ChatMessage("Kaloyan", "laughing"),
-                new ChatMessage("Kayra", "angry")
-        );
-
-        game = new MultiPlayerState(37, 5500, 2, questions, answers, "question", players, chatMessageList);
-        game2 = new MultiPlayerState(37, 5500, 2, questions, answers, "question", players, chatMessageList);
-        game3 = new MultiPlayerState(37, 5500, 2, questions, answers2, "question", players, chatMessageList);
+        game = new MultiPlayerState(37, 5500, 2, questions, answers, "question", players);
+        game2 = new MultiPlayerState(37, 5500, 2, questions, answers, "question", players);
+        game3 = new MultiPlayerState(37, 5500, 2, questions, answers2, "question", players);
     }
 
     @Test
@@ -113,8 +106,16 @@ class MultiPlayerStateTest {
     }
 
     @Test
-    public void testGetReaction() {
-        assertEquals(chatMessageList, game.getChatMessageList());
+    public void testGetChatSequence() {
+        assertEquals(0, game.getChatSequence());
+    }
+
+    @Test
+    public void testSetChatSequence() {
+        game.setChatSequence(4);
+
+        assertEquals(4, game.getChatSequence());
+        assertNotEquals(game2, game);
     }
 
     @Test
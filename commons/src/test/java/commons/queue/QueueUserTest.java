@@ -17,6 +17,7 @@ package commons.queue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import commons.queue.QueueUser;
@@ -37,6 +38,13 @@ public class QueueUserTest {
         assertEquals(result, queueUser.getUsername());
     }
 
+    @Test
+    public void lobby() {
+        assertNull(queueUser.getLobby());
+        queueUser.setLobby("auto-1");
+        assertEquals("auto-1", queueUser.getLobby());
+    }
+
     @Test
     public void equalsHashCode() {
         var a = new QueueUser("user");
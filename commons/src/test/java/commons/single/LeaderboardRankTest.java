@@ -0,0 +1,27 @@
+package commons.single;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardRankTest {
+
+    @Test
+    void constructor() {
+        SinglePlayerLeaderboardScore entry = new SinglePlayerLeaderboardScore("user", 300);
+        LeaderboardRank rank = new LeaderboardRank(3, 10, entry);
+
+        assertEquals(3, rank.getRank());
+        assertEquals(10, rank.getTotal());
+        assertSame(entry, rank.getEntry());
+    }
+
+    @Test
+    void defaultConstructor() {
+        LeaderboardRank rank = new LeaderboardRank();
+
+        assertEquals(0, rank.getRank());
+        assertEquals(0, rank.getTotal());
+        assertNull(rank.getEntry());
+    }
+}
@@ -15,12 +15,21 @@
  */
 package server;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.misc.Activity;
+import commons.single.SinglePlayerLeaderboardScore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import server.database.ActivityImageRepository;
 import server.database.ActivityRepository;
+import server.database.LeaderboardRepository;
 import server.utils.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Random;
 
 /**
@@ -32,6 +41,69 @@ public class Config {
     @Autowired
     private ActivityRepository activityRepository;
 
+    @Autowired
+    private ActivityImageRepository activityImageRepository;
+
+    @Autowired
+    private LeaderboardRepository leaderboardRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${quizzzz.games.finished-ttl:" + GameEvictor.DEFAULT_FINISHED_TTL + "}")
+    private long finishedGameTtl;
+
+    @Value("${quizzzz.games.abandoned-ttl:" + GameEvictor.DEFAULT_ABANDONED_TTL + "}")
+    private long abandonedGameTtl;
+
+    @Value("${quizzzz.games.archive-file:}")
+    private String archiveFile;
+
+    @Value("${quizzzz.node-id:0}")
+    private int nodeId;
+
+    @Value("${quizzzz.questions.pool-size:4}")
+    private int questionPoolSize;
+
+    @Value("${quizzzz.stream.timeout:600000}")
+    private long streamTimeout;
+
+    @Value("${quizzzz.images.store:pack}")
+    private String imageStoreType;
+
+    @Value("${quizzzz.images.directory:images}")
+    private String imageDirectory;
+
+    @Value("${quizzzz.images.migrate:true}")
+    private boolean migrateImages;
+
+    @Value("${quizzzz.images.variant-threads:2}")
+    private int imageVariantThreads;
+
+    @Value("${quizzzz.images.variant-queue:256}")
+    private int imageVariantQueue;
+
+    @Value("${quizzzz.activities.import-batch:" + ActivityBankImporter.DEFAULT_BATCH_SIZE + "}")
+    private int activityImportBatch;
+
+    @Value("${quizzzz.leaderboard.top-size:" + TopScores.DEFAULT_CAPACITY + "}")
+    private int leaderboardTopSize;
+
+    @Value("${quizzzz.leaderboard.max-score:" + ScoreRanks.DEFAULT_MAX_SCORE + "}")
+    private int leaderboardMaxScore;
+
+    @Value("${quizzzz.leaderboard.write-batch:100}")
+    private int leaderboardWriteBatch;
+
+    @Value("${quizzzz.leaderboard.write-interval:0}")
+    private long leaderboardWriteInterval;
+
+    @Value("${quizzzz.queue.lobby-size:" + QueueLobbies.DEFAULT_LOBBY_SIZE + "}")
+    private int lobbySize;
+
     /**
      * Getter for a new random instance.
      *
@@ -53,6 +125,25 @@ public class Config {
         return new GenerateQuestionUtils(activityRepository, getRandom());
     }
 
+    /**
+     * Getter for a new instance of QuestionSetPool.
+     * Notated as bean, a single producer thread keeps quizzzz.questions.pool-size question sets ready.
+     *
+     * @return A new, started QuestionSetPool instance.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public QuestionSetPool getQuestionSetPool() {
+        QuestionSetPool pool = new QuestionSetPool(getGenerateQuestionUtils(), questionPoolSize);
+        StatisticsUtils statistics = getStatisticsUtils();
+        statistics.register("questions.pool.depth", pool::getDepth);
+        statistics.register("questions.pool.capacity", pool::getCapacity);
+        statistics.register("questions.pool.hits", pool::getHits);
+        statistics.register("questions.pool.misses", pool::getMisses);
+        statistics.register("questions.pool.refill.last-ms", pool::getLastRefillMillis);
+        statistics.register("questions.pool.refill.average-ms", pool::getAverageRefillMillis);
+        return pool;
+    }
+
     /**
      * Getter for a new instance of SinglePlayerStateUtils.
      * Notated as bean, it would be only a single one used by all controllers.
@@ -61,18 +152,49 @@ public class Config {
      */
     @Bean
     public SinglePlayerStateUtils getSinglePlayerStateUtils() {
-        return new SinglePlayerStateUtils(getGenerateQuestionUtils(), getCurrentTimeUtils(), getScoreCountingUtils());
+        SinglePlayerStateUtils singleUtils = new SinglePlayerStateUtils(getQuestionSetPool(),
+                getCurrentTimeUtils(), getScoreCountingUtils(), getTimerWheel(), getGameIdAllocator());
+        configureEvictor(singleUtils.getEvictor(), "single");
+        singleUtils.setListener(getStateBroadcaster().listener(StateBroadcaster.SOLO_PREFIX));
+        getStatisticsUtils().register("games.single.live", singleUtils::getGameCount);
+        return singleUtils;
     }
 
     /**
-     * Getter for a new instance of QueueUtils.
+     * Getter for a new instance of QueueLobbies.
      * Notated as bean, it would be only a single one used by all controllers.
+     * Lobbies hold at most quizzzz.queue.lobby-size users.
      *
-     * @return A new QueueUtils instance.
+     * @return A new QueueLobbies instance.
      */
     @Bean
-    public QueueUtils getQueueUtils() {
-        return new QueueUtils(getCurrentTimeUtils());
+    public QueueLobbies getQueueLobbies() {
+        QueueLobbies lobbies = new QueueLobbies(getCurrentTimeUtils(), lobbySize);
+        StateBroadcaster broadcaster = getStateBroadcaster();
+        lobbies.setOnChange((name, state) -> broadcaster.publish(StateBroadcaster.QUEUE_PREFIX + name, state));
+        lobbies.setOnRemove(name -> broadcaster.close(StateBroadcaster.QUEUE_PREFIX + name));
+        StatisticsUtils statistics = getStatisticsUtils();
+        statistics.register("queue.lobbies", lobbies::getLobbyCount);
+        statistics.register("queue.users", lobbies::getUserCount);
+        return lobbies;
+    }
+
+    /**
+     * Getter for a new instance of StateBroadcaster.
+     * Notated as bean, every change is serialized once for all subscribed clients.
+     * Subscriptions are closed after quizzzz.stream.timeout milliseconds.
+     *
+     * @return A new StateBroadcaster instance.
+     */
+    @Bean(destroyMethod = "stop")
+    public StateBroadcaster getStateBroadcaster() {
+        StateBroadcaster broadcaster = new StateBroadcaster(objectMapper, streamTimeout);
+        StatisticsUtils statistics = getStatisticsUtils();
+        statistics.register("stream.subscribers", broadcaster::getSubscriberCount);
+        statistics.register("stream.published", broadcaster::getPublished);
+        statistics.register("stream.sent", broadcaster::getSent);
+        statistics.register("stream.dropped", broadcaster::getDropped);
+        return broadcaster;
     }
 
     /**
@@ -86,6 +208,19 @@ public class Config {
         return new CurrentTimeUtils();
     }
 
+    /**
+     * Getter for a new instance of TimerWheel.
+     * Notated as bean, a single wheel thread advances the games of all game modes, and times their delayed effects.
+     *
+     * @return A new, started TimerWheel instance.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public TimerWheel getTimerWheel() {
+        TimerWheel timerWheel = new TimerWheel(getCurrentTimeUtils());
+        getStatisticsUtils().register("timers.pending", timerWheel::getPendingCount);
+        return timerWheel;
+    }
+
     /**
      * Getter for a new instance of MultiPlayerStateUtils.
      * Notated as bean, it would be only a single one used by all controllers.
@@ -94,11 +229,190 @@ public class Config {
      */
     @Bean
     public MultiPlayerStateUtils getMultiPlayerStateUtils() {
-        return new MultiPlayerStateUtils(
-                getGenerateQuestionUtils(),
-                getQueueUtils(),
+        MultiPlayerStateUtils multiUtils = new MultiPlayerStateUtils(
+                getQuestionSetPool(),
+                getQueueLobbies(),
                 getCurrentTimeUtils(),
-                getScoreCountingUtils());
+                getScoreCountingUtils(),
+                getTimerWheel(),
+                getGameIdAllocator());
+        configureEvictor(multiUtils.getEvictor(), "multi");
+        multiUtils.setListener(getStateBroadcaster().listener(StateBroadcaster.MULTI_PREFIX));
+        getStatisticsUtils().register("games.multi.live", multiUtils::getGameCount);
+        getStatisticsUtils().register("games.multi.time-joker-resets", multiUtils::getPendingTimeJokerResets);
+        return multiUtils;
+    }
+
+    /**
+     * Apply the eviction settings to the evictor of a game mode, and register its counters.
+     *
+     * @param evictor Evictor of the game mode.
+     * @param mode    Name of the game mode, used in the names of the statistics.
+     */
+    private void configureEvictor(GameEvictor<?> evictor, String mode) {
+        evictor.setFinishedTtl(finishedGameTtl);
+        evictor.setAbandonedTtl(abandonedGameTtl);
+        evictor.setArchiver(getGameArchiver());
+        getStatisticsUtils().register("games." + mode + ".evicted.finished", evictor::getEvictedFinished);
+        getStatisticsUtils().register("games." + mode + ".evicted.abandoned", evictor::getEvictedAbandoned);
+    }
+
+    /**
+     * Getter for a new instance of GameIdAllocator.
+     * Notated as bean, the ids of all game modes are unique on this server instance.
+     * The node id set in quizzzz.node-id keeps them unique across several instances.
+     *
+     * @return A new GameIdAllocator instance.
+     */
+    @Bean
+    public GameIdAllocator getGameIdAllocator() {
+        return new GameIdAllocator(nodeId);
+    }
+
+    /**
+     * Getter for the archiver of evicted games.
+     * Writes the results to the file set in quizzzz.games.archive-file, or does nothing if it is not set.
+     *
+     * @return A new GameArchiver instance.
+     */
+    @Bean(destroyMethod = "stop")
+    public GameArchiver getGameArchiver() {
+        if (archiveFile.isEmpty()) {
+            return GameArchiver.NONE;
+        }
+        return new FileGameArchiver(Path.of(archiveFile), getCurrentTimeUtils());
+    }
+
+    /**
+     * Getter for the store of the images of the activities.
+     * Set quizzzz.images.store to "jpa" to keep the images in the database, or to "pack" to keep them
+     * in pack files in quizzzz.images.directory. In the latter case, images which are still in the database
+     * are moved into the pack files first, unless quizzzz.images.migrate is false.
+     *
+     * @return A new, opened ImageStore instance.
+     * @throws IOException If the pack files could not be opened, or the images could not be moved.
+     */
+    @Bean(destroyMethod = "close")
+    public ImageStore getImageStore() throws IOException {
+        if ("jpa".equals(imageStoreType)) {
+            return new JpaImageStore(activityImageRepository);
+        }
+        PackFileImageStore store = new PackFileImageStore(Path.of(imageDirectory),
+                PackFileImageStore.DEFAULT_PACK_SIZE);
+        if (migrateImages) {
+            new ImageMigrator(activityImageRepository, store).migrate();
+        }
+        StatisticsUtils statistics = getStatisticsUtils();
+        statistics.register("images.stored", store::getImageCount);
+        statistics.register("images.distinct", store::getRecordCount);
+        statistics.register("images.deduplicated", store::getDeduplicated);
+        statistics.register("images.pack-bytes", store::getPackBytes);
+        return store;
+    }
+
+    /**
+     * Getter for a new instance of ImageVariants.
+     * Notated as bean, quizzzz.images.variant-threads workers resize the images of all requests,
+     * with at most quizzzz.images.variant-queue images waiting.
+     *
+     * @return A new ImageVariants instance.
+     * @throws IOException If the image store could not be opened.
+     */
+    @Bean(destroyMethod = "stop")
+    public ImageVariants getImageVariants() throws IOException {
+        ImageVariants variants = new ImageVariants(getImageStore(), imageVariantThreads, imageVariantQueue);
+        StatisticsUtils statistics = getStatisticsUtils();
+        statistics.register("images.variants.generated", variants::getGenerated);
+        statistics.register("images.variants.failed", variants::getFailed);
+        statistics.register("images.variants.rejected", variants::getRejected);
+        statistics.register("images.variants.queued", variants::getQueued);
+        return variants;
+    }
+
+    /**
+     * Getter for a new instance of ActivityBankImporter.
+     * Notated as bean, it would be only a single one used by all controllers, saving
+     * quizzzz.activities.import-batch activities at a time.
+     * <p>
+     * The sequence of the activity keys is moved past the keys already in use first, as databases
+     * created before the activities had their own sequence hold keys of the shared one.
+     *
+     * @return A new ActivityBankImporter instance.
+     * @throws IOException If the image store could not be opened.
+     */
+    @Bean
+    public ActivityBankImporter getActivityBankImporter() throws IOException {
+        new SequenceAligner(jdbcTemplate).align(Activity.KEY_SEQUENCE, Activity.KEY_ALLOCATION_SIZE,
+                activityRepository.findMaxKey());
+        return new ActivityBankImporter(activityRepository, getImageStore(), getImageVariants(), objectMapper,
+                activityImportBatch);
+    }
+
+    /**
+     * Getter for a new instance of TopScores.
+     * Notated as bean, the top quizzzz.leaderboard.top-size entries of the leaderboard are loaded once
+     * on startup, and cached for all requests.
+     *
+     * @return A new, loaded TopScores instance.
+     */
+    @Bean(initMethod = "load")
+    public TopScores getTopScores() {
+        TopScores topScores = new TopScores(leaderboardRepository, leaderboardTopSize);
+        StatisticsUtils statistics = getStatisticsUtils();
+        statistics.register("leaderboard.top.hits", topScores::getHits);
+        statistics.register("leaderboard.top.misses", topScores::getMisses);
+        return topScores;
+    }
+
+    /**
+     * Getter for a new instance of ScoreRanks.
+     * Notated as bean, the scores of the leaderboard are counted once on startup, and kept up to date
+     * for all requests.
+     *
+     * @return A new, loaded ScoreRanks instance.
+     */
+    @Bean(initMethod = "load")
+    public ScoreRanks getScoreRanks() {
+        ScoreRanks scoreRanks = new ScoreRanks(leaderboardRepository, leaderboardMaxScore);
+        getStatisticsUtils().register("leaderboard.entries", scoreRanks::getTotal);
+        return scoreRanks;
+    }
+
+    /**
+     * Getter for a new instance of LeaderboardWriter.
+     * Notated as bean, entries of the leaderboard are queued and written in batches of
+     * quizzzz.leaderboard.write-batch at least every quizzzz.leaderboard.write-interval ms,
+     * or saved right away if the interval is 0.
+     * <p>
+     * The sequence of the ids is moved past the ids already in use first, as databases created before
+     * the entries had their own sequence hold ids of the shared one.
+     *
+     * @return A new, started LeaderboardWriter instance.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LeaderboardWriter getLeaderboardWriter() {
+        new SequenceAligner(jdbcTemplate).align(SinglePlayerLeaderboardScore.ID_SEQUENCE,
+                SinglePlayerLeaderboardScore.ID_ALLOCATION_SIZE, leaderboardRepository.findMaxId());
+        LeaderboardWriter writer = new LeaderboardWriter(leaderboardRepository, getTopScores(), getScoreRanks(),
+                leaderboardWriteBatch, leaderboardWriteInterval);
+        StatisticsUtils statistics = getStatisticsUtils();
+        statistics.register("leaderboard.write-behind.queued", writer::getQueued);
+        statistics.register("leaderboard.write-behind.written", writer::getWritten);
+        statistics.register("leaderboard.write-behind.failed", writer::getFailed);
+        statistics.register("leaderboard.write-behind.flush.last-ms", writer::getLastFlushMillis);
+        statistics.register("leaderboard.write-behind.flush.average-ms", writer::getAverageFlushMillis);
+        return writer;
+    }
+
+    /**
+     * Getter for a new instance of StatisticsUtils.
+     * Notated as bean, all utilities register their statistics in the same instance.
+     *
+     * @return A new StatisticsUtils instance.
+     */
+    @Bean
+    public StatisticsUtils getStatisticsUtils() {
+        return new StatisticsUtils();
     }
 
     /**
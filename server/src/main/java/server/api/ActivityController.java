@@ -1,18 +1,32 @@
 package server.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import commons.misc.Activity;
-import commons.misc.ActivityImage;
+import commons.misc.ActivityBankImport;
 import commons.misc.ActivityImageMessage;
+import commons.misc.ImageVariant;
 import org.apache.tomcat.util.codec.binary.Base64;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import server.database.ActivityImageRepository;
 import server.database.ActivityRepository;
+import server.utils.ActivityBankImporter;
+import server.utils.ByteBufferResource;
+import server.utils.ImageStore;
+import server.utils.ImageTypes;
+import server.utils.ImageVariants;
+import server.utils.QuestionSetPool;
+import server.utils.StoredImage;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
 
 /**
  * Server-side controller for the activities stored in the database.
@@ -21,34 +35,54 @@ import java.util.Optional;
 @RequestMapping("/api/activities")
 public class ActivityController {
 
+    /**
+     * Time in seconds for which clients may use a downloaded image without revalidating it.
+     */
+    public static final long IMAGE_MAX_AGE = TimeUnit.HOURS.toSeconds(1);
+
     private final ActivityRepository repo;
-    private final ActivityImageRepository imageRepo;
+    private final ImageStore imageStore;
+    private final ImageVariants imageVariants;
+    private final ActivityBankImporter activityBankImporter;
+    private final QuestionSetPool questionSetPool;
 
     /**
      * Constructor for the activity controller.
      *
-     * @param repo      ActivityRepository instance.
-     * @param imageRepo ActivityImageRepository instance.
+     * @param repo                 ActivityRepository instance.
+     * @param imageStore           Store of the images of the activities.
+     * @param imageVariants        Generator of the resized variants of the images.
+     * @param activityBankImporter Importer of whole activity banks.
+     * @param questionSetPool      Pool of question sets, which is cleared whenever the activities change.
      */
     public ActivityController(
             ActivityRepository repo,
-            ActivityImageRepository imageRepo
+            ImageStore imageStore,
+            ImageVariants imageVariants,
+            ActivityBankImporter activityBankImporter,
+            QuestionSetPool questionSetPool
     ) {
         this.repo = repo;
-        this.imageRepo = imageRepo;
+        this.imageStore = imageStore;
+        this.imageVariants = imageVariants;
+        this.activityBankImporter = activityBankImporter;
+        this.questionSetPool = questionSetPool;
     }
 
     /**
      * POST mapping for adding an image to an activity.
+     * <p>
+     * The resized variants of the image are generated in the background.
      *
      * @param key     Key of the activity in the repository
      * @param message Base64 encoding of the image message
      * @return ResponseEntity indicating whether activity image was added.
+     * @throws IOException If the image could not be stored.
      */
     @PostMapping("/images/{key}")
     public ResponseEntity<ActivityImageMessage> addActivityImage(
             @PathVariable("key") long key,
-            @RequestBody ActivityImageMessage message) {
+            @RequestBody ActivityImageMessage message) throws IOException {
         Optional<Activity> optionalActivity = repo.findById(key);
         if (optionalActivity.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -57,8 +91,8 @@ public class ActivityController {
             Activity activity = optionalActivity.get();
             byte[] decodedImage = Base64.decodeBase64(imageBase64);
             String id = activity.getId();
-            ActivityImage activityImage = new ActivityImage(id, decodedImage);
-            imageRepo.save(activityImage);
+            imageStore.put(id, decodedImage);
+            imageVariants.submit(id);
             System.out.println("Added image for " + activity.getId() + " activity");
             return ResponseEntity.ok(message);
         }
@@ -69,27 +103,67 @@ public class ActivityController {
      *
      * @param key Key of the activity in the repository.
      * @return Base64 encoding of the image message
+     * @throws IOException If the image could not be read.
      */
     @GetMapping("/images/{key}")
-    public ResponseEntity<ActivityImageMessage> getActivityImage(@PathVariable("key") long key) {
+    public ResponseEntity<ActivityImageMessage> getActivityImage(@PathVariable("key") long key) throws IOException {
         Optional<Activity> optionalActivity = repo.findById(key);
         if (optionalActivity.isEmpty()) {
             return ResponseEntity.badRequest().build();
         } else {
             Activity activity = optionalActivity.get();
             String id = activity.getId();
-            Optional<ActivityImage> optionalActivityImage = imageRepo.findById(id);
+            Optional<StoredImage> optionalActivityImage = imageStore.get(id);
             if (optionalActivityImage.isEmpty()) {
                 return ResponseEntity.notFound().build();
             } else {
-                ActivityImage activityImage = optionalActivityImage.get();
-                String imageBase64 = Base64.encodeBase64String(activityImage.getImage());
+                StoredImage activityImage = optionalActivityImage.get();
+                String imageBase64 = Base64.encodeBase64String(activityImage.getBytes());
                 ActivityImageMessage message = new ActivityImageMessage(imageBase64, key);
                 return ResponseEntity.ok(message);
             }
         }
     }
 
+    /**
+     * GET mapping for retrieving the bytes of the image of an activity.
+     * <p>
+     * The stored bytes are sent as they are, without the base64 encoding of the JSON endpoint,
+     * and without copying them onto the heap first.
+     * The ETag is the hash of the image, so unchanged images are answered with 304 Not Modified,
+     * and Range requests are answered with 206 Partial Content. Both are handled by Spring,
+     * as the image is returned as a Resource.
+     * <p>
+     * A resized variant can be requested instead of the original. Until the variant is generated,
+     * the original is sent.
+     *
+     * @param key     Key of the activity in the repository.
+     * @param variant Name of the variant, e.g. "thumbnail". The original is sent by default.
+     * @return Image, with its detected content type.
+     * @throws IOException If the image could not be read.
+     */
+    @GetMapping("/images/{key}/raw")
+    public ResponseEntity<Resource> getActivityImageBytes(
+            @PathVariable("key") long key,
+            @RequestParam(value = "variant", defaultValue = "original") String variant) throws IOException {
+        Optional<Activity> optionalActivity = repo.findById(key);
+        ImageVariant imageVariant = ImageVariant.fromName(variant);
+        if (optionalActivity.isEmpty() || imageVariant == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        String id = optionalActivity.get().getId();
+        Optional<StoredImage> optionalActivityImage = imageVariants.get(id, imageVariant);
+        if (optionalActivityImage.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StoredImage image = optionalActivityImage.get();
+        return ResponseEntity.ok()
+                .contentType(ImageTypes.detect(image.getHeader(ImageTypes.HEADER_LENGTH)))
+                .eTag("\"" + image.getHash() + "\"")
+                .cacheControl(CacheControl.maxAge(IMAGE_MAX_AGE, TimeUnit.SECONDS).mustRevalidate())
+                .body(new ByteBufferResource(image.getData(), id));
+    }
+
     /**
      * Lists all entries currently present in the repository.
      *
@@ -117,6 +191,7 @@ public class ActivityController {
             return ResponseEntity.badRequest().build();
         }
         Activity saved = repo.save(activity);
+        questionSetPool.clear();
         return ResponseEntity.ok(saved);
     }
 
@@ -131,6 +206,7 @@ public class ActivityController {
         Activity removed = repo.findById(key).orElse(null);
         if (removed != null) {
             repo.delete(removed);
+            questionSetPool.clear();
             return ResponseEntity.ok(removed);
         } else {
             return ResponseEntity.badRequest().build();
@@ -164,6 +240,7 @@ public class ActivityController {
             }
 
             final Activity updatedActivity = repo.save(activity);
+            questionSetPool.clear();
             return ResponseEntity.ok(updatedActivity);
         } else {
             return ResponseEntity.badRequest().build();
@@ -173,31 +250,57 @@ public class ActivityController {
     /**
      * Save the list of activities provided by the user to the ActivityRepository.
      * Corresponds to importActivities() in client/ServerUtils and is used in Administrator Panel.
+     * <p>
+     * The JSON array is parsed while it is being received, and the valid activities are saved in batches,
+     * so large files are never held in memory.
      *
-     * @param activities in a list, which is generated by JPA from the input file of user in Administrator Panel.
-     *                   An activity must fulfill the criteria in lines 108 through 114 in order to be saved.
+     * @param activities Stream of the JSON array of activities, from the input file of user in Administrator Panel.
+     *                   An activity must fulfill the criteria of ActivityBankImporter.isValid in order to be saved.
      *                   If there are no activities saved to the repository, BAD_REQUEST is sent.
-     * @return ResponseEntity consisting of the list of activities that is saved to the ActivityRepository.
+     * @return ResponseEntity consisting of the numbers of saved and skipped activities,
+     *         or BAD_REQUEST if the JSON is malformed or holds no valid activity.
+     * @throws IOException If the request could not be read.
      */
-    @PostMapping("/addToRepo")
-    public ResponseEntity<List<Activity>> addActivities(@RequestBody List<Activity> activities) {
-        ArrayList<Activity> savedActivities = new ArrayList<>();
-        for (Activity activity : activities) {
-            if (!isNullOrEmpty(activity.getId()) &&
-                    !isNullOrEmpty(activity.getTitle()) &&
-                    !isNullOrEmpty(activity.getSource()) &&
-                    !isNullOrEmpty(activity.getImage()) &&
-                    activity.getConsumption() > 0 &&
-                    activity.getSource().length() < 240 &&
-                    activity.getConsumption() < (long) Integer.MAX_VALUE
-            ) {
-                savedActivities.add(repo.save(activity));
-            }
+    @PostMapping(value = "/addToRepo", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ActivityBankImport> addActivities(InputStream activities) throws IOException {
+        ActivityBankImport result;
+        try {
+            result = activityBankImporter.importActivities(activities);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (result.getActivities() == 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        questionSetPool.clear();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Import a whole activity bank from a zip archive, holding the JSON file of the activities
+     * and their images in folders, e.g. 00/shower.png.
+     * <p>
+     * The archive is processed while it is being received, so it should be sent in chunks.
+     * Corresponds to importActivityBank() in client/ServerUtils.
+     *
+     * @param archive Stream of the zip archive.
+     * @return ResponseEntity consisting of the numbers of imported activities and images,
+     *         or BAD_REQUEST if the archive or its JSON file is malformed, or it holds nothing to import.
+     * @throws IOException If the archive could not be read, or an image could not be stored.
+     */
+    @PostMapping(value = "/bank", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ActivityBankImport> importActivityBank(InputStream archive) throws IOException {
+        ActivityBankImport result;
+        try {
+            result = activityBankImporter.importZip(archive);
+        } catch (ZipException | JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
         }
-        if (savedActivities.size() == 0) {
+        if (result.getActivities() == 0 && result.getImages() == 0) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(savedActivities);
+        questionSetPool.clear();
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -0,0 +1,77 @@
+package server.api;
+
+import commons.misc.GameState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Builds the responses to polls of a game state, answering with 304 Not Modified
+ * if the client already has the current version of the game.
+ * <p>
+ * The ETag of a game is its version, prefixed with a tag of this server instance.
+ * Versions start at 0 again after a restart, so without the prefix a client could be told
+ * that a new game is unchanged.
+ */
+final class GameStateResponses {
+
+    private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private GameStateResponses() {
+    }
+
+    /**
+     * Build the response to a poll of a game.
+     *
+     * @param game         Game that was polled.
+     * @param ifNoneMatch  Value of the If-None-Match header, or null if it was not sent.
+     * @param sinceVersion Version of the game the client already has, or null if it was not sent.
+     * @param <T>          Type of the game state.
+     * @return 304 Not Modified if the client has the current version, 200 OK with the game otherwise.
+     */
+    static <T extends GameState> ResponseEntity<T> of(T game, String ifNoneMatch, Long sinceVersion) {
+        // Read the version once, as the game may change while it is being serialized.
+        long version = game.getVersion();
+        String eTag = eTag(version);
+        if ((sinceVersion != null && sinceVersion == version) || matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(game);
+    }
+
+    /**
+     * Compute the ETag of a version of a game.
+     *
+     * @param version Version of the game.
+     * @return Quoted ETag.
+     */
+    static String eTag(long version) {
+        return "\"" + INSTANCE + "-" + version + "\"";
+    }
+
+    /**
+     * Check whether an If-None-Match header matches an ETag.
+     *
+     * @param ifNoneMatch Value of the header, a comma-separated list of ETags or "*". May be null.
+     * @param eTag        Current ETag of the game.
+     * @return true iff one of the ETags in the header is the given one.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // Weak comparison, as the state is only compared by version
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,58 +1,147 @@
 package server.api;
 
+import commons.single.LeaderboardRank;
 import commons.single.SinglePlayerLeaderboardScore;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import server.database.LeaderboardRepository;
+import server.utils.LeaderboardWriter;
+import server.utils.ScoreRanks;
+import server.utils.TopScores;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
-@RequestMapping("/api/leaderboard/players")
+@RequestMapping("/api/leaderboard")
 public class LeaderboardController {
 
+    /**
+     * Number of entries returned if the request does not specify a limit.
+     */
+    public static final int DEFAULT_LIMIT = 10;
+
+    /**
+     * Maximal number of entries returned by a single request.
+     */
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * Maximal number of entries on each side of an entry in a window.
+     */
+    public static final int MAX_WINDOW = 25;
+
     private final LeaderboardRepository repo;
+    private final TopScores topScores;
+    private final ScoreRanks scoreRanks;
+    private final LeaderboardWriter writer;
 
     /**
      * Constructor for the user controller.
      *
-     * @param repo User repository final instance
+     * @param repo       User repository final instance
+     * @param topScores  Cache of the top of the leaderboard
+     * @param scoreRanks Counts of the scores of the leaderboard
+     * @param writer     Writer saving the new entries
      */
-    public LeaderboardController(LeaderboardRepository repo) {
+    public LeaderboardController(LeaderboardRepository repo, TopScores topScores, ScoreRanks scoreRanks,
+                                 LeaderboardWriter writer) {
         this.repo = repo;
+        this.topScores = topScores;
+        this.scoreRanks = scoreRanks;
+        this.writer = writer;
     }
 
     /**
-     * Get endpoint that retrieves all users from the user repository with score descending.
+     * Get endpoint that retrieves a page of the leaderboard with score descending.
+     * <p>
+     * Pages are found either by their offset from the top, which only works within the cached top,
+     * or after the last entry of the previous page (afterScore and afterId), which works on any page.
      *
-     * @return the users existing in the repository
+     * @param limit      maximal number of entries, at most MAX_LIMIT
+     * @param offset     number of entries before the page, if afterScore and afterId are not given
+     * @param afterScore score of the entry after which the page starts
+     * @param afterId    id of the entry after which the page starts
+     * @return the entries of the page, or BAD_REQUEST if the page cannot be found this way
      */
-    @GetMapping("")
-    public List<SinglePlayerLeaderboardScore> getAllUsers() {
-        List<SinglePlayerLeaderboardScore> players = repo.findAll();
+    @GetMapping("/players")
+    public ResponseEntity<List<SinglePlayerLeaderboardScore>> getAllUsers(
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer afterScore,
+            @RequestParam(required = false) Long afterId) {
+        if (limit < 1 || limit > MAX_LIMIT || (afterScore == null) != (afterId == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (afterScore != null) {
+            return ResponseEntity.ok(topScores.after(afterScore, afterId, limit));
+        }
+        if (offset < 0 || offset + limit > topScores.getCapacity()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(topScores.page(offset, limit));
+    }
 
-        //sorting players in ascending score order
-        Collections.sort(players, Comparator.comparing(player1 -> player1.getScore()));
+    /**
+     * Get endpoint that finds the rank a score has on the leaderboard, without reading the entries.
+     *
+     * @param score the score to rank
+     * @return the rank of the score and the number of entries
+     */
+    @GetMapping("/rank")
+    public LeaderboardRank getRank(@RequestParam int score) {
+        return new LeaderboardRank(scoreRanks.rank(score), scoreRanks.getTotal(), null);
+    }
 
-        //reversing the order to make it descending
-        Collections.reverse(players);
+    /**
+     * Get endpoint that retrieves the entries ranked around an entry, e.g. the one of a player who just finished.
+     *
+     * @param id   the id of the entry
+     * @param size maximal number of entries on each side of the entry, at most MAX_WINDOW
+     * @return the ranked entries, with score descending,
+     *         NOT_FOUND if there is no such entry, or BAD_REQUEST if the size is invalid
+     */
+    @GetMapping("/around")
+    public ResponseEntity<List<LeaderboardRank>> getAround(@RequestParam long id,
+                                                          @RequestParam(defaultValue = "5") int size) {
+        if (size < 1 || size > MAX_WINDOW) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<SinglePlayerLeaderboardScore> entry = repo.findById(id);
+        if (entry.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        int score = entry.get().getScore();
+        List<SinglePlayerLeaderboardScore> window =
+                new ArrayList<>(repo.findBefore(score, id, PageRequest.of(0, size)));
+        Collections.reverse(window);
+        window.add(entry.get());
+        window.addAll(topScores.after(score, id, size));
 
-        return players;
+        List<LeaderboardRank> ranked = new ArrayList<>();
+        int total = scoreRanks.getTotal();
+        for (SinglePlayerLeaderboardScore neighbour : window) {
+            ranked.add(new LeaderboardRank(scoreRanks.rank(neighbour.getScore()), total, neighbour));
+        }
+        return ResponseEntity.ok(ranked);
     }
 
     /**
+     * Ranks and the top of the leaderboard include the entry right away, even if it is written
+     * behind a buffer.
+     *
      * @param entry the user to be added to the SingleUser repository
-     * @return response
+     * @return response, with the saved entry, or the accepted entry without an id if it is not written yet
      */
-    @PostMapping("")
+    @PostMapping("/players")
     public ResponseEntity<SinglePlayerLeaderboardScore> add(@RequestBody SinglePlayerLeaderboardScore entry) {
         if (entry == null || isNullOrEmpty(entry.getUsername())) {
             return ResponseEntity.badRequest().build();
         }
-        SinglePlayerLeaderboardScore saved = repo.save(entry);
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.ok(writer.write(entry));
     }
 
     /**
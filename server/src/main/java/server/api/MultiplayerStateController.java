@@ -4,13 +4,17 @@ import commons.misc.GameResponse;
 import commons.multi.ChatMessage;
 import commons.multi.MultiPlayer;
 import commons.multi.MultiPlayerState;
+import commons.question.AbstractQuestion;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import server.utils.MultiPlayerStateUtils;
+import server.utils.StateBroadcaster;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
 
 
 /**
@@ -22,14 +26,17 @@ import java.util.TimerTask;
 public class MultiplayerStateController {
 
     private final MultiPlayerStateUtils multiUtils;
+    private final StateBroadcaster broadcaster;
 
     /**
      * Constructor for multiplayer state controller.
      *
-     * @param multiUtils Multiplayer state utilities.
+     * @param multiUtils  Multiplayer state utilities.
+     * @param broadcaster StateBroadcaster instance pushing the changes of the games.
      */
-    public MultiplayerStateController(MultiPlayerStateUtils multiUtils) {
+    public MultiplayerStateController(MultiPlayerStateUtils multiUtils, StateBroadcaster broadcaster) {
         this.multiUtils = multiUtils;
+        this.broadcaster = broadcaster;
     }
 
     /**
@@ -40,12 +47,19 @@ public class MultiplayerStateController {
      * and it might change the players' scores.
      * <p>
      * Expectation is that this endpoint will be called at least every 500 ms.
+     * Clients that already have the current version of the game, given either as
+     * the If-None-Match header or as sinceVersion, get 304 Not Modified without a body.
      *
-     * @param id Id for the multiplayer game.
+     * @param id           Id for the multiplayer game.
+     * @param ifNoneMatch  ETag of the state the client already has, if any.
+     * @param sinceVersion Version of the state the client already has, if any.
      * @return Up to date MultiPlayerState
      */
     @GetMapping("/{id}")
-    public ResponseEntity<MultiPlayerState> getGameState(@PathVariable("id") long id) {
+    public ResponseEntity<MultiPlayerState> getGameState(
+            @PathVariable("id") long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(value = "sinceVersion", required = false) Long sinceVersion) {
         if (id < 0) {
             return ResponseEntity.badRequest().build();
         } else {
@@ -53,11 +67,79 @@ public class MultiplayerStateController {
             if (game == null) {
                 return ResponseEntity.notFound().build();
             } else {
-                return ResponseEntity.ok(game);
+                return GameStateResponses.of(game, ifNoneMatch, sinceVersion);
             }
         }
     }
 
+    /**
+     * GET mapping for the questions of a multiplayer game.
+     * <p>
+     * The questions are left out of the game state, so they are not sent on every poll.
+     * They never change during a game, so clients only need to fetch them once.
+     *
+     * @param id Id for the multiplayer game.
+     * @return All questions of the game, in the order they are asked.
+     */
+    @GetMapping("/{id}/questions")
+    public ResponseEntity<List<AbstractQuestion>> getQuestions(@PathVariable("id") long id) {
+        if (id < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        MultiPlayerState game = multiUtils.getGameState(id);
+        if (game == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(game.getQuestionList());
+    }
+
+    /**
+     * GET mapping for a stream of the multiplayer game state.
+     * <p>
+     * The current state is sent right away as a server-sent event, followed by a new event
+     * every time the game changes, until the game is evicted.
+     *
+     * @param id Id for the multiplayer game.
+     * @return Emitter of the state events.
+     */
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamGameState(@PathVariable("id") long id) {
+        if (id < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Subscribed under the lock of the game, so its current state is not serialized while it changes
+        SseEmitter emitter = multiUtils.readGameState(id,
+                game -> broadcaster.subscribe(StateBroadcaster.MULTI_PREFIX + id, game));
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * GET mapping for the chat messages of a multiplayer game.
+     * <p>
+     * The game state only carries the sequence number of the last message. Clients get the messages
+     * after the last sequence number they have seen once it moves past it.
+     *
+     * @param id    Id for the multiplayer game.
+     * @param after Sequence number of the last message the client has seen, 0 for all messages.
+     * @return Messages sent after the cursor, from old to new.
+     */
+    @GetMapping("/{id}/chat")
+    public ResponseEntity<List<ChatMessage>> getChatMessages(@PathVariable("id") long id,
+                                                             @RequestParam(value = "after", defaultValue = "0")
+                                                                     long after) {
+        if (id < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ChatMessage> messages = multiUtils.getChatMessages(id, after);
+        if (messages == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(messages);
+    }
+
     /**
      * POST mapping for emoji reactions.
      * <p>
@@ -78,7 +160,7 @@ public class MultiplayerStateController {
             if (game == null) {
                 return ResponseEntity.notFound().build();
             }
-            game.getChatMessageList().add(chatMessage);
+            multiUtils.addChatMessage(game, chatMessage);
             return ResponseEntity.ok(chatMessage);
         }
     }
@@ -105,7 +187,9 @@ public class MultiplayerStateController {
             if (game == null) {
                 return ResponseEntity.notFound().build();
             }
-            game.getChatMessageList().add(chatMessage);
+            if (chatMessage != null) {
+                multiUtils.addChatMessage(game, chatMessage);
+            }
             return ResponseEntity.ok(chatMessage);
         }
     }
@@ -153,17 +237,15 @@ public class MultiplayerStateController {
 
     /**
      * POST mapping for time joker.
+     * <p>
+     * The joker is shown to the other players for a short while, which is timed by MultiPlayerStateUtils.
      *
      * @param id     Id of the multiplayer game.
      * @param player Multiplayer that is using the joker.
      */
     @PostMapping("/timeJoker/{id}")
     public void postTimeJoker(@PathVariable("id") long id, @RequestBody MultiPlayer player) {
-        MultiPlayerState game = multiUtils.getGameState(id);
-        MultiPlayer playerNew = game.getPlayerByUsername(player.getUsername());
-        playerNew.setTimeJoker(false);
-        game.setPlayerUsingTimeJoker(playerNew);
-        resetJoker(500, id);
+        multiUtils.useTimeJoker(id, player.getUsername());
     }
 
     /**
@@ -176,20 +258,4 @@ public class MultiplayerStateController {
     public ResponseEntity<MultiPlayer> getTimeJoker(@PathVariable("id") long id) {
         return ResponseEntity.ok(multiUtils.getGameState(id).getPlayerUsingTimeJoker());
     }
-
-    /**
-     * Method that resets the player who sent the joker.
-     *
-     * @param delay the interval for resetting the joker.
-     * @param id id of the multiplayer game.
-     */
-    private void resetJoker(long delay, long id) {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                multiUtils.getGameState(id).setPlayerUsingTimeJoker(null);
-            }
-        }, delay);
-    }
 }
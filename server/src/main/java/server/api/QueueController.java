@@ -4,86 +4,153 @@ package server.api;
 import commons.queue.QueueState;
 import commons.queue.QueueUser;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import server.utils.QueueLobbies;
 import server.utils.QueueUtils;
+import server.utils.StateBroadcaster;
 
 /**
- * Controller responsible for managing the state of the queue.
+ * Controller responsible for managing the state of the multiplayer lobbies.
  * <p>
- * Most logic is delegated to QueueUtils, so this class only sets up the endpoints for the queue.
+ * Every endpoint exists twice: under /api/queue for the open lobby, into which users are matched,
+ * and under /api/queue/lobby/{lobby} for a lobby chosen by its name.
+ * Most logic is delegated to QueueLobbies and the QueueUtils of each lobby,
+ * so this class only sets up the endpoints for the lobbies.
  */
 @RestController
 @RequestMapping("/api/queue")
 public class QueueController {
 
-    private final QueueUtils queueUtils;
+    private final QueueLobbies lobbies;
+    private final StateBroadcaster broadcaster;
 
     /**
      * Constructor for the QueueController.
      *
-     * @param queueUtils QueueUtils instance, responsible for logic.
+     * @param lobbies     QueueLobbies instance, responsible for the lobbies.
+     * @param broadcaster StateBroadcaster instance pushing the changes of the lobbies.
      */
-    public QueueController(QueueUtils queueUtils) {
-        this.queueUtils = queueUtils;
+    public QueueController(QueueLobbies lobbies, StateBroadcaster broadcaster) {
+        this.lobbies = lobbies;
+        this.broadcaster = broadcaster;
     }
 
     /**
-     * Get the current state of the queue.
-     * The state of the queue contains the following items:
-     * - List of users in the queue
+     * Get the current state of a lobby.
+     * The state of the lobby contains the following items:
+     * - List of users in the lobby
      *
-     * @return the current state of the queue
+     * @param lobby Name of the lobby, or null for the open lobby.
+     * @return the current state of the lobby, or Not Found if there is no such lobby.
      */
-    @GetMapping("")
-    public ResponseEntity<QueueState> getQueueState() {
-        return ResponseEntity.ok(queueUtils.getQueue());
+    @GetMapping({"", "/lobby/{lobby}"})
+    public ResponseEntity<QueueState> getQueueState(@PathVariable(name = "lobby", required = false) String lobby) {
+        QueueState state = lobbies.read(lobby, (name, queue) -> QueueLobbies.snapshot(queue));
+        if (state == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(state);
     }
 
+    /**
+     * Get a stream of the state of a lobby.
+     * <p>
+     * The current state is sent right away as a server-sent event,
+     * followed by a new event every time the lobby changes.
+     *
+     * @param lobby Name of the lobby, or null for the open lobby.
+     * @return Emitter of the state events, or Not Found if there is no such lobby.
+     */
+    @GetMapping(value = {"/stream", "/lobby/{lobby}/stream"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamQueueState(@PathVariable(name = "lobby", required = false) String lobby) {
+        // Subscribed under the lock of the lobbies, so the first event is not sent while the lobby changes
+        SseEmitter emitter = lobbies.read(lobby, (name, queue) ->
+                broadcaster.subscribe(StateBroadcaster.QUEUE_PREFIX + name, queue.getQueue()));
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
 
     /**
-     * First if handles the case when the username entered is empty.
-     * Second one corresponds to username already in database case (not unique per multiplayer queue).
+     * Add a user to a lobby. The returned user holds the name of the lobby they joined.
+     * <p>
+     * First if handles the case when the username entered is empty, or the name of the lobby is invalid.
+     * Second one corresponds to username already in a lobby case (not unique across the lobbies),
+     * or a full lobby. The open lobby is picked and joined at once, so it cannot fill up in between.
      *
-     * @param user the user to be added to the QueueUser repository
+     * @param user  the user to be added to the lobby
+     * @param lobby Name of the lobby, or null to be matched into the open lobby.
      * @return response
      */
-    @PostMapping("")
-    public ResponseEntity<QueueUser> add(@RequestBody QueueUser user) {
-        if (queueUtils.isInvalid(user)) {
+    @PostMapping({"", "/lobby/{lobby}"})
+    public ResponseEntity<QueueUser> add(@RequestBody QueueUser user,
+                                         @PathVariable(name = "lobby", required = false) String lobby) {
+        if (lobby == null) {
+            return lobbies.joinOpen((name, queue) -> join(name, queue, user));
+        } else if (!QueueLobbies.isValidName(lobby)) {
             return ResponseEntity.badRequest().build();
-        } else if (queueUtils.containsUser(user)) {
+        }
+        return join(lobby, lobbies.find(lobby), user);
+    }
+
+    /**
+     * Add a user to a given lobby.
+     *
+     * @param name  Name of the lobby.
+     * @param queue QueueUtils of the lobby.
+     * @param user  the user to be added to the lobby
+     * @return response
+     */
+    private ResponseEntity<QueueUser> join(String name, QueueUtils queue, QueueUser user) {
+        if (queue.isInvalid(user)) {
+            return ResponseEntity.badRequest().build();
+        } else if (queue.containsUser(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        QueueUser added = lobbies.join(name, queue, user);
+        if (added == null) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        return ResponseEntity.ok(queueUtils.addUser(user));
+        return ResponseEntity.ok(added);
     }
 
     /**
-     * Starts the multiplayer game with the users inside the queue.
+     * Starts the multiplayer game with the users inside a lobby.
      * <p>
      * The start of the game is set to be 3 seconds after this endpoint is called.
+     * Once the open lobby is starting, users are matched into a new one.
+     * A lobby without users, or whose countdown is started already, cannot be started.
      *
-     * @return The updated state of the game.
+     * @param lobby Name of the lobby, or null for the open lobby.
+     * @return The updated state of the lobby, or Not Found if there is no such lobby.
      */
-    @PostMapping("/start")
-    public ResponseEntity<QueueState> startGame() {
-        if (queueUtils.startCountdown()) {
-            return ResponseEntity.ok(queueUtils.getQueue());
-        } else {
+    @PostMapping({"/start", "/lobby/{lobby}/start"})
+    public ResponseEntity<QueueState> startGame(@PathVariable(name = "lobby", required = false) String lobby) {
+        ResponseEntity<QueueState> response = lobbies.read(lobby, (name, queue) -> {
+            if (lobbies.startCountdown(queue)) {
+                return ResponseEntity.ok(QueueLobbies.snapshot(queue));
+            }
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        });
+        if (response == null) {
+            return ResponseEntity.notFound().build();
         }
+        return response;
     }
 
     /**
-     * Delete a user if present from the repository.
+     * Delete a user if present from their lobby.
      *
-     * @param username Username of the user to be deleted from the queue
-     * @return returns a ResponseEntity consisting of the deleted user if present or a Not Found error if not found.
+     * @param username Username of the user to be deleted from their lobby
+     * @return returns a ResponseEntity consisting of the deleted user if present or a Bad Request if not found.
      */
     @DeleteMapping("/{username}")
     public ResponseEntity<QueueUser> deleteUser(@PathVariable("username") String username) {
-        QueueUser target = queueUtils.getByUsername(username);
-        QueueUser removed = queueUtils.removeUser(target);
+        QueueUser removed = lobbies.leave(username);
         if (removed != null) {
             return ResponseEntity.ok(removed);
         } else {
@@ -1,14 +1,21 @@
 package server.api;
 
 import commons.misc.GameResponse;
+import commons.question.AbstractQuestion;
 import commons.single.SinglePlayer;
 import commons.single.SinglePlayerState;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import server.database.ActivityRepository;
 import server.utils.SinglePlayerStateUtils;
+import server.utils.StateBroadcaster;
+
+import java.util.List;
 
 /**
  * Controller responsible for handling the client requests regarding any single-player game.
@@ -22,6 +29,7 @@ public class SingleplayerStateController {
 
     private final ActivityRepository repo;
     private final SinglePlayerStateUtils singlePlayerStateUtils;
+    private final StateBroadcaster broadcaster;
 
     /**
      * Constructor for singleplayer state controller.
@@ -30,10 +38,13 @@ public class SingleplayerStateController {
      *
      * @param repo                   ActivityRepository instance.
      * @param singlePlayerStateUtils injected instance of SinglePlayerStateUtils
+     * @param broadcaster            StateBroadcaster instance pushing the changes of the games.
      */
-    public SingleplayerStateController(ActivityRepository repo, SinglePlayerStateUtils singlePlayerStateUtils) {
+    public SingleplayerStateController(ActivityRepository repo, SinglePlayerStateUtils singlePlayerStateUtils,
+                                       StateBroadcaster broadcaster) {
         this.repo = repo;
         this.singlePlayerStateUtils = singlePlayerStateUtils;
+        this.broadcaster = broadcaster;
     }
 
     /**
@@ -44,20 +55,65 @@ public class SingleplayerStateController {
      * and it might increase the players' scores.
      * <p>
      * There is expectation that this endpoint will be called every about 500 ms.
+     * Clients that already have the current version of the game, given either as
+     * the If-None-Match header or as sinceVersion, get 304 Not Modified without a body.
      *
-     * @param id Id for the singleplayer game
+     * @param id           Id for the singleplayer game
+     * @param ifNoneMatch  ETag of the state the client already has, if any.
+     * @param sinceVersion Version of the state the client already has, if any.
      * @return SinglePlayerState after updating internal state.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<SinglePlayerState> getGameState(@PathVariable("id") long id) {
+    public ResponseEntity<SinglePlayerState> getGameState(
+            @PathVariable("id") long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(value = "sinceVersion", required = false) Long sinceVersion) {
         SinglePlayerState game = singlePlayerStateUtils.getGameStateById(id);
         if (game != null) {
-            return ResponseEntity.ok(game);
+            return GameStateResponses.of(game, ifNoneMatch, sinceVersion);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * GET mapping for the questions of a singleplayer game.
+     * <p>
+     * The questions are left out of the game state, so they are not sent on every poll.
+     * They never change during a game, so clients only need to fetch them once.
+     *
+     * @param id Id for the singleplayer game
+     * @return All questions of the game, in the order they are asked.
+     */
+    @GetMapping("/{id}/questions")
+    public ResponseEntity<List<AbstractQuestion>> getQuestions(@PathVariable("id") long id) {
+        SinglePlayerState game = singlePlayerStateUtils.getGameStateById(id);
+        if (game == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(game.getQuestionList());
+    }
+
+    /**
+     * GET mapping for a stream of the singleplayer game state.
+     * <p>
+     * The current state is sent right away as a server-sent event, followed by a new event
+     * every time the game changes, until the game is evicted.
+     *
+     * @param id Id for the singleplayer game
+     * @return Emitter of the state events.
+     */
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamGameState(@PathVariable("id") long id) {
+        // Subscribed under the lock of the game, so its current state is not serialized while it changes
+        SseEmitter emitter = singlePlayerStateUtils.readGameState(id,
+                game -> broadcaster.subscribe(StateBroadcaster.SOLO_PREFIX + id, game));
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     /**
      * POST mapping for starting a new singleplayer game.
      * <p>
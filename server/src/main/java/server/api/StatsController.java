@@ -0,0 +1,38 @@
+package server.api;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import server.utils.StatisticsUtils;
+
+import java.util.Map;
+
+/**
+ * Controller exposing the runtime statistics of the server.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final StatisticsUtils statisticsUtils;
+
+    /**
+     * Constructor for the StatsController.
+     *
+     * @param statisticsUtils StatisticsUtils instance holding all statistics.
+     */
+    public StatsController(StatisticsUtils statisticsUtils) {
+        this.statisticsUtils = statisticsUtils;
+    }
+
+    /**
+     * Get the current values of all statistics, e.g. the number of live and evicted games.
+     *
+     * @return Map from the name of every statistic to its value.
+     */
+    @GetMapping("")
+    public ResponseEntity<Map<String, Number>> getStatistics() {
+        return ResponseEntity.ok(statisticsUtils.snapshot());
+    }
+}
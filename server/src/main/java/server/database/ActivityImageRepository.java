@@ -2,6 +2,9 @@ package server.database;
 
 import commons.misc.ActivityImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 /**
  * Database repository storing images of activities.
@@ -9,4 +12,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * The IDs of the entries are string IDs of activities (e.g. 00-shower).
  */
 public interface ActivityImageRepository extends JpaRepository<ActivityImage, String> {
+
+    /**
+     * Find the ids of all stored images, without loading the images themselves.
+     *
+     * @return List of the ids of the activities with an image.
+     */
+    @Query("SELECT image.id FROM ActivityImage image")
+    List<String> findAllIds();
 }
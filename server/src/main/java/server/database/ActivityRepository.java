@@ -2,9 +2,18 @@ package server.database;
 
 import commons.misc.Activity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 /**
  * Database repository of Activity entities.
  */
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
+
+    /**
+     * Find the largest key of the stored activities.
+     *
+     * @return The largest key, or null if there are no activities.
+     */
+    @Query("SELECT MAX(activity.key) FROM Activity activity")
+    Long findMaxKey();
 }
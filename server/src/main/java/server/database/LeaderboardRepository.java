@@ -1,7 +1,70 @@
 package server.database;
 
 import commons.single.SinglePlayerLeaderboardScore;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+
+/**
+ * Database repository of the entries of the single-player leaderboard.
+ * <p>
+ * Entries are ranked by descending score, and by ascending id among equal scores,
+ * which is the order of the index on the table.
+ */
 public interface LeaderboardRepository extends JpaRepository<SinglePlayerLeaderboardScore, Long> {
+
+    /**
+     * Find a page of the leaderboard, from the top.
+     *
+     * @param pageable Page to find.
+     * @return Entries of the page, in leaderboard order.
+     */
+    List<SinglePlayerLeaderboardScore> findAllByOrderByScoreDescIdAsc(Pageable pageable);
+
+    /**
+     * Find the entries ranked right below a given entry.
+     * <p>
+     * Unlike an offset, the position of the given entry is not counted, so every page costs the same.
+     *
+     * @param score    Score of the entry after which the page starts.
+     * @param id       Id of the entry after which the page starts.
+     * @param pageable Size of the page, the page number should be 0.
+     * @return Entries after the given one, in leaderboard order.
+     */
+    @Query("SELECT entry FROM SinglePlayerLeaderboardScore entry "
+            + "WHERE entry.score < :score OR (entry.score = :score AND entry.id > :id) "
+            + "ORDER BY entry.score DESC, entry.id ASC")
+    List<SinglePlayerLeaderboardScore> findAfter(@Param("score") int score, @Param("id") long id, Pageable pageable);
+
+    /**
+     * Find the entries ranked right above a given entry, the closest one first.
+     *
+     * @param score    Score of the entry before which the page ends.
+     * @param id       Id of the entry before which the page ends.
+     * @param pageable Size of the page, the page number should be 0.
+     * @return Entries before the given one, in reverse leaderboard order.
+     */
+    @Query("SELECT entry FROM SinglePlayerLeaderboardScore entry "
+            + "WHERE entry.score > :score OR (entry.score = :score AND entry.id < :id) "
+            + "ORDER BY entry.score ASC, entry.id DESC")
+    List<SinglePlayerLeaderboardScore> findBefore(@Param("score") int score, @Param("id") long id, Pageable pageable);
+
+    /**
+     * Count the entries of every score.
+     *
+     * @return Pairs of a score and the number of entries with that score.
+     */
+    @Query("SELECT entry.score, COUNT(entry) FROM SinglePlayerLeaderboardScore entry GROUP BY entry.score")
+    List<Object[]> countByScore();
+
+    /**
+     * Find the largest id of the entries.
+     *
+     * @return The largest id, or null if there are no entries.
+     */
+    @Query("SELECT MAX(entry.id) FROM SinglePlayerLeaderboardScore entry")
+    Long findMaxId();
 }
@@ -0,0 +1,214 @@
+package server.utils;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import commons.misc.Activity;
+import commons.misc.ActivityBankImport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import server.database.ActivityRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports a whole activity bank from a zip archive, as it is read from the request.
+ * <p>
+ * The archive holds the JSON file of the activities, and the images in folders, e.g. 00/shower.png
+ * for the activity 00-shower. Other files are skipped. Entries are processed one by one in the order
+ * they arrive, so only a single entry is held in memory at a time. Images do not have to come after
+ * the JSON file, as they are stored under the id of their activity.
+ * <p>
+ * The JSON file is parsed activity by activity as well, and the valid activities are saved in batches,
+ * each in its own transaction, so importing a large bank neither holds it in memory nor inserts it row by row.
+ */
+public class ActivityBankImporter {
+
+    /**
+     * Maximal size in bytes of a single image, larger entries are skipped.
+     */
+    public static final int MAX_IMAGE_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Default number of activities saved together.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActivityBankImporter.class);
+
+    private static final int LOG_INTERVAL = 500;
+
+    private final ActivityRepository repo;
+    private final ImageStore imageStore;
+    private final ImageVariants imageVariants;
+    private final ObjectReader activityReader;
+    private final int batchSize;
+
+    /**
+     * Constructor for ActivityBankImporter.
+     *
+     * @param repo          Repository to save the activities to.
+     * @param imageStore    Store to put the images into.
+     * @param imageVariants Generator of the resized variants of the images.
+     * @param mapper        ObjectMapper for reading the activities.
+     * @param batchSize     Number of activities saved together.
+     */
+    public ActivityBankImporter(ActivityRepository repo, ImageStore imageStore,
+                                ImageVariants imageVariants, ObjectMapper mapper, int batchSize) {
+        this.repo = repo;
+        this.imageStore = imageStore;
+        this.imageVariants = imageVariants;
+        this.activityReader = mapper.readerFor(Activity.class);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Import the activities and images of a zip archive.
+     *
+     * @param in Stream of the archive, which is read until the end of the archive.
+     * @return Numbers of imported activities and images.
+     * @throws IOException If the stream could not be read, or is not a valid archive.
+     */
+    public ActivityBankImport importZip(InputStream in) throws IOException {
+        int activities = 0;
+        int images = 0;
+        int skipped = 0;
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName().replace('\\', '/');
+            if (entry.isDirectory()) {
+                continue;
+            }
+            if (name.endsWith(".json")) {
+                ActivityBankImport read = importActivities(zip);
+                activities += read.getActivities();
+                skipped += read.getSkipped();
+            } else {
+                String id = activityId(name);
+                byte[] image = zip.readNBytes(MAX_IMAGE_SIZE + 1);
+                if (id == null || image.length > MAX_IMAGE_SIZE
+                        || ImageTypes.detect(image).equals(MediaType.APPLICATION_OCTET_STREAM)) {
+                    skipped++;
+                } else {
+                    imageStore.put(id, image);
+                    imageVariants.submit(id);
+                    images++;
+                    if (images % LOG_INTERVAL == 0) {
+                        LOGGER.info("Importing activity bank: {} images stored", images);
+                    }
+                }
+            }
+        }
+        LOGGER.info("Imported activity bank: {} activities, {} images, {} skipped", activities, images, skipped);
+        return new ActivityBankImport(activities, images, skipped);
+    }
+
+    /**
+     * Import the activities of a JSON array, as they are read from the stream.
+     * <p>
+     * Invalid activities are skipped. If the JSON turns out to be malformed, the batches saved
+     * before the malformed part are kept.
+     *
+     * @param in Stream of the JSON array, which is not closed.
+     * @return Numbers of saved and skipped activities.
+     * @throws IOException If the stream could not be read, or is not a JSON array of activities.
+     */
+    public ActivityBankImport importActivities(InputStream in) throws IOException {
+        int activities = 0;
+        int skipped = 0;
+        List<Activity> batch = new ArrayList<>(batchSize);
+        // The parser must not close the archive at the end of the JSON file.
+        try (JsonParser parser = activityReader.getFactory().createParser(in)
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of activities");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Activity activity = activityReader.readValue(parser);
+                if (!isValid(activity)) {
+                    skipped++;
+                    continue;
+                }
+                batch.add(activity);
+                if (batch.size() == batchSize) {
+                    activities += save(batch);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected an activity");
+            }
+        }
+        activities += save(batch);
+        return new ActivityBankImport(activities, 0, skipped);
+    }
+
+    /**
+     * Save a batch of activities in a single transaction, and clear it.
+     *
+     * @param batch Activities to save.
+     * @return Number of saved activities.
+     */
+    private int save(List<Activity> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int saved = repo.saveAll(batch).size();
+        batch.clear();
+        return saved;
+    }
+
+    /**
+     * Check whether an imported activity can be saved.
+     *
+     * @param activity Activity to check.
+     * @return true iff all fields are present, and within the limits of the database.
+     */
+    public static boolean isValid(Activity activity) {
+        return !isNullOrEmpty(activity.getId()) &&
+                !isNullOrEmpty(activity.getTitle()) &&
+                !isNullOrEmpty(activity.getSource()) &&
+                !isNullOrEmpty(activity.getImage()) &&
+                activity.getConsumption() != null &&
+                activity.getConsumption() > 0 &&
+                activity.getSource().length() < 240 &&
+                activity.getConsumption() < (long) Integer.MAX_VALUE;
+    }
+
+    /**
+     * Construct the id of an activity from the name of its image in the archive.
+     *
+     * @param name Name of the entry, e.g. bank/00/shower.png
+     * @return Id of the activity, e.g. 00-shower, or null if the entry is not in a folder or is hidden.
+     */
+    static String activityId(String name) {
+        String[] parts = name.split("/");
+        if (parts.length < 2) {
+            return null;
+        }
+        String file = parts[parts.length - 1];
+        int extension = file.lastIndexOf('.');
+        if (file.startsWith(".") || extension < 0) {
+            return null;
+        }
+        return parts[parts.length - 2] + "-" + file.substring(0, extension);
+    }
+
+    /**
+     * Checks whether a String is null or empty.
+     *
+     * @param s String to be checked.
+     * @return Either true or false depending on whether the argument is a present one.
+     */
+    private static boolean isNullOrEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+}
@@ -0,0 +1,116 @@
+package server.utils;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Resource reading from a buffer, e.g. a slice of a memory-mapped file.
+ * <p>
+ * Unlike an InputStreamResource, it can be read several times and knows its length,
+ * so Spring can answer Range requests for it.
+ */
+public class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer buffer;
+    private final String description;
+
+    /**
+     * Constructor for ByteBufferResource.
+     *
+     * @param buffer      Buffer with the content between its position and limit. It is not modified.
+     * @param description Description of the resource, used in error messages.
+     */
+    public ByteBufferResource(ByteBuffer buffer, String description) {
+        this.buffer = buffer.duplicate();
+        this.description = description;
+    }
+
+    /**
+     * Getter for a description of the resource.
+     *
+     * @return Description of the resource.
+     */
+    @Override
+    public String getDescription() {
+        return "Byte buffer resource [" + description + "]";
+    }
+
+    /**
+     * The content is always available.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    /**
+     * Getter for the length of the content, without reading it.
+     *
+     * @return Number of bytes of the content.
+     */
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Open a new stream over the content.
+     *
+     * @return New InputStream reading the content from the start.
+     */
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    /**
+     * InputStream reading from a buffer, skipping by moving its position.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor for ByteBufferInputStream.
+         *
+         * @param buffer Buffer to read from, which is consumed.
+         */
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package server.utils;
+
+import commons.multi.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity log of the chat messages (reactions and joker notifications) of a game.
+ * <p>
+ * Every appended message gets the next sequence number, starting at 1. The messages are kept in
+ * a ring buffer, so once the log is full the oldest message is overwritten, and the memory used by
+ * a game stays the same however many messages are sent.
+ * <p>
+ * All methods are synchronized, so messages can be read while another thread appends.
+ */
+public class ChatLog {
+
+    private final ChatMessage[] buffer;
+    private long lastSequence;
+
+    /**
+     * Constructor for ChatLog.
+     *
+     * @param capacity Maximal number of messages kept.
+     */
+    public ChatLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        this.buffer = new ChatMessage[capacity];
+    }
+
+    /**
+     * Append a message to the log, assigning it the next sequence number.
+     *
+     * @param message Message to append. Its sequence number is overwritten.
+     * @return The appended message.
+     */
+    public synchronized ChatMessage append(ChatMessage message) {
+        lastSequence++;
+        message.setSequence(lastSequence);
+        buffer[index(lastSequence)] = message;
+        return message;
+    }
+
+    /**
+     * Get the messages which were appended after the given cursor, and are still kept.
+     *
+     * @param cursor Sequence number of the last message already seen, or 0 to get all messages.
+     * @return New list of the messages with a larger sequence number, from old to new.
+     */
+    public synchronized List<ChatMessage> after(long cursor) {
+        long first = Math.max(cursor + 1, lastSequence - buffer.length + 1);
+        List<ChatMessage> messages = new ArrayList<>();
+        for (long sequence = Math.max(first, 1); sequence <= lastSequence; sequence++) {
+            messages.add(buffer[index(sequence)]);
+        }
+        return messages;
+    }
+
+    /**
+     * Get the most recent messages.
+     *
+     * @param count Maximal number of messages to get.
+     * @return New list of the last min(count, size()) messages, from old to new.
+     */
+    public synchronized List<ChatMessage> latest(int count) {
+        return after(lastSequence - count);
+    }
+
+    /**
+     * Getter for the sequence number of the last appended message.
+     *
+     * @return Last sequence number, or 0 if no message was appended yet.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Getter for the number of messages currently kept.
+     *
+     * @return Number of messages, at most the capacity.
+     */
+    public synchronized int size() {
+        return (int) Math.min(lastSequence, buffer.length);
+    }
+
+    /**
+     * Getter for the maximal number of messages kept.
+     *
+     * @return Capacity of the log.
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Find the slot of a sequence number in the ring buffer.
+     *
+     * @param sequence Sequence number, at least 1.
+     * @return Index in the buffer.
+     */
+    private int index(long sequence) {
+        return (int) ((sequence - 1) % buffer.length);
+    }
+}
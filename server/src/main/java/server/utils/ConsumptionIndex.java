@@ -0,0 +1,200 @@
+package server.utils;
+
+import commons.misc.Activity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable index of activities, sorted by their consumption.
+ * <p>
+ * Consumptions are kept in a primitive array, with the activities in a parallel array.
+ * Range and nearest-neighbour queries are answered by binary search, so they take
+ * O(log n + k) time for k results, and counting the activities within a range does not
+ * allocate anything.
+ * <p>
+ * Activities with equal consumption keep the order in which they were given.
+ */
+public class ConsumptionIndex {
+
+    private final long[] consumptions;
+    private final Activity[] activities;
+
+    /**
+     * Constructor for ConsumptionIndex.
+     *
+     * @param source Activities to index. The list itself is not modified.
+     */
+    public ConsumptionIndex(List<Activity> source) {
+        // Arrays.sort on objects is stable, so ties keep their original order.
+        Activity[] sorted = source.toArray(new Activity[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Activity::getConsumption));
+
+        this.activities = sorted;
+        this.consumptions = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            consumptions[i] = sorted[i].getConsumption();
+        }
+    }
+
+    /**
+     * Getter for the number of indexed activities.
+     *
+     * @return Number of activities.
+     */
+    public int size() {
+        return activities.length;
+    }
+
+    /**
+     * Getter for the activity at the given position in the order of consumption.
+     *
+     * @param position Position, between 0 and size() - 1.
+     * @return Activity with the position-th smallest consumption.
+     */
+    public Activity get(int position) {
+        return activities[position];
+    }
+
+    /**
+     * Find the first position whose consumption is at least the given value.
+     *
+     * @param value Consumption to search for.
+     * @return First position with consumption &gt;= value, or size() if there is none.
+     */
+    public int lowerBound(long value) {
+        int low = 0;
+        int high = consumptions.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (consumptions[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the first position whose consumption is greater than the given value.
+     *
+     * @param value Consumption to search for.
+     * @return First position with consumption &gt; value, or size() if there is none.
+     */
+    public int upperBound(long value) {
+        return value == Long.MAX_VALUE ? consumptions.length : lowerBound(value + 1);
+    }
+
+    /**
+     * Count the activities whose consumption falls inside the range.
+     *
+     * @param lower Lower bound of the range, inclusive.
+     * @param upper Upper bound of the range, inclusive.
+     * @return Number of activities within the range.
+     */
+    public int countWithin(long lower, long upper) {
+        return Math.max(0, upperBound(upper) - lowerBound(lower));
+    }
+
+    /**
+     * Count the distinct consumptions inside the range, leaving out one value.
+     *
+     * @param lower   Lower bound of the range, inclusive.
+     * @param upper   Upper bound of the range, inclusive.
+     * @param exclude Consumption which is not counted.
+     * @return Number of distinct consumptions within the range, other than exclude.
+     */
+    public int countDistinctWithin(long lower, long upper, long exclude) {
+        int count = 0;
+        int to = upperBound(upper);
+        for (int i = lowerBound(lower); i < to; i++) {
+            if (consumptions[i] != exclude && (count == 0 || consumptions[i] != consumptions[i - 1])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find the distinct consumptions inside the range, leaving out one value.
+     *
+     * @param lower   Lower bound of the range, inclusive.
+     * @param upper   Upper bound of the range, inclusive.
+     * @param exclude Consumption which is not included.
+     * @return New list with the distinct consumptions within the range, other than exclude, ascending.
+     */
+    public List<Long> distinctWithin(long lower, long upper, long exclude) {
+        List<Long> result = new ArrayList<>();
+        int to = upperBound(upper);
+        for (int i = lowerBound(lower); i < to; i++) {
+            long consumption = consumptions[i];
+            if (consumption != exclude && (result.isEmpty() || consumption != result.get(result.size() - 1))) {
+                result.add(consumption);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the activities whose consumption falls inside the range.
+     *
+     * @param lower Lower bound of the range, inclusive.
+     * @param upper Upper bound of the range, inclusive.
+     * @return New, modifiable list of the activities within the range, by ascending consumption.
+     */
+    public List<Activity> within(long lower, long upper) {
+        int from = lowerBound(lower);
+        int to = upperBound(upper);
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(activities).subList(from, to));
+    }
+
+    /**
+     * Find the k activities whose consumption is closest to the given value.
+     * <p>
+     * Ties in distance are broken in favour of the smaller consumption.
+     *
+     * @param value Consumption to search around.
+     * @param k     Number of activities to find.
+     * @return New list of the min(k, size()) nearest activities, by ascending consumption.
+     */
+    public List<Activity> nearest(long value, int k) {
+        int count = Math.min(k, activities.length);
+        // Grow the window [left, right) around the insertion point one activity at a time.
+        int right = lowerBound(value);
+        int left = right;
+        while (right - left < count) {
+            if (left == 0) {
+                right++;
+            } else if (right == activities.length) {
+                left--;
+            } else if (distance(value, consumptions[left - 1]) <= distance(value, consumptions[right])) {
+                left--;
+            } else {
+                right++;
+            }
+        }
+        return new ArrayList<>(Arrays.asList(activities).subList(left, right));
+    }
+
+    /**
+     * Compute the distance between two consumptions, without overflowing.
+     *
+     * @param a First consumption.
+     * @param b Second consumption.
+     * @return Absolute difference, capped at Long.MAX_VALUE.
+     */
+    private static long distance(long a, long b) {
+        long difference = a - b;
+        // Overflow iff a and b have different signs, and the result has the sign of b.
+        if (((a ^ b) & (a ^ difference)) < 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.abs(difference);
+    }
+}
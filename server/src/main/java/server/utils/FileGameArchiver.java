@@ -0,0 +1,149 @@
+package server.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.misc.GameState;
+import commons.misc.Player;
+import commons.multi.MultiPlayerState;
+import commons.single.SinglePlayerState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archiver appending the final results of every evicted game to a file, one JSON object per line.
+ * <p>
+ * Only the results are written (players and their scores), not the questions or the answers.
+ * They are taken from the game right away, while its lock is held, but written on a thread of
+ * the archiver, so a slow disk does not hold up the timer wheel or the requests for other games.
+ */
+public class FileGameArchiver implements GameArchiver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileGameArchiver.class);
+
+    // Time in seconds to wait for the queued results when stopping
+    private static final long STOP_TIMEOUT = 5;
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private final CurrentTimeUtils currentTime;
+    private final ExecutorService writer;
+
+    /**
+     * Constructor for FileGameArchiver.
+     *
+     * @param file        File to append the results to. Created if it does not exist.
+     * @param currentTime CurrentTimeUtils instance for getting the current time.
+     */
+    public FileGameArchiver(Path file, CurrentTimeUtils currentTime) {
+        this.file = file;
+        this.mapper = new ObjectMapper();
+        this.currentTime = currentTime;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Take the results of a game, and append them to the file in the background.
+     * <p>
+     * Failing to write is logged, but does not prevent the game from being evicted.
+     *
+     * @param game     Game to be archived.
+     * @param finished true if the game is over, false if it was abandoned before it ended.
+     */
+    @Override
+    public void archive(GameState game, boolean finished) {
+        long id = game.getId();
+        Map<String, Object> record = toRecord(game, finished);
+        try {
+            writer.execute(() -> write(id, record));
+        } catch (RejectedExecutionException e) {
+            // Stopped already, e.g. while the server shuts down
+            write(id, record);
+        }
+    }
+
+    /**
+     * Stop the archiver, after writing the results which are still queued.
+     */
+    @Override
+    public void stop() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("Could not write all archived games in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Append the results of a game to the file.
+     *
+     * @param id     Id of the game.
+     * @param record Results of the game.
+     */
+    private synchronized void write(long id, Map<String, Object> record) {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(mapper.writeValueAsString(record));
+            out.write(System.lineSeparator());
+        } catch (IOException e) {
+            LOGGER.warn("Could not archive game {}", id, e);
+        }
+    }
+
+    /**
+     * Convert a game into the record that is written out.
+     *
+     * @param game     Game to convert.
+     * @param finished Whether the game is over.
+     * @return Map with the results of the game.
+     */
+    private Map<String, Object> toRecord(GameState game, boolean finished) {
+        List<Player> players = new ArrayList<>();
+        String mode = "unknown";
+        if (game instanceof MultiPlayerState) {
+            mode = "multi";
+            players.addAll(((MultiPlayerState) game).getPlayers());
+        } else if (game instanceof SinglePlayerState) {
+            mode = "single";
+            players.add(((SinglePlayerState) game).getPlayer());
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Player player : players) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("username", player.getUsername());
+            result.put("score", player.getScore());
+            results.add(result);
+        }
+
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", game.getId());
+        record.put("mode", mode);
+        record.put("finished", finished);
+        record.put("state", game.getState());
+        record.put("roundNumber", game.getRoundNumber());
+        record.put("archivedAt", currentTime.getTime());
+        record.put("players", results);
+        return record;
+    }
+}
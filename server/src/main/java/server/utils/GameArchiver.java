@@ -0,0 +1,33 @@
+package server.utils;
+
+import commons.misc.GameState;
+
+/**
+ * Hook which is given every game right before it is evicted from memory.
+ * <p>
+ * Implementations can write the final results of a game out, e.g. to a database or a log.
+ * They are run on the thread of the timer wheel, while the lock of the game is held, so they must not block:
+ * they should take what they need from the game, and write it out on a thread of their own.
+ */
+@FunctionalInterface
+public interface GameArchiver {
+
+    /**
+     * Archiver which does nothing.
+     */
+    GameArchiver NONE = (game, finished) -> { };
+
+    /**
+     * Archive a game which is about to be evicted.
+     *
+     * @param game     Game to be archived.
+     * @param finished true if the game is over, false if it was abandoned before it ended.
+     */
+    void archive(GameState game, boolean finished);
+
+    /**
+     * Stop the archiver, after writing out the games it was given. Does nothing by default.
+     */
+    default void stop() {
+    }
+}
@@ -0,0 +1,173 @@
+package server.utils;
+
+import commons.misc.GameState;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evicts games from a registry, so the heap does not grow with the uptime of the server.
+ * <p>
+ * Finished games are kept for a while, so all players can still see the final results,
+ * and are then evicted. Games which no client has accessed for a long time are considered
+ * abandoned, and are evicted by a periodic sweep, whatever their state.
+ * <p>
+ * Before a game is evicted, it is handed to the archiver.
+ *
+ * @param <T> Type of the game states to evict.
+ */
+public class GameEvictor<T extends GameState> {
+
+    /**
+     * Default time in milliseconds a finished game is kept.
+     */
+    public static final long DEFAULT_FINISHED_TTL = 60 * 1000;
+    /**
+     * Default time in milliseconds without any access after which a game is abandoned.
+     */
+    public static final long DEFAULT_ABANDONED_TTL = 10 * 60 * 1000;
+    /**
+     * Default time in milliseconds between two sweeps for abandoned games.
+     */
+    public static final long DEFAULT_SWEEP_INTERVAL = 60 * 1000;
+
+    private final GameRegistry<T> games;
+    private final TimerWheel timerWheel;
+    private final CurrentTimeUtils currentTime;
+
+    private volatile long finishedTtl = DEFAULT_FINISHED_TTL;
+    private volatile long abandonedTtl = DEFAULT_ABANDONED_TTL;
+    private volatile long sweepInterval = DEFAULT_SWEEP_INTERVAL;
+    private volatile GameArchiver archiver = GameArchiver.NONE;
+
+    private final LongAdder evictedFinished;
+    private final LongAdder evictedAbandoned;
+
+    /**
+     * Constructor for GameEvictor.
+     *
+     * @param games       Registry to evict the games from.
+     * @param timerWheel  TimerWheel instance to schedule the evictions on.
+     * @param currentTime CurrentTimeUtils instance for getting the current time.
+     */
+    public GameEvictor(GameRegistry<T> games, TimerWheel timerWheel, CurrentTimeUtils currentTime) {
+        this.games = games;
+        this.timerWheel = timerWheel;
+        this.currentTime = currentTime;
+        this.evictedFinished = new LongAdder();
+        this.evictedAbandoned = new LongAdder();
+    }
+
+    /**
+     * Setter for the time a finished game is kept.
+     *
+     * @param finishedTtl Time in milliseconds.
+     */
+    public void setFinishedTtl(long finishedTtl) {
+        this.finishedTtl = finishedTtl;
+    }
+
+    /**
+     * Setter for the time without any access after which a game is abandoned.
+     *
+     * @param abandonedTtl Time in milliseconds.
+     */
+    public void setAbandonedTtl(long abandonedTtl) {
+        this.abandonedTtl = abandonedTtl;
+    }
+
+    /**
+     * Setter for the time between two sweeps. Takes effect after the next sweep.
+     *
+     * @param sweepInterval Time in milliseconds.
+     */
+    public void setSweepInterval(long sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+
+    /**
+     * Setter for the archiver, which is given every game before it is evicted.
+     *
+     * @param archiver GameArchiver to use, or null to not archive anything.
+     */
+    public void setArchiver(GameArchiver archiver) {
+        this.archiver = archiver == null ? GameArchiver.NONE : archiver;
+    }
+
+    /**
+     * Schedule a finished game to be evicted once its time to live has passed.
+     *
+     * @param id Id of the finished game.
+     */
+    public void scheduleEviction(long id) {
+        timerWheel.schedule(currentTime.getTime() + finishedTtl, () -> evict(id, true));
+    }
+
+    /**
+     * Start sweeping for abandoned games periodically, on the timer wheel.
+     */
+    public void startSweeping() {
+        timerWheel.schedule(currentTime.getTime() + sweepInterval, () -> {
+            sweep();
+            startSweeping();
+        });
+    }
+
+    /**
+     * Evict all games which have not been accessed for longer than the abandoned time to live.
+     *
+     * @return Number of evicted games.
+     */
+    public int sweep() {
+        int evicted = 0;
+        for (long id : games.getIdleIds(abandonedTtl)) {
+            if (evict(id, false)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Archive and remove a game, while holding its lock.
+     * <p>
+     * The archiver only takes the results of the game here, and writes them out on a thread of its own.
+     *
+     * @param id       Id of the game.
+     * @param finished Whether the game is evicted because it is over, or because it was abandoned.
+     * @return true iff the game was evicted by this call.
+     */
+    public boolean evict(long id, boolean finished) {
+        Boolean evicted = games.update(id, game -> {
+            archiver.archive(game, finished);
+            games.remove(id);
+            return true;
+        });
+        if (evicted == null) {
+            return false;
+        }
+        if (finished) {
+            evictedFinished.increment();
+        } else {
+            evictedAbandoned.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Getter for the number of finished games that were evicted.
+     *
+     * @return Number of evicted finished games.
+     */
+    public long getEvictedFinished() {
+        return evictedFinished.sum();
+    }
+
+    /**
+     * Getter for the number of abandoned games that were evicted.
+     *
+     * @return Number of evicted abandoned games.
+     */
+    public long getEvictedAbandoned() {
+        return evictedAbandoned.sum();
+    }
+}
@@ -0,0 +1,64 @@
+package server.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocator of unique game ids.
+ * <p>
+ * Ids are taken from an atomic counter, so allocating is constant time and two concurrent
+ * allocations never return the same id. Ids are never reused, not even after a game is evicted.
+ * <p>
+ * Several server instances can be told apart by a node id, which is put in the upper bits of
+ * every id. Ids stay positive, as the sign bit is never set.
+ */
+public class GameIdAllocator {
+
+    /**
+     * Number of bits of an id used for the sequence number, the rest is used for the node id.
+     */
+    public static final int SEQUENCE_BITS = 48;
+    /**
+     * Largest allowed node id.
+     */
+    public static final int MAX_NODE_ID = (1 << (63 - SEQUENCE_BITS)) - 1;
+
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long prefix;
+    private final AtomicLong sequence;
+
+    /**
+     * Constructor for GameIdAllocator, for a single server instance.
+     * <p>
+     * Ids are allocated as 0, 1, 2, ...
+     */
+    public GameIdAllocator() {
+        this(0);
+    }
+
+    /**
+     * Constructor for GameIdAllocator.
+     *
+     * @param nodeId Id of the server instance, between 0 and MAX_NODE_ID.
+     */
+    public GameIdAllocator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.prefix = (long) nodeId << SEQUENCE_BITS;
+        this.sequence = new AtomicLong();
+    }
+
+    /**
+     * Allocate a new id.
+     *
+     * @return An id that was never returned before by this allocator.
+     */
+    public long allocate() {
+        long next = sequence.getAndIncrement();
+        if (next > MAX_SEQUENCE) {
+            throw new IllegalStateException("Game ids of this node are exhausted");
+        }
+        return prefix | next;
+    }
+}
@@ -0,0 +1,28 @@
+package server.utils;
+
+import commons.misc.GameState;
+
+/**
+ * Listener for the changes of the games kept in a GameRegistry.
+ * <p>
+ * Both methods are called while holding the lock of the game, so they should return quickly.
+ *
+ * @param <T> Type of the game states.
+ */
+public interface GameListener<T extends GameState> {
+
+    /**
+     * Called after a game has changed.
+     *
+     * @param game Game that has changed.
+     */
+    void changed(T game);
+
+    /**
+     * Called after a game has been removed from the registry.
+     *
+     * @param game Game that was removed.
+     */
+    default void removed(T game) {
+    }
+}
@@ -0,0 +1,299 @@
+package server.utils;
+
+import commons.misc.GameState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe registry of the games currently kept in memory.
+ * <p>
+ * Lookups go through a ConcurrentHashMap, so they never block. Every mutation of a game is
+ * run under one of a fixed number of striped locks, chosen by the id of the game. Requests
+ * for the same game are thus serialized, while unrelated games only contend if their ids
+ * happen to fall in the same stripe.
+ * <p>
+ * The registry also remembers when each game was last accessed by a client, so games
+ * which were abandoned can be found and evicted.
+ *
+ * @param <T> Type of the game states kept in the registry.
+ */
+public class GameRegistry<T extends GameState> {
+
+    private final Map<Long, Entry<T>> games;
+    private final CurrentTimeUtils currentTime;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    private volatile GameListener<T> listener;
+
+    /**
+     * Constructor for GameRegistry.
+     * <p>
+     * Uses four stripes per available processor, which keeps the chance of two busy games
+     * sharing a lock small.
+     *
+     * @param currentTime CurrentTimeUtils instance for getting the current time.
+     */
+    public GameRegistry(CurrentTimeUtils currentTime) {
+        this(currentTime, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for GameRegistry.
+     *
+     * @param currentTime CurrentTimeUtils instance for getting the current time.
+     * @param stripes     Minimal number of locks to stripe the games over.
+     *                    Rounded up to the next power of two.
+     */
+    public GameRegistry(CurrentTimeUtils currentTime, int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.games = new ConcurrentHashMap<>();
+        this.currentTime = currentTime;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.listener = game -> { };
+    }
+
+    /**
+     * Setter for the listener which is notified when a game changes or is removed.
+     *
+     * @param listener Listener of the games in this registry.
+     */
+    public void setListener(GameListener<T> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Get a game by its id, without locking it.
+     *
+     * @param id Id of the game.
+     * @return The game with the given id, or null if there is none.
+     */
+    public T get(long id) {
+        Entry<T> entry = games.get(id);
+        return entry == null ? null : entry.game;
+    }
+
+    /**
+     * Record that a client has accessed a game just now.
+     *
+     * @param id Id of the game.
+     */
+    public void touch(long id) {
+        Entry<T> entry = games.get(id);
+        if (entry != null) {
+            entry.lastAccess = currentTime.getTime();
+        }
+    }
+
+    /**
+     * Getter for the time a game was last accessed by a client, or inserted.
+     *
+     * @param id Id of the game.
+     * @return Time of the last access in milliseconds, or -1 if there is no such game.
+     */
+    public long getLastAccess(long id) {
+        Entry<T> entry = games.get(id);
+        return entry == null ? -1 : entry.lastAccess;
+    }
+
+    /**
+     * Find the games which have not been accessed for a while.
+     *
+     * @param maxIdle Maximal time in milliseconds since the last access.
+     * @return Ids of all games which were last accessed longer ago than maxIdle.
+     */
+    public List<Long> getIdleIds(long maxIdle) {
+        long cutoff = currentTime.getTime() - maxIdle;
+        List<Long> idle = new ArrayList<>();
+        for (Entry<T> entry : games.values()) {
+            if (entry.lastAccess < cutoff) {
+                idle.add(entry.game.getId());
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * Check whether a game with the given id is present.
+     *
+     * @param id Id of the game.
+     * @return true iff a game with the given id is in the registry.
+     */
+    public boolean contains(long id) {
+        return games.containsKey(id);
+    }
+
+    /**
+     * Insert a game in the registry, replacing any game with the same id.
+     * Counts as an access to the game.
+     *
+     * @param game Game to insert.
+     */
+    public void put(T game) {
+        games.put(game.getId(), new Entry<>(game, currentTime.getTime()));
+    }
+
+    /**
+     * Remove a game from the registry.
+     *
+     * @param id Id of the game to remove.
+     * @return The removed game, or null if there was none.
+     */
+    public T remove(long id) {
+        Entry<T> entry = games.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        listener.removed(entry.game);
+        return entry.game;
+    }
+
+    /**
+     * Getter for all games in the registry.
+     *
+     * @return Snapshot of the games.
+     */
+    public Collection<T> getGames() {
+        List<T> snapshot = new ArrayList<>(games.size());
+        for (Entry<T> entry : games.values()) {
+            snapshot.add(entry.game);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Getter for the ids of all games in the registry.
+     *
+     * @return Unmodifiable, weakly consistent view of the ids.
+     */
+    public Set<Long> getIds() {
+        return Collections.unmodifiableSet(games.keySet());
+    }
+
+    /**
+     * Getter for the number of games in the registry.
+     *
+     * @return Number of games.
+     */
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Run an action on a game while holding its lock.
+     * <p>
+     * All state transitions of a game should go through this method, so they are atomic
+     * with respect to each other. The version of the game is incremented after the action,
+     * so clients polling the game see that it has changed, and the listener is notified
+     * unless the action removed the game.
+     *
+     * @param id     Id of the game.
+     * @param action Action to run on the game.
+     * @param <R>    Type of the result of the action.
+     * @return Result of the action, or null if there is no game with the given id.
+     */
+    public <R> R update(long id, Function<T, R> action) {
+        return withLock(id, () -> {
+            T game = get(id);
+            if (game == null) {
+                return null;
+            }
+            R result = action.apply(game);
+            game.incrementVersion();
+            if (get(id) == game) {
+                listener.changed(game);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Run an action on a game while holding its lock, without changing it.
+     * <p>
+     * Unlike update, the version of the game is not incremented, and the listener is not notified.
+     *
+     * @param id     Id of the game.
+     * @param action Action to run on the game.
+     * @param <R>    Type of the result of the action.
+     * @return Result of the action, or null if there is no game with the given id.
+     */
+    public <R> R read(long id, Function<T, R> action) {
+        return withLock(id, () -> {
+            T game = get(id);
+            return game == null ? null : action.apply(game);
+        });
+    }
+
+    /**
+     * Run an action while holding the lock of the game with the given id.
+     * <p>
+     * The game itself does not have to be in the registry. The lock is reentrant,
+     * so this method can be nested for the same game.
+     *
+     * @param id     Id of the game.
+     * @param action Action to run.
+     * @param <R>    Type of the result of the action.
+     * @return Result of the action.
+     */
+    public <R> R withLock(long id, Supplier<R> action) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Find the lock stripe of a game.
+     * <p>
+     * The id is mixed before masking, so consecutive ids spread over all stripes.
+     *
+     * @param id Id of the game.
+     * @return Lock guarding the game.
+     */
+    private ReentrantLock lockFor(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (hash ^ (hash >>> 32)) & mask];
+    }
+
+    /**
+     * A game together with the time of its last access.
+     *
+     * @param <T> Type of the game state.
+     */
+    private static final class Entry<T> {
+
+        private final T game;
+        private volatile long lastAccess;
+
+        /**
+         * Constructor for Entry.
+         *
+         * @param game       The game.
+         * @param lastAccess Time of the last access in milliseconds.
+         */
+        private Entry(T game, long lastAccess) {
+            this.game = game;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
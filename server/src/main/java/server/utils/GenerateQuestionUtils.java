@@ -26,9 +26,13 @@ public class GenerateQuestionUtils {
     private List<Long> activityIds;
     // Map from id of activity to its index in activityIds list
     private Map<Long, Integer> idIndices;
+    // Map from id of activity to the activity, so no query is needed per question
+    private Map<Long, Activity> activitiesById;
 
     // Copy of repo.findAll() for streams
     private List<Activity> activitiesCopy;
+    // Activities sorted by consumption, for range queries
+    private ConsumptionIndex consumptionIndex;
 
     // Median consumption in Wh, for guess questions
     private long median;
@@ -64,16 +68,19 @@ public class GenerateQuestionUtils {
             throw new IllegalStateException("Too few activities to generate any questions");
         }
 
-        List<Activity> sortedActivities = activitiesCopy.stream()
-                .sorted(this::compareActivities)
-                .collect(Collectors.toList());
+        this.consumptionIndex = new ConsumptionIndex(activitiesCopy);
 
-        this.median = sortedActivities.get(sortedActivities.size() / 2).getConsumption();
+        this.median = consumptionIndex.get(consumptionIndex.size() / 2).getConsumption();
 
         idIndices = new HashMap<>();
         for (int i = 0; i < activityIds.size(); i++) {
             idIndices.put(activityIds.get(i), i);
         }
+
+        activitiesById = new HashMap<>();
+        for (Activity activity : activitiesCopy) {
+            activitiesById.put(activity.getKey(), activity);
+        }
     }
 
     /**
@@ -83,12 +90,11 @@ public class GenerateQuestionUtils {
      */
     public Activity getNextActivity() {
         long activityId = activityIds.get(activityIndex);
-        Optional<Activity> optionalActivity = repo.findById(activityId);
+        Activity activity = activitiesById.get(activityId);
 
-        if (optionalActivity.isEmpty()) {
+        if (activity == null) {
             throw new IllegalStateException("Activity IDs stored non-existent activity.");
         }
-        Activity activity = optionalActivity.get();
 
         this.activityIndex = (this.activityIndex + 1) % activityIds.size();
 
@@ -172,27 +178,20 @@ public class GenerateQuestionUtils {
      * then the range will be between 250 and 1000.
      * <p>
      * Also, if fewer than 4 activities are found, the range is increased until enough
-     * activities are found.
+     * activities are found. The range is only counted (by binary search in the consumption index)
+     * while it is increased, the activities are collected once at the end.
      *
      * @param center     Center of the range.
      * @param multiplier Multiplier to multiply/divide the center by to get the range.
-     * @return All activities within multiple of the center.
+     * @return All activities within multiple of the center, by ascending consumption.
+     *         The list is a new one, so it can be modified by the caller.
      */
     public List<Activity> activitiesWithinRange(long center, long multiplier) {
-        List<Activity> result = new ArrayList<>();
-
-
-        // Reduce multiplier before loop, since it increases in each iteration of the loop.
-        multiplier--;
-        while (result.size() < 4) {
+        while (consumptionIndex.countWithin(center / multiplier, center * multiplier) < 4) {
             multiplier++;
-            result = activitiesCopy.stream()
-                    .filter(activityPredicate(center / multiplier,
-                            center * multiplier))
-                    .collect(Collectors.toList());
         }
 
-        return result;
+        return consumptionIndex.within(center / multiplier, center * multiplier);
     }
 
     /**
@@ -229,22 +228,17 @@ public class GenerateQuestionUtils {
 
         /*
         Get a list of candidate answers by:
-        1. Taking all activities
-        2. Filtering only those within the range for good answer choices
-        3. Remove the true answer from the list
-        4. Repeat process with bigger and bigger range until we have enough candidates
+        1. Taking all activities within the range (at least 4 of them) for good answer choices
+        2. Taking their distinct consumptions, without the true answer
+        3. Repeat process with bigger and bigger range until we have enough candidates
+        Only counting is done while the range grows, the candidates are collected once.
          */
-        List<Long> candidateAnswers = new ArrayList<>();
-
-        while (candidateAnswers.size() < 2) {
-            candidateAnswers = activitiesWithinRange(center, multiplier).stream()
-                    .mapToLong(Activity::getConsumption)
-                    .distinct()
-                    .filter(answer -> answer != center)
-                    .boxed()
-                    .collect(Collectors.toList());
+        while (consumptionIndex.countWithin(center / multiplier, center * multiplier) < 4
+                || consumptionIndex.countDistinctWithin(center / multiplier, center * multiplier, center) < 2) {
             multiplier += 1;
         }
+        List<Long> candidateAnswers =
+                consumptionIndex.distinctWithin(center / multiplier, center * multiplier, center);
 
         Collections.shuffle(candidateAnswers, random);
 
@@ -0,0 +1,56 @@
+package server.utils;
+
+import commons.misc.ActivityImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import server.database.ActivityImageRepository;
+
+import java.io.IOException;
+
+/**
+ * Moves the images stored as LOBs in the database into another image store.
+ * <p>
+ * Images are moved one at a time, each being deleted from the database once it was stored,
+ * so the migration can be interrupted and run again.
+ */
+public class ImageMigrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageMigrator.class);
+
+    private final ActivityImageRepository from;
+    private final ImageStore to;
+
+    /**
+     * Constructor for ImageMigrator.
+     *
+     * @param from Repository of the images in the database.
+     * @param to   Image store to move the images to.
+     */
+    public ImageMigrator(ActivityImageRepository from, ImageStore to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Move all images from the database into the image store.
+     *
+     * @return Number of images moved.
+     * @throws IOException If an image could not be stored. The images moved before stay moved.
+     */
+    public int migrate() throws IOException {
+        int moved = 0;
+        // Only the ids are loaded at once, the images themselves one by one.
+        for (String id : from.findAllIds()) {
+            byte[] image = from.findById(id).map(ActivityImage::getImage).orElse(null);
+            if (image != null) {
+                to.put(id, image);
+                moved++;
+            }
+            from.deleteById(id);
+        }
+        if (moved > 0) {
+            LOGGER.info("Moved {} images from the database into the image store", moved);
+        }
+        return moved;
+    }
+}
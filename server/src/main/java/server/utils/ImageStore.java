@@ -0,0 +1,77 @@
+package server.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * Storage for the images of the activities.
+ * <p>
+ * Images are stored under the id of their activity (e.g. 00-shower), and identified by the
+ * SHA-256 hash of their content, which also serves as their ETag.
+ */
+public interface ImageStore extends Closeable {
+
+    /**
+     * Store the image of an activity, replacing its previous image.
+     *
+     * @param id    Id of the activity, e.g. 00-shower.
+     * @param image Bytes of the image.
+     * @return Hash of the image.
+     * @throws IOException If the image could not be written.
+     */
+    String put(String id, byte[] image) throws IOException;
+
+    /**
+     * Find the image of an activity.
+     *
+     * @param id Id of the activity, e.g. 00-shower.
+     * @return The stored image, or empty if the activity has no image.
+     * @throws IOException If the image could not be read.
+     */
+    Optional<StoredImage> get(String id) throws IOException;
+
+    /**
+     * Release the resources held by the store.
+     *
+     * @throws IOException If the store could not be closed.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Compute the hash of an image.
+     *
+     * @param image Bytes of the image.
+     * @return Lowercase hexadecimal SHA-256 hash of the bytes.
+     */
+    static String hash(byte[] image) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(image);
+            return toHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Convert bytes to their lowercase hexadecimal representation.
+     *
+     * @param bytes Bytes to convert.
+     * @return String of two hexadecimal digits per byte.
+     */
+    static String toHex(byte[] bytes) {
+        byte[] digits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        byte[] hex = new byte[2 * bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = digits[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(hex, StandardCharsets.US_ASCII);
+    }
+}
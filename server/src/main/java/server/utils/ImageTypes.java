@@ -0,0 +1,71 @@
+package server.utils;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Detects the type of stored images from their first bytes.
+ * <p>
+ * Images are stored without their file name, and the image path of an activity does not
+ * necessarily match the format of the uploaded file, so the bytes themselves are checked.
+ */
+public final class ImageTypes {
+
+    /**
+     * Number of bytes needed to detect every supported type.
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF = {'G', 'I', 'F', '8'};
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP = {'W', 'E', 'B', 'P'};
+    private static final byte[] BMP = {'B', 'M'};
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private ImageTypes() {
+    }
+
+    /**
+     * Detect the media type of an image.
+     *
+     * @param header First bytes of the image, at least HEADER_LENGTH if the image is that long.
+     * @return Media type of the image, or application/octet-stream if it is not recognized.
+     */
+    public static MediaType detect(byte[] header) {
+        if (startsWith(header, 0, JPEG)) {
+            return MediaType.IMAGE_JPEG;
+        } else if (startsWith(header, 0, PNG)) {
+            return MediaType.IMAGE_PNG;
+        } else if (startsWith(header, 0, GIF)) {
+            return MediaType.IMAGE_GIF;
+        } else if (startsWith(header, 0, RIFF) && startsWith(header, 8, WEBP)) {
+            return MediaType.parseMediaType("image/webp");
+        } else if (startsWith(header, 0, BMP)) {
+            return MediaType.parseMediaType("image/bmp");
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * Check whether the bytes contain a signature at the given offset.
+     *
+     * @param bytes     Bytes to check.
+     * @param offset    Offset of the signature.
+     * @param signature Expected bytes.
+     * @return true iff the bytes are long enough, and contain the signature at the offset.
+     */
+    private static boolean startsWith(byte[] bytes, int offset, byte[] signature) {
+        if (bytes.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (bytes[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
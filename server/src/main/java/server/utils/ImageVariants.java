@@ -0,0 +1,279 @@
+package server.utils;
+
+import commons.misc.ImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates the resized variants of the images of the activities, and finds them again.
+ * <p>
+ * Variants are generated in the background by a fixed number of workers, with a bounded queue of
+ * pending images, so storing an image never waits for it to be resized. Images submitted while the
+ * queue is full are skipped, and generated the next time one of their variants is requested.
+ * <p>
+ * Variants are stored in the same ImageStore as the originals, under the hash of the original
+ * and the name of the variant. Replacing an image therefore never serves the variants of the old
+ * image, and activities with the same image share their variants.
+ */
+public class ImageVariants {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageVariants.class);
+
+    private final ImageStore store;
+    private final ThreadPoolExecutor workers;
+
+    // Ids of the activities whose variants are queued or being generated
+    private final Set<String> pending;
+    // Hashes of the originals that could not be decoded, which are not tried again
+    private final Set<String> unsupported;
+
+    private final LongAdder generated;
+    private final LongAdder failed;
+    private final LongAdder rejected;
+
+    /**
+     * Constructor for ImageVariants.
+     *
+     * @param store         Store of the originals, in which the variants are stored as well.
+     * @param threads       Number of workers resizing images.
+     * @param queueCapacity Maximal number of images waiting to be resized.
+     */
+    public ImageVariants(ImageStore store, int threads, int queueCapacity) {
+        this.store = store;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pending = ConcurrentHashMap.newKeySet();
+        this.unsupported = ConcurrentHashMap.newKeySet();
+        this.generated = new LongAdder();
+        this.failed = new LongAdder();
+        this.rejected = new LongAdder();
+    }
+
+    /**
+     * Queue the generation of the variants of an image, e.g. because it was just stored.
+     * <p>
+     * Does nothing if the image is already queued, or the queue is full.
+     *
+     * @param id Id of the activity, e.g. 00-shower.
+     */
+    public void submit(String id) {
+        if (!pending.add(id)) {
+            return;
+        }
+        try {
+            workers.execute(() -> run(id));
+        } catch (RejectedExecutionException e) {
+            pending.remove(id);
+            rejected.increment();
+        }
+    }
+
+    /**
+     * Find a variant of the image of an activity.
+     * <p>
+     * If the variant was not generated yet, the original is returned instead, and the variants are queued.
+     *
+     * @param id      Id of the activity, e.g. 00-shower.
+     * @param variant Requested variant.
+     * @return The variant, or the original if the variant is not available, or empty if the activity has no image.
+     * @throws IOException If the image could not be read.
+     */
+    public Optional<StoredImage> get(String id, ImageVariant variant) throws IOException {
+        Optional<StoredImage> original = store.get(id);
+        if (original.isEmpty() || variant == ImageVariant.ORIGINAL) {
+            return original;
+        }
+        Optional<StoredImage> resized = store.get(variantId(original.get().getHash(), variant));
+        if (resized.isPresent()) {
+            return resized;
+        }
+        if (!unsupported.contains(original.get().getHash())) {
+            submit(id);
+        }
+        return original;
+    }
+
+    /**
+     * Stop the workers, dropping the queued images.
+     */
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Compute the id under which a variant is stored.
+     *
+     * @param hash    Hash of the original image.
+     * @param variant Variant of the image.
+     * @return Id of the variant in the image store.
+     */
+    public static String variantId(String hash, ImageVariant variant) {
+        return hash + "@" + variant.getName();
+    }
+
+    /**
+     * Generate the variants of an image, on a worker thread.
+     *
+     * @param id Id of the activity.
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void run(String id) {
+        try {
+            generate(id);
+        } catch (IOException | RuntimeException e) {
+            // A broken image must not stop the worker for every other image
+            failed.increment();
+            LOGGER.warn("Could not generate the variants of the image of {}", id, e);
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    /**
+     * Generate and store all variants of an image which are not stored yet.
+     *
+     * @param id Id of the activity.
+     * @throws IOException If the image could not be read, or a variant could not be stored.
+     */
+    private void generate(String id) throws IOException {
+        Optional<StoredImage> original = store.get(id);
+        if (original.isEmpty()) {
+            return;
+        }
+        String hash = original.get().getHash();
+        BufferedImage image = null;
+        for (ImageVariant variant : ImageVariant.values()) {
+            String variantId = variantId(hash, variant);
+            if (variant == ImageVariant.ORIGINAL || store.get(variantId).isPresent()) {
+                continue;
+            }
+            if (image == null) {
+                image = ImageIO.read(new ByteBufferResource(original.get().getData(), id).getInputStream());
+                if (image == null) {
+                    unsupported.add(hash);
+                    LOGGER.info("Image of {} has an unsupported format, no variants are generated", id);
+                    return;
+                }
+            }
+            store.put(variantId, encode(image, variant, original.get()));
+            generated.increment();
+        }
+    }
+
+    /**
+     * Resize an image to fit within the bounding box of a variant, and encode it.
+     * <p>
+     * Images which already fit are not encoded again, so the variant is the same as the original,
+     * and is only stored once.
+     *
+     * @param image    Decoded original image.
+     * @param variant  Variant to create.
+     * @param original Stored original image.
+     * @return Bytes of the variant, as PNG if the image has transparency, as JPEG otherwise.
+     * @throws IOException If the image could not be encoded.
+     */
+    private static byte[] encode(BufferedImage image, ImageVariant variant, StoredImage original) throws IOException {
+        double scale = Math.min((double) variant.getMaxWidth() / image.getWidth(),
+                (double) variant.getMaxHeight() / image.getHeight());
+        if (scale >= 1) {
+            return original.getBytes();
+        }
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage resized = resize(image, width, height, alpha);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(resized, alpha ? "png" : "jpg", out)) {
+            throw new IOException("No image writer available for the variant " + variant.getName());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Scale an image down.
+     * <p>
+     * The image is halved in several steps first, as bilinear interpolation in a single step
+     * skips most pixels of a much larger image.
+     *
+     * @param image  Image to scale down.
+     * @param width  Width of the result, at most the width of the image.
+     * @param height Height of the result, at most the height of the image.
+     * @param alpha  Whether the result keeps the transparency of the image.
+     * @return New image of the given size.
+     */
+    static BufferedImage resize(BufferedImage image, int width, int height, boolean alpha) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            graphics.dispose();
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * Getter for the number of variants generated.
+     *
+     * @return Number of generated variants.
+     */
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    /**
+     * Getter for the number of images whose variants could not be generated.
+     *
+     * @return Number of failures.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Getter for the number of images skipped because the queue was full.
+     *
+     * @return Number of rejected images.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Getter for the number of images waiting to be resized.
+     *
+     * @return Length of the queue.
+     */
+    public int getQueued() {
+        return workers.getQueue().size();
+    }
+}
@@ -0,0 +1,52 @@
+package server.utils;
+
+import commons.misc.ActivityImage;
+import server.database.ActivityImageRepository;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Image store keeping the images as LOBs in the database, through the ActivityImageRepository.
+ * <p>
+ * Every read loads the whole image onto the heap, and hashes it again.
+ */
+public class JpaImageStore implements ImageStore {
+
+    private final ActivityImageRepository repo;
+
+    /**
+     * Constructor for JpaImageStore.
+     *
+     * @param repo Repository storing the images.
+     */
+    public JpaImageStore(ActivityImageRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Store the image of an activity in the database.
+     *
+     * @param id    Id of the activity, e.g. 00-shower.
+     * @param image Bytes of the image.
+     * @return Hash of the image.
+     */
+    @Override
+    public String put(String id, byte[] image) {
+        repo.save(new ActivityImage(id, image));
+        return ImageStore.hash(image);
+    }
+
+    /**
+     * Load the image of an activity from the database.
+     *
+     * @param id Id of the activity, e.g. 00-shower.
+     * @return The stored image, or empty if the activity has no image.
+     */
+    @Override
+    public Optional<StoredImage> get(String id) {
+        return repo.findById(id)
+                .map(ActivityImage::getImage)
+                .map(image -> new StoredImage(ImageStore.hash(image), ByteBuffer.wrap(image)));
+    }
+}
@@ -0,0 +1,294 @@
+package server.utils;
+
+import commons.single.SinglePlayerLeaderboardScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import server.database.LeaderboardRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saves the entries of the single-player leaderboard, optionally behind a buffer.
+ * <p>
+ * Without a flush interval, every entry is saved right away. With one, entries are only queued and
+ * acknowledged at once, and a background writer saves them together, one transaction per batch,
+ * whenever batchSize entries are waiting or the interval has passed. Games tend to end together,
+ * so their entries are then written in a few batches instead of one transaction each.
+ * <p>
+ * Either way, TopScores and ScoreRanks learn about an entry as soon as it is accepted, so ranks
+ * and the top of the leaderboard include it before it is written. A queued entry has no id until
+ * it is written, and is taken out of both again if it cannot be written. The queue is written before
+ * the application shuts down.
+ */
+public class LeaderboardWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeaderboardWriter.class);
+
+    private final LeaderboardRepository repo;
+    private final TopScores topScores;
+    private final ScoreRanks scoreRanks;
+    private final int batchSize;
+    private final long flushInterval;
+
+    private final Queue<SinglePlayerLeaderboardScore> queue;
+    // The queue has no cheap size(), so its length is tracked separately
+    private final AtomicInteger queued;
+    private final Object signal;
+
+    private final LongAdder written;
+    private final LongAdder failed;
+    private final LongAdder flushes;
+    private final LongAdder flushNanos;
+    private final AtomicLong lastFlushNanos;
+
+    private volatile Thread writer;
+
+    /**
+     * Constructor for LeaderboardWriter.
+     *
+     * @param repo          Repository of the leaderboard.
+     * @param topScores     Cache of the top of the leaderboard, updated with every accepted entry.
+     * @param scoreRanks    Counts of the scores, updated with every accepted entry.
+     * @param batchSize     Number of waiting entries which are written without waiting for the interval.
+     * @param flushInterval Maximal time in milliseconds an entry waits before it is written.
+     *                      0 disables the buffer, so entries are saved right away.
+     */
+    public LeaderboardWriter(LeaderboardRepository repo, TopScores topScores, ScoreRanks scoreRanks,
+                             int batchSize, long flushInterval) {
+        this.repo = repo;
+        this.topScores = topScores;
+        this.scoreRanks = scoreRanks;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Math.max(0, flushInterval);
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.queued = new AtomicInteger();
+        this.signal = new Object();
+        this.written = new LongAdder();
+        this.failed = new LongAdder();
+        this.flushes = new LongAdder();
+        this.flushNanos = new LongAdder();
+        this.lastFlushNanos = new AtomicLong();
+    }
+
+    /**
+     * Save an entry, or queue it if the buffer is enabled.
+     *
+     * @param entry Entry to save.
+     * @return The saved entry, or the queued entry without an id.
+     */
+    public SinglePlayerLeaderboardScore write(SinglePlayerLeaderboardScore entry) {
+        if (flushInterval == 0) {
+            SinglePlayerLeaderboardScore saved = repo.save(entry);
+            written.increment();
+            accepted(saved);
+            return saved;
+        }
+        // Counted before it is queued, so a concurrent flush never lets the count drop below 0
+        int waiting = queued.incrementAndGet();
+        queue.add(entry);
+        accepted(entry);
+        if (waiting >= batchSize) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Write all queued entries, in batches of at most batchSize entries.
+     *
+     * @return Number of entries written.
+     */
+    public synchronized int flush() {
+        int count = 0;
+        List<SinglePlayerLeaderboardScore> batch = new ArrayList<>(batchSize);
+        SinglePlayerLeaderboardScore entry;
+        while ((entry = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(entry);
+            if (batch.size() == batchSize) {
+                count += save(batch);
+            }
+        }
+        return count + save(batch);
+    }
+
+    /**
+     * Start the background writer.
+     * <p>
+     * Does nothing if the writer is already running, or if the buffer is disabled.
+     */
+    public synchronized void start() {
+        if (writer != null || flushInterval == 0) {
+            return;
+        }
+        writer = new Thread(this::run, "leaderboard-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop the background writer, and write the entries which are still queued.
+     */
+    public void stop() {
+        Thread thread = writer;
+        writer = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Main loop of the writer: wait for a full batch or the end of the interval, and write the queue.
+     */
+    private void run() {
+        while (writer == Thread.currentThread()) {
+            try {
+                synchronized (signal) {
+                    if (queued.get() < batchSize) {
+                        signal.wait(flushInterval);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Let the views of the leaderboard know about an accepted entry.
+     *
+     * @param entry Accepted entry.
+     */
+    private void accepted(SinglePlayerLeaderboardScore entry) {
+        topScores.add(entry);
+        scoreRanks.add(entry.getScore());
+    }
+
+    /**
+     * Let the views of the leaderboard know that an accepted entry was dropped, as it could not be written.
+     *
+     * @param entry Dropped entry.
+     */
+    private void dropped(SinglePlayerLeaderboardScore entry) {
+        topScores.remove(entry);
+        scoreRanks.remove(entry.getScore());
+    }
+
+    /**
+     * Save a batch of entries in a single transaction, and clear it.
+     * <p>
+     * If the batch cannot be saved, its entries are saved one by one, and only those which
+     * cannot be saved on their own are dropped, and taken out of the views of the leaderboard again.
+     *
+     * @param batch Entries to save.
+     * @return Number of entries saved.
+     */
+    private int save(List<SinglePlayerLeaderboardScore> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int count = batch.size();
+        if (!saveAll(batch)) {
+            count = 0;
+            for (SinglePlayerLeaderboardScore entry : batch) {
+                // The id was handed out by the transaction which was rolled back
+                entry.setId(null);
+                if (saveAll(List.of(entry))) {
+                    count++;
+                } else {
+                    entry.setId(null);
+                    failed.increment();
+                    dropped(entry);
+                    LOGGER.warn("Dropped the leaderboard entry of {}, as it could not be saved", entry.getUsername());
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        written.add(count);
+        flushes.increment();
+        flushNanos.add(elapsed);
+        lastFlushNanos.set(elapsed);
+        batch.clear();
+        return count;
+    }
+
+    /**
+     * Save entries in a single transaction.
+     *
+     * @param entries Entries to save.
+     * @return true iff the entries were saved.
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private boolean saveAll(List<SinglePlayerLeaderboardScore> entries) {
+        try {
+            repo.saveAll(entries);
+            return true;
+        } catch (RuntimeException e) {
+            // Spring reports failing transactions as runtime exceptions of many kinds
+            LOGGER.warn("Could not save {} leaderboard entries", entries.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Getter for the number of entries waiting to be written.
+     *
+     * @return Depth of the queue.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Getter for the number of entries written.
+     *
+     * @return Number of written entries.
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * Getter for the number of entries dropped because they could not be saved.
+     *
+     * @return Number of dropped entries.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Getter for the time the last batch took to be written.
+     *
+     * @return Latency of the last flush in milliseconds.
+     */
+    public double getLastFlushMillis() {
+        return lastFlushNanos.get() / 1e6;
+    }
+
+    /**
+     * Getter for the average time a batch took to be written.
+     *
+     * @return Average latency of a flush in milliseconds, or 0 if there were none.
+     */
+    public double getAverageFlushMillis() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : flushNanos.sum() / 1e6 / count;
+    }
+}
@@ -7,40 +7,70 @@ import commons.multi.ChatMessage;
 import commons.question.AbstractQuestion;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 /**
  * Utility class providing functionality for the multiplayer game mode.
  */
 public class MultiPlayerStateUtils {
 
-    private final Map<Long, MultiPlayerState> games;
-    private MultiPlayerState nextGame;
+    /**
+     * Time in milliseconds the time joker stays shown to the other players of a game.
+     */
+    public static final long TIME_JOKER_DURATION = 500;
+
+    /**
+     * Number of chat messages kept per game.
+     */
+    public static final int CHAT_CAPACITY = 64;
+
+    private final GameRegistry<MultiPlayerState> games;
+    private final GameEvictor<MultiPlayerState> evictor;
 
-    private final GenerateQuestionUtils generateQuestionUtils;
-    private final QueueUtils queueUtils;
+    private final QuestionSetPool questionSetPool;
+    private final QueueLobbies lobbies;
     private final CurrentTimeUtils currentTime;
     private final ScoreCountingUtils scoreCountingUtils;
+    private final TimerWheel timerWheel;
+    private final GameIdAllocator idAllocator;
+
+    // Pending reset of the time joker of every game in which one is shown
+    private final Map<Long, TimerWheel.Timeout> timeJokerResets;
+
+    // Chat of every game in which a message was sent, kept here as clients only fetch it by cursor
+    private final Map<Long, ChatLog> chatLogs;
 
     /**
      * Constructor for multiplayer server-side utility class.
      *
-     * @param generateQuestionUtils is the "generate questions" utility bean injected by Spring.
-     * @param queueUtils            is the class responsible for managing the queue.
+     * @param questionSetPool       Pool of pre-generated question sets for new games.
+     * @param lobbies               is the class responsible for managing the lobbies.
      * @param currentTime           CurrentTimeUtils instance for getting the current time.
      * @param scoreCountingUtils    ScoreCountingUtility instance for distributing the correct amount
      *                              of points to each player.
+     * @param timerWheel            TimerWheel instance which advances the games at their next phase.
+     * @param idAllocator           GameIdAllocator instance for the ids of new games.
      */
-    public MultiPlayerStateUtils(GenerateQuestionUtils generateQuestionUtils,
-                                 QueueUtils queueUtils,
+    public MultiPlayerStateUtils(QuestionSetPool questionSetPool,
+                                 QueueLobbies lobbies,
                                  CurrentTimeUtils currentTime,
-                                 ScoreCountingUtils scoreCountingUtils
+                                 ScoreCountingUtils scoreCountingUtils,
+                                 TimerWheel timerWheel,
+                                 GameIdAllocator idAllocator
     ) {
-        this.generateQuestionUtils = generateQuestionUtils;
-        this.queueUtils = queueUtils;
+        this.questionSetPool = questionSetPool;
+        this.lobbies = lobbies;
         this.currentTime = currentTime;
         this.scoreCountingUtils = scoreCountingUtils;
+        this.timerWheel = timerWheel;
+        this.idAllocator = idAllocator;
+        this.timeJokerResets = new ConcurrentHashMap<>();
+        this.chatLogs = new ConcurrentHashMap<>();
 
-        this.games = new HashMap<>();
+        this.games = new GameRegistry<>(currentTime);
+        this.evictor = new GameEvictor<>(games, timerWheel, currentTime);
 
         this.initialize();
     }
@@ -49,25 +79,80 @@ public class MultiPlayerStateUtils {
      * Initialization method, called in the constructor.
      */
     protected void initialize() {
-        queueUtils.setOnStart(this::startNewGame);
+        lobbies.setOnStart(this::startNewGame);
+        setListener(game -> { });
+        evictor.startSweeping();
+    }
+
+    /**
+     * Getter for the evictor of the finished and abandoned multiplayer games.
+     *
+     * @return GameEvictor of this utility class.
+     */
+    public GameEvictor<MultiPlayerState> getEvictor() {
+        return evictor;
+    }
+
+    /**
+     * Setter for the listener which is notified when a multiplayer game changes or is evicted.
+     * <p>
+     * Once a game is evicted, its pending time joker reset is cancelled, and its chat is dropped as well.
+     *
+     * @param listener Listener of the multiplayer games.
+     */
+    public void setListener(GameListener<MultiPlayerState> listener) {
+        games.setListener(new GameListener<>() {
+            @Override
+            public void changed(MultiPlayerState game) {
+                listener.changed(game);
+            }
+
+            @Override
+            public void removed(MultiPlayerState game) {
+                cancelTimeJokerReset(timeJokerResets.remove(game.getId()));
+                chatLogs.remove(game.getId());
+                listener.removed(game);
+            }
+        });
+    }
+
+    /**
+     * Getter for the number of multiplayer games currently kept in memory.
+     *
+     * @return Number of games.
+     */
+    public int getGameCount() {
+        return games.size();
     }
 
     /**
      * Getter for the multiplayer game state.
      * <p>
-     * Internally updates the state to be up-to-date.
+     * This is a pure read, the game is advanced by the timer wheel at its next phase.
+     * The access is recorded, so the game is not considered abandoned.
      *
      * @param id Id of the multiplayer game.
      * @return Multiplayer game state with that id.
      */
     public MultiPlayerState getGameState(long id) {
-        if (games.containsKey(id)) {
-            MultiPlayerState game = games.get(id);
-            updateState(game);
-            return game;
-        } else {
-            return null;
-        }
+        games.touch(id);
+        return games.get(id);
+    }
+
+    /**
+     * Run an action on the state of a multiplayer game while holding its lock, without changing it.
+     * <p>
+     * Used to take a snapshot of the game which no other thread changes in the meantime.
+     * The access is recorded, so the game is not considered abandoned.
+     *
+     * @param id     Id of the multiplayer game.
+     * @param action Action to run on the game.
+     * @param <R>    Type of the result of the action.
+     * @return Result of the action, or null if there is no game with the given id.
+     */
+    public <R> R readGameState(long id, Function<MultiPlayerState, R> action) {
+        games.touch(id);
+        return games.read(id, action);
     }
 
     /**
@@ -81,19 +166,20 @@ public class MultiPlayerStateUtils {
      * @return Player that was added iff they were added.
      */
     public MultiPlayer addPlayer(long id, MultiPlayer player) {
-        MultiPlayerState game = getGameState(id);
-        if (game == null) {
-            return null;
-        } else if (player == null) {
+        if (player == null) {
             return null;
         } else if (player.getUsername() == null || player.getUsername().isEmpty()) {
             return null;
-        } else if (containsPlayer(player, game)) {
-            return null;
-        } else {
+        }
+        // The uniqueness check and the insertion have to be atomic,
+        // otherwise two requests with the same username could both get in.
+        return games.update(id, game -> {
+            if (containsPlayer(player, game)) {
+                return null;
+            }
             game.getPlayers().add(player);
             return player;
-        }
+        });
     }
 
     /**
@@ -118,6 +204,38 @@ public class MultiPlayerStateUtils {
         }
     }
 
+    /**
+     * Advance the game with the given id, and schedule its next phase.
+     * <p>
+     * This is run by the timer wheel once the next phase of the game is reached.
+     *
+     * @param id Id of the multiplayer game.
+     */
+    public void advanceGame(long id) {
+        games.update(id, game -> {
+            updateState(game);
+            scheduleNextPhase(game);
+            return game;
+        });
+    }
+
+    /**
+     * Schedule the game to be advanced at its next phase.
+     * <p>
+     * Games which will never progress anymore are not scheduled. Once a game is over,
+     * its eviction is scheduled instead.
+     *
+     * @param game Game to be scheduled.
+     */
+    private void scheduleNextPhase(MultiPlayerState game) {
+        long id = game.getId();
+        if (game.getNextPhase() != Long.MAX_VALUE) {
+            timerWheel.schedule(game.getNextPhase(), () -> advanceGame(id));
+        } else if (MultiPlayerState.GAME_OVER_STATE.equals(game.getState())) {
+            evictor.scheduleEviction(id);
+        }
+    }
+
     /**
      * Check if state of the game has to be updated.
      *
@@ -340,22 +458,21 @@ public class MultiPlayerStateUtils {
     /**
      * Start a new game.
      * <p>
-     * This method is called whenever someone clicks "Go!" in the queue.
+     * This method is called whenever someone clicks "Go!" in a lobby.
      *
      * @return id of the game that is starting.
      */
     public long startNewGame() {
-        nextGame = createNextGame();
-        long upcomingGameId = nextGame.getId();
+        MultiPlayerState nextGame = createNextGame();
         // We set the time of the next phase to +3s, since this method is called
         // whenever anyone in the queue clicks "Go!"
         nextGame.setNextPhase(currentTime.getTime() + 3000);
         nextGame.setState(MultiPlayerState.STARTING_STATE);
 
-        games.put(nextGame.getId(), nextGame);
-        nextGame = createNextGame();
+        games.put(nextGame);
+        scheduleNextPhase(nextGame);
 
-        return upcomingGameId;
+        return nextGame.getId();
     }
 
     /**
@@ -368,40 +485,27 @@ public class MultiPlayerStateUtils {
         long nextPhase = Long.MAX_VALUE;
         // Round number is incremented each time, so initial round number is -1
         int roundNumber = -1;
-        List<AbstractQuestion> questionList = generateQuestionUtils.generate20Questions();
-        List<GameResponse> submittedAnswers = new ArrayList<>();
-        List<GameResponse> finalAnswers = new ArrayList<>();
+        List<AbstractQuestion> questionList = questionSetPool.take();
+        /*
+        Lists which are appended to while the game is running are copy-on-write,
+        so a game can be serialized for one client while another client modifies it.
+         */
+        List<GameResponse> submittedAnswers = new CopyOnWriteArrayList<>();
         String state = MultiPlayerState.NOT_STARTED_STATE;
-        List<MultiPlayer> players = new ArrayList<>();
-        // Comment: what does ChatMessage mean here?
-        // Somehow, it stores a list of strings, which are emojis?
-        // But that makes very little sense.
-        // It would make a lot more sense to store a List<ChatMessage>, where each
-        // ChatMessage would mean a single reaction by a single user.
-        //
-        // Right now, it just makes very little sense.
-        //
-        // Whoever is planning to work on reactions will almost definitely refactor this
-        List<ChatMessage> chatMessageList = new ArrayList<>();
+        List<MultiPlayer> players = new CopyOnWriteArrayList<>();
         return new MultiPlayerState(id, nextPhase, roundNumber, questionList,
-                submittedAnswers, state, players, chatMessageList);
+                submittedAnswers, state, players);
     }
 
     /**
      * Generate id of the next game.
      * <p>
-     * Ensures that the id of the next game is not already being played.
+     * Every call allocates a new id, which is never used by any other game.
      *
      * @return Id for the next game.
      */
     public long generateNextGameId() {
-        long max = -1;
-        for (Long key : games.keySet()) {
-            if (key > max) {
-                max = key;
-            }
-        }
-        return max + 1;
+        return idAllocator.allocate();
     }
 
     /**
@@ -413,11 +517,135 @@ public class MultiPlayerStateUtils {
      */
     public GameResponse postAnswer(GameResponse gameResponse) {
         long gameId = gameResponse.getGameId();
-        if (!games.containsKey(gameId)) {
+        return games.update(gameId, game -> {
+            game.getSubmittedAnswers().add(gameResponse);
+            return gameResponse;
+        });
+    }
+
+    /**
+     * Appends a chat message (a reaction or a joker notification) to the given game.
+     * <p>
+     * The message is added while holding the lock of the game, so it cannot get lost
+     * when several players react at the same time. It gets the next sequence number of the chat of the game,
+     * which is also set in the game, so clients know there is a new message to fetch.
+     *
+     * @param game        Game to add the message to.
+     * @param chatMessage Message to be added.
+     * @return The message that was added.
+     */
+    public ChatMessage addChatMessage(MultiPlayerState game, ChatMessage chatMessage) {
+        games.update(game.getId(), current -> {
+            chatLogs.computeIfAbsent(current.getId(), key -> new ChatLog(CHAT_CAPACITY)).append(chatMessage);
+            current.setChatSequence(chatMessage.getSequence());
+            return chatMessage;
+        });
+        return chatMessage;
+    }
+
+    /**
+     * Get the chat messages of a game which were sent after the given cursor.
+     * <p>
+     * Only the last CHAT_CAPACITY messages of a game are kept, older ones are skipped.
+     *
+     * @param id     Id of the multiplayer game.
+     * @param cursor Sequence number of the last message the client has seen, or 0 for all messages.
+     * @return Messages after the cursor from old to new, or null if the game does not exist.
+     */
+    public List<ChatMessage> getChatMessages(long id, long cursor) {
+        if (games.get(id) == null) {
+            return null;
+        }
+        ChatLog chatLog = chatLogs.get(id);
+        return chatLog == null ? new ArrayList<>() : chatLog.after(cursor);
+    }
+
+    /**
+     * Set the player who is currently using the time joker in a game.
+     * <p>
+     * The player is marked as having used their time joker.
+     *
+     * @param id       Id of the multiplayer game.
+     * @param username Username of the player using the joker, or null once the joker has worn off.
+     * @return The player using the joker, or null if there is none or the game does not exist.
+     */
+    public MultiPlayer setPlayerUsingTimeJoker(long id, String username) {
+        return games.update(id, game -> {
+            MultiPlayer player = username == null ? null : game.getPlayerByUsername(username);
+            applyTimeJoker(game, player);
+            return player;
+        });
+    }
+
+    /**
+     * Set the player who is currently using the time joker, without taking the lock of the game.
+     *
+     * @param game   Game to update, whose lock is held by the caller.
+     * @param player Player using the joker, or null once the joker has worn off.
+     */
+    private static void applyTimeJoker(MultiPlayerState game, MultiPlayer player) {
+        if (player != null) {
+            player.setTimeJoker(false);
+        }
+        game.setPlayerUsingTimeJoker(player);
+    }
+
+    /**
+     * Show that a player is using the time joker in a game, for TIME_JOKER_DURATION milliseconds.
+     * <p>
+     * The reset is scheduled on the timer wheel. If another time joker is used before,
+     * the earlier reset is cancelled, so the later joker is shown for its whole duration.
+     * If the player is not in the game, the game and its pending reset are left as they are.
+     *
+     * @param id       Id of the multiplayer game.
+     * @param username Username of the player using the joker.
+     * @return The player using the joker, or null if there is no such player or the game does not exist.
+     */
+    public MultiPlayer useTimeJoker(long id, String username) {
+        return games.update(id, game -> {
+            MultiPlayer player = username == null ? null : game.getPlayerByUsername(username);
+            if (player == null) {
+                return null;
+            }
+            applyTimeJoker(game, player);
+            TimerWheel.Timeout reset = timerWheel.schedule(currentTime.getTime() + TIME_JOKER_DURATION,
+                    () -> resetTimeJoker(id));
+            cancelTimeJokerReset(timeJokerResets.put(id, reset));
+            return player;
+        });
+    }
+
+    /**
+     * Stop showing the player using the time joker in a game, once the joker has worn off.
+     *
+     * @param id Id of the multiplayer game.
+     */
+    private void resetTimeJoker(long id) {
+        games.update(id, game -> {
+            timeJokerResets.remove(id);
+            game.setPlayerUsingTimeJoker(null);
             return null;
+        });
+    }
+
+    /**
+     * Cancel a pending time joker reset.
+     *
+     * @param reset Timeout of the reset, or null if there is none.
+     */
+    private void cancelTimeJokerReset(TimerWheel.Timeout reset) {
+        if (reset != null) {
+            reset.cancel();
         }
-        games.get(gameId).getSubmittedAnswers().add(gameResponse);
-        return gameResponse;
+    }
+
+    /**
+     * Getter for the number of time joker resets which are scheduled, but have not run yet.
+     *
+     * @return Number of pending resets.
+     */
+    public int getPendingTimeJokerResets() {
+        return timeJokerResets.size();
     }
 
     /**
@@ -427,24 +655,26 @@ public class MultiPlayerStateUtils {
      *                      "fetched".
      * @param chatMessage   Message sent from the client containing information
      *                      about the joker being clicked.
-     * @return              ChatMessage - would be null in case the joker is already used.
+     * @return              ChatMessage - would be null in case the joker is already used,
+     *                      or the game does not exist.
      */
     public ChatMessage jokerUse(long id, ChatMessage chatMessage) {
-        MultiPlayerState game = games.get(id);
-        String username = chatMessage.getUsername();
-        MultiPlayer player = game.getPlayerByUsername(username);
-        boolean isJokerUseValid = switch (chatMessage.getMessage()) {
-            case "doublePoints" -> useDoublePointsJoker(player);
-            case "removeIncorrect" -> useRemoveIncorrectJoker(player);
-            case "timeAttack" -> useTimeAttackJoker(game, player);
-            default -> false;
-        };
-
-        if (isJokerUseValid) {
-            return chatMessage;
-        } else {
-            return null;
-        }
+        return games.update(id, game -> {
+            String username = chatMessage.getUsername();
+            MultiPlayer player = game.getPlayerByUsername(username);
+            boolean isJokerUseValid = switch (chatMessage.getMessage()) {
+                case "doublePoints" -> useDoublePointsJoker(player);
+                case "removeIncorrect" -> useRemoveIncorrectJoker(player);
+                case "timeAttack" -> useTimeAttackJoker(game, player);
+                default -> false;
+            };
+
+            if (isJokerUseValid) {
+                return chatMessage;
+            } else {
+                return null;
+            }
+        });
     }
 
     /**
@@ -0,0 +1,428 @@
+package server.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Image store keeping the images in append-only pack files, addressed by the hash of their content.
+ * <p>
+ * Every distinct image is written once, as a record of a header (magic number, length and hash)
+ * followed by its bytes. Activities with the same image share the record. Pack files are
+ * memory-mapped for reading, so serving an image reads it from the page cache without
+ * loading it onto the heap.
+ * <p>
+ * The ids of the activities are mapped to hashes in a separate log, where the last line of an id wins.
+ * Both the pack files and the log are only appended to, so after a crash at most the record
+ * being written is lost. The index of the records is rebuilt from the pack files on startup.
+ */
+public class PackFileImageStore implements ImageStore {
+
+    /**
+     * Size in bytes after which a new pack file is started.
+     */
+    public static final long DEFAULT_PACK_SIZE = 64L * 1024 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackFileImageStore.class);
+
+    private static final int MAGIC = 0x51494D47;
+    private static final int HASH_LENGTH = 64;
+    private static final int RECORD_HEADER = 4 + 4 + HASH_LENGTH;
+    private static final String PACK_PREFIX = "pack-";
+    private static final String PACK_SUFFIX = ".dat";
+    private static final String REFS_FILE = "refs.log";
+
+    private final Path directory;
+    private final long packSize;
+
+    // Only modified while holding the lock of the store
+    private final List<Pack> packs;
+    // Hash of every image to its record
+    private final Map<String, Location> records;
+    // Id of every activity to the hash of its image
+    private final Map<String, String> refs;
+    private final Writer refsWriter;
+
+    private final LongAdder deduplicated;
+
+    /**
+     * Constructor for PackFileImageStore, opening the store in the given directory.
+     *
+     * @param directory Directory of the pack files. Created if it does not exist.
+     * @param packSize  Size in bytes after which a new pack file is started.
+     * @throws IOException If the directory could not be read.
+     */
+    public PackFileImageStore(Path directory, long packSize) throws IOException {
+        if (packSize <= RECORD_HEADER || packSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pack size must be between " + RECORD_HEADER
+                    + " and " + Integer.MAX_VALUE + " bytes, was " + packSize);
+        }
+        this.directory = directory;
+        this.packSize = packSize;
+        this.packs = new ArrayList<>();
+        this.records = new ConcurrentHashMap<>();
+        this.refs = new ConcurrentHashMap<>();
+        this.deduplicated = new LongAdder();
+
+        Files.createDirectories(directory);
+        for (Path path : listPacks()) {
+            Pack pack = new Pack(path);
+            packs.add(pack);
+            scan(pack);
+        }
+        this.refsWriter = loadRefs();
+        LOGGER.info("Opened image store in {}: {} images, {} distinct, {} pack files",
+                directory, refs.size(), records.size(), packs.size());
+    }
+
+    /**
+     * Store the image of an activity.
+     * <p>
+     * The image is only written if no activity has the same image yet.
+     *
+     * @param id    Id of the activity, e.g. 00-shower.
+     * @param image Bytes of the image.
+     * @return Hash of the image.
+     * @throws IOException If the image could not be written.
+     */
+    @Override
+    public synchronized String put(String id, byte[] image) throws IOException {
+        if (id.indexOf('\t') >= 0 || id.indexOf('\n') >= 0 || id.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Invalid id of an activity: " + id);
+        }
+        String hash = ImageStore.hash(image);
+        if (records.containsKey(hash)) {
+            deduplicated.increment();
+        } else {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + image.length);
+            record.putInt(MAGIC).putInt(image.length).put(hash.getBytes(StandardCharsets.US_ASCII)).put(image);
+            record.flip();
+
+            Pack pack = writablePack(record.remaining());
+            long offset = pack.append(record);
+            records.put(hash, new Location(pack, offset + RECORD_HEADER, image.length));
+        }
+        if (!hash.equals(refs.get(id))) {
+            refsWriter.write(id + "\t" + hash + "\n");
+            refsWriter.flush();
+            refs.put(id, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Find the image of an activity.
+     *
+     * @param id Id of the activity, e.g. 00-shower.
+     * @return The image as a slice of its memory-mapped pack file, or empty if the activity has no image.
+     * @throws IOException If the pack file could not be mapped.
+     */
+    @Override
+    public Optional<StoredImage> get(String id) throws IOException {
+        String hash = refs.get(id);
+        if (hash == null) {
+            return Optional.empty();
+        }
+        Location location = records.get(hash);
+        return Optional.of(new StoredImage(hash, location.pack.slice(location.offset, location.length)));
+    }
+
+    /**
+     * Close the pack files and the log.
+     * <p>
+     * Images which were already read stay readable until they are garbage collected.
+     *
+     * @throws IOException If a file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        refsWriter.close();
+        for (Pack pack : packs) {
+            pack.channel.close();
+        }
+    }
+
+    /**
+     * Getter for the number of activities with an image.
+     *
+     * @return Number of stored images.
+     */
+    public int getImageCount() {
+        return refs.size();
+    }
+
+    /**
+     * Getter for the number of distinct images, which is the number of records in the pack files.
+     *
+     * @return Number of distinct images.
+     */
+    public int getRecordCount() {
+        return records.size();
+    }
+
+    /**
+     * Getter for the number of stored images which were not written, as the same image was already stored.
+     *
+     * @return Number of deduplicated images since the store was opened.
+     */
+    public long getDeduplicated() {
+        return deduplicated.sum();
+    }
+
+    /**
+     * Getter for the total size of the pack files.
+     *
+     * @return Size in bytes.
+     */
+    public synchronized long getPackBytes() {
+        return packs.stream().mapToLong(pack -> pack.size).sum();
+    }
+
+    /**
+     * List the pack files in the directory of the store.
+     *
+     * @return Paths of the pack files, in the order they were created.
+     * @throws IOException If the directory could not be listed.
+     */
+    private List<Path> listPacks() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PACK_PREFIX) && name.endsWith(PACK_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Add the records of a pack file to the index.
+     * <p>
+     * An incomplete record at the end of the file, left by a crash while writing, is cut off.
+     *
+     * @param pack Pack file to scan.
+     * @throws IOException If the file could not be read.
+     */
+    private void scan(Pack pack) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        byte[] hash = new byte[HASH_LENGTH];
+        long position = 0;
+        while (position + RECORD_HEADER <= pack.size) {
+            header.clear();
+            if (!pack.read(header, position)) {
+                break;
+            }
+            header.flip();
+            int magic = header.getInt();
+            int length = header.getInt();
+            if (magic != MAGIC || length < 0 || position + RECORD_HEADER + length > pack.size) {
+                break;
+            }
+            header.get(hash);
+            records.putIfAbsent(new String(hash, StandardCharsets.US_ASCII),
+                    new Location(pack, position + RECORD_HEADER, length));
+            position += RECORD_HEADER + length;
+        }
+        if (position < pack.size) {
+            LOGGER.warn("Cutting off {} bytes of an incomplete record at the end of {}",
+                    pack.size - position, pack.path);
+            pack.truncate(position);
+        }
+    }
+
+    /**
+     * Load the ids of the activities from the log, and open it for appending.
+     * <p>
+     * If most lines of the log have been replaced by later lines, the log is rewritten first.
+     *
+     * @return Writer appending to the log.
+     * @throws IOException If the log could not be read or opened.
+     */
+    private Writer loadRefs() throws IOException {
+        Path path = directory.resolve(REFS_FILE);
+        String content = Files.exists(path) ? Files.readString(path, StandardCharsets.UTF_8) : "";
+        String[] lines = content.split("\n");
+        for (String line : lines) {
+            int tab = line.lastIndexOf('\t');
+            // Lines of images that were lost in a crash are skipped, as is a partially written last line.
+            if (tab > 0 && records.containsKey(line.substring(tab + 1))) {
+                refs.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+
+        if (!content.isEmpty() && (lines.length > 2 * refs.size() || !content.endsWith("\n"))) {
+            Path temporary = directory.resolve(REFS_FILE + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> ref : refs.entrySet()) {
+                    writer.write(ref.getKey() + "\t" + ref.getValue() + "\n");
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Find the pack file to append a record to, starting a new one if the last one is full.
+     *
+     * @param length Length of the record.
+     * @return Pack file with room for the record, or an empty pack file if the record is larger than a pack.
+     * @throws IOException If a new pack file could not be created.
+     */
+    private Pack writablePack(int length) throws IOException {
+        Pack last = packs.isEmpty() ? null : packs.get(packs.size() - 1);
+        if (last == null || last.size > 0 && last.size + length > packSize) {
+            last = new Pack(directory.resolve(String.format("%s%05d%s", PACK_PREFIX, packs.size(), PACK_SUFFIX)));
+            packs.add(last);
+        }
+        return last;
+    }
+
+    /**
+     * Position of a record in a pack file.
+     */
+    private static final class Location {
+
+        private final Pack pack;
+        private final long offset;
+        private final int length;
+
+        /**
+         * Constructor for Location.
+         *
+         * @param pack   Pack file of the record.
+         * @param offset Offset of the image in the pack file, after the header of the record.
+         * @param length Length of the image.
+         */
+        private Location(Pack pack, long offset, int length) {
+            this.pack = pack;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Single pack file, appended to through its channel and read through a mapping of the whole file.
+     */
+    private static final class Pack {
+
+        private final Path path;
+        private final FileChannel channel;
+        private volatile long size;
+        private volatile MappedByteBuffer mapped;
+
+        /**
+         * Constructor for Pack, opening the file.
+         *
+         * @param path Path of the pack file. Created if it does not exist.
+         * @throws IOException If the file could not be opened.
+         */
+        private Pack(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        /**
+         * Append a record to the file, and flush it to the disk.
+         *
+         * @param record Record to append.
+         * @return Offset of the record in the file.
+         * @throws IOException If the record could not be written.
+         */
+        private long append(ByteBuffer record) throws IOException {
+            long offset = size;
+            long position = offset;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            channel.force(false);
+            size = position;
+            return offset;
+        }
+
+        /**
+         * Read bytes from the file until the buffer is full.
+         *
+         * @param buffer   Buffer to read into.
+         * @param position Offset in the file to read from.
+         * @return false iff the end of the file was reached before the buffer was full.
+         * @throws IOException If the file could not be read.
+         */
+        private boolean read(ByteBuffer buffer, long position) throws IOException {
+            long current = position;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, current);
+                if (read < 0) {
+                    return false;
+                }
+                current += read;
+            }
+            return true;
+        }
+
+        /**
+         * Cut off the end of the file.
+         *
+         * @param newSize New size of the file.
+         * @throws IOException If the file could not be truncated.
+         */
+        private void truncate(long newSize) throws IOException {
+            channel.truncate(newSize);
+            size = newSize;
+        }
+
+        /**
+         * Get a part of the file without copying it.
+         *
+         * @param offset Offset of the part.
+         * @param length Length of the part.
+         * @return Buffer over the part of the mapped file.
+         * @throws IOException If the file could not be mapped.
+         */
+        private ByteBuffer slice(long offset, int length) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || current.capacity() < offset + length) {
+                current = remap();
+            }
+            ByteBuffer slice = current.duplicate();
+            slice.limit((int) offset + length);
+            slice.position((int) offset);
+            return slice.slice();
+        }
+
+        /**
+         * Map the whole file again, as records were appended since it was last mapped.
+         *
+         * @return Mapping of the file up to its current size.
+         * @throws IOException If the file could not be mapped.
+         */
+        private synchronized MappedByteBuffer remap() throws IOException {
+            if (mapped == null || mapped.capacity() < size) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return mapped;
+        }
+    }
+}
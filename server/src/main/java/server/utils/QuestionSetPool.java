@@ -0,0 +1,265 @@
+package server.utils;
+
+import commons.question.AbstractQuestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of pre-generated question sets, so starting a game does not have to hit the database.
+ * <p>
+ * A background producer keeps the pool filled up to its capacity. Taking a set from the pool
+ * only removes it from a queue; the producer then generates a replacement. If the pool is
+ * empty (the producer is not started, or cannot keep up), a set is generated synchronously
+ * instead.
+ * <p>
+ * GenerateQuestionUtils is not thread-safe, so all generation is done while holding its monitor.
+ */
+public class QuestionSetPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QuestionSetPool.class);
+
+    /**
+     * Time in milliseconds the producer waits after failing to generate a set,
+     * e.g. because there are not enough activities yet.
+     */
+    private static final long RETRY_DELAY = 5000;
+
+    /**
+     * Time in milliseconds the producer waits for room in the pool, before it checks again
+     * whether its set is still up to date.
+     */
+    private static final long OFFER_TIMEOUT = 100;
+
+    private final GenerateQuestionUtils generateQuestionUtils;
+    private final BlockingQueue<List<AbstractQuestion>> pool;
+    private final int capacity;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder refills;
+    private final LongAdder refillNanos;
+    private final AtomicLong lastRefillNanos;
+
+    // Incremented on clear(), so a set generated from outdated activities is not added
+    private final AtomicLong generation;
+
+    private volatile Thread producer;
+
+    /**
+     * Constructor for QuestionSetPool.
+     *
+     * @param generateQuestionUtils GenerateQuestionUtils instance which generates the question sets.
+     * @param capacity              Maximal number of sets kept ready. 0 disables the pool.
+     */
+    public QuestionSetPool(GenerateQuestionUtils generateQuestionUtils, int capacity) {
+        this.generateQuestionUtils = generateQuestionUtils;
+        this.capacity = capacity;
+        // ArrayBlockingQueue does not allow a capacity of 0
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.refills = new LongAdder();
+        this.refillNanos = new LongAdder();
+        this.lastRefillNanos = new AtomicLong();
+        this.generation = new AtomicLong();
+    }
+
+    /**
+     * Take a set of 20 questions for a new game.
+     * <p>
+     * Every set is only handed out once.
+     *
+     * @return List of 20 generated questions.
+     */
+    public List<AbstractQuestion> take() {
+        List<AbstractQuestion> questions = pool.poll();
+        if (questions != null) {
+            hits.increment();
+            return questions;
+        }
+        misses.increment();
+        return generate();
+    }
+
+    /**
+     * Discard all sets in the pool, e.g. because the activities have changed.
+     * The producer will fill the pool again with new sets.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        pool.clear();
+    }
+
+    /**
+     * Start the background producer.
+     * <p>
+     * Does nothing if the producer is already running, or if the pool is disabled.
+     */
+    public synchronized void start() {
+        if (producer != null || capacity == 0) {
+            return;
+        }
+        producer = new Thread(this::produce, "question-set-pool");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Stop the background producer. Sets in the pool are kept.
+     */
+    public void stop() {
+        Thread thread = producer;
+        producer = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Main loop of the producer: generate sets, blocking while the pool is full.
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void produce() {
+        while (producer == Thread.currentThread()) {
+            long startGeneration = generation.get();
+            List<AbstractQuestion> questions;
+            try {
+                questions = refill();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not generate questions, retrying in {} ms", RETRY_DELAY, e);
+                if (!sleep(RETRY_DELAY)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                add(questions, startGeneration);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add a set to the pool once there is room, unless the pool is cleared in the meantime.
+     *
+     * @param questions       Set to add.
+     * @param startGeneration Generation of the pool when the set was started.
+     * @throws InterruptedException If the producer is stopped while waiting.
+     */
+    private void add(List<AbstractQuestion> questions, long startGeneration) throws InterruptedException {
+        while (startGeneration == generation.get()) {
+            if (pool.offer(questions, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                // clear() may have run between the check and the offer
+                if (startGeneration != generation.get()) {
+                    pool.removeIf(set -> set == questions);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Generate a set for the pool, and record how long it took.
+     *
+     * @return List of 20 generated questions.
+     */
+    private List<AbstractQuestion> refill() {
+        long start = System.nanoTime();
+        List<AbstractQuestion> questions = generate();
+        long elapsed = System.nanoTime() - start;
+
+        refills.increment();
+        refillNanos.add(elapsed);
+        lastRefillNanos.set(elapsed);
+        return questions;
+    }
+
+    /**
+     * Generate a set of questions, while holding the monitor of the generator.
+     *
+     * @return List of 20 generated questions.
+     */
+    private List<AbstractQuestion> generate() {
+        synchronized (generateQuestionUtils) {
+            return generateQuestionUtils.generate20Questions();
+        }
+    }
+
+    /**
+     * Sleep for the given time.
+     *
+     * @param millis Time to sleep in milliseconds.
+     * @return false iff the thread was interrupted.
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Getter for the number of sets currently ready in the pool.
+     *
+     * @return Depth of the pool.
+     */
+    public int getDepth() {
+        return pool.size();
+    }
+
+    /**
+     * Getter for the maximal number of sets kept ready.
+     *
+     * @return Capacity of the pool.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Getter for the number of sets that were taken from the pool.
+     *
+     * @return Number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Getter for the number of sets that had to be generated synchronously, as the pool was empty.
+     *
+     * @return Number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Getter for the time the producer took to generate the last set.
+     *
+     * @return Latency of the last refill in milliseconds.
+     */
+    public double getLastRefillMillis() {
+        return lastRefillNanos.get() / 1e6;
+    }
+
+    /**
+     * Getter for the average time the producer took to generate a set.
+     *
+     * @return Average latency of a refill in milliseconds, or 0 if there were none.
+     */
+    public double getAverageRefillMillis() {
+        long count = refills.sum();
+        return count == 0 ? 0 : refillNanos.sum() / 1e6 / count;
+    }
+}
@@ -0,0 +1,312 @@
+package server.utils;
+
+import commons.queue.QueueState;
+import commons.queue.QueueUser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the multiplayer lobbies, each with its own queue, countdown and upcoming game.
+ * <p>
+ * Users either join a lobby by its name, or are matched into the open lobby. The open lobby is sharded:
+ * once it is full or its countdown is started, a new one is opened, so a large wave of players is split
+ * into several games which run in parallel. Named lobbies are created when their first user joins.
+ * Any lobby is removed once its last user leaves.
+ * <p>
+ * Every user is indexed by their username, so usernames are unique across all lobbies, and both joining
+ * and leaving find the lobby of a user without scanning the lobbies.
+ * <p>
+ * All lobbies change under the lock of this class, so anything which reads a lobby while it may change
+ * does so through read() or joinOpen().
+ */
+public class QueueLobbies {
+
+    /**
+     * Default maximal number of users in a lobby.
+     */
+    public static final int DEFAULT_LOBBY_SIZE = 16;
+
+    /**
+     * Prefix of the names of the lobbies opened for matchmaking, followed by a number.
+     */
+    public static final String OPEN_PREFIX = "auto-";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    private final Function<String, QueueUtils> factory;
+    private final int lobbySize;
+
+    private final Map<String, QueueUtils> lobbies;
+    // Name of the lobby of every user in any lobby
+    private final Map<String, String> lobbyOf;
+
+    private volatile Supplier<Long> onStart;
+    private volatile BiConsumer<String, QueueState> onChange;
+    private volatile Consumer<String> onRemove;
+
+    private String open;
+    private long opened;
+
+    /**
+     * Constructor for QueueLobbies.
+     *
+     * @param currentTime CurrentTimeUtils instance for the countdowns of the lobbies.
+     * @param lobbySize   Maximal number of users in a lobby.
+     */
+    public QueueLobbies(CurrentTimeUtils currentTime, int lobbySize) {
+        this(name -> new QueueUtils(currentTime), lobbySize);
+    }
+
+    /**
+     * Constructor for QueueLobbies, with a custom factory of the lobbies.
+     *
+     * @param factory   Function creating the QueueUtils of a new lobby, given its name.
+     * @param lobbySize Maximal number of users in a lobby.
+     */
+    public QueueLobbies(Function<String, QueueUtils> factory, int lobbySize) {
+        this.factory = factory;
+        this.lobbySize = Math.max(1, lobbySize);
+        this.lobbies = new HashMap<>();
+        this.lobbyOf = new HashMap<>();
+        this.onChange = (name, state) -> { };
+        this.onRemove = name -> { };
+    }
+
+    /**
+     * Find the lobby new users are matched into, opening a new one if the current one is full or starting.
+     *
+     * @return Name of the open lobby.
+     */
+    public synchronized String open() {
+        QueueUtils queue = open == null ? null : lobbies.get(open);
+        if (queue == null || queue.isGameStarting() || queue.getSize() >= lobbySize) {
+            open = OPEN_PREFIX + (++opened);
+            lobbies.put(open, create(open));
+        }
+        return open;
+    }
+
+    /**
+     * Join the open lobby, picking it and joining it under the lock of the lobbies.
+     * <p>
+     * The open lobby can therefore not fill up or start its countdown in between; if it already has,
+     * the user is matched into the next one instead.
+     *
+     * @param join Function adding the user to the lobby, given its name and QueueUtils.
+     * @param <T>  Type of the result of the join.
+     * @return Result of the join.
+     */
+    public synchronized <T> T joinOpen(BiFunction<String, QueueUtils, T> join) {
+        String name = open();
+        return join.apply(name, lobbies.get(name));
+    }
+
+    /**
+     * Read a lobby under the lock of the lobbies, so it does not change while it is read.
+     * <p>
+     * Reading the open lobby never opens a new one, even if the current one is full or starting.
+     *
+     * @param name   Name of the lobby, or null for the open lobby.
+     * @param action Function reading the lobby, given its name and QueueUtils.
+     * @param <T>    Type of the result.
+     * @return Result of the action, or null if there is no such lobby.
+     */
+    public synchronized <T> T read(String name, BiFunction<String, QueueUtils, T> action) {
+        String found = name == null ? open : name;
+        QueueUtils queue = found == null ? null : lobbies.get(found);
+        return queue == null ? null : action.apply(found, queue);
+    }
+
+    /**
+     * Copy the state of a lobby, so it can be sent after the lock of the lobbies is released.
+     *
+     * @param queue QueueUtils of the lobby.
+     * @return New QueueState equal to the current state of the lobby.
+     */
+    public static QueueState snapshot(QueueUtils queue) {
+        QueueState state = queue.getQueue();
+        return new QueueState(new ArrayList<>(state.getUsers()), state.isGameStarting(),
+                state.getStartTimeInMs(), state.getUpcomingGameId());
+    }
+
+    /**
+     * Get a lobby by its name.
+     *
+     * @param name Name of the lobby.
+     * @return QueueUtils of the lobby, or null if there is no such lobby.
+     */
+    public synchronized QueueUtils get(String name) {
+        return lobbies.get(name);
+    }
+
+    /**
+     * Find a lobby by its name, for a user to join.
+     * <p>
+     * If there is no such lobby, a new empty one is returned, which is only kept once a user joins it.
+     *
+     * @param name Name of the lobby.
+     * @return QueueUtils of the lobby.
+     */
+    public synchronized QueueUtils find(String name) {
+        QueueUtils queue = lobbies.get(name);
+        return queue == null ? create(name) : queue;
+    }
+
+    /**
+     * Get the lobby of a user.
+     *
+     * @param username Username of the user.
+     * @return QueueUtils of the lobby the user is in, or null if they are in none.
+     */
+    public synchronized QueueUtils lobbyOf(String username) {
+        String name = lobbyOf.get(username);
+        return name == null ? null : lobbies.get(name);
+    }
+
+    /**
+     * Add a user to a lobby.
+     * <p>
+     * The lobby of the user is set to the name of the lobby.
+     *
+     * @param name  Name of the lobby.
+     * @param queue QueueUtils of the lobby, as found by find().
+     * @param user  QueueUser to add.
+     * @return QueueUser if added, or null if the username is taken or the lobby is full.
+     */
+    public synchronized QueueUser join(String name, QueueUtils queue, QueueUser user) {
+        QueueUtils current = lobbies.putIfAbsent(name, queue);
+        if (current != null) {
+            // Another user created the lobby in the meantime
+            queue = current;
+        }
+        QueueUser added = null;
+        if (!lobbyOf.containsKey(user.getUsername()) && queue.getSize() < lobbySize) {
+            user.setLobby(name);
+            added = queue.addUser(user);
+        }
+        if (added != null) {
+            lobbyOf.put(user.getUsername(), name);
+        } else {
+            removeIfEmpty(name, queue);
+        }
+        return added;
+    }
+
+    /**
+     * Remove a user from their lobby, and remove the lobby if it is empty then.
+     *
+     * @param username Username of the user.
+     * @return QueueUser that was removed, or null if the user is in no lobby.
+     */
+    public synchronized QueueUser leave(String username) {
+        String name = lobbyOf.get(username);
+        if (name == null) {
+            return null;
+        }
+        QueueUtils queue = lobbies.get(name);
+        QueueUser removed = queue.removeUser(queue.getByUsername(username));
+        if (removed != null) {
+            lobbyOf.remove(username);
+            removeIfEmpty(name, queue);
+        }
+        return removed;
+    }
+
+    /**
+     * Begin the countdown of a lobby, unless it has no users.
+     *
+     * @param queue QueueUtils of the lobby.
+     * @return true iff the lobby has users, and the countdown wasn't started already.
+     */
+    public synchronized boolean startCountdown(QueueUtils queue) {
+        return queue.getSize() > 0 && queue.startCountdown();
+    }
+
+    /**
+     * Check if a lobby name is valid, i.e. 1 to 32 letters, digits, dashes or underscores.
+     *
+     * @param name Name of the lobby.
+     * @return true iff the name is valid.
+     */
+    public static boolean isValidName(String name) {
+        return name != null && NAME.matcher(name).matches();
+    }
+
+    /**
+     * Setter for the upcoming game id supplier of all lobbies, called whenever a countdown starts.
+     *
+     * @param onStart Supplier that returns upcoming game id.
+     */
+    public void setOnStart(Supplier<Long> onStart) {
+        this.onStart = onStart;
+    }
+
+    /**
+     * Setter for the callback that is run after a lobby has changed.
+     *
+     * @param onChange Callback run with the name and the new state of the lobby.
+     */
+    public void setOnChange(BiConsumer<String, QueueState> onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Setter for the callback that is run after a lobby is removed.
+     *
+     * @param onRemove Callback run with the name of the removed lobby.
+     */
+    public void setOnRemove(Consumer<String> onRemove) {
+        this.onRemove = onRemove;
+    }
+
+    /**
+     * Getter for the number of lobbies.
+     *
+     * @return Number of lobbies.
+     */
+    public synchronized int getLobbyCount() {
+        return lobbies.size();
+    }
+
+    /**
+     * Getter for the number of users in all lobbies.
+     *
+     * @return Number of users.
+     */
+    public synchronized int getUserCount() {
+        return lobbyOf.size();
+    }
+
+    /**
+     * Create the QueueUtils of a new lobby, without adding it.
+     *
+     * @param name Name of the lobby.
+     * @return A new QueueUtils instance.
+     */
+    private QueueUtils create(String name) {
+        QueueUtils queue = factory.apply(name);
+        queue.setOnStart(() -> onStart.get());
+        queue.setOnChange(() -> onChange.accept(name, queue.getQueue()));
+        return queue;
+    }
+
+    /**
+     * Remove a lobby if it has no users left.
+     *
+     * @param name  Name of the lobby.
+     * @param queue QueueUtils of the lobby.
+     */
+    private void removeIfEmpty(String name, QueueUtils queue) {
+        if (queue.getSize() == 0 && lobbies.remove(name, queue)) {
+            onRemove.accept(name);
+        }
+    }
+}
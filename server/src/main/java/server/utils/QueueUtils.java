@@ -4,18 +4,25 @@ import commons.queue.QueueState;
 import commons.queue.QueueUser;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 /**
- * Utilities class, responsible for keeping state of a multiplayer queue.
+ * Utilities class, responsible for keeping state of a single multiplayer lobby.
+ * <p>
+ * The users are also indexed by their username, so finding a user does not scan the queue.
+ * The lobbies themselves are managed by QueueLobbies.
  */
 public class QueueUtils {
 
     private final CurrentTimeUtils currentTime;
 
     private final QueueState queueState;
+    private final Map<String, QueueUser> usersByName;
     private Supplier<Long> onStart;
+    private Runnable onChange;
 
     /**
      * Default constructor for QueueUtils.
@@ -46,6 +53,11 @@ public class QueueUtils {
     public QueueUtils(QueueState queueState, CurrentTimeUtils currentTime) {
         this.queueState = queueState;
         this.currentTime = currentTime;
+        this.usersByName = new HashMap<>();
+        for (QueueUser user : queueState.getUsers()) {
+            usersByName.put(user.getUsername(), user);
+        }
+        this.onChange = () -> { };
     }
 
     /**
@@ -72,6 +84,8 @@ public class QueueUtils {
             return null;
         } else {
             getUsers().add(user);
+            usersByName.put(user.getUsername(), user);
+            // Also notifies onChange
             resetCountdown();
             return user;
         }
@@ -90,6 +104,8 @@ public class QueueUtils {
             return null;
         } else {
             getUsers().remove(user);
+            usersByName.remove(user.getUsername());
+            onChange.run();
             return user;
         }
     }
@@ -113,6 +129,7 @@ public class QueueUtils {
             long upcomingGameId = onStart.get();
             queueState.setUpcomingGameId(upcomingGameId);
 
+            onChange.run();
             return true;
         }
     }
@@ -134,6 +151,17 @@ public class QueueUtils {
         this.onStart = onStart;
     }
 
+    /**
+     * Setter for the callback that is run after the queue has changed.
+     * <p>
+     * Like onStart, this keeps the queue unaware of who is interested in its changes.
+     *
+     * @param onChange Callback run after every change of the queue.
+     */
+    public void setOnChange(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
     /**
      * Reset the countdown for the queue.
      * <p>
@@ -142,6 +170,7 @@ public class QueueUtils {
     public void resetCountdown() {
         queueState.setGameStarting(false);
         queueState.setStartTimeInMs(Long.MAX_VALUE);
+        onChange.run();
     }
 
     /**
@@ -172,7 +201,7 @@ public class QueueUtils {
      * @return true iff the user is already in the queue.
      */
     public boolean containsUser(QueueUser user) {
-        return getUsers().contains(user);
+        return user != null && usersByName.containsKey(user.getUsername());
     }
 
     /**
@@ -182,9 +211,25 @@ public class QueueUtils {
      * @return QueueUser who is in the queue, with the given username.
      */
     public QueueUser getByUsername(String username) {
-        return getUsers().stream()
-                .filter((user -> user.getUsername().equals(username)))
-                .findAny().orElse(null);
+        return usersByName.get(username);
+    }
+
+    /**
+     * Getter for the number of users in the queue.
+     *
+     * @return Number of users.
+     */
+    public int getSize() {
+        return usersByName.size();
+    }
+
+    /**
+     * Check whether the countdown of the queue is started.
+     *
+     * @return true iff the game of the queue is starting.
+     */
+    public boolean isGameStarting() {
+        return queueState.isGameStarting();
     }
 
     /**
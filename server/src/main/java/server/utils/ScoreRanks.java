@@ -0,0 +1,128 @@
+package server.utils;
+
+import server.database.LeaderboardRepository;
+
+/**
+ * Counts of the scores on the single-player leaderboard, to find the rank of a score without reading the entries.
+ * <p>
+ * Scores are counted in a Fenwick tree with one bucket per score, so both adding an entry and counting the
+ * higher scores take O(log maxScore). Scores outside of 0..maxScore are counted in the first or last bucket;
+ * their ranks are then only approximate.
+ * <p>
+ * The counts are loaded from the database once, before the first entry is added, and kept up to date
+ * with every saved entry.
+ */
+public class ScoreRanks {
+
+    /**
+     * Default highest score with an exact rank, well above what a game can give.
+     */
+    public static final int DEFAULT_MAX_SCORE = (1 << 16) - 1;
+
+    private final LeaderboardRepository repo;
+    private final int maxScore;
+
+    // tree[i] counts the scores of the buckets (i - lowestOneBit(i), i], with bucket i holding score i - 1
+    private final int[] tree;
+    private int total;
+    private boolean loaded;
+
+    /**
+     * Constructor for ScoreRanks.
+     *
+     * @param repo     Repository of the leaderboard.
+     * @param maxScore Highest score with an exact rank.
+     */
+    public ScoreRanks(LeaderboardRepository repo, int maxScore) {
+        this.repo = repo;
+        this.maxScore = Math.max(0, maxScore);
+        this.tree = new int[this.maxScore + 2];
+    }
+
+    /**
+     * Count the entries already saved in the database, unless they are counted already.
+     */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        for (Object[] row : repo.countByScore()) {
+            add(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        }
+        loaded = true;
+    }
+
+    /**
+     * Count a saved entry.
+     *
+     * @param score Score of the entry.
+     */
+    public synchronized void add(int score) {
+        add(score, 1);
+    }
+
+    /**
+     * Stop counting an entry which was counted, but could not be saved.
+     *
+     * @param score Score of the entry.
+     */
+    public synchronized void remove(int score) {
+        add(score, -1);
+    }
+
+    /**
+     * Find the rank of a score, i.e. one more than the number of higher scores.
+     *
+     * @param score Score to rank.
+     * @return Rank of the score, starting at 1.
+     */
+    public synchronized int rank(int score) {
+        return total - countUpTo(score) + 1;
+    }
+
+    /**
+     * Getter for the number of entries counted.
+     *
+     * @return Number of entries.
+     */
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    /**
+     * Count a number of entries with the same score.
+     *
+     * @param score Score of the entries.
+     * @param count Number of entries.
+     */
+    private void add(int score, int count) {
+        for (int i = bucket(score); i < tree.length; i += i & -i) {
+            tree[i] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Count the entries with at most a given score.
+     *
+     * @param score Highest score counted.
+     * @return Number of entries.
+     */
+    private int countUpTo(int score) {
+        int count = 0;
+        for (int i = bucket(score); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Find the index of the bucket of a score in the tree.
+     *
+     * @param score Score to find the bucket of.
+     * @return Index of the bucket, between 1 and maxScore + 1.
+     */
+    private int bucket(int score) {
+        return Math.min(Math.max(score, 0), maxScore) + 1;
+    }
+}
@@ -0,0 +1,51 @@
+package server.utils;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Moves database sequences past the keys which are already in use.
+ * <p>
+ * Needed when the generator of a table changes, e.g. from the shared hibernate_sequence to a dedicated,
+ * pooled sequence: the new sequence starts at 1, while the table holds the keys of the old one.
+ * A pooled sequence hands out the block of keys below the value it returns, so it is moved such that
+ * its next block starts above the largest key in use.
+ */
+public class SequenceAligner {
+
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Constructor for SequenceAligner.
+     *
+     * @param jdbc JdbcTemplate of the database holding the sequences.
+     */
+    public SequenceAligner(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Move a sequence such that the next block of keys it hands out starts above a key.
+     * <p>
+     * Does nothing if the sequence is already past the key, or does not exist.
+     *
+     * @param sequence       Name of the sequence.
+     * @param allocationSize Number of keys in a block, the increment of the sequence.
+     * @param maxKey         Largest key in use, or null if there are none.
+     * @return true iff the sequence was moved.
+     */
+    public boolean align(String sequence, int allocationSize, Long maxKey) {
+        if (maxKey == null) {
+            return false;
+        }
+        List<Long> current = jdbc.queryForList("SELECT CURRENT_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE UPPER(SEQUENCE_NAME) = UPPER(?)", Long.class, sequence);
+        if (current.isEmpty() || current.get(0) >= maxKey) {
+            return false;
+        }
+        // The name cannot be a parameter of the statement, it only ever comes from the entities.
+        jdbc.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxKey + allocationSize));
+        return true;
+    }
+}
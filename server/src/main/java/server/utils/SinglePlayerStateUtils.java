@@ -1,6 +1,5 @@
 package server.utils;
 
-import commons.misc.Activity;
 import commons.misc.GameResponse;
 import commons.question.AbstractQuestion;
 import commons.single.SinglePlayer;
@@ -10,6 +9,8 @@ import org.springframework.stereotype.Component;
 import server.database.ActivityRepository;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 /**
  * Utility class providing functionality for the single-player game mode.
@@ -18,35 +19,121 @@ import java.util.*;
 @ComponentScan(basePackageClasses = GenerateQuestionUtils.class)
 public class SinglePlayerStateUtils {
 
-    private final Map<Long, SinglePlayerState> games;
+    private final GameRegistry<SinglePlayerState> games;
+    private final GameEvictor<SinglePlayerState> evictor;
 
-    private final GenerateQuestionUtils generateQuestionUtils;
+    private final QuestionSetPool questionSetPool;
     private final CurrentTimeUtils currentTime;
     private final ScoreCountingUtils scoreCountingUtils;
+    private final TimerWheel timerWheel;
+    private final GameIdAllocator idAllocator;
 
-    public SinglePlayerStateUtils(GenerateQuestionUtils generateQuestionUtils, CurrentTimeUtils currentTime,
-                                  ScoreCountingUtils scoreCountingUtils) {
-        this.generateQuestionUtils = generateQuestionUtils;
+    /**
+     * Constructor for single-player server-side utility class.
+     *
+     * @param questionSetPool       Pool of pre-generated question sets for new games.
+     * @param currentTime           CurrentTimeUtils instance for getting the current time.
+     * @param scoreCountingUtils    ScoreCountingUtility instance for computing the score of the player.
+     * @param timerWheel            TimerWheel instance which advances the games at their next phase.
+     * @param idAllocator           GameIdAllocator instance for the ids of new games.
+     */
+    public SinglePlayerStateUtils(QuestionSetPool questionSetPool, CurrentTimeUtils currentTime,
+                                  ScoreCountingUtils scoreCountingUtils, TimerWheel timerWheel,
+                                  GameIdAllocator idAllocator) {
+        this.questionSetPool = questionSetPool;
         this.currentTime = currentTime;
         this.scoreCountingUtils = scoreCountingUtils;
+        this.timerWheel = timerWheel;
+        this.idAllocator = idAllocator;
+
+        games = new GameRegistry<>(currentTime);
+        evictor = new GameEvictor<>(games, timerWheel, currentTime);
+        evictor.startSweeping();
+    }
 
-        games = new HashMap<>();
+    /**
+     * Getter for the evictor of the finished and abandoned single-player games.
+     *
+     * @return GameEvictor of this utility class.
+     */
+    public GameEvictor<SinglePlayerState> getEvictor() {
+        return evictor;
+    }
+
+    /**
+     * Setter for the listener which is notified when a single-player game changes or is evicted.
+     *
+     * @param listener Listener of the single-player games.
+     */
+    public void setListener(GameListener<SinglePlayerState> listener) {
+        games.setListener(listener);
+    }
+
+    /**
+     * Getter for the number of single-player games currently kept in memory.
+     *
+     * @return Number of games.
+     */
+    public int getGameCount() {
+        return games.size();
     }
 
     /**
      * Get particular game state instance by its key in the games map.
-     * Update its state if required.
+     * This is a pure read, the game is advanced by the timer wheel at its next phase.
+     * The access is recorded, so the game is not considered abandoned.
      *
      * @param id Key value to search for.
      * @return SinglePlayerState instance in case it exists, null otherwise.
      */
     public SinglePlayerState getGameStateById(long id) {
-        if (games.containsKey(id)) {
-            SinglePlayerState game = games.get(id);
+        games.touch(id);
+        return games.get(id);
+    }
+
+    /**
+     * Run an action on the state of a single-player game while holding its lock, without changing it.
+     * <p>
+     * Used to take a snapshot of the game which no other thread changes in the meantime.
+     * The access is recorded, so the game is not considered abandoned.
+     *
+     * @param id     Id of the single-player game.
+     * @param action Action to run on the game.
+     * @param <R>    Type of the result of the action.
+     * @return Result of the action, or null if there is no game with the given id.
+     */
+    public <R> R readGameState(long id, Function<SinglePlayerState, R> action) {
+        games.touch(id);
+        return games.read(id, action);
+    }
+
+    /**
+     * Advance the game with the given id, and schedule its next phase.
+     * <p>
+     * This is run by the timer wheel once the next phase of the game is reached.
+     *
+     * @param id Id of the single-player game.
+     */
+    public void advanceGame(long id) {
+        games.update(id, game -> {
             updateState(game);
+            scheduleNextPhase(game);
             return game;
+        });
+    }
+
+    /**
+     * Schedule the game to be advanced at its next phase.
+     * Once the game is over, its eviction is scheduled instead.
+     *
+     * @param game Game to be scheduled.
+     */
+    private void scheduleNextPhase(SinglePlayerState game) {
+        long id = game.getId();
+        if (!SinglePlayerState.GAME_OVER_STATE.equals(game.getState())) {
+            timerWheel.schedule(game.getNextPhase(), () -> advanceGame(id));
         } else {
-            return null;
+            evictor.scheduleEviction(id);
         }
     }
 
@@ -59,11 +146,10 @@ public class SinglePlayerStateUtils {
      */
     public GameResponse postAnswer(GameResponse gameResponse) {
         long gameId = gameResponse.getGameId();
-        if (!games.containsKey(gameId)) {
-            return null;
-        }
-        games.get(gameId).getSubmittedAnswers().add(gameResponse);
-        return gameResponse;
+        return games.update(gameId, game -> {
+            game.getSubmittedAnswers().add(gameResponse);
+            return gameResponse;
+        });
     }
 
     /**
@@ -176,20 +262,15 @@ public class SinglePlayerStateUtils {
      */
     public SinglePlayerState createSingleGame(SinglePlayer player,
                                               ActivityRepository repo) {
-        Set<Long> keys = games.keySet();
-        long maxKey;
-        if (keys.isEmpty()) {
-            maxKey = -1;
-        } else {
-            maxKey = Collections.max(keys);
-        }
-        long id = maxKey + 1;
+        long id = idAllocator.allocate();
         long nextTransition = currentTime.getTime() + 8000;
         int roundNumber = 0;
-        List<AbstractQuestion> questionList = generateQuestionUtils.generate20Questions();
-        List<GameResponse> submittedAnswers = new ArrayList<>();
-        List<GameResponse> finalAnswers = new ArrayList<>();
-        List<Activity> activityList = new ArrayList<>();
+        List<AbstractQuestion> questionList = questionSetPool.take();
+        /*
+        Copy-on-write, so the game can be serialized while an answer is being submitted.
+         */
+        List<GameResponse> submittedAnswers = new CopyOnWriteArrayList<>();
+        List<GameResponse> finalAnswers = new CopyOnWriteArrayList<>();
         String state = SinglePlayerState.QUESTION_STATE;
 
         SinglePlayerState newGame = new SinglePlayerState(
@@ -202,7 +283,8 @@ public class SinglePlayerStateUtils {
                 state,
                 player
         );
-        games.put(newGame.getId(), newGame);
+        games.put(newGame);
+        scheduleNextPhase(newGame);
         return newGame;
     }
 }
@@ -0,0 +1,456 @@
+package server.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.misc.GameState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes state changes to clients as server-sent events.
+ * <p>
+ * Clients subscribe to a topic, e.g. "multi/42" for a multiplayer game, and receive the current
+ * state on every change instead of polling for it. Each change is serialized once, right when it is
+ * published, i.e. while the lock of the game is still held, and the same data is then sent to every
+ * subscriber of the topic.
+ * <p>
+ * Every subscriber has a lane of its own, which sends its events in order on a small pool of threads,
+ * so publishing never blocks the thread that changed the state, and a slow client only holds up itself.
+ * If a state changes several times before a subscriber's event is sent, only the latest state is sent.
+ * A subscriber whose send has not returned within the send timeout is backed up: it is dropped on the
+ * next change, and its subscription is completed as soon as the stalled send returns.
+ */
+public class StateBroadcaster {
+
+    /**
+     * Name of the events carrying a state.
+     */
+    public static final String STATE_EVENT = "state";
+
+    /**
+     * Prefix of the topics of multiplayer games, followed by the id of the game.
+     */
+    public static final String MULTI_PREFIX = "multi/";
+
+    /**
+     * Prefix of the topics of single-player games, followed by the id of the game.
+     */
+    public static final String SOLO_PREFIX = "solo/";
+
+    /**
+     * Prefix of the topics of multiplayer lobbies, followed by the name of the lobby.
+     */
+    public static final String QUEUE_PREFIX = "queue/";
+
+    /**
+     * Default number of threads sending events.
+     */
+    public static final int DEFAULT_SENDER_THREADS = 8;
+
+    /**
+     * Default time in milliseconds a send may take before its subscriber is considered backed up.
+     */
+    public static final long DEFAULT_SEND_TIMEOUT = 5000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StateBroadcaster.class);
+
+    private final ObjectMapper mapper;
+    private final long timeout;
+    private final long sendTimeout;
+
+    private final Map<String, Set<Subscriber>> subscribers;
+    private final ExecutorService senders;
+
+    private final LongAdder published;
+    private final LongAdder sent;
+    private final LongAdder dropped;
+
+    /**
+     * Constructor for StateBroadcaster, with the default number of threads and send timeout.
+     *
+     * @param mapper  ObjectMapper for serializing the states.
+     * @param timeout Time in milliseconds after which a subscription is closed,
+     *                so that the clients of vanished connections are cleaned up.
+     *                Clients are expected to subscribe again.
+     */
+    public StateBroadcaster(ObjectMapper mapper, long timeout) {
+        this(mapper, timeout, DEFAULT_SENDER_THREADS, DEFAULT_SEND_TIMEOUT);
+    }
+
+    /**
+     * Constructor for StateBroadcaster.
+     *
+     * @param mapper        ObjectMapper for serializing the states.
+     * @param timeout       Time in milliseconds after which a subscription is closed,
+     *                      so that the clients of vanished connections are cleaned up.
+     *                      Clients are expected to subscribe again.
+     * @param senderThreads Number of threads sending events.
+     * @param sendTimeout   Time in milliseconds a send may take before its subscriber is dropped.
+     */
+    public StateBroadcaster(ObjectMapper mapper, long timeout, int senderThreads, long sendTimeout) {
+        this.mapper = mapper;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+        this.subscribers = new ConcurrentHashMap<>();
+        AtomicInteger count = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "state-broadcaster-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.published = new LongAdder();
+        this.sent = new LongAdder();
+        this.dropped = new LongAdder();
+    }
+
+    /**
+     * Subscribe a new client to a topic.
+     * <p>
+     * The current state is serialized right away, so it should be passed while holding the lock of the game.
+     *
+     * @param topic   Topic to subscribe to.
+     * @param current Current state of the topic, which is sent right away.
+     * @return Emitter to be returned from the controller.
+     */
+    public SseEmitter subscribe(String topic, Object current) {
+        SseEmitter emitter = createEmitter(timeout);
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        // Queued before the subscriber can see any change, so the client never receives an older state afterwards.
+        Event event = snapshot(current);
+        if (event != null) {
+            subscriber.offer(event);
+        }
+        // Added inside compute, so the set cannot be dropped by a concurrent unsubscribe in between.
+        subscribers.compute(topic, (key, topicSubscribers) -> {
+            Set<Subscriber> result = topicSubscribers == null ? new CopyOnWriteArraySet<>() : topicSubscribers;
+            result.add(subscriber);
+            return result;
+        });
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Publish a new state of a topic to all its subscribers.
+     * <p>
+     * Does nothing if nobody is subscribed to the topic. Otherwise the state is serialized right away,
+     * on the calling thread, and sent in the background.
+     *
+     * @param topic Topic that has changed.
+     * @param state New state of the topic.
+     */
+    public void publish(String topic, Object state) {
+        Set<Subscriber> topicSubscribers = subscribers.get(topic);
+        if (topicSubscribers == null) {
+            return;
+        }
+        published.increment();
+        Event event = snapshot(state);
+        if (event == null) {
+            return;
+        }
+        for (Subscriber subscriber : topicSubscribers) {
+            if (subscriber.isBackedUp()) {
+                dropped.increment();
+                unsubscribe(subscriber);
+                subscriber.abandon();
+            } else {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Close all subscriptions to a topic, e.g. because the game was evicted.
+     * <p>
+     * Events which are still queued are sent first.
+     *
+     * @param topic Topic to close.
+     */
+    public void close(String topic) {
+        Set<Subscriber> topicSubscribers = subscribers.remove(topic);
+        if (topicSubscribers != null) {
+            topicSubscribers.forEach(Subscriber::close);
+        }
+    }
+
+    /**
+     * Create a listener publishing the changes of games under the given prefix, followed by the id of the game.
+     *
+     * @param prefix Prefix of the topics, e.g. "multi/".
+     * @param <T>    Type of the game states.
+     * @return Listener to be set on a game utility class.
+     */
+    public <T extends GameState> GameListener<T> listener(String prefix) {
+        return new GameListener<>() {
+            @Override
+            public void changed(T game) {
+                publish(prefix + game.getId(), game);
+            }
+
+            @Override
+            public void removed(T game) {
+                close(prefix + game.getId());
+            }
+        };
+    }
+
+    /**
+     * Stop the sending threads, and close all subscriptions.
+     */
+    public void stop() {
+        senders.shutdownNow();
+        subscribers.values().forEach(topicSubscribers ->
+                topicSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    /**
+     * Create the emitter of a new subscriber.
+     *
+     * @param timeout Time in milliseconds after which the subscription is closed.
+     * @return A new emitter.
+     */
+    SseEmitter createEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    /**
+     * Serialize a state into the event carrying it.
+     * <p>
+     * The event id of a game is its version.
+     *
+     * @param state State to serialize.
+     * @return Event to be sent, or null if the state could not be serialized.
+     */
+    private Event snapshot(Object state) {
+        try {
+            String id = state instanceof GameState ? String.valueOf(((GameState) state).getVersion()) : null;
+            return new Event(id, mapper.writeValueAsString(state));
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Could not serialize state", e);
+            return null;
+        }
+    }
+
+    /**
+     * Remove a subscriber from its topic, and the topic itself once it has no subscribers left.
+     *
+     * @param subscriber Subscriber to remove.
+     */
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.topic, (key, topicSubscribers) -> {
+            topicSubscribers.remove(subscriber);
+            return topicSubscribers.isEmpty() ? null : topicSubscribers;
+        });
+    }
+
+    /**
+     * Getter for the number of open subscriptions.
+     *
+     * @return Number of subscribers over all topics.
+     */
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Getter for the number of state changes published to subscribed topics.
+     *
+     * @return Number of published changes.
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * Getter for the number of events sent to subscribers.
+     *
+     * @return Number of sent events.
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Getter for the number of subscribers dropped because their sends backed up.
+     *
+     * @return Number of dropped subscribers.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Serialized state, ready to be sent to any number of subscribers.
+     */
+    private static final class Event {
+
+        private final String id;
+        private final String data;
+
+        /**
+         * Constructor for Event.
+         *
+         * @param id   Id of the event, or null if it has none.
+         * @param data Serialized state.
+         */
+        private Event(String id, String data) {
+            this.id = id;
+            this.data = data;
+        }
+
+        /**
+         * Build the event to send, which cannot be shared between emitters.
+         *
+         * @return Event builder.
+         */
+        private SseEmitter.SseEventBuilder build() {
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(STATE_EVENT).data(data);
+            if (id != null) {
+                event.id(id);
+            }
+            return event;
+        }
+    }
+
+    /**
+     * A subscribed client, with its lane of events to send.
+     * <p>
+     * The lane runs on the pool of senders, at most once at a time, until it has nothing left to send.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final String topic;
+        private final SseEmitter emitter;
+
+        // Latest event which has not been sent yet
+        private final AtomicReference<Event> next;
+        private final AtomicBoolean scheduled;
+        // Time in milliseconds at which the current send started, 0 while not sending
+        private volatile long sendingSince;
+        // Complete the subscription once the queued event has been sent
+        private volatile boolean closed;
+        // Send nothing more, as the connection is gone or backed up
+        private volatile boolean abandoned;
+
+        /**
+         * Constructor for Subscriber.
+         *
+         * @param topic   Topic of the subscriber.
+         * @param emitter Emitter of the subscriber.
+         */
+        private Subscriber(String topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.next = new AtomicReference<>();
+            this.scheduled = new AtomicBoolean();
+        }
+
+        /**
+         * Queue an event, replacing the event which has not been sent yet.
+         *
+         * @param event Event to send.
+         */
+        private void offer(Event event) {
+            next.set(event);
+            schedule();
+        }
+
+        /**
+         * Complete the subscription once the queued event has been sent.
+         */
+        private void close() {
+            closed = true;
+            schedule();
+        }
+
+        /**
+         * Complete the subscription without sending anything more, once the current send has returned.
+         */
+        private void abandon() {
+            abandoned = true;
+            close();
+        }
+
+        /**
+         * Check if the current send has been running for longer than the send timeout.
+         *
+         * @return true iff the subscriber is backed up.
+         */
+        private boolean isBackedUp() {
+            long since = sendingSince;
+            return since != 0 && System.currentTimeMillis() - since > sendTimeout;
+        }
+
+        /**
+         * Run the lane on the pool of senders, unless it is running already.
+         */
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // The broadcaster was stopped, and has completed all subscriptions
+                }
+            }
+        }
+
+        /**
+         * Send the queued events, and complete the subscription if it was closed.
+         */
+        @Override
+        public void run() {
+            do {
+                for (Event event = next.getAndSet(null); event != null; event = next.getAndSet(null)) {
+                    send(event);
+                }
+                if (closed) {
+                    emitter.complete();
+                    return;
+                }
+                scheduled.set(false);
+                // An event may have been queued, or the subscription closed, after the lane looked
+            } while ((next.get() != null || closed) && scheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * Send an event, dropping the subscriber if its connection is gone.
+         *
+         * @param event Event to send.
+         */
+        private void send(Event event) {
+            if (abandoned) {
+                return;
+            }
+            sendingSince = System.currentTimeMillis();
+            try {
+                emitter.send(event.build());
+                sent.increment();
+            } catch (IOException | IllegalStateException e) {
+                // The client has disconnected, or the emitter was completed in the meantime.
+                unsubscribe(this);
+                abandon();
+            } finally {
+                sendingSince = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package server.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the runtime statistics of the server, e.g. counters and gauges of the games.
+ * <p>
+ * Every statistic is registered once under a dotted name, together with a supplier which
+ * reads its current value. Values are only read when a snapshot is taken, so registering
+ * a statistic costs nothing on the hot paths.
+ */
+public class StatisticsUtils {
+
+    private final Map<String, Supplier<Number>> statistics;
+
+    /**
+     * Constructor for StatisticsUtils.
+     */
+    public StatisticsUtils() {
+        this.statistics = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Register a statistic, replacing any statistic with the same name.
+     *
+     * @param name      Name of the statistic, e.g. "games.multi.live".
+     * @param statistic Supplier of the current value of the statistic.
+     */
+    public void register(String name, Supplier<Number> statistic) {
+        statistics.put(name, statistic);
+    }
+
+    /**
+     * Read the current values of all statistics.
+     *
+     * @return Map from the name of every statistic to its value, sorted by name.
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new LinkedHashMap<>();
+        statistics.forEach((name, statistic) -> snapshot.put(name, statistic.get()));
+        return snapshot;
+    }
+}
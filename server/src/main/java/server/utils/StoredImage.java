@@ -0,0 +1,74 @@
+package server.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Image read from an ImageStore.
+ * <p>
+ * The bytes are kept in a read-only buffer, which may be a slice of a memory-mapped file,
+ * so they are only copied onto the heap if getBytes() is called.
+ */
+public class StoredImage {
+
+    private final String hash;
+    private final ByteBuffer data;
+
+    /**
+     * Constructor for StoredImage.
+     *
+     * @param hash Hash of the image.
+     * @param data Bytes of the image, between the position and the limit of the buffer.
+     */
+    public StoredImage(String hash, ByteBuffer data) {
+        this.hash = hash;
+        this.data = data.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Getter for the hash of the image.
+     *
+     * @return SHA-256 hash of the image.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Getter for the size of the image.
+     *
+     * @return Number of bytes of the image.
+     */
+    public int getLength() {
+        return data.remaining();
+    }
+
+    /**
+     * Getter for the bytes of the image, without copying them.
+     *
+     * @return New read-only buffer over the bytes of the image.
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * Getter for the first bytes of the image.
+     *
+     * @param length Maximal number of bytes.
+     * @return New array of the first min(length, getLength()) bytes.
+     */
+    public byte[] getHeader(int length) {
+        byte[] header = new byte[Math.min(length, data.remaining())];
+        data.duplicate().get(header);
+        return header;
+    }
+
+    /**
+     * Copy the bytes of the image onto the heap.
+     *
+     * @return New array with the bytes of the image.
+     */
+    public byte[] getBytes() {
+        return getHeader(data.remaining());
+    }
+}
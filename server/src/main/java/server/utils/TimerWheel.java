@@ -0,0 +1,322 @@
+package server.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timer wheel running scheduled tasks on a single daemon thread.
+ * <p>
+ * Time is split into ticks of a fixed length. The wheel is an array of buckets, and a task
+ * due in tick t is kept in bucket t modulo the number of buckets. On every tick only one
+ * bucket is visited, so scheduling and expiring are constant time, regardless of how many
+ * games are waiting for their next phase.
+ * <p>
+ * The thread wakes up at every tick boundary, so tasks run at most one tick after their deadline.
+ * Time is read from CurrentTimeUtils, which lets tests drive the wheel through
+ * {@link #advance(long)} without starting the thread.
+ */
+public class TimerWheel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final CurrentTimeUtils currentTime;
+    private final long tickMs;
+
+    private final List<Timeout>[] buckets;
+    private final int mask;
+
+    /*
+    Tasks are scheduled from request threads, but the buckets are only touched while
+    holding the monitor of the wheel. New tasks are handed over through this queue.
+     */
+    private final Queue<Timeout> scheduled;
+    private final AtomicInteger pending;
+
+    private long tick;
+    private volatile Thread worker;
+
+    /**
+     * Constructor for TimerWheel.
+     * <p>
+     * Uses ticks of 10 milliseconds and 512 buckets, so one turn of the wheel takes
+     * a little over 5 seconds.
+     *
+     * @param currentTime CurrentTimeUtils instance for getting the current time.
+     */
+    public TimerWheel(CurrentTimeUtils currentTime) {
+        this(currentTime, 10, 512);
+    }
+
+    /**
+     * Constructor for TimerWheel.
+     *
+     * @param currentTime CurrentTimeUtils instance for getting the current time.
+     * @param tickMs      Length of a tick in milliseconds.
+     * @param wheelSize   Minimal number of buckets. Rounded up to the next power of two.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(CurrentTimeUtils currentTime, long tickMs, int wheelSize) {
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.currentTime = currentTime;
+        this.tickMs = tickMs;
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+        this.scheduled = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+        this.tick = Math.floorDiv(currentTime.getTime(), tickMs);
+    }
+
+    /**
+     * Schedule a task to be run once the given time is reached.
+     * <p>
+     * Tasks with a deadline in the past run on the next tick.
+     * The task never runs on the calling thread, so this can be called while holding a lock.
+     *
+     * @param deadline Time in milliseconds at which the task should run.
+     * @param task     Task to run. Should be short, as it is run on the thread of the wheel.
+     * @return Handle which can be used to cancel the task.
+     */
+    public Timeout schedule(long deadline, Runnable task) {
+        Timeout timeout = new Timeout(deadline, task);
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Getter for the number of tasks which are scheduled, but have neither run nor been cancelled.
+     *
+     * @return Number of pending tasks.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Start the thread of the wheel.
+     * <p>
+     * Does nothing if the wheel is already running.
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, "timer-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stop the thread of the wheel. Tasks which have not run yet are kept.
+     */
+    public void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Main loop of the worker thread: sleep until the next tick, then expire it.
+     */
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            long now = currentTime.getTime();
+            long nextTick;
+            synchronized (this) {
+                nextTick = (tick + 1) * tickMs;
+            }
+            try {
+                if (nextTick > now) {
+                    Thread.sleep(nextTick - now);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            advance(currentTime.getTime());
+        }
+    }
+
+    /**
+     * Expire all ticks up to the given time, running every task that is due.
+     * <p>
+     * Tasks scheduled by a running task are run in the same call if they are already due.
+     *
+     * @param now Current time in milliseconds.
+     * @return Number of tasks that were run.
+     */
+    public synchronized int advance(long now) {
+        long target = Math.floorDiv(now, tickMs);
+        int fired = transferScheduled(now);
+        // The current tick may only have been expired partially, so it is visited again.
+        while (tick < target) {
+            fired += expire(buckets[(int) (tick & mask)], now);
+            tick++;
+        }
+        return fired + expire(buckets[(int) (tick & mask)], now);
+    }
+
+    /**
+     * Run the due tasks of a bucket, and remove them together with the cancelled ones.
+     * <p>
+     * A bucket also holds tasks which are due a whole number of turns later, these are kept.
+     *
+     * @param bucket Bucket to expire.
+     * @param now    Current time in milliseconds.
+     * @return Number of tasks that were run.
+     */
+    private int expire(List<Timeout> bucket, long now) {
+        List<Timeout> due = new ArrayList<>();
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.deadline <= now) {
+                iterator.remove();
+                due.add(timeout);
+            }
+        }
+        int fired = 0;
+        for (Timeout timeout : due) {
+            fired += fire(timeout);
+        }
+        return fired + transferScheduled(now);
+    }
+
+    /**
+     * Move newly scheduled tasks into their buckets, running the ones that are already due.
+     *
+     * @param now Current time in milliseconds.
+     * @return Number of tasks that were run.
+     */
+    private int transferScheduled(long now) {
+        int fired = 0;
+        Queue<Timeout> due = new ArrayDeque<>();
+        do {
+            Timeout timeout;
+            while ((timeout = scheduled.poll()) != null) {
+                if (timeout.cancelled) {
+                    continue;
+                }
+                if (timeout.deadline <= now) {
+                    due.add(timeout);
+                } else {
+                    buckets[(int) (Math.floorDiv(timeout.deadline, tickMs) & mask)].add(timeout);
+                }
+            }
+            // Tasks run here may schedule further tasks which are due as well.
+            while (!due.isEmpty()) {
+                fired += fire(due.poll());
+            }
+        } while (!scheduled.isEmpty());
+        return fired;
+    }
+
+    /**
+     * Run a single task, unless it has been cancelled in the meantime.
+     *
+     * @param timeout Task to run.
+     * @return 1 if the task was run, 0 otherwise.
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private int fire(Timeout timeout) {
+        if (!timeout.markDone()) {
+            return 0;
+        }
+        pending.decrementAndGet();
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            // A failing task must not stop the wheel for every other game
+            LOGGER.error("Scheduled task failed", e);
+        }
+        return 1;
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public final class Timeout {
+
+        private final long deadline;
+        private final Runnable task;
+
+        private volatile boolean cancelled;
+        private boolean done;
+
+        /**
+         * Constructor for Timeout.
+         *
+         * @param deadline Time in milliseconds at which the task should run.
+         * @param task     Task to run.
+         */
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * Getter for the deadline of the task.
+         *
+         * @return Time in milliseconds at which the task should run.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancel the task. Does nothing if it has already run.
+         *
+         * @return true iff the task was cancelled by this call.
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (done) {
+                    return false;
+                }
+                done = true;
+                cancelled = true;
+            }
+            pending.decrementAndGet();
+            return true;
+        }
+
+        /**
+         * Check whether the task was cancelled.
+         *
+         * @return true iff the task was cancelled.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Mark the task as run, unless it was cancelled.
+         *
+         * @return true iff the task should be run.
+         */
+        private synchronized boolean markDone() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+    }
+}
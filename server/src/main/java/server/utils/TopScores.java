@@ -0,0 +1,214 @@
+package server.utils;
+
+import commons.single.SinglePlayerLeaderboardScore;
+import org.springframework.data.domain.PageRequest;
+import server.database.LeaderboardRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the top entries of the single-player leaderboard.
+ * <p>
+ * The top is loaded from the database once, and then kept up to date by adding every accepted entry,
+ * so the usual leaderboard requests never hit the database. Pages further down are read from the
+ * database with a keyset query, which costs the same on any page.
+ * <p>
+ * Readers get an immutable snapshot of the top, which is replaced on every change.
+ */
+public class TopScores {
+
+    /**
+     * Default number of entries kept.
+     */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    /**
+     * Order of the leaderboard: descending score, and ascending id among equal scores,
+     * so earlier entries rank higher. Entries which are not written yet have no id, and rank last among them.
+     */
+    public static final Comparator<SinglePlayerLeaderboardScore> ORDER =
+            Comparator.comparingInt(SinglePlayerLeaderboardScore::getScore).reversed()
+                    .thenComparing(SinglePlayerLeaderboardScore::getId,
+                            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final LeaderboardRepository repo;
+    private final int capacity;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    // Null until the top is first needed
+    private volatile List<SinglePlayerLeaderboardScore> top;
+
+    /**
+     * Constructor for TopScores.
+     *
+     * @param repo     Repository of the leaderboard.
+     * @param capacity Number of entries kept.
+     */
+    public TopScores(LeaderboardRepository repo, int capacity) {
+        this.repo = repo;
+        this.capacity = Math.max(1, capacity);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Find a page of the leaderboard by its offset from the top.
+     * <p>
+     * Only pages within the cached top can be found this way; use after() for pages further down.
+     *
+     * @param offset Number of entries before the page.
+     * @param limit  Maximal number of entries of the page.
+     * @return Entries of the page, in leaderboard order.
+     * @throws IllegalArgumentException If the page does not lie within the cached top.
+     */
+    public List<SinglePlayerLeaderboardScore> page(int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset + limit > capacity) {
+            throw new IllegalArgumentException("Only the top " + capacity + " entries can be found by offset");
+        }
+        hits.increment();
+        List<SinglePlayerLeaderboardScore> current = getTop();
+        return current.subList(Math.min(offset, current.size()), Math.min(offset + limit, current.size()));
+    }
+
+    /**
+     * Find the entries ranked right below a given entry.
+     * <p>
+     * Served from the cached top if it holds the whole page, from the database otherwise.
+     *
+     * @param score Score of the entry after which the page starts.
+     * @param id    Id of the entry after which the page starts.
+     * @param limit Maximal number of entries of the page.
+     * @return Entries after the given one, in leaderboard order.
+     */
+    public List<SinglePlayerLeaderboardScore> after(int score, long id, int limit) {
+        List<SinglePlayerLeaderboardScore> current = getTop();
+        SinglePlayerLeaderboardScore cursor = new SinglePlayerLeaderboardScore(null, score);
+        cursor.setId(id);
+        int index = Collections.binarySearch(current, cursor, ORDER);
+        int from = index < 0 ? -index - 1 : index + 1;
+        // The top holds the whole table if it is not full, so it answers any page then
+        if (from + limit <= current.size() || current.size() < capacity) {
+            hits.increment();
+            return current.subList(Math.min(from, current.size()), Math.min(from + limit, current.size()));
+        }
+        misses.increment();
+        return repo.findAfter(score, id, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Load the top from the database, unless it is loaded already.
+     * <p>
+     * Should be called before the first entry is accepted, as entries accepted before are only
+     * included once they are written.
+     */
+    public synchronized void load() {
+        if (top == null) {
+            top = Collections.unmodifiableList(new ArrayList<>(
+                    repo.findAllByOrderByScoreDescIdAsc(PageRequest.of(0, capacity))));
+        }
+    }
+
+    /**
+     * Add an accepted entry to the top, if it ranks high enough.
+     * <p>
+     * Entries without an id are added after the equal entries, in the order they are accepted,
+     * which is the order in which they get their ids.
+     *
+     * @param entry Entry which was just accepted.
+     */
+    public synchronized void add(SinglePlayerLeaderboardScore entry) {
+        if (top == null) {
+            // Loaded from the database when it is first needed, including the entry once it is written
+            return;
+        }
+        int index = Collections.binarySearch(top, entry, ORDER);
+        if (index >= 0 && entry.getId() != null) {
+            return;
+        }
+        int position = index < 0 ? -index - 1 : index;
+        while (position < top.size() && ORDER.compare(top.get(position), entry) == 0) {
+            position++;
+        }
+        if (position >= capacity) {
+            return;
+        }
+        List<SinglePlayerLeaderboardScore> updated = new ArrayList<>(top);
+        updated.add(position, entry);
+        if (updated.size() > capacity) {
+            updated.remove(capacity);
+        }
+        top = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * Remove an accepted entry which was dropped before it could be written.
+     * <p>
+     * If the top was full, the next entry in the database takes the freed place.
+     *
+     * @param entry Entry which was accepted, but could not be written.
+     */
+    public synchronized void remove(SinglePlayerLeaderboardScore entry) {
+        if (top == null) {
+            return;
+        }
+        List<SinglePlayerLeaderboardScore> updated = new ArrayList<>(top);
+        if (!updated.removeIf(kept -> kept == entry)) {
+            return;
+        }
+        if (top.size() == capacity && !updated.isEmpty()) {
+            SinglePlayerLeaderboardScore last = updated.get(updated.size() - 1);
+            // Entries which are not written yet rank after every written entry with the same score
+            long id = last.getId() == null ? Long.MAX_VALUE : last.getId();
+            misses.increment();
+            updated.addAll(repo.findAfter(last.getScore(), id, PageRequest.of(0, 1)));
+        }
+        top = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * Getter for the cached top, which is loaded first if needed.
+     *
+     * @return Immutable list of the top entries, in leaderboard order.
+     */
+    private List<SinglePlayerLeaderboardScore> getTop() {
+        List<SinglePlayerLeaderboardScore> current = top;
+        if (current != null) {
+            return current;
+        }
+        load();
+        return top;
+    }
+
+    /**
+     * Getter for the number of entries kept.
+     *
+     * @return Capacity of the top.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Getter for the number of pages served from the cached top.
+     *
+     * @return Number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Getter for the number of pages read from the database.
+     *
+     * @return Number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,231 @@
+package server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.misc.Activity;
+import commons.misc.ActivityImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import server.utils.ActivityBankImporter;
+import server.utils.GenerateQuestionUtils;
+import server.utils.ImageVariants;
+import server.utils.JpaImageStore;
+import server.utils.QuestionSetPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class ActivityControllerTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H'};
+
+    private MockActivityRepository repo;
+    private TestActivityImageRepository imageRepo;
+    private ImageVariants variants;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        repo = new MockActivityRepository();
+        imageRepo = new TestActivityImageRepository();
+        QuestionSetPool pool = new QuestionSetPool(new GenerateQuestionUtils(repo, new Random()), 0);
+        JpaImageStore store = new JpaImageStore(imageRepo);
+        variants = new ImageVariants(store, 1, 4);
+        ActivityBankImporter importer = new ActivityBankImporter(repo, store, variants, new ObjectMapper(), 2);
+        mvc = MockMvcBuilders.standaloneSetup(new ActivityController(repo, store, variants, importer, pool)).build();
+
+        Activity activity = new Activity("00-shower", "Taking a hot shower for 6 minutes",
+                "https://www.quora.com/", "00/shower.png", 4000L);
+        activity.setKey(3L);
+        repo.activities.add(activity);
+        imageRepo.images.add(new ActivityImage("00-shower", PNG));
+    }
+
+    @AfterEach
+    void tearDown() {
+        variants.stop();
+    }
+
+    private MockHttpServletResponse getRaw(long key, String header, String value) throws Exception {
+        if (header == null) {
+            return mvc.perform(get("/api/activities/images/" + key + "/raw")).andReturn().getResponse();
+        }
+        return mvc.perform(get("/api/activities/images/" + key + "/raw").header(header, value))
+                .andReturn().getResponse();
+    }
+
+    @Test
+    public void getActivityImageBytes() throws Exception {
+        MockHttpServletResponse response = getRaw(3, null, null);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(MediaType.IMAGE_PNG_VALUE, response.getContentType());
+        assertArrayEquals(PNG, response.getContentAsByteArray());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("max-age="));
+    }
+
+    @Test
+    public void getActivityImageBytesNotModified() throws Exception {
+        String eTag = getRaw(3, null, null).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = getRaw(3, HttpHeaders.IF_NONE_MATCH, eTag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void getActivityImageBytesChangedImage() throws Exception {
+        String eTag = getRaw(3, null, null).getHeader(HttpHeaders.ETAG);
+        imageRepo.images.set(0, new ActivityImage("00-shower", Arrays.copyOf(PNG, 20)));
+
+        MockHttpServletResponse response = getRaw(3, HttpHeaders.IF_NONE_MATCH, eTag);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertNotEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void getActivityImageBytesRange() throws Exception {
+        MockHttpServletResponse response = getRaw(3, HttpHeaders.RANGE, "bytes=1-3");
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.getStatus());
+        assertArrayEquals(new byte[] {'P', 'N', 'G'}, response.getContentAsByteArray());
+        assertEquals("bytes 1-3/" + PNG.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void getActivityImageBytesNoActivity() throws Exception {
+        assertEquals(HttpStatus.BAD_REQUEST.value(), getRaw(4, null, null).getStatus());
+    }
+
+    @Test
+    public void getActivityImageBytesNoImage() throws Exception {
+        imageRepo.images.clear();
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), getRaw(3, null, null).getStatus());
+    }
+
+    @Test
+    public void getActivityImageBytesInvalidVariant() throws Exception {
+        MockHttpServletResponse response = mvc.perform(get("/api/activities/images/3/raw").param("variant", "huge"))
+                .andReturn().getResponse();
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
+    @Test
+    public void getActivityImageBytesMissingVariant() throws Exception {
+        // The image cannot be decoded, so the original is sent
+        MockHttpServletResponse response = mvc.perform(get("/api/activities/images/3/raw")
+                .param("variant", "thumbnail")).andReturn().getResponse();
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertArrayEquals(PNG, response.getContentAsByteArray());
+    }
+
+    private static byte[] zip(Object... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) namesAndContents[i]));
+                Object content = namesAndContents[i + 1];
+                zip.write(content instanceof byte[]
+                        ? (byte[]) content
+                        : ((String) content).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private MockHttpServletResponse postBank(byte[] archive) throws Exception {
+        return mvc.perform(post("/api/activities/bank").contentType("application/zip").content(archive))
+                .andReturn().getResponse();
+    }
+
+    @Test
+    public void importActivityBank() throws Exception {
+        repo.activities.clear();
+        imageRepo.images.clear();
+        byte[] archive = zip(
+                "bank/00/shower.png", PNG,
+                "bank/activities.json", "[{\"id\": \"00-shower\", \"title\": \"Shower\", \"source\": \"s\", "
+                        + "\"image_path\": \"00/shower.png\", \"consumption_in_wh\": 4000}, {\"id\": \"00-bath\"}]",
+                "bank/00/.DS_Store", "junk",
+                "bank/00/notes.txt", "not an image");
+
+        MockHttpServletResponse response = postBank(archive);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("{\"activities\":1,\"images\":1,\"skipped\":3}", response.getContentAsString());
+        assertEquals("00-shower", repo.activities.get(0).getId());
+        assertEquals(1, imageRepo.images.size());
+        assertArrayEquals(PNG, imageRepo.images.get(0).getImage());
+    }
+
+    @Test
+    public void importActivityBankEmpty() throws Exception {
+        assertEquals(HttpStatus.BAD_REQUEST.value(), postBank(zip("bank/readme.txt", "hello")).getStatus());
+    }
+
+    @Test
+    public void importActivityBankNotZip() throws Exception {
+        byte[] notZip = "not a zip".getBytes(StandardCharsets.UTF_8);
+        assertEquals(HttpStatus.BAD_REQUEST.value(), postBank(notZip).getStatus());
+    }
+
+    private static String activityJson(String id, long consumption) {
+        return "{\"id\": \"" + id + "\", \"title\": \"t\", \"source\": \"s\", "
+                + "\"image_path\": \"00/i.png\", \"consumption_in_wh\": " + consumption + "}";
+    }
+
+    private MockHttpServletResponse postActivities(String json) throws Exception {
+        return mvc.perform(post("/api/activities/addToRepo").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andReturn().getResponse();
+    }
+
+    @Test
+    public void addActivitiesInBatches() throws Exception {
+        repo.activities.clear();
+        String json = "[" + activityJson("00-a", 1) + ", " + activityJson("00-b", 0) + ", "
+                + activityJson("00-c", 3) + ", " + activityJson("00-d", 4) + ", " + activityJson("00-e", 5) + "]";
+
+        MockHttpServletResponse response = postActivities(json);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("{\"activities\":4,\"images\":0,\"skipped\":1}", response.getContentAsString());
+        assertEquals(Arrays.asList("saveAll", "saveAll"), repo.calledMethods);
+        assertEquals("00-e", repo.activities.get(3).getId());
+    }
+
+    @Test
+    public void addActivitiesNoneValid() throws Exception {
+        assertEquals(HttpStatus.BAD_REQUEST.value(), postActivities("[" + activityJson("00-a", -1) + "]").getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), postActivities("[]").getStatus());
+    }
+
+    @Test
+    public void addActivitiesMalformed() throws Exception {
+        assertEquals(HttpStatus.BAD_REQUEST.value(), postActivities("{\"id\": \"00-a\"}").getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(),
+                postActivities("[" + activityJson("00-a", 1) + ", 4]").getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), postActivities("[" + activityJson("00-a", 1)).getStatus());
+    }
+}
@@ -0,0 +1,124 @@
+package server.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import commons.misc.Activity;
+import commons.misc.GameResponse;
+import commons.misc.GameState;
+import commons.multi.MultiPlayer;
+import commons.multi.MultiPlayerState;
+import commons.question.AbstractQuestion;
+import commons.question.ConsumptionQuestion;
+import commons.question.GuessQuestion;
+import commons.question.InsteadQuestion;
+import commons.question.MoreExpensiveQuestion;
+import commons.single.SinglePlayer;
+import commons.single.SinglePlayerState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regression tests for the size of the game state sent on every poll.
+ */
+class GameStatePayloadTest {
+
+    /**
+     * Upper bound in bytes for a polled multiplayer game with four players.
+     */
+    private static final int MAX_MULTI_POLL_SIZE = 2048;
+
+    private ObjectMapper mapper;
+    private List<AbstractQuestion> questions;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new ObjectMapper();
+        questions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            questions.add(new ConsumptionQuestion(activity(4 * i), List.of(100L, 200L, 300L)));
+            questions.add(new GuessQuestion(activity(4 * i + 1)));
+            questions.add(new InsteadQuestion(activity(4 * i + 2), "00-shower",
+                    List.of(activity(100 + i), activity(200 + i), activity(300 + i))));
+            questions.add(new MoreExpensiveQuestion("00-shower",
+                    List.of(activity(400 + i), activity(500 + i), activity(600 + i))));
+        }
+    }
+
+    /**
+     * Create an activity with fields of a realistic length.
+     *
+     * @param i Number of the activity.
+     * @return A new activity.
+     */
+    private static Activity activity(int i) {
+        return new Activity("00-shower-" + i,
+                "Taking a hot shower for 6 minutes, with an electric boiler at 55 degrees",
+                "https://www.quora.com/How-can-I-estimate-the-kWh-of-electricity-when-I-take-a-shower-" + i,
+                "00/shower-" + i + ".png",
+                4000L + i);
+    }
+
+    private MultiPlayerState multiPlayerState() {
+        List<MultiPlayer> players = new ArrayList<>();
+        List<GameResponse> answers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            players.add(new MultiPlayer("player " + i, 1000 * i, true, false, true));
+            answers.add(new GameResponse(42, 1650000000000L + i, 7, "player " + i, "4000"));
+        }
+        return new MultiPlayerState(42, 1650000008000L, 7, questions, answers,
+                MultiPlayerState.QUESTION_STATE, players);
+    }
+
+    @Test
+    void questionsAreNotSerialized() throws JsonProcessingException {
+        String json = mapper.writeValueAsString(multiPlayerState());
+
+        assertFalse(json.contains("questionList"));
+        assertFalse(json.contains("shower"));
+    }
+
+    @Test
+    void multiPlayerPollSize() throws JsonProcessingException {
+        int pollSize = mapper.writeValueAsBytes(multiPlayerState()).length;
+        ObjectWriter writer = mapper.writerFor(mapper.getTypeFactory()
+                .constructCollectionType(List.class, AbstractQuestion.class));
+        int questionsSize = writer.writeValueAsBytes(questions).length;
+
+        assertTrue(pollSize <= MAX_MULTI_POLL_SIZE, "Poll of " + pollSize + " bytes");
+        // At least an order of magnitude less than sending the questions on every poll
+        assertTrue(10 * pollSize <= pollSize + questionsSize,
+                "Poll of " + pollSize + " bytes, questions of " + questionsSize + " bytes");
+    }
+
+    @Test
+    void singlePlayerPollSize() throws JsonProcessingException {
+        SinglePlayerState game = new SinglePlayerState(42, 1650000008000L, 7, questions,
+                new ArrayList<>(), new ArrayList<>(), SinglePlayerState.QUESTION_STATE,
+                new SinglePlayer("player", 1000));
+        String json = mapper.writeValueAsString(game);
+
+        assertFalse(json.contains("questionList"));
+        assertTrue(json.length() < 512, json);
+    }
+
+    @Test
+    void questionsAreDeserialized() throws JsonProcessingException {
+        ObjectWriter writer = mapper.writerFor(mapper.getTypeFactory()
+                .constructCollectionType(List.class, AbstractQuestion.class));
+        String questionsJson = writer.writeValueAsString(questions);
+        String json = "{\"type\":\"multi\",\"questionList\":" + questionsJson + "}";
+
+        MultiPlayerState result = (MultiPlayerState) mapper.readValue(json, GameState.class);
+
+        assertEquals(questions.size(), result.getQuestionList().size());
+        for (int i = 0; i < questions.size(); i++) {
+            assertEquals(questions.get(i).getClass(), result.getQuestionList().get(i).getClass());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package server.api;
+
+import commons.single.SinglePlayerLeaderboardScore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import commons.single.LeaderboardRank;
+import server.utils.LeaderboardWriter;
+import server.utils.ScoreRanks;
+import server.utils.TopScores;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardControllerTest {
+
+    private MockLeaderboardRepository repo;
+    private LeaderboardController controller;
+    private LeaderboardWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        repo = new MockLeaderboardRepository();
+        TopScores topScores = new TopScores(repo, 4);
+        ScoreRanks scoreRanks = new ScoreRanks(repo, 1000);
+        writer = new LeaderboardWriter(repo, topScores, scoreRanks, 2, 0);
+        controller = new LeaderboardController(repo, topScores, scoreRanks, writer);
+    }
+
+    private LeaderboardController loadedController(long flushInterval) {
+        TopScores topScores = new TopScores(repo, 4);
+        ScoreRanks scoreRanks = new ScoreRanks(repo, 1000);
+        topScores.load();
+        scoreRanks.load();
+        writer = new LeaderboardWriter(repo, topScores, scoreRanks, 2, flushInterval);
+        return new LeaderboardController(repo, topScores, scoreRanks, writer);
+    }
+
+    private void save(String username, int score) {
+        repo.save(new SinglePlayerLeaderboardScore(username, score));
+    }
+
+    private static List<String> usernames(ResponseEntity<List<SinglePlayerLeaderboardScore>> response) {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody().stream().map(SinglePlayerLeaderboardScore::getUsername).collect(Collectors.toList());
+    }
+
+    @Test
+    public void getTopSorted() {
+        save("a", 100);
+        save("b", 300);
+        save("c", 200);
+        save("d", 300);
+
+        assertEquals(List.of("b", "d", "c", "a"), usernames(controller.getAllUsers(4, 0, null, null)));
+        assertEquals(List.of("d", "c"), usernames(controller.getAllUsers(2, 1, null, null)));
+    }
+
+    @Test
+    public void getTopLoadedOnce() {
+        save("a", 100);
+        controller.getAllUsers(2, 0, null, null);
+        controller.getAllUsers(2, 2, null, null);
+
+        assertEquals(1, repo.calledMethods.stream().filter("findAllByOrderByScoreDescIdAsc"::equals).count());
+    }
+
+    @Test
+    public void addUpdatesTop() {
+        save("a", 100);
+        save("b", 200);
+        controller.getAllUsers(4, 0, null, null);
+
+        controller.add(new SinglePlayerLeaderboardScore("c", 150));
+        controller.add(new SinglePlayerLeaderboardScore("d", 50));
+        controller.add(new SinglePlayerLeaderboardScore("e", 500));
+
+        assertEquals(List.of("e", "b", "c", "a"), usernames(controller.getAllUsers(4, 0, null, null)));
+        assertEquals(1, repo.calledMethods.stream().filter("findAllByOrderByScoreDescIdAsc"::equals).count());
+    }
+
+    @Test
+    public void getAfterWithinTop() {
+        save("a", 100);
+        save("b", 200);
+        save("c", 300);
+        long id = repo.entries.get(2).getId();
+
+        assertEquals(List.of("b", "a"), usernames(controller.getAllUsers(2, 0, 300, id)));
+        assertFalse(repo.calledMethods.contains("findAfter"));
+    }
+
+    @Test
+    public void getAfterBelowTop() {
+        for (int i = 0; i < 6; i++) {
+            save("p" + i, 100 * i);
+        }
+        SinglePlayerLeaderboardScore last = controller.getAllUsers(4, 0, null, null).getBody().get(3);
+
+        assertEquals(List.of("p1", "p0"), usernames(controller.getAllUsers(4, 0, last.getScore(), last.getId())));
+        assertTrue(repo.calledMethods.contains("findAfter"));
+    }
+
+    @Test
+    public void getInvalidPage() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAllUsers(0, 0, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAllUsers(LeaderboardController.MAX_LIMIT + 1, 0, null, null)
+                .getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAllUsers(2, -1, null, null).getStatusCode());
+        // Beyond the cached top, pages have to be found after an entry
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAllUsers(2, 3, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAllUsers(2, 0, 100, null).getStatusCode());
+    }
+
+    @Test
+    public void addInvalid() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.add(new SinglePlayerLeaderboardScore("", 10)).getStatusCode());
+        assertTrue(repo.entries.isEmpty());
+    }
+
+    @Test
+    public void getRankLoaded() {
+        save("a", 100);
+        save("b", 300);
+        save("c", 300);
+        save("d", 200);
+        controller = loadedController(0);
+
+        assertEquals(1, controller.getRank(400).getRank());
+        assertEquals(1, controller.getRank(300).getRank());
+        assertEquals(3, controller.getRank(250).getRank());
+        assertEquals(5, controller.getRank(0).getRank());
+        assertEquals(4, controller.getRank(0).getTotal());
+        assertTrue(repo.calledMethods.contains("countByScore"));
+    }
+
+    @Test
+    public void getRankLoadedOnce() {
+        save("a", 100);
+        ScoreRanks scoreRanks = new ScoreRanks(repo, 1000);
+        scoreRanks.load();
+        scoreRanks.load();
+
+        assertEquals(1, scoreRanks.getTotal());
+        assertEquals(1, repo.calledMethods.stream().filter("countByScore"::equals).count());
+    }
+
+    @Test
+    public void getRankAfterAdd() {
+        controller.add(new SinglePlayerLeaderboardScore("a", 100));
+        controller.add(new SinglePlayerLeaderboardScore("b", 500));
+
+        assertEquals(2, controller.getRank(100).getRank());
+        assertEquals(2, controller.getRank(499).getRank());
+        assertEquals(2, controller.getRank(0).getTotal());
+    }
+
+    @Test
+    public void getRankOutOfRange() {
+        controller.add(new SinglePlayerLeaderboardScore("a", 5000));
+        controller.add(new SinglePlayerLeaderboardScore("b", -5));
+
+        assertEquals(1, controller.getRank(2000).getRank());
+        assertEquals(2, controller.getRank(10).getRank());
+    }
+
+    @Test
+    public void getAround() {
+        for (int i = 0; i < 8; i++) {
+            save("p" + i, 100 * i);
+        }
+        save("q", 300);
+        controller = loadedController(0);
+        long id = repo.entries.get(3).getId();
+
+        ResponseEntity<List<LeaderboardRank>> response = controller.getAround(id, 2);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<LeaderboardRank> window = response.getBody();
+        assertEquals(List.of("p5", "p4", "p3", "q", "p2"), window.stream()
+                .map(rank -> rank.getEntry().getUsername()).collect(Collectors.toList()));
+        assertEquals(List.of(3, 4, 5, 5, 7),
+                window.stream().map(LeaderboardRank::getRank).collect(Collectors.toList()));
+        assertEquals(9, window.get(0).getTotal());
+    }
+
+    @Test
+    public void getAroundTop() {
+        save("a", 100);
+        save("b", 200);
+        controller = loadedController(0);
+
+        List<LeaderboardRank> window = controller.getAround(repo.entries.get(1).getId(), 5).getBody();
+
+        assertEquals(2, window.size());
+        assertEquals(1, window.get(0).getRank());
+        assertEquals("a", window.get(1).getEntry().getUsername());
+    }
+
+    @Test
+    public void getAroundInvalid() {
+        save("a", 100);
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.getAround(42, 2).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAround(0, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAround(0, LeaderboardController.MAX_WINDOW + 1)
+                .getStatusCode());
+    }
+
+    @Test
+    public void addWriteBehind() {
+        save("a", 100);
+        controller = loadedController(60000);
+
+        SinglePlayerLeaderboardScore accepted = controller.add(new SinglePlayerLeaderboardScore("b", 200)).getBody();
+        controller.add(new SinglePlayerLeaderboardScore("c", 200));
+
+        assertNull(accepted.getId());
+        assertEquals(1, repo.entries.size());
+        assertEquals(2, writer.getQueued());
+        // Read your writes before the entries are written
+        assertEquals(List.of("b", "c", "a"), usernames(controller.getAllUsers(4, 0, null, null)));
+        assertEquals(3, controller.getRank(100).getRank());
+
+        assertEquals(2, writer.flush());
+        assertEquals(3, repo.entries.size());
+        assertEquals(0, writer.getQueued());
+        assertNotNull(accepted.getId());
+        assertEquals(List.of("saveAll"), repo.calledMethods.stream().filter("saveAll"::equals)
+                .collect(Collectors.toList()));
+        assertEquals(List.of("b", "c", "a"), usernames(controller.getAllUsers(4, 0, null, null)));
+    }
+
+    @Test
+    public void addWriteBehindDropsInvalid() {
+        controller = loadedController(60000);
+        controller.add(new SinglePlayerLeaderboardScore("a", 100));
+        controller.add(new SinglePlayerLeaderboardScore("b".repeat(300), 200));
+        controller.add(new SinglePlayerLeaderboardScore("c", 300));
+
+        assertEquals(2, writer.flush());
+        assertEquals(1, writer.getFailed());
+        assertEquals(2, writer.getWritten());
+        assertEquals(List.of("a", "c"), repo.entries.stream().map(SinglePlayerLeaderboardScore::getUsername)
+                .sorted().collect(Collectors.toList()));
+        // The dropped entry no longer counts
+        assertEquals(List.of("c", "a"), usernames(controller.getAllUsers(4, 0, null, null)));
+        assertEquals(2, controller.getRank(100).getRank());
+        assertEquals(2, controller.getRank(0).getTotal());
+    }
+
+    @Test
+    public void addWriteBehindDropRefillsFullTop() {
+        save("a", 100);
+        save("b", 200);
+        save("c", 300);
+        save("d", 400);
+        save("e", 50);
+        controller = loadedController(60000);
+        controller.add(new SinglePlayerLeaderboardScore("f".repeat(300), 250));
+
+        assertEquals(List.of("d", "c", "f".repeat(300), "b"), usernames(controller.getAllUsers(4, 0, null, null)));
+        writer.flush();
+
+        assertEquals(List.of("d", "c", "b", "a"), usernames(controller.getAllUsers(4, 0, null, null)));
+    }
+
+    @Test
+    public void addWriteBehindFlushesOnStop() throws InterruptedException {
+        controller = loadedController(60000);
+        writer.start();
+        controller.add(new SinglePlayerLeaderboardScore("a", 100));
+
+        writer.stop();
+
+        assertEquals(1, repo.entries.size());
+        assertEquals(0, writer.getQueued());
+    }
+
+    @Test
+    public void addWriteBehindFlushesFullBatch() throws InterruptedException {
+        controller = loadedController(60000);
+        writer.start();
+        controller.add(new SinglePlayerLeaderboardScore("a", 100));
+        controller.add(new SinglePlayerLeaderboardScore("b", 200));
+
+        for (int i = 0; i < 100 && writer.getWritten() < 2; i++) {
+            Thread.sleep(10);
+        }
+        writer.stop();
+        assertEquals(2, writer.getWritten());
+        assertTrue(writer.getLastFlushMillis() > 0);
+    }
+}
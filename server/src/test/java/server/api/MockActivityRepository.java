@@ -46,8 +46,14 @@ class MockActivityRepository implements ActivityRepository {
 
     @Override
     public <S extends Activity> List<S> saveAll(Iterable<S> entities) {
-        // TODO Auto-generated method stub
-        return null;
+        call("saveAll");
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            entity.setKey((long) activities.size());
+            activities.add(entity);
+            saved.add(entity);
+        }
+        return saved;
     }
 
     @Override
@@ -124,6 +130,11 @@ class MockActivityRepository implements ActivityRepository {
         return entity;
     }
 
+    @Override
+    public Long findMaxKey() {
+        return activities.stream().map(Activity::getKey).max(Long::compare).orElse(null);
+    }
+
     @Override
     public Optional<Activity> findById(Long id) {
         return find(id);
@@ -0,0 +1,256 @@
+package server.api;
+
+import commons.single.SinglePlayerLeaderboardScore;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import server.database.LeaderboardRepository;
+import server.utils.TopScores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class MockLeaderboardRepository implements LeaderboardRepository {
+
+    public final List<SinglePlayerLeaderboardScore> entries = new ArrayList<>();
+    public final List<String> calledMethods = new ArrayList<>();
+
+    private void call(String name) {
+        calledMethods.add(name);
+    }
+
+    private Optional<SinglePlayerLeaderboardScore> find(Long id) {
+        return entries.stream().filter(q -> id.equals(q.getId())).findFirst();
+    }
+
+    @Override
+    public List<SinglePlayerLeaderboardScore> findAll() {
+        calledMethods.add("findAll");
+        return entries;
+    }
+
+    @Override
+    public List<SinglePlayerLeaderboardScore> findAll(Sort sort) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public List<SinglePlayerLeaderboardScore> findAllById(Iterable<Long> ids) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> List<S> saveAll(Iterable<S> entities) {
+        call("saveAll");
+        // Like a transaction, nothing is saved if one of the entities cannot be
+        for (S entity : entities) {
+            if (entity.getUsername().length() > 255) {
+                throw new IllegalArgumentException("Username too long");
+            }
+        }
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            entity.setId((long) entries.size());
+            entries.add(entity);
+            saved.add(entity);
+        }
+        return saved;
+    }
+
+    @Override
+    public void flush() {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> S saveAndFlush(S entity) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> List<S> saveAllAndFlush(Iterable<S> entities) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<SinglePlayerLeaderboardScore> entities) {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public SinglePlayerLeaderboardScore getOne(Long id) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public SinglePlayerLeaderboardScore getById(Long id) {
+        call("getById");
+        return find(id).get();
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> List<S> findAll(Example<S> example) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> List<S> findAll(Example<S> example, Sort sort) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public Page<SinglePlayerLeaderboardScore> findAll(Pageable pageable) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> S save(S entity) {
+        call("save");
+        entity.setId((long) entries.size());
+        entries.add(entity);
+        return entity;
+    }
+
+    @Override
+    public List<SinglePlayerLeaderboardScore> findAllByOrderByScoreDescIdAsc(Pageable pageable) {
+        call("findAllByOrderByScoreDescIdAsc");
+        return entries.stream().sorted(TopScores.ORDER).skip(pageable.getOffset()).limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<SinglePlayerLeaderboardScore> findBefore(int score, long id, Pageable pageable) {
+        call("findBefore");
+        SinglePlayerLeaderboardScore cursor = new SinglePlayerLeaderboardScore(null, score);
+        cursor.setId(id);
+        return entries.stream().sorted(TopScores.ORDER.reversed())
+                .filter(entry -> TopScores.ORDER.compare(entry, cursor) < 0)
+                .limit(pageable.getPageSize()).collect(Collectors.toList());
+    }
+
+    @Override
+    public Long findMaxId() {
+        return entries.stream().map(SinglePlayerLeaderboardScore::getId).max(Long::compare).orElse(null);
+    }
+
+    @Override
+    public List<Object[]> countByScore() {
+        call("countByScore");
+        return entries.stream().collect(Collectors.groupingBy(SinglePlayerLeaderboardScore::getScore,
+                Collectors.counting())).entrySet().stream()
+                .map(count -> new Object[] {count.getKey(), count.getValue()}).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<SinglePlayerLeaderboardScore> findAfter(int score, long id, Pageable pageable) {
+        call("findAfter");
+        SinglePlayerLeaderboardScore cursor = new SinglePlayerLeaderboardScore(null, score);
+        cursor.setId(id);
+        return entries.stream().sorted(TopScores.ORDER).filter(entry -> TopScores.ORDER.compare(entry, cursor) > 0)
+                .limit(pageable.getPageSize()).collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<SinglePlayerLeaderboardScore> findById(Long id) {
+        return find(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        call("existsById");
+        return find(id).isPresent();
+    }
+
+    @Override
+    public long count() {
+        return entries.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public void delete(SinglePlayerLeaderboardScore entity) {
+        // TODO Auto-generated method stub
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends SinglePlayerLeaderboardScore> entities) {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public void deleteAll() {
+        // TODO Auto-generated method stub
+
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> Optional<S> findOne(Example<S> example) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> Page<S> findAll(Example<S> example, Pageable pageable) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> long count(Example<S> example) {
+        // TODO Auto-generated method stub
+        return 0;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore> boolean exists(Example<S> example) {
+        // TODO Auto-generated method stub
+        return false;
+    }
+
+    @Override
+    public <S extends SinglePlayerLeaderboardScore, R> R findBy(
+            Example<S> example,
+            Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package server.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import commons.multi.ChatMessage;
 import commons.multi.MultiPlayer;
 import commons.multi.MultiPlayerState;
@@ -7,17 +8,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import server.utils.MockMultiPlayerStateUtils;
+import server.utils.StateBroadcaster;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class MultiplayerStateControllerTest {
 
     private MockMultiPlayerStateUtils multiUtils;
 
+    private StateBroadcaster broadcaster;
     private MultiplayerStateController multiCtrl;
 
     private MultiPlayerState game;
@@ -27,7 +33,8 @@ class MultiplayerStateControllerTest {
     void setup() {
         multiUtils = new MockMultiPlayerStateUtils();
 
-        multiCtrl = new MultiplayerStateController(multiUtils);
+        broadcaster = new StateBroadcaster(new ObjectMapper(), 0);
+        multiCtrl = new MultiplayerStateController(multiUtils, broadcaster);
 
         game = new MultiPlayerState(
                 0,
@@ -36,7 +43,6 @@ class MultiplayerStateControllerTest {
                 new ArrayList<>(),
                 new ArrayList<>(),
                 MultiPlayerState.STARTING_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         player = new MultiPlayer(
@@ -48,7 +54,7 @@ class MultiplayerStateControllerTest {
 
     @Test
     void getGameStateNegativeId() {
-        var result = multiCtrl.getGameState(-1L);
+        var result = multiCtrl.getGameState(-1L, null, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
         assertEqualLists(new ArrayList<>(), multiUtils.calledMethods);
@@ -59,7 +65,7 @@ class MultiplayerStateControllerTest {
         // Set getGameState to null
         multiUtils.returnValues.add(null);
 
-        var result = multiCtrl.getGameState(120L);
+        var result = multiCtrl.getGameState(120L, null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
         assertEqualLists(List.of("getGameState"), multiUtils.calledMethods);
@@ -71,13 +77,89 @@ class MultiplayerStateControllerTest {
         // Set getGameState to null
         multiUtils.returnValues.add(game);
 
-        var result = multiCtrl.getGameState(120L);
+        var result = multiCtrl.getGameState(120L, null, null);
 
         assertEquals(game, result.getBody());
         assertEqualLists(List.of("getGameState"), multiUtils.calledMethods);
         assertEqualLists(List.of(120L), multiUtils.params);
     }
 
+    @Test
+    void getGameStateSinceCurrentVersion() {
+        game.setVersion(7);
+        multiUtils.returnValues.add(game);
+
+        var result = multiCtrl.getGameState(120L, null, 7L);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertNull(result.getBody());
+    }
+
+    @Test
+    void getGameStateSinceOldVersion() {
+        game.setVersion(7);
+        multiUtils.returnValues.add(game);
+
+        var result = multiCtrl.getGameState(120L, null, 6L);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(game, result.getBody());
+    }
+
+    @Test
+    void getGameStateIfNoneMatch() {
+        multiUtils.returnValues.add(game);
+        multiUtils.returnValues.add(game);
+
+        String eTag = multiCtrl.getGameState(120L, null, null).getHeaders().getETag();
+        var result = multiCtrl.getGameState(120L, eTag, null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertEquals(eTag, result.getHeaders().getETag());
+    }
+
+    @Test
+    void getGameStateIfNoneMatchChanged() {
+        multiUtils.returnValues.add(game);
+        multiUtils.returnValues.add(game);
+
+        String eTag = multiCtrl.getGameState(120L, null, null).getHeaders().getETag();
+        game.incrementVersion();
+        var result = multiCtrl.getGameState(120L, "W/" + eTag, null);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertNotEquals(eTag, result.getHeaders().getETag());
+    }
+
+    @Test
+    void streamGameStateNegativeId() {
+        var result = multiCtrl.streamGameState(-1L);
+
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void streamGameStateNotFound() {
+        multiUtils.returnValues.add(null);
+
+        var result = multiCtrl.streamGameState(120L);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void streamGameState() {
+        multiUtils.returnValues.add(game);
+
+        var result = multiCtrl.streamGameState(120L);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertNotNull(result.getBody());
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
     @Test
     void addMultiPlayerNegativeId() {
         var result = multiCtrl.addMultiPlayer(-1, player);
@@ -119,6 +201,35 @@ class MultiplayerStateControllerTest {
         assertEquals(result, dummy);
     }
 
+    @Test
+    void getChatMessagesNegativeId() {
+        var result = multiCtrl.getChatMessages(-1L, 0);
+
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        assertEqualLists(new ArrayList<>(), multiUtils.calledMethods);
+    }
+
+    @Test
+    void getChatMessagesNotFound() {
+        multiUtils.returnValues.add(null);
+
+        var result = multiCtrl.getChatMessages(120L, 0);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+    }
+
+    @Test
+    void getChatMessages() {
+        var messages = List.of(new ChatMessage("Kayra", "laughing"));
+        multiUtils.returnValues.add(messages);
+
+        var result = multiCtrl.getChatMessages(120L, 5);
+
+        assertEquals(messages, result.getBody());
+        assertEqualLists(List.of("getChatMessages"), multiUtils.calledMethods);
+        assertEqualLists(List.of(120L, 5L), multiUtils.params);
+    }
+
     @Test
     void postReactionFalse() {
         var dummy = new ChatMessage("Kayra", "laughing");
@@ -1,5 +1,6 @@
 package server.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import commons.queue.QueueState;
 import commons.queue.QueueUser;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,11 +8,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import server.utils.MockCurrentTimeUtils;
 import server.utils.MockQueueUtils;
+import server.utils.QueueLobbies;
+import server.utils.StateBroadcaster;
 
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 class QueueControllerTest {
 
@@ -19,6 +23,7 @@ class QueueControllerTest {
 
     private MockCurrentTimeUtils currentTime;
     private MockQueueUtils queueUtils;
+    private QueueLobbies lobbies;
 
     private QueueState queueState;
     private QueueUser queueUser;
@@ -28,7 +33,13 @@ class QueueControllerTest {
         currentTime = new MockCurrentTimeUtils();
         queueUtils = new MockQueueUtils(currentTime);
 
-        queueCtrl = new QueueController(queueUtils);
+        lobbies = new QueueLobbies(name -> queueUtils, QueueLobbies.DEFAULT_LOBBY_SIZE);
+        // Open the lobby of the mock, before the calls of the tests are recorded
+        lobbies.open();
+        queueUtils.calledMethods.clear();
+        queueUtils.params.clear();
+
+        queueCtrl = new QueueController(lobbies, new StateBroadcaster(new ObjectMapper(), 0));
 
         queueUser = new QueueUser("Username");
 
@@ -45,7 +56,7 @@ class QueueControllerTest {
     void getQueueState() {
         queueUtils.returnValues.add(queueState);
 
-        var result = queueCtrl.getQueueState().getBody();
+        var result = queueCtrl.getQueueState(null).getBody();
 
         assertEquals(queueState, result);
         assertEquals(List.of("getQueue"), queueUtils.calledMethods);
@@ -58,7 +69,7 @@ class QueueControllerTest {
 
         var emptyUser = new QueueUser("");
 
-        var result = queueCtrl.add(emptyUser);
+        var result = queueCtrl.add(emptyUser, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
         assertEquals(List.of("isInvalid"), queueUtils.calledMethods);
@@ -72,7 +83,7 @@ class QueueControllerTest {
         // Set containsUser to true
         queueUtils.returnValues.add(true);
 
-        var result = queueCtrl.add(queueUser);
+        var result = queueCtrl.add(queueUser, null);
 
         assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
         assertEquals(List.of("isInvalid", "containsUser"), queueUtils.calledMethods);
@@ -89,7 +100,7 @@ class QueueControllerTest {
         var dummyUser = new QueueUser("dummy");
         queueUtils.returnValues.add(dummyUser);
 
-        var result = queueCtrl.add(queueUser);
+        var result = queueCtrl.add(queueUser, null);
 
         assertEquals(dummyUser, result.getBody());
         assertEquals(List.of("isInvalid", "containsUser", "addUser"), queueUtils.calledMethods);
@@ -98,12 +109,13 @@ class QueueControllerTest {
 
     @Test
     void startGameGood() {
+        queueUtils.size = 1;
         // Set startCountdown to true
         queueUtils.returnValues.add(true);
         // Set getQueue to given queue
         queueUtils.returnValues.add(queueState);
 
-        var result = queueCtrl.startGame();
+        var result = queueCtrl.startGame(null);
 
         assertEquals(queueState, result.getBody());
         assertEquals(List.of("startCountdown", "getQueue"), queueUtils.calledMethods);
@@ -111,17 +123,28 @@ class QueueControllerTest {
 
     @Test
     void startGameBad() {
+        queueUtils.size = 1;
         // Set startCountdown to true
         queueUtils.returnValues.add(false);
 
-        var result = queueCtrl.startGame();
+        var result = queueCtrl.startGame(null);
 
         assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
         assertEquals(List.of("startCountdown"), queueUtils.calledMethods);
     }
 
+    // Let the mock join the user to its lobby, and forget the calls made while joining
+    private void join(String username) {
+        QueueUser user = new QueueUser(username);
+        queueUtils.returnValues.add(user);
+        lobbies.join(lobbies.open(), queueUtils, user);
+        queueUtils.calledMethods.clear();
+        queueUtils.params.clear();
+    }
+
     @Test
     void deleteUser() {
+        join("Test username");
         // Set getByUsername to dummy value
         var dummy1 = new QueueUser("dummy1");
         queueUtils.returnValues.add(dummy1);
@@ -137,6 +160,7 @@ class QueueControllerTest {
 
     @Test
     void deleteUserBad() {
+        join("Test username");
         // Set getByUsername to dummy value
         QueueUser dummy1 = null;
         queueUtils.returnValues.add(dummy1);
@@ -149,4 +173,94 @@ class QueueControllerTest {
         assertEquals(List.of("getByUsername", "removeUser"), queueUtils.calledMethods);
         assertEquals(Arrays.asList("Test username", null), queueUtils.params);
     }
-}
\ No newline at end of file
+
+    @Test
+    void addSetsLobby() {
+        queueUtils.returnValues.add(false);
+        queueUtils.returnValues.add(false);
+        queueUtils.returnValues.add(queueUser);
+
+        queueCtrl.add(queueUser, null);
+
+        assertEquals(QueueLobbies.OPEN_PREFIX + "1", queueUser.getLobby());
+    }
+
+    @Test
+    void addNamedLobby() {
+        queueUtils.returnValues.add(false);
+        queueUtils.returnValues.add(false);
+        queueUtils.returnValues.add(queueUser);
+
+        var result = queueCtrl.add(queueUser, "friends");
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("friends", queueUser.getLobby());
+        assertEquals(queueUtils, lobbies.get("friends"));
+    }
+
+    @Test
+    void addInvalidLobby() {
+        var result = queueCtrl.add(queueUser, "no spaces");
+
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        assertEquals(List.of(), queueUtils.calledMethods);
+    }
+
+    @Test
+    void addTakenInOtherLobby() {
+        join("Username");
+        queueUtils.returnValues.add(false);
+        queueUtils.returnValues.add(false);
+
+        var result = queueCtrl.add(queueUser, "friends");
+
+        assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
+        assertFalse(queueUtils.calledMethods.contains("addUser"));
+    }
+
+    @Test
+    void unknownLobby() {
+        assertEquals(HttpStatus.NOT_FOUND, queueCtrl.getQueueState("unknown").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, queueCtrl.streamQueueState("unknown").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, queueCtrl.startGame("unknown").getStatusCode());
+    }
+
+    @Test
+    void startGameEmpty() {
+        var result = queueCtrl.startGame(null);
+
+        assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
+        assertEquals(List.of(), queueUtils.calledMethods);
+    }
+
+    @Test
+    void readsDoNotOpenALobby() {
+        lobbies = new QueueLobbies(name -> queueUtils, QueueLobbies.DEFAULT_LOBBY_SIZE);
+        queueCtrl = new QueueController(lobbies, new StateBroadcaster(new ObjectMapper(), 0));
+
+        assertEquals(HttpStatus.NOT_FOUND, queueCtrl.getQueueState(null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, queueCtrl.streamQueueState(null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, queueCtrl.startGame(null).getStatusCode());
+        assertEquals(0, lobbies.getLobbyCount());
+    }
+
+    @Test
+    void readsKeepTheFullOpenLobby() {
+        lobbies = new QueueLobbies(name -> queueUtils, 1);
+        queueCtrl = new QueueController(lobbies, new StateBroadcaster(new ObjectMapper(), 0));
+        lobbies.open();
+        queueUtils.size = 1;
+        queueUtils.returnValues.add(queueState);
+
+        assertEquals(queueState, queueCtrl.getQueueState(null).getBody());
+        assertEquals(1, lobbies.getLobbyCount());
+    }
+
+    @Test
+    void deleteUserInNoLobby() {
+        var result = queueCtrl.deleteUser("Test username");
+
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        assertEquals(List.of(), queueUtils.calledMethods);
+    }
+}
@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Mock activity image repository.
@@ -78,7 +79,14 @@ public class TestActivityImageRepository implements ActivityImageRepository {
      */
     @Override
     public void deleteById(String s) {
+        call("deleteById");
+        images.removeIf(image -> image.getId().equals(s));
+    }
 
+    @Override
+    public List<String> findAllIds() {
+        call("findAllIds");
+        return images.stream().map(ActivityImage::getId).collect(Collectors.toList());
     }
 
     /**
@@ -152,7 +160,8 @@ public class TestActivityImageRepository implements ActivityImageRepository {
      */
     @Override
     public Optional<ActivityImage> findById(String s) {
-        return Optional.empty();
+        call("findById");
+        return find(s);
     }
 
     /**
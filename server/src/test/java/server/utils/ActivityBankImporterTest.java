@@ -0,0 +1,34 @@
+package server.utils;
+
+import commons.misc.Activity;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityBankImporterTest {
+
+    @Test
+    public void activityId() {
+        assertEquals("00-shower", ActivityBankImporter.activityId("00/shower.png"));
+        assertEquals("00-shower", ActivityBankImporter.activityId("bank/00/shower.jpg"));
+        assertEquals("00-shower.old", ActivityBankImporter.activityId("00/shower.old.png"));
+    }
+
+    @Test
+    public void activityIdNotAnImage() {
+        assertNull(ActivityBankImporter.activityId("shower.png"));
+        assertNull(ActivityBankImporter.activityId("00/.DS_Store"));
+        assertNull(ActivityBankImporter.activityId("00/README"));
+    }
+
+    @Test
+    public void isValid() {
+        Activity activity = new Activity("00-shower", "Shower", "source", "00/shower.png", 4000L);
+
+        assertTrue(ActivityBankImporter.isValid(activity));
+        activity.setConsumption(null);
+        assertFalse(ActivityBankImporter.isValid(activity));
+        activity.setConsumption(0L);
+        assertFalse(ActivityBankImporter.isValid(activity));
+    }
+}
@@ -0,0 +1,83 @@
+package server.utils;
+
+import commons.multi.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatLogTest {
+
+    private ChatLog chatLog;
+
+    @BeforeEach
+    void setUp() {
+        chatLog = new ChatLog(4);
+    }
+
+    private void append(int count) {
+        for (int i = 0; i < count; i++) {
+            chatLog.append(new ChatMessage("Kate", "message " + (chatLog.getLastSequence() + 1)));
+        }
+    }
+
+    private static List<Long> sequences(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getSequence).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testConstructorInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new ChatLog(0));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, chatLog.getLastSequence());
+        assertEquals(0, chatLog.size());
+        assertEquals(List.of(), chatLog.after(0));
+        assertEquals(List.of(), chatLog.latest(3));
+    }
+
+    @Test
+    public void testAppendAssignsSequence() {
+        ChatMessage message = chatLog.append(new ChatMessage("Kate", "laughing"));
+
+        assertEquals(1, message.getSequence());
+        assertEquals(1, chatLog.getLastSequence());
+        assertEquals(List.of(message), chatLog.after(0));
+    }
+
+    @Test
+    public void testAfter() {
+        append(3);
+
+        assertEquals(List.of(2L, 3L), sequences(chatLog.after(1)));
+        assertEquals(List.of(), sequences(chatLog.after(3)));
+    }
+
+    @Test
+    public void testAfterOverwritten() {
+        append(10);
+
+        assertEquals(4, chatLog.size());
+        assertEquals(List.of(7L, 8L, 9L, 10L), sequences(chatLog.after(0)));
+        assertEquals(List.of(9L, 10L), sequences(chatLog.after(8)));
+        assertEquals("message 10", chatLog.after(9).get(0).getMessage());
+    }
+
+    @Test
+    public void testLatest() {
+        append(10);
+
+        assertEquals(List.of(9L, 10L), sequences(chatLog.latest(2)));
+        assertEquals(List.of(7L, 8L, 9L, 10L), sequences(chatLog.latest(6)));
+    }
+
+    @Test
+    public void testCapacity() {
+        assertEquals(4, chatLog.getCapacity());
+    }
+}
@@ -0,0 +1,119 @@
+package server.utils;
+
+import commons.misc.Activity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumptionIndexTest {
+
+    private Activity a10;
+    private Activity a20;
+    private Activity b20;
+    private Activity a30;
+    private Activity a50;
+
+    private ConsumptionIndex index;
+
+    private Activity activity(String id, long consumption) {
+        return new Activity(id, "title " + id, "source", "image", consumption);
+    }
+
+    @BeforeEach
+    void setUp() {
+        a10 = activity("a10", 10);
+        a20 = activity("a20", 20);
+        b20 = activity("b20", 20);
+        a30 = activity("a30", 30);
+        a50 = activity("a50", 50);
+
+        // Deliberately not sorted
+        index = new ConsumptionIndex(List.of(a50, a20, a10, b20, a30));
+    }
+
+    @Test
+    void sortedStable() {
+        assertEquals(5, index.size());
+        assertSame(a10, index.get(0));
+        assertSame(a20, index.get(1));
+        assertSame(b20, index.get(2));
+        assertSame(a30, index.get(3));
+        assertSame(a50, index.get(4));
+    }
+
+    @Test
+    void bounds() {
+        assertEquals(0, index.lowerBound(5));
+        assertEquals(1, index.lowerBound(20));
+        assertEquals(3, index.upperBound(20));
+        assertEquals(5, index.lowerBound(51));
+        assertEquals(5, index.upperBound(Long.MAX_VALUE));
+    }
+
+    @Test
+    void within() {
+        assertEquals(List.of(a20, b20, a30), index.within(15, 30));
+        assertEquals(List.of(a10), index.within(10, 10));
+        assertEquals(List.of(), index.within(31, 49));
+        assertEquals(List.of(), index.within(40, 30));
+    }
+
+    @Test
+    void withinIsModifiable() {
+        List<Activity> result = index.within(0, 100);
+        result.remove(a10);
+
+        assertEquals(4, result.size());
+        assertSame(a10, index.get(0));
+    }
+
+    @Test
+    void countWithin() {
+        assertEquals(3, index.countWithin(15, 30));
+        assertEquals(0, index.countWithin(31, 49));
+        assertEquals(0, index.countWithin(40, 30));
+        assertEquals(5, index.countWithin(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void distinctWithin() {
+        assertEquals(List.of(10L, 20L, 30L), index.distinctWithin(0, 40, 50));
+        assertEquals(List.of(10L, 30L), index.distinctWithin(0, 40, 20));
+        assertEquals(3, index.countDistinctWithin(0, 40, 50));
+        assertEquals(2, index.countDistinctWithin(0, 40, 20));
+        assertEquals(2, index.countDistinctWithin(10, 30, 10));
+    }
+
+    @Test
+    void nearest() {
+        assertEquals(List.of(a20, b20, a30), index.nearest(26, 3));
+        assertEquals(List.of(a10), index.nearest(0, 1));
+        assertEquals(List.of(a30, a50), index.nearest(100, 2));
+        // Equal distance: the smaller consumption wins
+        assertEquals(List.of(b20), index.nearest(25, 1));
+    }
+
+    @Test
+    void nearestMoreThanSize() {
+        assertEquals(5, index.nearest(30, 10).size());
+    }
+
+    @Test
+    void nearestExtremeValues() {
+        assertEquals(List.of(a10), index.nearest(Long.MIN_VALUE, 1));
+        assertEquals(List.of(a50), index.nearest(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void empty() {
+        ConsumptionIndex empty = new ConsumptionIndex(new ArrayList<>());
+
+        assertEquals(0, empty.size());
+        assertEquals(List.of(), empty.within(0, 100));
+        assertEquals(List.of(), empty.nearest(10, 3));
+    }
+}
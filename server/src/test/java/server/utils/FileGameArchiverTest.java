@@ -0,0 +1,65 @@
+package server.utils;
+
+import commons.single.SinglePlayer;
+import commons.single.SinglePlayerState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileGameArchiverTest {
+
+    @TempDir
+    Path directory;
+
+    private SinglePlayerState createGame(long id, int score) {
+        return new SinglePlayerState(id, 0, 0, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                SinglePlayerState.GAME_OVER_STATE, new SinglePlayer("Player", score));
+    }
+
+    @Test
+    public void archiveWritesOneLinePerGame() throws IOException {
+        Path file = directory.resolve("games.jsonl");
+        FileGameArchiver archiver = new FileGameArchiver(file, new MockCurrentTimeUtils());
+
+        archiver.archive(createGame(1, 100), true);
+        archiver.archive(createGame(2, 200), false);
+        archiver.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"id\":1"));
+        assertTrue(lines.get(0).contains("\"score\":100"));
+        assertTrue(lines.get(1).contains("\"finished\":false"));
+    }
+
+    @Test
+    public void archiveTakesTheResultsRightAway() throws IOException {
+        Path file = directory.resolve("games.jsonl");
+        FileGameArchiver archiver = new FileGameArchiver(file, new MockCurrentTimeUtils());
+        SinglePlayerState game = createGame(1, 100);
+
+        archiver.archive(game, true);
+        game.getPlayer().setScore(500);
+        archiver.stop();
+
+        assertTrue(Files.readString(file).contains("\"score\":100"));
+    }
+
+    @Test
+    public void archiveAfterStopStillWrites() throws IOException {
+        Path file = directory.resolve("games.jsonl");
+        FileGameArchiver archiver = new FileGameArchiver(file, new MockCurrentTimeUtils());
+        archiver.stop();
+
+        archiver.archive(createGame(1, 100), true);
+
+        assertEquals(1, Files.readAllLines(file).size());
+    }
+}
@@ -0,0 +1,112 @@
+package server.utils;
+
+import commons.misc.GameState;
+import commons.single.SinglePlayer;
+import commons.single.SinglePlayerState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEvictorTest {
+
+    private MockCurrentTimeUtils currentTime;
+    private TimerWheel timerWheel;
+    private GameRegistry<SinglePlayerState> games;
+    private GameEvictor<SinglePlayerState> evictor;
+
+    private List<GameState> archived;
+
+    @BeforeEach
+    void setUp() {
+        currentTime = new MockCurrentTimeUtils();
+        currentTime.currentTime = 1000;
+        timerWheel = new TimerWheel(currentTime);
+        games = new GameRegistry<>(currentTime);
+        evictor = new GameEvictor<>(games, timerWheel, currentTime);
+        evictor.setFinishedTtl(500);
+        evictor.setAbandonedTtl(2000);
+        evictor.setSweepInterval(1000);
+
+        archived = new ArrayList<>();
+        evictor.setArchiver((game, finished) -> archived.add(game));
+    }
+
+    private SinglePlayerState createGame(long id, String state) {
+        return new SinglePlayerState(
+                id,
+                0,
+                0,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                state,
+                new SinglePlayer("Player", 0)
+        );
+    }
+
+    @Test
+    void evict() {
+        SinglePlayerState game = createGame(0, SinglePlayerState.GAME_OVER_STATE);
+        games.put(game);
+
+        assertTrue(evictor.evict(0, true));
+        assertFalse(evictor.evict(0, true));
+
+        assertNull(games.get(0));
+        assertEquals(List.of(game), archived);
+        assertEquals(1, evictor.getEvictedFinished());
+        assertEquals(0, evictor.getEvictedAbandoned());
+    }
+
+    @Test
+    void scheduleEviction() {
+        games.put(createGame(0, SinglePlayerState.GAME_OVER_STATE));
+        evictor.scheduleEviction(0);
+
+        currentTime.currentTime += 499;
+        timerWheel.advance(currentTime.currentTime);
+        assertNotNull(games.get(0));
+
+        currentTime.currentTime += 1;
+        timerWheel.advance(currentTime.currentTime);
+        assertNull(games.get(0));
+        assertEquals(1, evictor.getEvictedFinished());
+    }
+
+    @Test
+    void sweepEvictsOnlyIdleGames() {
+        games.put(createGame(0, SinglePlayerState.QUESTION_STATE));
+        games.put(createGame(1, SinglePlayerState.QUESTION_STATE));
+
+        currentTime.currentTime += 1500;
+        games.touch(1);
+        currentTime.currentTime += 1000;
+
+        assertEquals(1, evictor.sweep());
+        assertNull(games.get(0));
+        assertNotNull(games.get(1));
+        assertEquals(0, evictor.getEvictedFinished());
+        assertEquals(1, evictor.getEvictedAbandoned());
+    }
+
+    @Test
+    void periodicSweep() {
+        games.put(createGame(0, SinglePlayerState.QUESTION_STATE));
+        evictor.startSweeping();
+
+        currentTime.currentTime += 2000;
+        timerWheel.advance(currentTime.currentTime);
+        assertNotNull(games.get(0));
+
+        currentTime.currentTime += 1000;
+        timerWheel.advance(currentTime.currentTime);
+        assertNull(games.get(0));
+        assertEquals(1, evictor.getEvictedAbandoned());
+        // The next sweep is scheduled again
+        assertEquals(1, timerWheel.getPendingCount());
+    }
+}
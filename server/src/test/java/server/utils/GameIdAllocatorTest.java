@@ -0,0 +1,87 @@
+package server.utils;
+
+import commons.question.AbstractQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameIdAllocatorTest {
+
+    @Test
+    void allocateSequential() {
+        GameIdAllocator allocator = new GameIdAllocator();
+
+        assertEquals(0, allocator.allocate());
+        assertEquals(1, allocator.allocate());
+        assertEquals(2, allocator.allocate());
+    }
+
+    @Test
+    void allocateWithNodeId() {
+        GameIdAllocator allocator = new GameIdAllocator(3);
+
+        assertEquals(3L << GameIdAllocator.SEQUENCE_BITS, allocator.allocate());
+        assertEquals((3L << GameIdAllocator.SEQUENCE_BITS) + 1, allocator.allocate());
+    }
+
+    @Test
+    void allocateMaxNodeIdIsPositive() {
+        GameIdAllocator allocator = new GameIdAllocator(GameIdAllocator.MAX_NODE_ID);
+
+        assertTrue(allocator.allocate() > 0);
+    }
+
+    @Test
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new GameIdAllocator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new GameIdAllocator(GameIdAllocator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void parallelGameStartsGetUniqueIds() throws InterruptedException {
+        MockCurrentTimeUtils currentTime = new MockCurrentTimeUtils();
+        // The mock records its calls in a plain list, which must not be shared between threads.
+        GenerateQuestionUtils generateQuestionUtils =
+                new GenerateQuestionUtils(new MockActivityRepository(), new MockRandom()) {
+                    @Override
+                    public List<AbstractQuestion> generate20Questions() {
+                        return new ArrayList<>();
+                    }
+                };
+        QuestionSetPool questionSetPool = new QuestionSetPool(generateQuestionUtils, 0);
+        MultiPlayerStateUtils multiUtils = new MultiPlayerStateUtils(questionSetPool,
+                new QueueLobbies(currentTime, QueueLobbies.DEFAULT_LOBBY_SIZE),
+                currentTime, new MockScoreCountingUtils(),
+                new TimerWheel(currentTime), new GameIdAllocator());
+
+        int threads = 8;
+        int gamesPerThread = 1000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < gamesPerThread; j++) {
+                    ids.add(multiUtils.startNewGame());
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * gamesPerThread, ids.size());
+        assertEquals(threads * gamesPerThread, multiUtils.getGameCount());
+    }
+}
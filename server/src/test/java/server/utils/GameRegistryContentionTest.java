@@ -0,0 +1,166 @@
+package server.utils;
+
+import commons.misc.Activity;
+import commons.misc.GameResponse;
+import commons.multi.MultiPlayer;
+import commons.question.AbstractQuestion;
+import commons.question.ConsumptionQuestion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contention benchmark for the game registry.
+ * <p>
+ * Hundreds of multiplayer games are polled at once by an increasing number of threads,
+ * with every hundredth request submitting an answer. The same workload is also run with a single
+ * global lock around MultiPlayerStateUtils, which is how the utilities would have to be
+ * guarded without per-game locking.
+ * <p>
+ * The test is disabled so that it does not slow down the build. Run it by hand, ideally on
+ * a machine with several cores, after removing the annotation.
+ */
+@Disabled("Benchmark, run by hand")
+public class GameRegistryContentionTest {
+
+    private static final int GAMES = 500;
+    private static final int PLAYERS_PER_GAME = 4;
+    private static final long WARMUP_MS = 1000;
+    private static final long MEASURE_MS = 3000;
+
+    private TimerWheel timerWheel;
+    private MultiPlayerStateUtils multiUtils;
+    private long[] gameIds;
+
+    /**
+     * Start all games before the benchmark.
+     */
+    @BeforeEach
+    public void setup() {
+        MockGenerateQuestionUtils generateQuestionUtils =
+                new MockGenerateQuestionUtils(new MockActivityRepository(), new MockRandom());
+        List<AbstractQuestion> questions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Activity activity = new Activity("id" + i, "title", "source", "image", 100L + i);
+            questions.add(new ConsumptionQuestion(activity, List.of(100L + i, 50L, 200L)));
+        }
+        generateQuestionUtils.returnValue = questions;
+        CurrentTimeUtils currentTime = new CurrentTimeUtils();
+        timerWheel = new TimerWheel(currentTime);
+        timerWheel.start();
+
+        multiUtils = new MultiPlayerStateUtils(new QuestionSetPool(generateQuestionUtils, 0),
+                new QueueLobbies(currentTime, QueueLobbies.DEFAULT_LOBBY_SIZE),
+                currentTime, new ScoreCountingUtils(), timerWheel,
+                new GameIdAllocator());
+
+        gameIds = new long[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            gameIds[i] = multiUtils.startNewGame();
+            for (int j = 0; j < PLAYERS_PER_GAME; j++) {
+                multiUtils.addPlayer(gameIds[i], new MultiPlayer("player " + j, 0, true, true, true));
+            }
+        }
+    }
+
+    /**
+     * Stop the timer wheel after the benchmark.
+     */
+    @AfterEach
+    public void teardown() {
+        timerWheel.stop();
+    }
+
+    /**
+     * Runs the benchmark for 1, 2, 4, ... threads, up to twice the number of processors,
+     * and prints the throughput of both variants.
+     *
+     * @throws InterruptedException If the benchmark is interrupted.
+     */
+    @Test
+    public void contention() throws InterruptedException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int maxThreads = 2 * processors;
+
+        System.out.printf("%d games, %d processors%n", GAMES, processors);
+        System.out.printf("%8s %18s %18s%n", "threads", "striped ops/s", "global lock ops/s");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double striped = run(threads, false);
+            double global = run(threads, true);
+            System.out.printf("%8d %18.0f %18.0f%n", threads, striped, global);
+            assertTrue(striped > 0 && global > 0);
+        }
+    }
+
+    /**
+     * Measure the throughput of the given number of threads polling games.
+     *
+     * @param threads    Number of polling threads.
+     * @param globalLock Whether every request should take the same global lock.
+     * @return Requests per second.
+     * @throws InterruptedException If the benchmark is interrupted.
+     */
+    private double run(int threads, boolean globalLock) throws InterruptedException {
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    long id = gameIds[random.nextInt(GAMES)];
+                    boolean answer = random.nextInt(100) == 0;
+                    if (globalLock) {
+                        synchronized (this) {
+                            request(id, answer, random);
+                        }
+                    } else {
+                        request(id, answer, random);
+                    }
+                    if (measuring.get()) {
+                        operations.increment();
+                    }
+                }
+                done.countDown();
+            });
+            worker.start();
+        }
+
+        Thread.sleep(WARMUP_MS);
+        measuring.set(true);
+        Thread.sleep(MEASURE_MS);
+        measuring.set(false);
+        running.set(false);
+        done.await();
+
+        return operations.sum() * 1000.0 / MEASURE_MS;
+    }
+
+    /**
+     * A single client request: either a poll or an answer submission.
+     *
+     * @param id     Id of the game.
+     * @param answer Whether to submit an answer instead of polling.
+     * @param random Source of random numbers.
+     */
+    private void request(long id, boolean answer, ThreadLocalRandom random) {
+        if (answer) {
+            String username = "player " + random.nextInt(PLAYERS_PER_GAME);
+            multiUtils.postAnswer(new GameResponse(id, System.currentTimeMillis(), 0, username, "answer"));
+        } else {
+            multiUtils.getGameState(id);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package server.utils;
+
+import commons.misc.GameResponse;
+import commons.multi.MultiPlayerState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRegistryTest {
+
+    private GameRegistry<MultiPlayerState> registry;
+
+    private MultiPlayerState game0;
+    private MultiPlayerState game1;
+
+    @BeforeEach
+    void setUp() {
+        registry = new GameRegistry<>(new MockCurrentTimeUtils(), 3);
+
+        game0 = createGame(0);
+        game1 = createGame(1);
+    }
+
+    private MultiPlayerState createGame(long id) {
+        return new MultiPlayerState(
+                id,
+                Long.MAX_VALUE,
+                -1,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                MultiPlayerState.NOT_STARTED_STATE,
+                new ArrayList<>()
+        );
+    }
+
+    @Test
+    void getEmpty() {
+        assertNull(registry.get(0));
+        assertFalse(registry.contains(0));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void putAndGet() {
+        registry.put(game0);
+        registry.put(game1);
+
+        assertSame(game0, registry.get(0));
+        assertSame(game1, registry.get(1));
+        assertTrue(registry.contains(1));
+        assertEquals(2, registry.size());
+        assertEquals(Set.of(0L, 1L), registry.getIds());
+    }
+
+    @Test
+    void remove() {
+        registry.put(game0);
+
+        assertSame(game0, registry.remove(0));
+        assertNull(registry.remove(0));
+        assertFalse(registry.contains(0));
+    }
+
+    @Test
+    void updateMissingGame() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertNull(registry.update(0, game -> calls.incrementAndGet()));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void updateExistingGame() {
+        registry.put(game0);
+
+        Integer result = registry.update(0, game -> {
+            game.setRoundNumber(4);
+            return 42;
+        });
+
+        assertEquals(42, result);
+        assertEquals(4, game0.getRoundNumber());
+    }
+
+    @Test
+    void withLockIsReentrant() {
+        registry.put(game0);
+
+        String result = registry.withLock(0, () -> registry.update(0, game -> "nested"));
+
+        assertEquals("nested", result);
+    }
+
+    @Test
+    void concurrentAnswersAreNotLost() throws InterruptedException {
+        MockCurrentTimeUtils currentTime = new MockCurrentTimeUtils();
+        MockGenerateQuestionUtils generateQuestionUtils =
+                new MockGenerateQuestionUtils(new MockActivityRepository(), new MockRandom());
+        generateQuestionUtils.returnValue = new ArrayList<>();
+        QuestionSetPool questionSetPool = new QuestionSetPool(generateQuestionUtils, 0);
+        MultiPlayerStateUtils multiUtils = new MultiPlayerStateUtils(questionSetPool,
+                new QueueLobbies(currentTime, QueueLobbies.DEFAULT_LOBBY_SIZE),
+                currentTime, new MockScoreCountingUtils(),
+                new TimerWheel(currentTime), new GameIdAllocator());
+        long gameId = multiUtils.startNewGame();
+
+        int threads = 8;
+        int answersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            String username = "player " + i;
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < answersPerThread; j++) {
+                    multiUtils.postAnswer(new GameResponse(gameId, j, 0, username, "answer"));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * answersPerThread,
+                multiUtils.getGameState(gameId).getSubmittedAnswers().size());
+    }
+}
@@ -0,0 +1,33 @@
+package server.utils;
+
+import commons.misc.ActivityImage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.api.TestActivityImageRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageMigratorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void migrate() throws IOException {
+        TestActivityImageRepository repo = new TestActivityImageRepository();
+        repo.images.add(new ActivityImage("00-shower", new byte[] {1, 2, 3}));
+        repo.images.add(new ActivityImage("01-bath", new byte[] {4, 5}));
+
+        try (PackFileImageStore store = new PackFileImageStore(directory, PackFileImageStore.DEFAULT_PACK_SIZE)) {
+            assertEquals(2, new ImageMigrator(repo, store).migrate());
+
+            assertTrue(repo.images.isEmpty());
+            assertArrayEquals(new byte[] {1, 2, 3}, store.get("00-shower").orElseThrow().getBytes());
+            assertArrayEquals(new byte[] {4, 5}, store.get("01-bath").orElseThrow().getBytes());
+            assertEquals(0, new ImageMigrator(repo, store).migrate());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package server.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageTypesTest {
+
+    @Test
+    public void detectJpeg() {
+        assertEquals(MediaType.IMAGE_JPEG, ImageTypes.detect(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0}));
+    }
+
+    @Test
+    public void detectPng() {
+        byte[] header = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        assertEquals(MediaType.IMAGE_PNG, ImageTypes.detect(header));
+    }
+
+    @Test
+    public void detectWebp() {
+        byte[] header = {'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'E', 'B', 'P'};
+        assertEquals(MediaType.parseMediaType("image/webp"), ImageTypes.detect(header));
+    }
+
+    @Test
+    public void detectUnknown() {
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, ImageTypes.detect(new byte[] {'R', 'I', 'F', 'F'}));
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, ImageTypes.detect(new byte[0]));
+    }
+}
@@ -0,0 +1,149 @@
+package server.utils;
+
+import commons.misc.ImageVariant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantsTest {
+
+    @TempDir
+    Path directory;
+
+    private PackFileImageStore store;
+    private ImageVariants variants;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new PackFileImageStore(directory, PackFileImageStore.DEFAULT_PACK_SIZE);
+        variants = new ImageVariants(store, 1, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        variants.stop();
+        store.close();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, 0, 0xFF0000);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(StoredImage image) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(image.getBytes()));
+    }
+
+    private void awaitGenerated(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (variants.getGenerated() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, variants.getGenerated());
+    }
+
+    @Test
+    public void getMissing() throws IOException {
+        assertTrue(variants.get("00-shower", ImageVariant.THUMBNAIL).isEmpty());
+    }
+
+    @Test
+    public void getOriginal() throws IOException {
+        String hash = store.put("00-shower", png(800, 600));
+
+        assertEquals(hash, variants.get("00-shower", ImageVariant.ORIGINAL).orElseThrow().getHash());
+    }
+
+    @Test
+    public void submitGeneratesVariants() throws IOException, InterruptedException {
+        store.put("00-shower", png(800, 600));
+
+        variants.submit("00-shower");
+        awaitGenerated(2);
+
+        BufferedImage thumbnail = decode(variants.get("00-shower", ImageVariant.THUMBNAIL).orElseThrow());
+        BufferedImage question = decode(variants.get("00-shower", ImageVariant.QUESTION).orElseThrow());
+        assertEquals(100, thumbnail.getWidth());
+        assertEquals(75, thumbnail.getHeight());
+        assertEquals(427, question.getWidth());
+        assertEquals(320, question.getHeight());
+    }
+
+    @Test
+    public void getQueuesMissingVariants() throws IOException, InterruptedException {
+        String hash = store.put("00-shower", png(800, 600));
+
+        assertEquals(hash, variants.get("00-shower", ImageVariant.THUMBNAIL).orElseThrow().getHash());
+        awaitGenerated(2);
+
+        assertNotEquals(hash, variants.get("00-shower", ImageVariant.THUMBNAIL).orElseThrow().getHash());
+    }
+
+    @Test
+    public void smallImageIsNotEnlarged() throws IOException, InterruptedException {
+        String hash = store.put("00-shower", png(50, 40));
+
+        variants.submit("00-shower");
+        awaitGenerated(2);
+
+        assertEquals(hash, variants.get("00-shower", ImageVariant.THUMBNAIL).orElseThrow().getHash());
+        assertEquals(1, store.getRecordCount());
+    }
+
+    @Test
+    public void replacedImageGetsNewVariants() throws IOException, InterruptedException {
+        store.put("00-shower", png(800, 600));
+        variants.submit("00-shower");
+        awaitGenerated(2);
+
+        store.put("00-shower", png(600, 800));
+        BufferedImage stale = decode(variants.get("00-shower", ImageVariant.THUMBNAIL).orElseThrow());
+        awaitGenerated(4);
+
+        BufferedImage thumbnail = decode(variants.get("00-shower", ImageVariant.THUMBNAIL).orElseThrow());
+        assertEquals(600, stale.getWidth());
+        assertEquals(75, thumbnail.getWidth());
+        assertEquals(100, thumbnail.getHeight());
+    }
+
+    @Test
+    public void unsupportedImage() throws IOException, InterruptedException {
+        store.put("00-shower", new byte[] {1, 2, 3});
+
+        variants.submit("00-shower");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (variants.getQueued() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        StoredImage image = variants.get("00-shower", ImageVariant.QUESTION).orElseThrow();
+        assertEquals(0, variants.getGenerated());
+        assertArrayEquals(new byte[] {1, 2, 3}, image.getBytes());
+    }
+
+    @Test
+    public void resize() {
+        BufferedImage image = new BufferedImage(1000, 10, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage resized = ImageVariants.resize(image, 100, 1, true);
+
+        assertEquals(100, resized.getWidth());
+        assertEquals(1, resized.getHeight());
+        assertTrue(resized.getColorModel().hasAlpha());
+    }
+}
@@ -133,6 +133,16 @@ public class MockActivityRepository implements ActivityRepository {
         return null;
     }
 
+    /**
+     * Finds the largest key of the activities.
+     *
+     * @return the largest key, or {@literal null} if there are no activities.
+     */
+    @Override
+    public Long findMaxKey() {
+        return null;
+    }
+
     /**
      * Retrieves an entity by its id.
      *
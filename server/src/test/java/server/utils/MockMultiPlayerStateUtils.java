@@ -1,12 +1,15 @@
 package server.utils;
 
+import commons.multi.ChatMessage;
 import commons.multi.MultiPlayer;
 import commons.multi.MultiPlayerState;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Random;
+import java.util.function.Function;
 
 /**
  * Mock class for testing other classes which use MultiPlayerStateUtils.
@@ -28,9 +31,10 @@ public class MockMultiPlayerStateUtils extends MultiPlayerStateUtils {
      * Constructor for multiplayer server-side utility class.
      */
     public MockMultiPlayerStateUtils() {
-        super(new MockGenerateQuestionUtils(new MockActivityRepository(), new Random()),
-                new QueueUtils(new MockCurrentTimeUtils()), new MockCurrentTimeUtils(),
-                new ScoreCountingUtils());
+        super(new QuestionSetPool(new MockGenerateQuestionUtils(new MockActivityRepository(), new Random()), 0),
+                new QueueLobbies(new MockCurrentTimeUtils(), QueueLobbies.DEFAULT_LOBBY_SIZE),
+                new MockCurrentTimeUtils(),
+                new ScoreCountingUtils(), new TimerWheel(new MockCurrentTimeUtils()), new GameIdAllocator());
     }
 
     @Override
@@ -53,6 +57,38 @@ public class MockMultiPlayerStateUtils extends MultiPlayerStateUtils {
         return (MultiPlayerState) returnValues.poll();
     }
 
+    /**
+     * Run an action on the multiplayer game state returned by getGameState.
+     *
+     * @param id     Id of the multiplayer game.
+     * @param action Action to run on the game.
+     * @param <R>    Type of the result of the action.
+     * @return Result of the action, or null if there is no game.
+     */
+    @Override
+    public <R> R readGameState(long id, Function<MultiPlayerState, R> action) {
+        calledMethods.add("readGameState");
+        params.add(id);
+        MultiPlayerState game = (MultiPlayerState) returnValues.poll();
+        return game == null ? null : action.apply(game);
+    }
+
+    /**
+     * Get the chat messages of a game which were sent after the given cursor.
+     *
+     * @param id     Id of the multiplayer game.
+     * @param cursor Sequence number of the last message the client has seen.
+     * @return Messages after the cursor.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ChatMessage> getChatMessages(long id, long cursor) {
+        calledMethods.add("getChatMessages");
+        params.add(id);
+        params.add(cursor);
+        return (List<ChatMessage>) returnValues.poll();
+    }
+
     /**
      * Add a player to a multiplayer game.
      * <p>
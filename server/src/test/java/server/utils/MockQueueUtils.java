@@ -24,6 +24,11 @@ public class MockQueueUtils extends QueueUtils {
 
     public ArrayList<Object> params = new ArrayList<>();
 
+    /**
+     * Number of users in the queue, as the mocked methods do not add any.
+     */
+    public int size;
+
     /**
      * Default constructor for QueueUtils.
      * <p>
@@ -175,4 +180,16 @@ public class MockQueueUtils extends QueueUtils {
         params.add(username);
         return (QueueUser) returnValues.poll();
     }
+
+    /**
+     * Getter for the number of users in the queue.
+     * <p>
+     * Not recorded, as the lobbies check it whenever they are changed.
+     *
+     * @return Number of users.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
 }
@@ -2,6 +2,7 @@ package server.utils;
 
 import commons.misc.Activity;
 import commons.misc.GameResponse;
+import commons.multi.ChatMessage;
 import commons.multi.MultiPlayer;
 import commons.multi.MultiPlayerState;
 import commons.question.AbstractQuestion;
@@ -24,8 +25,9 @@ class MultiPlayerStateUtilsTest {
     private ArrayList<AbstractQuestion> questions;
 
     private MockCurrentTimeUtils currentTime;
-    private MockQueueUtils queueUtils;
+    private QueueLobbies lobbies;
     private MockScoreCountingUtils scoreCounting;
+    private TimerWheel timerWheel;
 
     private MultiPlayerStateUtils multiUtils;
 
@@ -61,7 +63,7 @@ class MultiPlayerStateUtilsTest {
         generateQuestionUtils = new MockGenerateQuestionUtils(activityRepository, random);
 
         currentTime = new MockCurrentTimeUtils();
-        queueUtils = new MockQueueUtils(currentTime);
+        lobbies = new QueueLobbies(currentTime, QueueLobbies.DEFAULT_LOBBY_SIZE);
         scoreCounting = new MockScoreCountingUtils();
 
         activity1 = new Activity("i1", "t1", "s1", "m1", 1L);
@@ -84,7 +86,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.NOT_STARTED_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         multiPlayerStateStarted = new MultiPlayerState(
@@ -94,7 +95,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.STARTING_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         multiPlayerStateQuestion0 = new MultiPlayerState(
@@ -108,7 +108,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.QUESTION_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         multiPlayerStateQuestion19 = new MultiPlayerState(
@@ -118,7 +117,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.QUESTION_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         multiPlayerStateTransition0 = new MultiPlayerState(
@@ -128,7 +126,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.TRANSITION_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         multiPlayerStateTransition4 = new MultiPlayerState(
@@ -138,7 +135,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.TRANSITION_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         multiPlayerStateLeaderboard = new MultiPlayerState(
@@ -148,7 +144,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.LEADERBOARD_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
         multiPlayerStateGameOver = new MultiPlayerState(
@@ -158,10 +153,11 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.GAME_OVER_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         );
-        multiUtils = new MultiPlayerStateUtils(generateQuestionUtils, queueUtils, currentTime, scoreCounting);
+        timerWheel = new TimerWheel(currentTime);
+        multiUtils = new MultiPlayerStateUtils(new QuestionSetPool(generateQuestionUtils, 0), lobbies,
+                currentTime, scoreCounting, timerWheel, new GameIdAllocator());
 
         setResponses();
     }
@@ -364,7 +360,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.QUESTION_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         ), multiPlayerStateQuestion0);
     }
@@ -382,7 +377,6 @@ class MultiPlayerStateUtilsTest {
                 questions,
                 new ArrayList<>(),
                 MultiPlayerState.TRANSITION_STATE,
-                new ArrayList<>(),
                 new ArrayList<>()
         ), multiPlayerStateQuestion0);
     }
@@ -551,6 +545,249 @@ class MultiPlayerStateUtilsTest {
         assertEquals(multiPlayerStateStarted, multiUtils.getGameState(id));
     }
 
+    @Test
+    void getGameStateDoesNotAdvance() {
+        long id = multiUtils.startNewGame();
+        currentTime.currentTime += 3000;
+
+        assertEquals(multiPlayerStateStarted, multiUtils.getGameState(id));
+    }
+
+    @Test
+    void getGameStateKeepsVersion() {
+        long id = multiUtils.startNewGame();
+        long version = multiUtils.getGameState(id).getVersion();
+
+        assertEquals(version, multiUtils.getGameState(id).getVersion());
+    }
+
+    @Test
+    void mutationsIncrementVersion() {
+        long id = multiUtils.startNewGame();
+        MultiPlayerState game = multiUtils.getGameState(id);
+        long version = game.getVersion();
+
+        multiUtils.addPlayer(id, new MultiPlayer("Client A", 0, true, true, true));
+        assertTrue(game.getVersion() > version);
+        version = game.getVersion();
+
+        multiUtils.postAnswer(new GameResponse(id, currentTime.currentTime, 0, "Client A", "MockAnswer"));
+        assertTrue(game.getVersion() > version);
+        version = game.getVersion();
+
+        multiUtils.addChatMessage(game, new ChatMessage("Client A", "laughing"));
+        assertTrue(game.getVersion() > version);
+        version = game.getVersion();
+
+        currentTime.currentTime += 3000;
+        timerWheel.advance(currentTime.currentTime);
+        assertTrue(game.getVersion() > version);
+    }
+
+    @Test
+    void addChatMessageKeepsRecentMessages() {
+        long id = multiUtils.startNewGame();
+        MultiPlayerState game = multiUtils.getGameState(id);
+
+        for (int i = 0; i < MultiPlayerStateUtils.CHAT_CAPACITY + 10; i++) {
+            multiUtils.addChatMessage(game, new ChatMessage("Client A", "laughing"));
+        }
+
+        List<ChatMessage> messages = multiUtils.getChatMessages(id, 0);
+        assertEquals(MultiPlayerStateUtils.CHAT_CAPACITY + 10, game.getChatSequence());
+        assertEquals(MultiPlayerStateUtils.CHAT_CAPACITY, messages.size());
+        assertEquals(11, messages.get(0).getSequence());
+    }
+
+    @Test
+    void getChatMessagesWithoutMessages() {
+        long id = multiUtils.startNewGame();
+
+        assertEquals(List.of(), multiUtils.getChatMessages(id, 0));
+        assertEquals(0, multiUtils.getGameState(id).getChatSequence());
+    }
+
+    @Test
+    void getChatMessagesAfterCursor() {
+        long id = multiUtils.startNewGame();
+        MultiPlayerState game = multiUtils.getGameState(id);
+        multiUtils.addChatMessage(game, new ChatMessage("Client A", "laughing"));
+        multiUtils.addChatMessage(game, new ChatMessage("Client B", "angry"));
+        multiUtils.addChatMessage(game, new ChatMessage("Client A", "crying"));
+
+        List<ChatMessage> messages = multiUtils.getChatMessages(id, 1);
+
+        assertEquals(2, messages.size());
+        assertEquals("angry", messages.get(0).getMessage());
+        assertEquals("crying", messages.get(1).getMessage());
+        assertNull(multiUtils.getChatMessages(id + 1, 0));
+    }
+
+    @Test
+    void timeJokerResetOnTimerWheel() {
+        long id = multiUtils.startNewGame();
+        multiUtils.addPlayer(id, new MultiPlayer("Client A", 0, true, true, true));
+        int pending = timerWheel.getPendingCount();
+
+        assertEquals("Client A", multiUtils.useTimeJoker(id, "Client A").getUsername());
+        assertEquals("Client A", multiUtils.getGameState(id).getPlayerUsingTimeJoker().getUsername());
+        assertEquals(1, multiUtils.getPendingTimeJokerResets());
+        assertEquals(pending + 1, timerWheel.getPendingCount());
+
+        currentTime.currentTime += MultiPlayerStateUtils.TIME_JOKER_DURATION;
+        timerWheel.advance(currentTime.currentTime);
+        assertNull(multiUtils.getGameState(id).getPlayerUsingTimeJoker());
+        assertEquals(0, multiUtils.getPendingTimeJokerResets());
+    }
+
+    @Test
+    void timeJokerLaterUseCancelsEarlierReset() {
+        long id = multiUtils.startNewGame();
+        multiUtils.addPlayer(id, new MultiPlayer("Client A", 0, true, true, true));
+        multiUtils.addPlayer(id, new MultiPlayer("Client B", 0, true, true, true));
+        int pending = timerWheel.getPendingCount();
+
+        multiUtils.useTimeJoker(id, "Client A");
+        currentTime.currentTime += MultiPlayerStateUtils.TIME_JOKER_DURATION - 100;
+        multiUtils.useTimeJoker(id, "Client B");
+        assertEquals(pending + 1, timerWheel.getPendingCount());
+
+        currentTime.currentTime += 100;
+        timerWheel.advance(currentTime.currentTime);
+        assertEquals("Client B", multiUtils.getGameState(id).getPlayerUsingTimeJoker().getUsername());
+    }
+
+    @Test
+    void timeJokerResetCancelledOnEviction() {
+        long id = multiUtils.startNewGame();
+        multiUtils.addPlayer(id, new MultiPlayer("Client A", 0, true, true, true));
+        multiUtils.useTimeJoker(id, "Client A");
+        int pending = timerWheel.getPendingCount();
+
+        assertTrue(multiUtils.getEvictor().evict(id, false));
+
+        assertEquals(0, multiUtils.getPendingTimeJokerResets());
+        assertEquals(pending - 1, timerWheel.getPendingCount());
+    }
+
+    @Test
+    void timeJokerUnknownGame() {
+        assertNull(multiUtils.useTimeJoker(42, "Client A"));
+        assertEquals(0, multiUtils.getPendingTimeJokerResets());
+    }
+
+    @Test
+    void timeJokerUpdatesGameOnce() {
+        long id = multiUtils.startNewGame();
+        multiUtils.addPlayer(id, new MultiPlayer("Client A", 0, true, true, true));
+        List<String> events = new ArrayList<>();
+        multiUtils.setListener(new GameListener<>() {
+            @Override
+            public void changed(MultiPlayerState game) {
+                events.add("changed");
+            }
+
+            @Override
+            public void removed(MultiPlayerState game) {
+                events.add("removed");
+            }
+        });
+        long version = multiUtils.getGameState(id).getVersion();
+
+        multiUtils.useTimeJoker(id, "Client A");
+
+        assertEquals(version + 1, multiUtils.getGameState(id).getVersion());
+        assertEquals(List.of("changed"), events);
+    }
+
+    @Test
+    void timeJokerUnknownPlayer() {
+        long id = multiUtils.startNewGame();
+        multiUtils.addPlayer(id, new MultiPlayer("Client A", 0, true, true, true));
+        multiUtils.useTimeJoker(id, "Client A");
+        int pending = timerWheel.getPendingCount();
+
+        assertNull(multiUtils.useTimeJoker(id, "Client B"));
+
+        assertEquals("Client A", multiUtils.getGameState(id).getPlayerUsingTimeJoker().getUsername());
+        assertEquals(1, multiUtils.getPendingTimeJokerResets());
+        assertEquals(pending, timerWheel.getPendingCount());
+    }
+
+    @Test
+    void timerWheelAdvancesGame() {
+        long id = multiUtils.startNewGame();
+
+        currentTime.currentTime += 2999;
+        timerWheel.advance(currentTime.currentTime);
+        assertEquals(multiPlayerStateStarted, multiUtils.getGameState(id));
+
+        currentTime.currentTime += 1;
+        timerWheel.advance(currentTime.currentTime);
+        assertEquals(multiPlayerStateQuestion0, multiUtils.getGameState(id));
+
+        currentTime.currentTime += 8000;
+        timerWheel.advance(currentTime.currentTime);
+        assertEquals(multiPlayerStateTransition0, multiUtils.getGameState(id));
+    }
+
+    @Test
+    void timerWheelFinishesGame() {
+        long id = multiUtils.startNewGame();
+
+        currentTime.currentTime += 1000 * (3 + 11 * 20 + 5 * 3);
+        timerWheel.advance(currentTime.currentTime);
+
+        assertEquals(MultiPlayerState.GAME_OVER_STATE, multiUtils.getGameState(id).getState());
+    }
+
+    @Test
+    void listenerIsNotified() {
+        List<String> events = new ArrayList<>();
+        multiUtils.setListener(new GameListener<>() {
+            @Override
+            public void changed(MultiPlayerState game) {
+                events.add("changed " + game.getState());
+            }
+
+            @Override
+            public void removed(MultiPlayerState game) {
+                events.add("removed " + game.getState());
+            }
+        });
+        multiUtils.getEvictor().setFinishedTtl(1000);
+        final long id = multiUtils.startNewGame();
+
+        currentTime.currentTime += 3000;
+        timerWheel.advance(currentTime.currentTime);
+        assertEquals(List.of("changed " + MultiPlayerState.QUESTION_STATE), events);
+
+        currentTime.currentTime += 1000 * (11 * 20 + 5 * 3);
+        timerWheel.advance(currentTime.currentTime);
+        assertEquals("changed " + MultiPlayerState.GAME_OVER_STATE, events.get(events.size() - 1));
+
+        currentTime.currentTime += 1000;
+        timerWheel.advance(currentTime.currentTime);
+        assertEquals("removed " + MultiPlayerState.GAME_OVER_STATE, events.get(events.size() - 1));
+        assertNull(multiUtils.getGameState(id));
+    }
+
+    @Test
+    void finishedGameIsEvicted() {
+        long id = multiUtils.startNewGame();
+        multiUtils.getEvictor().setFinishedTtl(1000);
+
+        currentTime.currentTime += 1000 * (3 + 11 * 20 + 5 * 3);
+        timerWheel.advance(currentTime.currentTime);
+        assertNotNull(multiUtils.getGameState(id));
+
+        currentTime.currentTime += 1000;
+        timerWheel.advance(currentTime.currentTime);
+        assertNull(multiUtils.getGameState(id));
+        assertEquals(0, multiUtils.getGameCount());
+        assertEquals(1, multiUtils.getEvictor().getEvictedFinished());
+    }
+
     @Test
     void createNextGame() {
         MultiPlayerState game = multiUtils.createNextGame();
@@ -572,6 +809,14 @@ class MultiPlayerStateUtilsTest {
         assertEquals(2, multiUtils.generateNextGameId());
     }
 
+    @Test
+    void generateNextGameIdNotReused() {
+        long id = multiUtils.startNewGame();
+        multiUtils.getEvictor().evict(id, true);
+
+        assertEquals(1, multiUtils.startNewGame());
+    }
+
     @Test
     void containsPlayerSingle() {
         // Start a game
@@ -0,0 +1,186 @@
+package server.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackFileImageStoreTest {
+
+    private static final long PACK_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    private PackFileImageStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new PackFileImageStore(directory, PACK_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    private static byte[] image(int length, int seed) {
+        byte[] image = new byte[length];
+        for (int i = 0; i < length; i++) {
+            image[i] = (byte) (seed + i);
+        }
+        return image;
+    }
+
+    private PackFileImageStore reopen() throws IOException {
+        store.close();
+        store = new PackFileImageStore(directory, PACK_SIZE);
+        return store;
+    }
+
+    private static long packFiles(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("pack-")).count();
+        }
+    }
+
+    @Test
+    public void constructorInvalidPackSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PackFileImageStore(directory, 8));
+    }
+
+    @Test
+    public void getMissing() throws IOException {
+        assertEquals(Optional.empty(), store.get("00-shower"));
+    }
+
+    @Test
+    public void putAndGet() throws IOException {
+        byte[] image = image(100, 1);
+
+        String hash = store.put("00-shower", image);
+        StoredImage stored = store.get("00-shower").orElseThrow();
+
+        assertEquals(ImageStore.hash(image), hash);
+        assertEquals(hash, stored.getHash());
+        assertEquals(100, stored.getLength());
+        assertArrayEquals(image, stored.getBytes());
+    }
+
+    @Test
+    public void putDeduplicates() throws IOException {
+        byte[] image = image(100, 1);
+
+        store.put("00-shower", image);
+        long size = store.getPackBytes();
+        store.put("01-bath", image.clone());
+
+        assertEquals(size, store.getPackBytes());
+        assertEquals(2, store.getImageCount());
+        assertEquals(1, store.getRecordCount());
+        assertEquals(1, store.getDeduplicated());
+        assertArrayEquals(image, store.get("01-bath").orElseThrow().getBytes());
+    }
+
+    @Test
+    public void putReplaces() throws IOException {
+        store.put("00-shower", image(100, 1));
+        store.put("00-shower", image(50, 2));
+
+        assertArrayEquals(image(50, 2), store.get("00-shower").orElseThrow().getBytes());
+        assertEquals(1, store.getImageCount());
+    }
+
+    @Test
+    public void putInvalidId() {
+        assertThrows(IllegalArgumentException.class, () -> store.put("00\tshower", image(1, 1)));
+    }
+
+    @Test
+    public void putStartsNewPack() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            store.put("00-image-" + i, image(300, i));
+        }
+
+        assertTrue(packFiles(directory) > 1);
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(image(300, i), store.get("00-image-" + i).orElseThrow().getBytes());
+        }
+    }
+
+    @Test
+    public void putLargerThanPack() throws IOException {
+        store.put("00-small", image(10, 1));
+        store.put("00-large", image(5000, 2));
+
+        assertArrayEquals(image(5000, 2), store.get("00-large").orElseThrow().getBytes());
+        assertArrayEquals(image(10, 1), store.get("00-small").orElseThrow().getBytes());
+    }
+
+    @Test
+    public void getAfterAppend() throws IOException {
+        store.put("00-first", image(10, 1));
+        // Maps the pack file, which has to be mapped again to read the next image
+        store.get("00-first").orElseThrow().getBytes();
+        store.put("00-second", image(20, 2));
+
+        assertArrayEquals(image(20, 2), store.get("00-second").orElseThrow().getBytes());
+    }
+
+    @Test
+    public void getData() throws IOException {
+        store.put("00-shower", image(100, 1));
+        StoredImage stored = store.get("00-shower").orElseThrow();
+
+        ByteBuffer data = stored.getData();
+        data.get(new byte[40]);
+
+        assertTrue(data.isReadOnly());
+        assertEquals(100, stored.getData().remaining());
+        assertArrayEquals(image(4, 1), stored.getHeader(4));
+    }
+
+    @Test
+    public void reopenKeepsImages() throws IOException {
+        store.put("00-shower", image(100, 1));
+        store.put("00-shower", image(200, 2));
+        store.put("01-bath", image(300, 3));
+
+        reopen();
+
+        assertEquals(2, store.getImageCount());
+        assertArrayEquals(image(200, 2), store.get("00-shower").orElseThrow().getBytes());
+        assertArrayEquals(image(300, 3), store.get("01-bath").orElseThrow().getBytes());
+    }
+
+    @Test
+    public void reopenAfterIncompleteRecord() throws IOException {
+        store.put("00-shower", image(100, 1));
+        long size = store.getPackBytes();
+        store.close();
+        Files.write(directory.resolve("pack-00000.dat"), image(30, 7), StandardOpenOption.APPEND);
+        Files.writeString(directory.resolve("refs.log"), "01-bath\tab", StandardOpenOption.APPEND);
+
+        store = new PackFileImageStore(directory, PACK_SIZE);
+
+        assertEquals(size, store.getPackBytes());
+        store.put("02-sink", image(50, 2));
+        assertEquals(Optional.empty(), store.get("01-bath"));
+        assertArrayEquals(image(100, 1), store.get("00-shower").orElseThrow().getBytes());
+        assertArrayEquals(image(50, 2), store.get("02-sink").orElseThrow().getBytes());
+
+        reopen();
+
+        assertEquals(2, store.getImageCount());
+        assertArrayEquals(image(50, 2), store.get("02-sink").orElseThrow().getBytes());
+    }
+}
@@ -0,0 +1,107 @@
+package server.utils;
+
+import commons.misc.Activity;
+import commons.question.AbstractQuestion;
+import commons.question.GuessQuestion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionSetPoolTest {
+
+    private MockGenerateQuestionUtils generateQuestionUtils;
+    private List<AbstractQuestion> questions;
+
+    private QuestionSetPool pool;
+
+    @BeforeEach
+    void setUp() {
+        generateQuestionUtils = new MockGenerateQuestionUtils(new MockActivityRepository(), new MockRandom());
+        questions = new ArrayList<>();
+        questions.add(new GuessQuestion(new Activity("i1", "t1", "s1", "m1", 1L)));
+        generateQuestionUtils.returnValue = questions;
+
+        pool = new QuestionSetPool(generateQuestionUtils, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.stop();
+    }
+
+    private void awaitDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, pool.getDepth());
+    }
+
+    @Test
+    void takeFromEmptyPool() {
+        assertSame(questions, pool.take());
+
+        assertEquals(0, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(List.of("generate20Questions"), generateQuestionUtils.calledMethods);
+    }
+
+    @Test
+    void producerFillsPool() throws InterruptedException {
+        pool.start();
+        awaitDepth(3);
+
+        assertSame(questions, pool.take());
+        assertEquals(1, pool.getHits());
+        assertEquals(0, pool.getMisses());
+
+        // The producer generates a replacement for the set that was taken
+        awaitDepth(3);
+        assertTrue(pool.getAverageRefillMillis() >= 0);
+    }
+
+    @Test
+    void clear() throws InterruptedException {
+        pool.start();
+        awaitDepth(3);
+
+        pool.stop();
+        pool.clear();
+
+        assertEquals(0, pool.getDepth());
+    }
+
+    @Test
+    void clearDiscardsSetWaitingForRoom() throws InterruptedException {
+        pool.start();
+        awaitDepth(3);
+
+        // The producer is now waiting to add a fourth set from the old activities
+        List<AbstractQuestion> newQuestions = new ArrayList<>();
+        newQuestions.add(new GuessQuestion(new Activity("i2", "t2", "s2", "m2", 2L)));
+        synchronized (generateQuestionUtils) {
+            generateQuestionUtils.returnValue = newQuestions;
+        }
+        pool.clear();
+        awaitDepth(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(newQuestions, pool.take());
+        }
+    }
+
+    @Test
+    void disabledPool() {
+        QuestionSetPool disabled = new QuestionSetPool(generateQuestionUtils, 0);
+        disabled.start();
+
+        assertEquals(0, disabled.getCapacity());
+        assertSame(questions, disabled.take());
+        assertEquals(1, disabled.getMisses());
+    }
+}
@@ -0,0 +1,180 @@
+package server.utils;
+
+import commons.queue.QueueState;
+import commons.queue.QueueUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueLobbiesTest {
+
+    private QueueLobbies lobbies;
+    private long nextGameId;
+    private List<String> changed;
+    private List<String> removed;
+
+    @BeforeEach
+    void setUp() {
+        lobbies = new QueueLobbies(new MockCurrentTimeUtils(), 2);
+        nextGameId = 100;
+        changed = new ArrayList<>();
+        removed = new ArrayList<>();
+        lobbies.setOnStart(() -> nextGameId++);
+        lobbies.setOnChange((name, state) -> changed.add(name));
+        lobbies.setOnRemove(removed::add);
+    }
+
+    private QueueUser join(String lobby, String username) {
+        QueueUser user = new QueueUser(username);
+        if (lobby == null) {
+            return lobbies.joinOpen((name, queue) -> lobbies.join(name, queue, user));
+        }
+        return lobbies.join(lobby, lobbies.find(lobby), user);
+    }
+
+    @Test
+    void joinOpen() {
+        QueueUser user = join(null, "a");
+
+        assertEquals("auto-1", user.getLobby());
+        assertEquals(1, lobbies.get("auto-1").getSize());
+        assertEquals(lobbies.get("auto-1"), lobbies.lobbyOf("a"));
+        assertEquals(List.of("auto-1"), changed);
+    }
+
+    @Test
+    void openShardedWhenFull() {
+        join(null, "a");
+        join(null, "b");
+        QueueUser third = join(null, "c");
+
+        assertEquals("auto-2", third.getLobby());
+        assertEquals(2, lobbies.getLobbyCount());
+        assertEquals(3, lobbies.getUserCount());
+    }
+
+    @Test
+    void openShardedWhenStarting() {
+        join(null, "a");
+        assertTrue(lobbies.startCountdown(lobbies.get("auto-1")));
+
+        assertEquals("auto-2", join(null, "b").getLobby());
+        assertFalse(lobbies.get("auto-2").isGameStarting());
+    }
+
+    @Test
+    void parallelGames() {
+        join(null, "a");
+        lobbies.startCountdown(lobbies.get("auto-1"));
+        join(null, "b");
+        lobbies.startCountdown(lobbies.get("auto-2"));
+
+        QueueState first = lobbies.get("auto-1").getQueue();
+        QueueState second = lobbies.get("auto-2").getQueue();
+        assertEquals(100, first.getUpcomingGameId());
+        assertEquals(101, second.getUpcomingGameId());
+        assertEquals("a", first.getUsers().get(0).getUsername());
+    }
+
+    @Test
+    void startTwice() {
+        join("room", "a");
+
+        assertTrue(lobbies.startCountdown(lobbies.get("room")));
+        assertFalse(lobbies.startCountdown(lobbies.get("room")));
+    }
+
+    @Test
+    void joinNamed() {
+        join("room", "a");
+        join("room", "b");
+
+        assertEquals(2, lobbies.get("room").getSize());
+        assertNull(join("room", "c"));
+        assertEquals(1, lobbies.getLobbyCount());
+    }
+
+    @Test
+    void usernameUniqueAcrossLobbies() {
+        join("room", "a");
+
+        assertNull(join("other", "a"));
+        assertNull(join(null, "a"));
+        assertNull(lobbies.get("other"));
+    }
+
+    @Test
+    void findDoesNotKeepLobby() {
+        assertNotNull(lobbies.find("room"));
+
+        assertNull(lobbies.get("room"));
+        assertEquals(0, lobbies.getLobbyCount());
+    }
+
+    @Test
+    void leaveRemovesEmptyLobby() {
+        join("room", "a");
+        join("room", "b");
+
+        assertEquals("a", lobbies.leave("a").getUsername());
+        assertNotNull(lobbies.get("room"));
+        assertNull(lobbies.lobbyOf("a"));
+
+        lobbies.leave("b");
+        assertNull(lobbies.get("room"));
+        assertEquals(List.of("room"), removed);
+    }
+
+    @Test
+    void leaveUnknown() {
+        assertNull(lobbies.leave("a"));
+    }
+
+    @Test
+    void leaveOpenOpensNew() {
+        join(null, "a");
+        lobbies.leave("a");
+
+        assertEquals("auto-2", lobbies.open());
+    }
+
+    @Test
+    void readOpenDoesNotOpenNew() {
+        assertNull(lobbies.read(null, (name, queue) -> name));
+        join(null, "a");
+        join(null, "b");
+
+        // The open lobby is full, but reading it does not open the next one
+        assertEquals("auto-1", lobbies.read(null, (name, queue) -> name));
+        assertEquals(1, lobbies.getLobbyCount());
+        assertEquals("auto-2", join(null, "c").getLobby());
+    }
+
+    @Test
+    void snapshotIsNotChangedByJoins() {
+        join(null, "a");
+        QueueState state = lobbies.read(null, (name, queue) -> QueueLobbies.snapshot(queue));
+        join(null, "b");
+
+        assertEquals(1, state.getUsers().size());
+        assertEquals(2, lobbies.get("auto-1").getQueue().getUsers().size());
+    }
+
+    @Test
+    void startCountdownEmpty() {
+        assertFalse(lobbies.startCountdown(lobbies.find("room")));
+    }
+
+    @Test
+    void validName() {
+        assertTrue(QueueLobbies.isValidName("room_1-B"));
+        assertFalse(QueueLobbies.isValidName(""));
+        assertFalse(QueueLobbies.isValidName(null));
+        assertFalse(QueueLobbies.isValidName("no spaces"));
+        assertFalse(QueueLobbies.isValidName("a".repeat(33)));
+    }
+}
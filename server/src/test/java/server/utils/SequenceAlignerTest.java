@@ -0,0 +1,52 @@
+package server.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceAlignerTest {
+
+    private JdbcTemplate jdbc;
+    private SequenceAligner aligner;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new SingleConnectionDataSource("jdbc:h2:mem:", "sa", "", true));
+        jdbc.execute("CREATE SEQUENCE activity_sequence START WITH 1 INCREMENT BY 50");
+        aligner = new SequenceAligner(jdbc);
+    }
+
+    private long nextValue() {
+        return jdbc.queryForObject("SELECT NEXT VALUE FOR activity_sequence", Long.class);
+    }
+
+    @Test
+    public void alignMovesPastKeys() {
+        assertTrue(aligner.align("activity_sequence", 50, 120L));
+        // The block of the returned value starts right after the largest key
+        assertEquals(170, nextValue());
+        assertEquals(220, nextValue());
+    }
+
+    @Test
+    public void alignKeepsSequenceAhead() {
+        nextValue();
+        nextValue();
+        assertFalse(aligner.align("activity_sequence", 50, 51L));
+        assertEquals(101, nextValue());
+    }
+
+    @Test
+    public void alignNoKeys() {
+        assertFalse(aligner.align("activity_sequence", 50, null));
+        assertEquals(1, nextValue());
+    }
+
+    @Test
+    public void alignMissingSequence() {
+        assertFalse(aligner.align("other_sequence", 50, 120L));
+    }
+}
@@ -0,0 +1,198 @@
+package server.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.queue.QueueState;
+import commons.queue.QueueUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateBroadcasterTest {
+
+    private static final String TOPIC = StateBroadcaster.QUEUE_PREFIX + "auto-1";
+
+    private StateBroadcaster broadcaster;
+    private QueueState queueState;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new StateBroadcaster(new ObjectMapper(), 0);
+        queueState = new QueueState(new ArrayList<>(), false, Long.MAX_VALUE, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void subscribe() {
+        assertNotNull(broadcaster.subscribe(TOPIC, queueState));
+        assertNotNull(broadcaster.subscribe(TOPIC, queueState));
+        assertNotNull(broadcaster.subscribe(StateBroadcaster.MULTI_PREFIX + 1, queueState));
+
+        assertEquals(3, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void publishWithoutSubscribers() {
+        broadcaster.publish(TOPIC, queueState);
+
+        assertEquals(0, broadcaster.getPublished());
+    }
+
+    @Test
+    void publishWithSubscribers() {
+        broadcaster.subscribe(TOPIC, queueState);
+
+        broadcaster.publish(TOPIC, queueState);
+        broadcaster.publish(StateBroadcaster.MULTI_PREFIX + 1, queueState);
+
+        assertEquals(1, broadcaster.getPublished());
+    }
+
+    @Test
+    void closeRemovesSubscribers() throws InterruptedException {
+        broadcaster.subscribe(StateBroadcaster.MULTI_PREFIX + 1, queueState);
+        broadcaster.subscribe(StateBroadcaster.MULTI_PREFIX + 2, queueState);
+
+        broadcaster.close(StateBroadcaster.MULTI_PREFIX + 1);
+
+        // Subscriptions are closed on the thread of the broadcaster.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (broadcaster.getSubscriberCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void publishSendsTheStateAsItWas() throws InterruptedException {
+        List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+        StateBroadcaster recording = recordingBroadcaster(emitters, null, StateBroadcaster.DEFAULT_SEND_TIMEOUT);
+        recording.subscribe(TOPIC, queueState);
+        await(() -> recording.getSent() == 1);
+
+        recording.publish(TOPIC, queueState);
+        queueState.getUsers().add(new QueueUser("late"));
+
+        await(() -> recording.getSent() == 2);
+        assertEquals(2, emitters.get(0).events.size());
+        assertFalse(emitters.get(0).events.get(1).contains("late"));
+        recording.stop();
+    }
+
+    @Test
+    void slowSubscriberDoesNotHoldUpOthers() throws InterruptedException {
+        List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        StateBroadcaster recording = recordingBroadcaster(emitters, release, StateBroadcaster.DEFAULT_SEND_TIMEOUT);
+        recording.subscribe(TOPIC, queueState);
+        String other = StateBroadcaster.MULTI_PREFIX + 1;
+        recording.subscribe(other, queueState);
+        await(() -> emitters.get(1).events.size() == 1);
+
+        recording.publish(other, queueState);
+
+        await(() -> emitters.get(1).events.size() == 2);
+        assertTrue(emitters.get(0).events.isEmpty());
+        release.countDown();
+        recording.stop();
+    }
+
+    @Test
+    void backedUpSubscriberIsDropped() throws InterruptedException {
+        List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        StateBroadcaster recording = recordingBroadcaster(emitters, release, 50);
+        recording.subscribe(TOPIC, queueState);
+        Thread.sleep(100);
+
+        recording.publish(TOPIC, queueState);
+
+        assertEquals(1, recording.getDropped());
+        assertEquals(0, recording.getSubscriberCount());
+        release.countDown();
+        await(() -> emitters.get(0).completed);
+        // The event published after it was backed up is never sent
+        assertEquals(1, emitters.get(0).events.size());
+        recording.stop();
+    }
+
+    @Test
+    void stopRemovesSubscribers() {
+        broadcaster.subscribe(TOPIC, queueState);
+
+        broadcaster.stop();
+
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    private static StateBroadcaster recordingBroadcaster(List<RecordingEmitter> emitters,
+                                                         CountDownLatch stallFirst, long sendTimeout) {
+        return new StateBroadcaster(new ObjectMapper(), 0, 2, sendTimeout) {
+            @Override
+            SseEmitter createEmitter(long timeout) {
+                // Only the first subscriber is slow
+                RecordingEmitter emitter = new RecordingEmitter(emitters.isEmpty() ? stallFirst : null);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * Emitter recording the data of the events sent to it, which can be made to stall like a slow client.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        // Every send waits for this latch, if set
+        private final CountDownLatch release;
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder data = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                data.append(part.getData());
+            }
+            events.add(data.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package server.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private MockCurrentTimeUtils currentTime;
+    private TimerWheel timerWheel;
+
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        currentTime = new MockCurrentTimeUtils();
+        currentTime.currentTime = 1005;
+        timerWheel = new TimerWheel(currentTime, 10, 8);
+
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    void firesAtDeadline() {
+        timerWheel.schedule(1234, () -> fired.add("a"));
+
+        assertEquals(0, timerWheel.advance(1233));
+        assertEquals(List.of(), fired);
+        assertEquals(1, timerWheel.getPendingCount());
+
+        assertEquals(1, timerWheel.advance(1234));
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, timerWheel.getPendingCount());
+    }
+
+    @Test
+    void firesOnlyOnce() {
+        timerWheel.schedule(1010, () -> fired.add("a"));
+
+        timerWheel.advance(1020);
+        timerWheel.advance(2000);
+
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void deadlineInThePast() {
+        timerWheel.schedule(0, () -> fired.add("a"));
+
+        assertEquals(1, timerWheel.advance(1005));
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void deadlineSeveralTurnsAhead() {
+        // 8 buckets of 10ms, so one turn takes 80ms.
+        timerWheel.schedule(1005 + 80 * 3 + 1, () -> fired.add("a"));
+
+        timerWheel.advance(1005 + 80);
+        timerWheel.advance(1005 + 80 * 2);
+        timerWheel.advance(1005 + 80 * 3);
+        assertEquals(List.of(), fired);
+
+        timerWheel.advance(1005 + 80 * 3 + 1);
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void firesInSameBucketSeparately() {
+        timerWheel.schedule(1011, () -> fired.add("a"));
+        timerWheel.schedule(1019, () -> fired.add("b"));
+
+        timerWheel.advance(1015);
+        assertEquals(List.of("a"), fired);
+
+        timerWheel.advance(1019);
+        assertEquals(List.of("a", "b"), fired);
+    }
+
+    @Test
+    void cancel() {
+        TimerWheel.Timeout timeout = timerWheel.schedule(1100, () -> fired.add("a"));
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, timerWheel.getPendingCount());
+
+        assertEquals(0, timerWheel.advance(2000));
+        assertEquals(List.of(), fired);
+    }
+
+    @Test
+    void cancelAfterRun() {
+        TimerWheel.Timeout timeout = timerWheel.schedule(1100, () -> fired.add("a"));
+        timerWheel.advance(1100);
+
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+        assertEquals(0, timerWheel.getPendingCount());
+    }
+
+    @Test
+    void chainedTasksCatchUp() {
+        // Each task schedules the next one 100ms later, like the phases of a game.
+        schedule(1100, 5);
+
+        assertEquals(5, timerWheel.advance(1600));
+        assertEquals(List.of("1100", "1200", "1300", "1400", "1500"), fired);
+    }
+
+    private void schedule(long deadline, int remaining) {
+        timerWheel.schedule(deadline, () -> {
+            fired.add(String.valueOf(deadline));
+            if (remaining > 1) {
+                schedule(deadline + 100, remaining - 1);
+            }
+        });
+    }
+
+    @Test
+    void failingTaskDoesNotStopOthers() {
+        timerWheel.schedule(1010, () -> {
+            throw new IllegalStateException();
+        });
+        timerWheel.schedule(1010, () -> fired.add("a"));
+
+        assertEquals(2, timerWheel.advance(1010));
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void runsOnOwnThread() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(new CurrentTimeUtils(), 1, 16);
+        CountDownLatch latch = new CountDownLatch(1);
+        wheel.schedule(System.currentTimeMillis() + 20, latch::countDown);
+
+        wheel.start();
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            wheel.stop();
+        }
+    }
+}